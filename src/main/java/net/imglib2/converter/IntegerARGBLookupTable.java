@@ -0,0 +1,120 @@
+/*-
+ * #%L
+ * ImgLib2: a general-purpose, multidimensional image processing library.
+ * %%
+ * Copyright (C) 2009 - 2021 Tobias Pietzsch, Stephan Preibisch, Stephan Saalfeld,
+ * John Bogovic, Albert Cardona, Barry DeZonia, Christian Dietz, Jan Funke,
+ * Aivar Grislis, Jonathan Hale, Grant Harris, Stefan Helfrich, Mark Hiner,
+ * Martin Horn, Steffen Jaensch, Lee Kamentsky, Larry Lindsey, Melissa Linkert,
+ * Mark Longair, Brian Northan, Nick Perry, Curtis Rueden, Johannes Schindelin,
+ * Jean-Yves Tinevez and Michael Zinsmaier.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+package net.imglib2.converter;
+
+import java.util.function.DoubleToIntFunction;
+
+import net.imglib2.type.numeric.IntegerType;
+import net.imglib2.type.numeric.RealType;
+import net.imglib2.type.numeric.integer.UnsignedVariableBitLengthType;
+
+/**
+ * Precomputed ARGB values for all values of an {@link IntegerType} with at
+ * most {@link #MAX_SIZE} distinct values (e.g. 8-bit and 16-bit types).
+ * <p>
+ * Used by {@link RealARGBConverter} and {@link RealLUTConverter} to replace
+ * the per-pixel scaling, clamping and color lookup by a single array read.
+ * A table is valid for one source class only, for source types that do not
+ * qualify, {@link #isEmpty()} returns {@code true} and the converter falls
+ * back to per-pixel computation.
+ */
+final class IntegerARGBLookupTable
+{
+	/**
+	 * The maximum number of entries of a table, enough for all 16-bit types.
+	 */
+	static final int MAX_SIZE = 1 << 16;
+
+	private final Class< ? > type;
+
+	private final int offset;
+
+	private final int[] argb;
+
+	private IntegerARGBLookupTable( final Class< ? > type, final int offset, final int[] argb )
+	{
+		this.type = type;
+		this.offset = offset;
+		this.argb = argb;
+	}
+
+	/**
+	 * Create a table for the class of {@code type}, where the ARGB value of
+	 * every possible value is computed by {@code toARGB}. If {@code type} is
+	 * not an {@link IntegerType} with at most {@link #MAX_SIZE} values, an
+	 * empty table is returned.
+	 */
+	static IntegerARGBLookupTable create( final RealType< ? > type, final DoubleToIntFunction toARGB )
+	{
+		// NB: the range of UnsignedVariableBitLengthType depends on the
+		// instance, not on the class, it can therefore not be cached by class.
+		if ( !( type instanceof IntegerType ) || type instanceof UnsignedVariableBitLengthType )
+			return new IntegerARGBLookupTable( type.getClass(), 0, null );
+		final double min = type.getMinValue();
+		final double max = type.getMaxValue();
+		if ( min < Integer.MIN_VALUE || max - min + 1 > MAX_SIZE )
+			return new IntegerARGBLookupTable( type.getClass(), 0, null );
+		final int offset = ( int ) min;
+		final int[] argb = new int[ ( int ) ( max - min ) + 1 ];
+		for ( int i = 0; i < argb.length; ++i )
+			argb[ i ] = toARGB.applyAsInt( offset + i );
+		return new IntegerARGBLookupTable( type.getClass(), offset, argb );
+	}
+
+	/**
+	 * Whether this table was created for the class of {@code type}.
+	 */
+	boolean isFor( final RealType< ? > type )
+	{
+		return type.getClass() == this.type;
+	}
+
+	/**
+	 * True, if this table was created for a type that does not qualify for
+	 * table lookup.
+	 */
+	boolean isEmpty()
+	{
+		return argb == null;
+	}
+
+	/**
+	 * Get the ARGB value of {@code value}, which must be of the type that this
+	 * (non-empty) table was created for.
+	 */
+	int lookup( final RealType< ? > value )
+	{
+		return argb[ ( ( IntegerType< ? > ) value ).getInteger() - offset ];
+	}
+}
@@ -48,6 +48,8 @@ public class RealARGBConverter< R extends RealType< ? > > extends AbstractLinear
 
 	private int alpha = 0xff000000;
 
+	private IntegerARGBLookupTable lookupTable;
+
 	public RealARGBConverter()
 	{
 		super();
@@ -58,18 +60,44 @@ public class RealARGBConverter< R extends RealType< ? > > extends AbstractLinear
 		super( min, max );
 	}
 
+	/**
+	 * For integer types with at most 2<sup>16</sup> values (8-bit and 16-bit
+	 * types), the ARGB values of all possible input values are precomputed
+	 * and looked up. The table is recomputed when min, max or alpha change.
+	 */
 	@Override
 	public void convert( final R input, final ARGBType output )
 	{
-		final double a = input.getRealDouble();
+		IntegerARGBLookupTable table = lookupTable;
+		if ( table == null || !table.isFor( input ) )
+			lookupTable = table = IntegerARGBLookupTable.create( input, this::toARGB );
+		output.set( table.isEmpty() ? toARGB( input.getRealDouble() ) : table.lookup( input ) );
+	}
+
+	private int toARGB( final double a )
+	{
 		final int b = Math.min( 255, roundPositive( Math.max( 0, ( a - min ) / scale * 255.0 ) ) );
-		final int argb = this.alpha | ( b << 8 | b ) << 8 | b;
-		output.set( argb );
+		return this.alpha | ( b << 8 | b ) << 8 | b;
+	}
+
+	@Override
+	public void setMin( final double min )
+	{
+		super.setMin( min );
+		lookupTable = null;
+	}
+
+	@Override
+	public void setMax( final double max )
+	{
+		super.setMax( max );
+		lookupTable = null;
 	}
 
 	public void setAlpha( final int alpha )
 	{
 		this.alpha = ( alpha & 0xff ) << 24;
+		lookupTable = null;
 	}
 
 	public int getAlpha()
@@ -58,6 +58,8 @@ public class RealLUTConverter< R extends RealType< R >> extends
 
 	private ColorTable lut = null;
 
+	private IntegerARGBLookupTable lookupTable;
+
 	public RealLUTConverter()
 	{
 		super();
@@ -78,14 +80,37 @@ public class RealLUTConverter< R extends RealType< R >> extends
 	public void setLUT( final ColorTable lut )
 	{
 		this.lut = lut == null ? new ColorTable8() : lut;
+		lookupTable = null;
 	}
 
+	/**
+	 * For integer types with at most 2<sup>16</sup> values (8-bit and 16-bit
+	 * types), the ARGB values of all possible input values are precomputed
+	 * and looked up. The table is recomputed when min, max or the
+	 * {@link ColorTable} change. If the contents of the {@link ColorTable}
+	 * are modified, {@link #setLUT(ColorTable)} needs to be called again.
+	 */
 	@Override
 	public void convert( final R input, final ARGBType output )
 	{
-		final double a = input.getRealDouble();
-		final int argb = lut.lookupARGB( min, max, a );
-		output.set( argb );
+		IntegerARGBLookupTable table = lookupTable;
+		if ( table == null || !table.isFor( input ) )
+			lookupTable = table = IntegerARGBLookupTable.create( input, a -> lut.lookupARGB( min, max, a ) );
+		output.set( table.isEmpty() ? lut.lookupARGB( min, max, input.getRealDouble() ) : table.lookup( input ) );
+	}
+
+	@Override
+	public void setMin( final double min )
+	{
+		super.setMin( min );
+		lookupTable = null;
+	}
+
+	@Override
+	public void setMax( final double max )
+	{
+		super.setMax( max );
+		lookupTable = null;
 	}
 
 }
@@ -0,0 +1,512 @@
+/*-
+ * #%L
+ * ImgLib2: a general-purpose, multidimensional image processing library.
+ * %%
+ * Copyright (C) 2009 - 2021 Tobias Pietzsch, Stephan Preibisch, Stephan Saalfeld,
+ * John Bogovic, Albert Cardona, Barry DeZonia, Christian Dietz, Jan Funke,
+ * Aivar Grislis, Jonathan Hale, Grant Harris, Stefan Helfrich, Mark Hiner,
+ * Martin Horn, Steffen Jaensch, Lee Kamentsky, Larry Lindsey, Melissa Linkert,
+ * Mark Longair, Brian Northan, Nick Perry, Curtis Rueden, Johannes Schindelin,
+ * Jean-Yves Tinevez and Michael Zinsmaier.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+package net.imglib2.converter;
+
+import net.imglib2.RandomAccessible;
+import net.imglib2.RandomAccessibleInterval;
+import net.imglib2.img.AbstractNativeImg;
+import net.imglib2.img.array.ArrayImg;
+import net.imglib2.img.cell.CellImg;
+import net.imglib2.img.cell.LazyCellImg;
+import net.imglib2.loops.StorageArrays;
+import net.imglib2.type.numeric.RealType;
+import net.imglib2.type.numeric.integer.ByteType;
+import net.imglib2.type.numeric.integer.IntType;
+import net.imglib2.type.numeric.integer.LongType;
+import net.imglib2.type.numeric.integer.ShortType;
+import net.imglib2.type.numeric.integer.UnsignedByteType;
+import net.imglib2.type.numeric.integer.UnsignedIntType;
+import net.imglib2.type.numeric.integer.UnsignedShortType;
+import net.imglib2.type.numeric.real.DoubleType;
+import net.imglib2.type.numeric.real.FloatType;
+
+/**
+ * Fast path of {@link RealTypeConverters#copyFromTo}, that converts the
+ * primitive arrays of {@link ArrayImg}s and {@link CellImg}s directly,
+ * without going through {@link RealType} proxies.
+ * <p>
+ * It is used if source and destination have the same storage layout, i.e.
+ * are {@link ArrayImg}s of equal dimensions or {@link CellImg}s with equal
+ * cell grids, and both pixel types are one of {@link ByteType},
+ * {@link UnsignedByteType}, {@link ShortType}, {@link UnsignedShortType},
+ * {@link IntType}, {@link UnsignedIntType}, {@link LongType},
+ * {@link FloatType} and {@link DoubleType}. The results are identical to the
+ * converters returned by {@link RealTypeConverters#getConverter}. Images
+ * that load their cells on demand, like {@link LazyCellImg}, are copied
+ * pixel by pixel.
+ */
+class RealTypeArrayConverters
+{
+	/**
+	 * Minimal number of pixels per task.
+	 */
+	static final int MIN_PIXELS_PER_CHUNK = 16384;
+
+	/**
+	 * Number of pixels that are converted at once, through a buffer.
+	 */
+	private static final int BUFFER_SIZE = 1024;
+
+	private RealTypeArrayConverters()
+	{
+		// prevent from instantiation
+	}
+
+	/**
+	 * Copies {@code source} to {@code destination}, if both images are
+	 * supported by the fast path.
+	 *
+	 * @return false, if the images are not supported, and nothing was copied.
+	 */
+	static boolean copy( final RandomAccessible< ? > source, final RandomAccessibleInterval< ? > destination )
+	{
+		final Kind dstKind = Kind.of( destination );
+		final Kind srcKind = Kind.of( source );
+		if ( dstKind == null || srcKind == null )
+			return false;
+		final StorageArrays dst = StorageArrays.of( destination, dstKind.arrayClass() );
+		final StorageArrays src = StorageArrays.of( source, srcKind.arrayClass() );
+		if ( dst == null || !dst.matches( src ) )
+			return false;
+		run( src, dst, ( s, d, offset, length, buffers ) -> {
+			if ( srcKind == dstKind )
+				System.arraycopy( s, offset, d, offset, length );
+			else if ( srcKind == Kind.FLOAT )
+				writeFloats( dstKind, ( float[] ) s, offset, d, offset, length );
+			else if ( srcKind == Kind.DOUBLE )
+				writeDoubles( dstKind, ( double[] ) s, offset, d, offset, length );
+			else
+			{
+				readLongs( srcKind, s, offset, buffers.longs, length );
+				writeLongs( dstKind, buffers.longs, d, offset, length );
+			}
+		} );
+		return true;
+	}
+
+	/**
+	 * Sets {@code destination = clamp( source * scale + offset )}, if both
+	 * images are supported by the fast path. See
+	 * {@link RealTypeConverters#copyFromTo(RandomAccessible, RandomAccessibleInterval, double, double)}.
+	 *
+	 * @return false, if the images are not supported, and nothing was copied.
+	 */
+	static boolean copy( final RandomAccessible< ? > source, final RandomAccessibleInterval< ? > destination, final double scale, final double offset )
+	{
+		final Kind dstKind = Kind.of( destination );
+		final Kind srcKind = Kind.of( source );
+		if ( dstKind == null || srcKind == null )
+			return false;
+		final StorageArrays dst = StorageArrays.of( destination, dstKind.arrayClass() );
+		final StorageArrays src = StorageArrays.of( source, srcKind.arrayClass() );
+		if ( dst == null || !dst.matches( src ) )
+			return false;
+		final RealType< ? > type = ( RealType< ? > ) ( ( AbstractNativeImg< ?, ? > ) destination ).createLinkedType();
+		final double min = type.getMinValue();
+		final double max = type.getMaxValue();
+		run( src, dst, ( s, d, from, length, buffers ) -> {
+			final double[] values = buffers.doubles;
+			readDoubles( srcKind, s, from, values, buffers.longs, length );
+			for ( int i = 0; i < length; ++i )
+				values[ i ] = values[ i ] * scale + offset;
+			if ( dstKind.isInteger() )
+				for ( int i = 0; i < length; ++i )
+					values[ i ] = RealTypeConverters.clamp( values[ i ], min, max );
+			writeDoubles( dstKind, values, 0, d, from, length );
+		} );
+		return true;
+	}
+
+	// -- Conversion kernels --
+
+	/**
+	 * The supported pixel types.
+	 */
+	private enum Kind
+	{
+		BYTE, UNSIGNED_BYTE, SHORT, UNSIGNED_SHORT, INT, UNSIGNED_INT, LONG, FLOAT, DOUBLE;
+
+		private boolean isInteger()
+		{
+			return this != FLOAT && this != DOUBLE;
+		}
+
+		/**
+		 * Returns the kind of the pixels of the image, or null if the image
+		 * is not a native image of a supported type.
+		 */
+		private static Kind of( final RandomAccessible< ? > image )
+		{
+			if ( !( image instanceof AbstractNativeImg ) )
+				return null;
+			final Class< ? > type = ( ( AbstractNativeImg< ?, ? > ) image ).createLinkedType().getClass();
+			if ( type == ByteType.class )
+				return BYTE;
+			if ( type == UnsignedByteType.class )
+				return UNSIGNED_BYTE;
+			if ( type == ShortType.class )
+				return SHORT;
+			if ( type == UnsignedShortType.class )
+				return UNSIGNED_SHORT;
+			if ( type == IntType.class )
+				return INT;
+			if ( type == UnsignedIntType.class )
+				return UNSIGNED_INT;
+			if ( type == LongType.class )
+				return LONG;
+			if ( type == FloatType.class )
+				return FLOAT;
+			if ( type == DoubleType.class )
+				return DOUBLE;
+			return null;
+		}
+
+		/**
+		 * Returns the class of the storage arrays of this kind.
+		 */
+		private Class< ? > arrayClass()
+		{
+			switch ( this )
+			{
+			case BYTE:
+			case UNSIGNED_BYTE:
+				return byte[].class;
+			case SHORT:
+			case UNSIGNED_SHORT:
+				return short[].class;
+			case INT:
+			case UNSIGNED_INT:
+				return int[].class;
+			case LONG:
+				return long[].class;
+			case FLOAT:
+				return float[].class;
+			default:
+				return double[].class;
+			}
+		}
+	}
+
+	/**
+	 * Reads the values of integer pixels, as {@link RealType#getRealDouble()}.
+	 */
+	private static void readLongs( final Kind kind, final Object array, final int offset, final long[] values, final int length )
+	{
+		switch ( kind )
+		{
+		case BYTE:
+		{
+			final byte[] a = ( byte[] ) array;
+			for ( int i = 0; i < length; ++i )
+				values[ i ] = a[ offset + i ];
+			break;
+		}
+		case UNSIGNED_BYTE:
+		{
+			final byte[] a = ( byte[] ) array;
+			for ( int i = 0; i < length; ++i )
+				values[ i ] = a[ offset + i ] & 0xff;
+			break;
+		}
+		case SHORT:
+		{
+			final short[] a = ( short[] ) array;
+			for ( int i = 0; i < length; ++i )
+				values[ i ] = a[ offset + i ];
+			break;
+		}
+		case UNSIGNED_SHORT:
+		{
+			final short[] a = ( short[] ) array;
+			for ( int i = 0; i < length; ++i )
+				values[ i ] = a[ offset + i ] & 0xffff;
+			break;
+		}
+		case INT:
+		{
+			final int[] a = ( int[] ) array;
+			for ( int i = 0; i < length; ++i )
+				values[ i ] = a[ offset + i ];
+			break;
+		}
+		case UNSIGNED_INT:
+		{
+			final int[] a = ( int[] ) array;
+			for ( int i = 0; i < length; ++i )
+				values[ i ] = a[ offset + i ] & 0xffffffffL;
+			break;
+		}
+		case LONG:
+			System.arraycopy( array, offset, values, 0, length );
+			break;
+		default:
+			throw new IllegalArgumentException( "Not an integer type: " + kind );
+		}
+	}
+
+	/**
+	 * Reads the values of the pixels as double.
+	 */
+	private static void readDoubles( final Kind kind, final Object array, final int offset, final double[] values, final long[] buffer, final int length )
+	{
+		if ( kind == Kind.DOUBLE )
+			System.arraycopy( array, offset, values, 0, length );
+		else if ( kind == Kind.FLOAT )
+		{
+			final float[] a = ( float[] ) array;
+			for ( int i = 0; i < length; ++i )
+				values[ i ] = a[ offset + i ];
+		}
+		else
+		{
+			readLongs( kind, array, offset, buffer, length );
+			for ( int i = 0; i < length; ++i )
+				values[ i ] = buffer[ i ];
+		}
+	}
+
+	/**
+	 * Writes integer values, as {@link net.imglib2.type.numeric.IntegerType#setInteger(long)}.
+	 */
+	private static void writeLongs( final Kind kind, final long[] values, final Object array, final int offset, final int length )
+	{
+		switch ( kind )
+		{
+		case BYTE:
+		case UNSIGNED_BYTE:
+		{
+			final byte[] a = ( byte[] ) array;
+			for ( int i = 0; i < length; ++i )
+				a[ offset + i ] = ( byte ) values[ i ];
+			break;
+		}
+		case SHORT:
+		case UNSIGNED_SHORT:
+		{
+			final short[] a = ( short[] ) array;
+			for ( int i = 0; i < length; ++i )
+				a[ offset + i ] = ( short ) values[ i ];
+			break;
+		}
+		case INT:
+		case UNSIGNED_INT:
+		{
+			final int[] a = ( int[] ) array;
+			for ( int i = 0; i < length; ++i )
+				a[ offset + i ] = ( int ) values[ i ];
+			break;
+		}
+		case LONG:
+			System.arraycopy( values, 0, array, offset, length );
+			break;
+		case FLOAT:
+		{
+			final float[] a = ( float[] ) array;
+			for ( int i = 0; i < length; ++i )
+				a[ offset + i ] = values[ i ];
+			break;
+		}
+		case DOUBLE:
+		{
+			final double[] a = ( double[] ) array;
+			for ( int i = 0; i < length; ++i )
+				a[ offset + i ] = values[ i ];
+			break;
+		}
+		}
+	}
+
+	/**
+	 * Writes float values, as {@link RealType#setReal(float)}.
+	 */
+	private static void writeFloats( final Kind kind, final float[] values, final int valuesOffset, final Object array, final int offset, final int length )
+	{
+		switch ( kind )
+		{
+		case BYTE:
+		case UNSIGNED_BYTE:
+		{
+			final byte[] a = ( byte[] ) array;
+			for ( int i = 0; i < length; ++i )
+				a[ offset + i ] = ( byte ) roundToInt( values[ valuesOffset + i ] );
+			break;
+		}
+		case SHORT:
+		case UNSIGNED_SHORT:
+		{
+			final short[] a = ( short[] ) array;
+			for ( int i = 0; i < length; ++i )
+				a[ offset + i ] = ( short ) roundToInt( values[ valuesOffset + i ] );
+			break;
+		}
+		case INT:
+		{
+			final int[] a = ( int[] ) array;
+			for ( int i = 0; i < length; ++i )
+				a[ offset + i ] = roundToInt( values[ valuesOffset + i ] );
+			break;
+		}
+		case UNSIGNED_INT:
+		{
+			final int[] a = ( int[] ) array;
+			for ( int i = 0; i < length; ++i )
+				a[ offset + i ] = ( int ) roundToLong( values[ valuesOffset + i ] );
+			break;
+		}
+		case LONG:
+		{
+			final long[] a = ( long[] ) array;
+			for ( int i = 0; i < length; ++i )
+				a[ offset + i ] = roundToLong( values[ valuesOffset + i ] );
+			break;
+		}
+		case FLOAT:
+			System.arraycopy( values, valuesOffset, array, offset, length );
+			break;
+		case DOUBLE:
+		{
+			final double[] a = ( double[] ) array;
+			for ( int i = 0; i < length; ++i )
+				a[ offset + i ] = values[ valuesOffset + i ];
+			break;
+		}
+		}
+	}
+
+	/**
+	 * Writes double values, as {@link RealType#setReal(double)}.
+	 */
+	private static void writeDoubles( final Kind kind, final double[] values, final int valuesOffset, final Object array, final int offset, final int length )
+	{
+		switch ( kind )
+		{
+		case BYTE:
+		case UNSIGNED_BYTE:
+		{
+			final byte[] a = ( byte[] ) array;
+			for ( int i = 0; i < length; ++i )
+				a[ offset + i ] = ( byte ) roundToLong( values[ valuesOffset + i ] );
+			break;
+		}
+		case SHORT:
+		case UNSIGNED_SHORT:
+		{
+			final short[] a = ( short[] ) array;
+			for ( int i = 0; i < length; ++i )
+				a[ offset + i ] = ( short ) roundToLong( values[ valuesOffset + i ] );
+			break;
+		}
+		case INT:
+		case UNSIGNED_INT:
+		{
+			final int[] a = ( int[] ) array;
+			for ( int i = 0; i < length; ++i )
+				a[ offset + i ] = ( int ) roundToLong( values[ valuesOffset + i ] );
+			break;
+		}
+		case LONG:
+		{
+			final long[] a = ( long[] ) array;
+			for ( int i = 0; i < length; ++i )
+				a[ offset + i ] = roundToLong( values[ valuesOffset + i ] );
+			break;
+		}
+		case FLOAT:
+		{
+			final float[] a = ( float[] ) array;
+			for ( int i = 0; i < length; ++i )
+				a[ offset + i ] = ( float ) values[ valuesOffset + i ];
+			break;
+		}
+		case DOUBLE:
+			System.arraycopy( values, valuesOffset, array, offset, length );
+			break;
+		}
+	}
+
+	// Same as Util.roundToInt( float ), Util.roundToLong( float ) and
+	// Util.roundToLong( double ), which are used by the integer types.
+
+	private static int roundToInt( final float value )
+	{
+		return ( int ) ( value + ( 0.5f * Math.signum( value ) ) );
+	}
+
+	private static long roundToLong( final float value )
+	{
+		return ( long ) ( value + ( 0.5f * Math.signum( value ) ) );
+	}
+
+	private static long roundToLong( final double value )
+	{
+		return ( long ) ( value + ( 0.5d * Math.signum( value ) ) );
+	}
+
+	// -- Parallelization --
+
+	/**
+	 * Converts {@code length} pixels of the source array, starting at
+	 * {@code offset}, to the destination array.
+	 */
+	private interface Kernel
+	{
+		void apply( Object source, Object destination, int offset, int length, Buffers buffers );
+	}
+
+	/**
+	 * Temporary arrays of one task.
+	 */
+	private static class Buffers
+	{
+		private final long[] longs = new long[ BUFFER_SIZE ];
+
+		private final double[] doubles = new double[ BUFFER_SIZE ];
+	}
+
+	/**
+	 * Applies the kernel to chunks of at least {@link #MIN_PIXELS_PER_CHUNK}
+	 * pixels in parallel, in pieces of {@link #BUFFER_SIZE} pixels, and marks
+	 * the destination dirty.
+	 */
+	private static void run( final StorageArrays source, final StorageArrays destination, final Kernel kernel )
+	{
+		StorageArrays.forEachChunk( 1, MIN_PIXELS_PER_CHUNK, ( arrays, numPixels, from, to ) -> {
+			final Buffers buffers = new Buffers();
+			for ( int offset = from; offset < to; offset += BUFFER_SIZE )
+				kernel.apply( arrays[ 0 ], arrays[ 1 ], offset, Math.min( BUFFER_SIZE, to - offset ), buffers );
+			return null;
+		}, source, destination );
+		destination.setDirty();
+	}
+}
@@ -43,7 +43,9 @@ import net.imglib2.type.numeric.integer.GenericIntType;
 import net.imglib2.type.numeric.integer.GenericShortType;
 import net.imglib2.type.numeric.integer.IntType;
 import net.imglib2.type.numeric.integer.LongType;
+import net.imglib2.type.numeric.real.BFloat16Type;
 import net.imglib2.type.numeric.real.FloatType;
+import net.imglib2.type.numeric.real.HalfFloatType;
 
 import java.util.Arrays;
 
@@ -87,9 +89,16 @@ class RealTypeConverterInternals
 	{
 		if ( ( inputType instanceof FloatType ) || ( outputType instanceof FloatType ) )
 			return FLOAT;
+		if ( isHalfPrecision( inputType ) && isHalfPrecision( outputType ) )
+			return FLOAT;
 		return DOUBLE;
 	}
 
+	private static boolean isHalfPrecision( RealType< ? > variable )
+	{
+		return ( variable instanceof HalfFloatType ) || ( variable instanceof BFloat16Type );
+	}
+
 	private static ConverterFactory integerConverterFactory( RealType< ? > inputType, RealType< ? > outputType )
 	{
 		if ( inputType instanceof LongType || outputType instanceof LongType )
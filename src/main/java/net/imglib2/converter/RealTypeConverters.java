@@ -37,6 +37,7 @@ package net.imglib2.converter;
 import net.imglib2.RandomAccessible;
 import net.imglib2.RandomAccessibleInterval;
 import net.imglib2.loops.LoopBuilder;
+import net.imglib2.type.numeric.IntegerType;
 import net.imglib2.type.numeric.RealType;
 import net.imglib2.type.numeric.integer.ByteType;
 import net.imglib2.type.numeric.integer.IntType;
@@ -65,6 +66,13 @@ public final class RealTypeConverters
 	 * and many more types are supported. A type conversion is done
 	 * if needed.
 	 *
+	 * <p>
+	 * If source and destination are {@link net.imglib2.img.array.ArrayImg
+	 * ArrayImgs} of equal size or {@link net.imglib2.img.cell.CellImg
+	 * CellImgs} with equal cell grids, of primitive types like
+	 * {@link UnsignedByteType}, {@link IntType} or {@link FloatType}, the
+	 * primitive arrays are converted directly and in parallel.
+	 *
 	 * @param source Image that is source of the copy operation.
 	 * @param destination Image that is destination of the copy operation.
 	 */
@@ -73,6 +81,8 @@ public final class RealTypeConverters
 			RandomAccessibleInterval< ? extends RealType< ? > > destination
 	)
 	{
+		if ( RealTypeArrayConverters.copy( source, destination ) )
+			return;
 		IntervalView< ? extends RealType< ? > > sourceInterval = Views.interval( source, destination );
 		RealType< ? > s = Util.getTypeFromInterval( sourceInterval );
 		RealType< ? > d = Util.getTypeFromInterval( destination );
@@ -81,6 +91,49 @@ public final class RealTypeConverters
 		LoopBuilder.setImages( sourceInterval, destination ).multiThreaded( useMultiThreading ).forEachPixel( copy::convert );
 	}
 
+	/**
+	 * Copy the image content from a source image to a destination image,
+	 * applying the linear mapping {@code value * scale + offset}. The area to
+	 * be copied is defined by the destination.
+	 * <p>
+	 * If the destination is an {@link IntegerType}, the mapped values are
+	 * clamped to the range of the destination type and rounded. This can for
+	 * example be used to convert {@link FloatType} to
+	 * {@link net.imglib2.type.numeric.integer.UnsignedShortType} without
+	 * overflow. The same fast path as for
+	 * {@link #copyFromTo(RandomAccessible, RandomAccessibleInterval)} is used.
+	 *
+	 * @param source Image that is source of the copy operation.
+	 * @param destination Image that is destination of the copy operation.
+	 * @param scale factor applied to the source values
+	 * @param offset added to the scaled source values
+	 */
+	public static void copyFromTo(
+			RandomAccessible< ? extends RealType< ? > > source,
+			RandomAccessibleInterval< ? extends RealType< ? > > destination,
+			double scale,
+			double offset
+	)
+	{
+		if ( RealTypeArrayConverters.copy( source, destination, scale, offset ) )
+			return;
+		IntervalView< ? extends RealType< ? > > sourceInterval = Views.interval( source, destination );
+		RealType< ? > d = Util.getTypeFromInterval( destination );
+		boolean clamp = d instanceof IntegerType;
+		double min = d.getMinValue();
+		double max = d.getMaxValue();
+		boolean useMultiThreading = Intervals.numElements( destination ) >= 20_000;
+		LoopBuilder.setImages( sourceInterval, destination ).multiThreaded( useMultiThreading ).forEachPixel( ( s, t ) -> {
+			double value = s.getRealDouble() * scale + offset;
+			t.setReal( clamp ? clamp( value, min, max ) : value );
+		} );
+	}
+
+	static double clamp( double value, double min, double max )
+	{
+		return Math.max( min, Math.min( max, value ) );
+	}
+
 	/**
 	 * Convert the pixel type of the given image to a given output pixel type.
 	 * <p>
@@ -102,4 +102,13 @@ public class ConvertedRandomAccessible< A, B extends Type< B > > extends Abstrac
 	{
 		return converterSupplier.get();
 	}
+
+	/**
+	 * @return the supplier of {@link Converter}s, which provides a converter
+	 *         for every {@link ConvertedRandomAccess}.
+	 */
+	public Supplier< Converter< ? super A, ? super B > > getConverterSupplier()
+	{
+		return converterSupplier;
+	}
 }
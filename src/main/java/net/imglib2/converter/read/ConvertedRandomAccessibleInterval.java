@@ -103,4 +103,21 @@ public class ConvertedRandomAccessibleInterval< A, B extends Type< B > > extends
 	{
 		return converterSupplier.get();
 	}
+
+	/**
+	 * @return the source that is converted.
+	 */
+	public RandomAccessibleInterval< A > getSource()
+	{
+		return sourceInterval;
+	}
+
+	/**
+	 * @return the supplier of {@link Converter}s, which provides a converter
+	 *         for every {@link ConvertedRandomAccess}.
+	 */
+	public Supplier< Converter< ? super A, ? super B > > getConverterSupplier()
+	{
+		return converterSupplier;
+	}
 }
@@ -0,0 +1,294 @@
+/*-
+ * #%L
+ * ImgLib2: a general-purpose, multidimensional image processing library.
+ * %%
+ * Copyright (C) 2009 - 2021 Tobias Pietzsch, Stephan Preibisch, Stephan Saalfeld,
+ * John Bogovic, Albert Cardona, Barry DeZonia, Christian Dietz, Jan Funke,
+ * Aivar Grislis, Jonathan Hale, Grant Harris, Stefan Helfrich, Mark Hiner,
+ * Martin Horn, Steffen Jaensch, Lee Kamentsky, Larry Lindsey, Melissa Linkert,
+ * Mark Longair, Brian Northan, Nick Perry, Curtis Rueden, Johannes Schindelin,
+ * Jean-Yves Tinevez and Michael Zinsmaier.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+package net.imglib2.display.projector;
+
+import java.util.Arrays;
+import java.util.List;
+
+import net.imglib2.Cursor;
+import net.imglib2.FinalInterval;
+import net.imglib2.Interval;
+import net.imglib2.RandomAccessibleInterval;
+import net.imglib2.loops.IntervalChunks;
+import net.imglib2.parallel.Parallelization;
+import net.imglib2.parallel.TaskExecutor;
+import net.imglib2.type.numeric.RealType;
+import net.imglib2.util.Intervals;
+import net.imglib2.view.Views;
+
+/**
+ * Projections (maximum, minimum, sum, mean or a custom {@link Reducer}) of a
+ * {@link RandomAccessibleInterval} along one axis.
+ * <p>
+ * The target is split into blocks that are processed in parallel by the
+ * {@link TaskExecutor} returned by {@link Parallelization#getTaskExecutor()}.
+ * For each block, the corresponding part of the source is traversed once in
+ * flat iteration order, i.e. in storage order for {@code ArrayImg} and
+ * {@code PlanarImg}, and every source value is accumulated into a
+ * {@code double[]} buffer of the size of the target block. Projecting along
+ * the plane axis of a {@code PlanarImg} therefore streams through the planes
+ * one after the other, instead of jumping between planes for every target
+ * pixel.
+ *
+ * <pre>
+ * {@code
+ * RandomAccessibleInterval< FloatType > mip = ArrayImgs.floats( width, height );
+ * Projections.max( volume, 2, mip );
+ * }
+ * </pre>
+ */
+public final class Projections
+{
+	private Projections()
+	{
+		// prevent from instantiation
+	}
+
+	/**
+	 * Combines values along the projected axis. The accumulated value of a
+	 * target pixel starts with {@link #identity()}, every source value is
+	 * combined with {@link #accumulate(double, double)}, and the target is set
+	 * to the result of {@link #finish(double, long)}.
+	 */
+	public interface Reducer
+	{
+		double identity();
+
+		double accumulate( double accumulated, double value );
+
+		/**
+		 * @param accumulated
+		 *            the accumulated value
+		 * @param count
+		 *            the number of accumulated values, i.e. the size of the
+		 *            source along the projected axis
+		 */
+		default double finish( final double accumulated, final long count )
+		{
+			return accumulated;
+		}
+	}
+
+	/**
+	 * Standard {@link Reducer}s.
+	 */
+	public enum Reduction implements Reducer
+	{
+		MAX
+		{
+			@Override
+			public double identity()
+			{
+				return Double.NEGATIVE_INFINITY;
+			}
+
+			@Override
+			public double accumulate( final double accumulated, final double value )
+			{
+				return Math.max( accumulated, value );
+			}
+		},
+		MIN
+		{
+			@Override
+			public double identity()
+			{
+				return Double.POSITIVE_INFINITY;
+			}
+
+			@Override
+			public double accumulate( final double accumulated, final double value )
+			{
+				return Math.min( accumulated, value );
+			}
+		},
+		SUM
+		{
+			@Override
+			public double identity()
+			{
+				return 0;
+			}
+
+			@Override
+			public double accumulate( final double accumulated, final double value )
+			{
+				return accumulated + value;
+			}
+		},
+		MEAN
+		{
+			@Override
+			public double identity()
+			{
+				return 0;
+			}
+
+			@Override
+			public double accumulate( final double accumulated, final double value )
+			{
+				return accumulated + value;
+			}
+
+			@Override
+			public double finish( final double accumulated, final long count )
+			{
+				return accumulated / count;
+			}
+		}
+	}
+
+	/**
+	 * Maximum of a target block buffer, in number of elements.
+	 */
+	private static final long MAX_BLOCK_SIZE = 1 << 20;
+
+	/**
+	 * Maximum intensity projection of {@code source} along {@code axis}.
+	 */
+	public static < S extends RealType< S >, T extends RealType< T > > void max( final RandomAccessibleInterval< S > source, final int axis, final RandomAccessibleInterval< T > target )
+	{
+		project( source, axis, target, Reduction.MAX );
+	}
+
+	/**
+	 * Minimum intensity projection of {@code source} along {@code axis}.
+	 */
+	public static < S extends RealType< S >, T extends RealType< T > > void min( final RandomAccessibleInterval< S > source, final int axis, final RandomAccessibleInterval< T > target )
+	{
+		project( source, axis, target, Reduction.MIN );
+	}
+
+	/**
+	 * Sum projection of {@code source} along {@code axis}.
+	 */
+	public static < S extends RealType< S >, T extends RealType< T > > void sum( final RandomAccessibleInterval< S > source, final int axis, final RandomAccessibleInterval< T > target )
+	{
+		project( source, axis, target, Reduction.SUM );
+	}
+
+	/**
+	 * Average intensity projection of {@code source} along {@code axis}.
+	 */
+	public static < S extends RealType< S >, T extends RealType< T > > void mean( final RandomAccessibleInterval< S > source, final int axis, final RandomAccessibleInterval< T > target )
+	{
+		project( source, axis, target, Reduction.MEAN );
+	}
+
+	/**
+	 * Project {@code source} along {@code axis} into {@code target} using the
+	 * given {@link Reducer}. The target has one dimension less than the
+	 * source, its dimensions must equal the source dimensions without
+	 * {@code axis}.
+	 */
+	public static < S extends RealType< S >, T extends RealType< T > > void project(
+			final RandomAccessibleInterval< S > source,
+			final int axis,
+			final RandomAccessibleInterval< T > target,
+			final Reducer reducer )
+	{
+		checkDimensions( source, axis, target );
+		if ( Intervals.isEmpty( source ) )
+			return;
+		final TaskExecutor taskExecutor = Parallelization.getTaskExecutor();
+		final long numBlocks = Math.max( taskExecutor.suggestNumberOfTasks(), Intervals.numElements( target ) / MAX_BLOCK_SIZE );
+		final List< Interval > blocks = IntervalChunks.chunkInterval( target, ( int ) Math.min( numBlocks, Integer.MAX_VALUE ) );
+		taskExecutor.forEach( blocks, block -> projectBlock( source, axis, target, reducer, block ) );
+	}
+
+	private static < S extends RealType< S >, T extends RealType< T > > void projectBlock(
+			final RandomAccessibleInterval< S > source,
+			final int axis,
+			final RandomAccessibleInterval< T > target,
+			final Reducer reducer,
+			final Interval block )
+	{
+		// the part of the source that is projected into the block
+		final int n = source.numDimensions();
+		final long[] min = new long[ n ];
+		final long[] max = new long[ n ];
+		for ( int d = 0, td = 0; d < n; ++d )
+		{
+			if ( d == axis )
+			{
+				min[ d ] = source.min( d );
+				max[ d ] = source.max( d );
+			}
+			else
+			{
+				min[ d ] = source.min( d ) + block.min( td ) - target.min( td );
+				max[ d ] = min[ d ] + block.dimension( td ) - 1;
+				++td;
+			}
+		}
+
+		// in flat iteration order, the source is traversed as
+		// outer x axis x inner, where inner (outer) are the dimensions
+		// before (after) the projected axis
+		int inner = 1;
+		for ( int d = 0; d < axis; ++d )
+			inner *= max[ d ] - min[ d ] + 1;
+		final int outer = ( int ) ( Intervals.numElements( block ) / inner );
+		final long length = source.dimension( axis );
+
+		final double[] accumulated = new double[ inner * outer ];
+		Arrays.fill( accumulated, reducer.identity() );
+
+		final Cursor< S > in = Views.flatIterable( Views.interval( source, new FinalInterval( min, max ) ) ).cursor();
+		for ( int o = 0; o < outer; ++o )
+		{
+			final int offset = o * inner;
+			for ( long k = 0; k < length; ++k )
+				for ( int i = 0; i < inner; ++i )
+					accumulated[ offset + i ] = reducer.accumulate( accumulated[ offset + i ], in.next().getRealDouble() );
+		}
+
+		final Cursor< T > out = Views.flatIterable( Views.interval( target, block ) ).cursor();
+		for ( int i = 0; i < accumulated.length; ++i )
+			out.next().setReal( reducer.finish( accumulated[ i ], length ) );
+	}
+
+	private static void checkDimensions( final Interval source, final int axis, final Interval target )
+	{
+		final int n = source.numDimensions();
+		if ( n < 2 )
+			throw new IllegalArgumentException( "Projections, the source must have at least two dimensions." );
+		if ( axis < 0 || axis >= n )
+			throw new IllegalArgumentException( "Projections, axis " + axis + " is out of bounds for a " + n + "D source." );
+		final long[] expected = Intervals.dimensionsAsLongArray( Intervals.hyperSlice( source, axis ) );
+		if ( !Arrays.equals( expected, Intervals.dimensionsAsLongArray( target ) ) )
+			throw new IllegalArgumentException( "Projections, target dimensions " + Arrays.toString( Intervals.dimensionsAsLongArray( target ) )
+					+ " do not match the source dimensions without axis " + axis + ": " + Arrays.toString( expected ) + "." );
+	}
+}
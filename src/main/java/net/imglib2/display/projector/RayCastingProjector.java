@@ -0,0 +1,499 @@
+/*-
+ * #%L
+ * ImgLib2: a general-purpose, multidimensional image processing library.
+ * %%
+ * Copyright (C) 2009 - 2021 Tobias Pietzsch, Stephan Preibisch, Stephan Saalfeld,
+ * John Bogovic, Albert Cardona, Barry DeZonia, Christian Dietz, Jan Funke,
+ * Aivar Grislis, Jonathan Hale, Grant Harris, Stefan Helfrich, Mark Hiner,
+ * Martin Horn, Steffen Jaensch, Lee Kamentsky, Larry Lindsey, Melissa Linkert,
+ * Mark Longair, Brian Northan, Nick Perry, Curtis Rueden, Johannes Schindelin,
+ * Jean-Yves Tinevez and Michael Zinsmaier.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+package net.imglib2.display.projector;
+
+import java.util.List;
+
+import net.imglib2.Cursor;
+import net.imglib2.FinalInterval;
+import net.imglib2.Interval;
+import net.imglib2.RandomAccessible;
+import net.imglib2.RandomAccessibleInterval;
+import net.imglib2.RealPoint;
+import net.imglib2.RealRandomAccess;
+import net.imglib2.RealRandomAccessible;
+import net.imglib2.converter.Converter;
+import net.imglib2.interpolation.InterpolatorFactory;
+import net.imglib2.img.array.ArrayImg;
+import net.imglib2.img.basictypeaccess.array.IntArray;
+import net.imglib2.loops.IntervalChunks;
+import net.imglib2.parallel.Parallelization;
+import net.imglib2.parallel.TaskExecutor;
+import net.imglib2.transform.AffineGet;
+import net.imglib2.transform.AffineTransform;
+import net.imglib2.type.numeric.ARGBType;
+import net.imglib2.type.numeric.RealType;
+import net.imglib2.util.IntervalIndexer;
+import net.imglib2.util.Intervals;
+import net.imglib2.view.Views;
+
+/**
+ * Renders a 3D volume into a 2D ARGB image by casting one ray per target
+ * pixel along an arbitrary view direction. The volume is sampled through an
+ * {@link InterpolatorFactory} at unit steps along the ray. Supported modes
+ * are maximum and minimum intensity projection and front-to-back alpha
+ * compositing, where the {@link Converter} acts as transfer function and
+ * the alpha channel of its result is the opacity of a sample.
+ * <p>
+ * The view is given as a 3D {@link AffineGet} that maps target
+ * coordinates {@code (x, y, s)} to volume coordinates, where {@code s} is
+ * the sample index along the ray, {@code 0 <= s < numSteps}. Rays are clipped
+ * to the volume interval.
+ * <p>
+ * To skip empty space, the minimum and maximum value of every cell of a
+ * coarse grid over the volume are precomputed. Cells that cannot change
+ * the result of a ray (e.g. all values below the current maximum in
+ * {@link Mode#MAX} mode, or below {@link #setTransparentBelow(double)} in
+ * {@link Mode#ALPHA} mode) are jumped over without sampling. The cell bounds
+ * include a margin of one voxel, so skipping is exact for nearest-neighbor
+ * and n-linear interpolation; use cell size 0 to disable it for
+ * interpolators with larger support. Compositing stops as soon as the
+ * accumulated opacity reaches {@link #OPAQUE}.
+ * <p>
+ * Rows of the target are rendered in parallel by the {@link TaskExecutor}
+ * returned by {@link Parallelization#getTaskExecutor()}, the converter
+ * therefore needs to be thread safe.
+ */
+public class RayCastingProjector< T extends RealType< T > > implements Projector
+{
+	public enum Mode
+	{
+		/**
+		 * Maximum intensity projection.
+		 */
+		MAX,
+		/**
+		 * Minimum intensity projection.
+		 */
+		MIN,
+		/**
+		 * Front-to-back alpha compositing over black.
+		 */
+		ALPHA
+	}
+
+	/**
+	 * Accumulated opacity at which a ray is terminated in {@link Mode#ALPHA}
+	 * mode.
+	 */
+	public static final double OPAQUE = 0.99;
+
+	private final RandomAccessibleInterval< T > volume;
+
+	private final RealRandomAccessible< T > interpolated;
+
+	private final ArrayImg< ARGBType, IntArray > target;
+
+	private final Converter< ? super T, ARGBType > converter;
+
+	private final AffineTransform view = new AffineTransform( 3, 3 );
+
+	private int numSteps;
+
+	private Mode mode = Mode.MAX;
+
+	private double transparentBelow = Double.NEGATIVE_INFINITY;
+
+	// empty-space skipping
+
+	private final int cellSize;
+
+	private final long[] gridDimensions;
+
+	private final double[] cellMin;
+
+	private final double[] cellMax;
+
+	private final double globalMin;
+
+	private final double globalMax;
+
+	/**
+	 * @param volume
+	 *            the 3D volume
+	 * @param interpolatorFactory
+	 *            used to sample the volume along the rays
+	 * @param cellSize
+	 *            edge length of the grid cells for empty-space skipping, 0
+	 *            disables skipping
+	 * @param target
+	 *            the 2D target image
+	 * @param converter
+	 *            transfer function from volume values to ARGB
+	 */
+	public RayCastingProjector(
+			final RandomAccessibleInterval< T > volume,
+			final InterpolatorFactory< T, RandomAccessible< T > > interpolatorFactory,
+			final int cellSize,
+			final ArrayImg< ARGBType, IntArray > target,
+			final Converter< ? super T, ARGBType > converter )
+	{
+		if ( volume.numDimensions() != 3 )
+			throw new IllegalArgumentException( "RayCastingProjector, expected a 3D volume but got " + volume.numDimensions() + "D." );
+		if ( target.numDimensions() != 2 )
+			throw new IllegalArgumentException( "RayCastingProjector, expected a 2D target but got " + target.numDimensions() + "D." );
+		this.volume = volume;
+		this.interpolated = Views.interpolate( Views.extendBorder( volume ), interpolatorFactory );
+		this.cellSize = Math.max( 0, cellSize );
+		this.target = target;
+		this.converter = converter;
+		numSteps = ( int ) Math.max( volume.dimension( 0 ), Math.max( volume.dimension( 1 ), volume.dimension( 2 ) ) );
+
+		if ( this.cellSize > 0 )
+		{
+			gridDimensions = new long[ 3 ];
+			for ( int d = 0; d < 3; ++d )
+				gridDimensions[ d ] = ( volume.dimension( d ) + this.cellSize - 1 ) / this.cellSize;
+			final int numCells = ( int ) Intervals.numElements( gridDimensions );
+			cellMin = new double[ numCells ];
+			cellMax = new double[ numCells ];
+			computeCellRanges();
+			double min = Double.POSITIVE_INFINITY;
+			double max = Double.NEGATIVE_INFINITY;
+			for ( int i = 0; i < numCells; ++i )
+			{
+				min = Math.min( min, cellMin[ i ] );
+				max = Math.max( max, cellMax[ i ] );
+			}
+			globalMin = min;
+			globalMax = max;
+		}
+		else
+		{
+			gridDimensions = null;
+			cellMin = null;
+			cellMax = null;
+			globalMin = Double.NEGATIVE_INFINITY;
+			globalMax = Double.POSITIVE_INFINITY;
+		}
+	}
+
+	/**
+	 * Set the 3D affine that maps target coordinates {@code (x, y, s)} to
+	 * volume coordinates. The affine is copied.
+	 */
+	public void setViewTransform( final AffineGet affine )
+	{
+		view.set( affine );
+	}
+
+	/**
+	 * Set the number of samples along each ray.
+	 */
+	public void setNumSteps( final int numSteps )
+	{
+		this.numSteps = numSteps;
+	}
+
+	public void setMode( final Mode mode )
+	{
+		this.mode = mode;
+	}
+
+	/**
+	 * In {@link Mode#ALPHA} mode, samples with values less than or equal to
+	 * {@code threshold} are treated as fully transparent and are not passed
+	 * to the converter.
+	 */
+	public void setTransparentBelow( final double threshold )
+	{
+		this.transparentBelow = threshold;
+	}
+
+	@Override
+	public void map()
+	{
+		final TaskExecutor taskExecutor = Parallelization.getTaskExecutor();
+		final List< Interval > rows = IntervalChunks.chunkInterval( new FinalInterval( target.dimension( 1 ) ), taskExecutor.suggestNumberOfTasks() );
+		final int[] data = target.update( null ).getCurrentStorageArray();
+		taskExecutor.forEach( rows, chunk -> mapRows( data, chunk.min( 0 ), chunk.max( 0 ) ) );
+	}
+
+	private void mapRows( final int[] data, final long minRow, final long maxRow )
+	{
+		final RealRandomAccess< T > access = interpolated.realRandomAccess();
+		final T value = volume.randomAccess().get().createVariable();
+		final ARGBType argb = new ARGBType();
+		final Ray ray = new Ray();
+		final int width = ( int ) target.dimension( 0 );
+		final long minX = target.min( 0 );
+		final long minY = target.min( 1 );
+		for ( long y = minRow; y <= maxRow; ++y )
+		{
+			int o = ( int ) y * width;
+			for ( int x = 0; x < width; ++x, ++o )
+			{
+				ray.set( minX + x, minY + y );
+				data[ o ] = ray.clip() ? castRay( ray, access, value, argb ) : 0;
+			}
+		}
+	}
+
+	private int castRay( final Ray ray, final RealRandomAccess< T > access, final T value, final ARGBType argb )
+	{
+		switch ( mode )
+		{
+		case ALPHA:
+			return composite( ray, access, argb );
+		case MIN:
+			return project( ray, access, value, argb, -1 );
+		case MAX:
+		default:
+			return project( ray, access, value, argb, 1 );
+		}
+	}
+
+	/**
+	 * Maximum ({@code sign = 1}) or minimum ({@code sign = -1}) intensity
+	 * projection. With {@code sign = -1} all comparisons are done on negated
+	 * values.
+	 */
+	private int project( final Ray ray, final RealRandomAccess< T > access, final T value, final ARGBType argb, final int sign )
+	{
+		final double[] cellBound = sign > 0 ? cellMax : cellMin;
+		final double bound = sign * ( sign > 0 ? globalMax : globalMin );
+		double best = Double.NEGATIVE_INFINITY;
+		boolean positioned = false;
+		for ( long s = ray.first; s <= ray.last; )
+		{
+			if ( cellBound != null )
+			{
+				final int cell = ray.cell( s );
+				if ( sign * cellBound[ cell ] <= best )
+				{
+					s = ray.exitCell( s, cell );
+					positioned = false;
+					continue;
+				}
+			}
+			if ( positioned )
+				access.move( ray.step );
+			else
+			{
+				access.setPosition( ray.position( s ) );
+				positioned = true;
+			}
+			best = Math.max( best, sign * access.get().getRealDouble() );
+			if ( best >= bound )
+				break;
+			++s;
+		}
+		if ( best == Double.NEGATIVE_INFINITY )
+			return 0;
+		value.setReal( sign * best );
+		converter.convert( value, argb );
+		return argb.get();
+	}
+
+	private int composite( final Ray ray, final RealRandomAccess< T > access, final ARGBType argb )
+	{
+		double a = 0, r = 0, g = 0, b = 0;
+		boolean positioned = false;
+		for ( long s = ray.first; s <= ray.last; )
+		{
+			if ( cellMax != null )
+			{
+				final int cell = ray.cell( s );
+				if ( cellMax[ cell ] <= transparentBelow )
+				{
+					s = ray.exitCell( s, cell );
+					positioned = false;
+					continue;
+				}
+			}
+			if ( positioned )
+				access.move( ray.step );
+			else
+			{
+				access.setPosition( ray.position( s ) );
+				positioned = true;
+			}
+			++s;
+			final T sample = access.get();
+			if ( sample.getRealDouble() <= transparentBelow )
+				continue;
+			converter.convert( sample, argb );
+			final int c = argb.get();
+			final double w = ( 1 - a ) * ARGBType.alpha( c ) / 255.0;
+			r += w * ARGBType.red( c );
+			g += w * ARGBType.green( c );
+			b += w * ARGBType.blue( c );
+			a += w;
+			if ( a >= OPAQUE )
+				break;
+		}
+		return ARGBType.rgba( Math.min( 255, r ), Math.min( 255, g ), Math.min( 255, b ), Math.min( 255, a * 255 ) );
+	}
+
+	/**
+	 * The ray through one target pixel.
+	 */
+	private final class Ray
+	{
+		final double[] origin = new double[ 3 ];
+
+		final double[] direction = new double[ 3 ];
+
+		final RealPoint step = new RealPoint( 3 );
+
+		final double[] position = new double[ 3 ];
+
+		/**
+		 * Index of the first and last sample inside the volume.
+		 */
+		long first, last;
+
+		Ray()
+		{
+			for ( int d = 0; d < 3; ++d )
+			{
+				direction[ d ] = view.get( d, 2 );
+				step.setPosition( direction[ d ], d );
+			}
+		}
+
+		void set( final long x, final long y )
+		{
+			for ( int d = 0; d < 3; ++d )
+			{
+				origin[ d ] = view.get( d, 0 ) * x + view.get( d, 1 ) * y + view.get( d, 3 );
+			}
+		}
+
+		/**
+		 * Clip the ray to the volume interval, returns false if the ray
+		 * misses the volume.
+		 */
+		boolean clip()
+		{
+			double enter = 0;
+			double exit = numSteps - 1;
+			for ( int d = 0; d < 3; ++d )
+			{
+				final double min = volume.min( d );
+				final double max = volume.max( d );
+				if ( direction[ d ] == 0 )
+				{
+					if ( origin[ d ] < min || origin[ d ] > max )
+						return false;
+				}
+				else
+				{
+					final double t0 = ( min - origin[ d ] ) / direction[ d ];
+					final double t1 = ( max - origin[ d ] ) / direction[ d ];
+					enter = Math.max( enter, Math.min( t0, t1 ) );
+					exit = Math.min( exit, Math.max( t0, t1 ) );
+				}
+			}
+			first = ( long ) Math.ceil( enter );
+			last = ( long ) Math.floor( exit );
+			return first <= last;
+		}
+
+		double[] position( final long s )
+		{
+			for ( int d = 0; d < 3; ++d )
+				position[ d ] = origin[ d ] + s * direction[ d ];
+			return position;
+		}
+
+		/**
+		 * Index of the grid cell containing sample {@code s}.
+		 */
+		int cell( final long s )
+		{
+			long index = 0;
+			for ( int d = 2; d >= 0; --d )
+			{
+				final double p = origin[ d ] + s * direction[ d ] - volume.min( d );
+				final long c = Math.max( 0, Math.min( gridDimensions[ d ] - 1, ( long ) ( p / cellSize ) ) );
+				index = index * gridDimensions[ d ] + c;
+			}
+			return ( int ) index;
+		}
+
+		/**
+		 * Index of the first sample after {@code s} that is outside
+		 * {@code cell}.
+		 */
+		long exitCell( final long s, final int cell )
+		{
+			double exit = Double.POSITIVE_INFINITY;
+			long index = cell;
+			for ( int d = 0; d < 3; ++d )
+			{
+				final long c = index % gridDimensions[ d ];
+				index /= gridDimensions[ d ];
+				if ( direction[ d ] != 0 )
+				{
+					final double min = volume.min( d ) + c * cellSize;
+					final double bound = direction[ d ] > 0 ? min + cellSize : min;
+					exit = Math.min( exit, ( bound - origin[ d ] ) / direction[ d ] );
+				}
+			}
+			return Math.max( s + 1, ( long ) Math.ceil( exit ) );
+		}
+	}
+
+	private void computeCellRanges()
+	{
+		final List< Interval > cells = IntervalChunks.chunkInterval( new FinalInterval( cellMin.length ), Parallelization.getTaskExecutor().suggestNumberOfTasks() );
+		Parallelization.getTaskExecutor().forEach( cells, chunk -> {
+			final long[] cellPosition = new long[ 3 ];
+			final long[] min = new long[ 3 ];
+			final long[] max = new long[ 3 ];
+			for ( long i = chunk.min( 0 ); i <= chunk.max( 0 ); ++i )
+			{
+				IntervalIndexer.indexToPosition( i, gridDimensions, cellPosition );
+				for ( int d = 0; d < 3; ++d )
+				{
+					// NB: one voxel margin for the support of the interpolator
+					min[ d ] = Math.max( volume.min( d ), volume.min( d ) + cellPosition[ d ] * cellSize - 1 );
+					max[ d ] = Math.min( volume.max( d ), volume.min( d ) + ( cellPosition[ d ] + 1 ) * cellSize );
+				}
+				double cMin = Double.POSITIVE_INFINITY;
+				double cMax = Double.NEGATIVE_INFINITY;
+				final Cursor< T > cursor = Views.flatIterable( Views.interval( volume, min, max ) ).cursor();
+				while ( cursor.hasNext() )
+				{
+					final double v = cursor.next().getRealDouble();
+					cMin = Math.min( cMin, v );
+					cMax = Math.max( cMax, v );
+				}
+				cellMin[ ( int ) i ] = cMin;
+				cellMax[ ( int ) i ] = cMax;
+			}
+		} );
+	}
+}
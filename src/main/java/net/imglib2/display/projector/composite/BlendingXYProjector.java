@@ -0,0 +1,299 @@
+/*-
+ * #%L
+ * ImgLib2: a general-purpose, multidimensional image processing library.
+ * %%
+ * Copyright (C) 2009 - 2021 Tobias Pietzsch, Stephan Preibisch, Stephan Saalfeld,
+ * John Bogovic, Albert Cardona, Barry DeZonia, Christian Dietz, Jan Funke,
+ * Aivar Grislis, Jonathan Hale, Grant Harris, Stefan Helfrich, Mark Hiner,
+ * Martin Horn, Steffen Jaensch, Lee Kamentsky, Larry Lindsey, Melissa Linkert,
+ * Mark Longair, Brian Northan, Nick Perry, Curtis Rueden, Johannes Schindelin,
+ * Jean-Yves Tinevez and Michael Zinsmaier.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+package net.imglib2.display.projector.composite;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import net.imglib2.FinalInterval;
+import net.imglib2.Interval;
+import net.imglib2.RandomAccess;
+import net.imglib2.RandomAccessibleInterval;
+import net.imglib2.converter.Converter;
+import net.imglib2.converter.RealARGBConverter;
+import net.imglib2.display.projector.AbstractProjector2D;
+import net.imglib2.img.array.ArrayImg;
+import net.imglib2.img.basictypeaccess.array.IntArray;
+import net.imglib2.loops.IntervalChunks;
+import net.imglib2.parallel.Parallelization;
+import net.imglib2.parallel.TaskExecutor;
+import net.imglib2.type.numeric.ARGBType;
+
+/**
+ * Creates a composite image from N channel sources, each with its own
+ * {@link Converter} to {@link ARGBType}. In contrast to
+ * {@link CompositeXYProjector}, all channels are blended in a single pass
+ * over the target, using packed integer arithmetic on the ARGB values, and
+ * the result is written directly into the {@code int[]} of an
+ * {@link ArrayImg} (e.g. an
+ * {@link net.imglib2.display.screenimage.awt.ARGBScreenImage}). Rows of the
+ * target are rendered in parallel by the {@link TaskExecutor} returned by
+ * {@link Parallelization#getTaskExecutor()}, the converters therefore need
+ * to be thread safe. For 8-bit and 16-bit sources,
+ * {@link RealARGBConverter} and
+ * {@link net.imglib2.converter.RealLUTConverter} reduce the per-channel
+ * conversion to a single table lookup.
+ * <p>
+ * Source coordinates of a target pixel are {@code (x, y)} in the first two
+ * dimensions, the remaining dimensions are taken from the position of this
+ * projector.
+ */
+public class BlendingXYProjector< A > extends AbstractProjector2D
+{
+	/**
+	 * How converted channel values are combined.
+	 */
+	public enum BlendMode
+	{
+		/**
+		 * Per component sum, saturated at 255.
+		 */
+		SUM
+		{
+			@Override
+			public int blend( final int dst, final int src )
+			{
+				return addSaturated( dst, src );
+			}
+		},
+		/**
+		 * Per component maximum.
+		 */
+		MAX
+		{
+			@Override
+			public int blend( final int dst, final int src )
+			{
+				return max( dst, src );
+			}
+		},
+		/**
+		 * Source over destination, weighted by the source alpha.
+		 */
+		ALPHA
+		{
+			@Override
+			public int blend( final int dst, final int src )
+			{
+				return over( dst, src );
+			}
+		};
+
+		/**
+		 * Blend ARGB value {@code src} onto ARGB value {@code dst}.
+		 */
+		public abstract int blend( int dst, int src );
+	}
+
+	private final List< RandomAccessibleInterval< A > > sources;
+
+	private final List< Converter< A, ARGBType > > converters;
+
+	private final ArrayImg< ARGBType, IntArray > target;
+
+	private final boolean[] active;
+
+	private BlendMode blendMode;
+
+	public BlendingXYProjector(
+			final List< ? extends RandomAccessibleInterval< A > > sources,
+			final List< ? extends Converter< A, ARGBType > > converters,
+			final ArrayImg< ARGBType, IntArray > target,
+			final BlendMode blendMode )
+	{
+		super( sources.get( 0 ).numDimensions() );
+		if ( sources.size() != converters.size() )
+			throw new IllegalArgumentException( "Expected " + sources.size() + " converters but got " + converters.size() );
+		if ( target.numDimensions() != 2 )
+			throw new IllegalArgumentException( "Expected a 2D target but got " + target.numDimensions() + "D" );
+		this.sources = new ArrayList<>( sources );
+		this.converters = new ArrayList<>( converters );
+		this.target = target;
+		this.blendMode = blendMode;
+		active = new boolean[ sources.size() ];
+		for ( int i = 0; i < active.length; ++i )
+			active[ i ] = true;
+	}
+
+	/** Toggles whether the given channel is included in the composite. */
+	public void setActive( final int channel, final boolean on )
+	{
+		active[ channel ] = on;
+	}
+
+	/** Gets whether the given channel is included in the composite. */
+	public boolean isActive( final int channel )
+	{
+		return active[ channel ];
+	}
+
+	public void setBlendMode( final BlendMode blendMode )
+	{
+		this.blendMode = blendMode;
+	}
+
+	public BlendMode getBlendMode()
+	{
+		return blendMode;
+	}
+
+	@Override
+	public void map()
+	{
+		for ( int d = 2; d < position.length; ++d )
+			min[ d ] = max[ d ] = position[ d ];
+		min[ 0 ] = target.min( 0 );
+		min[ 1 ] = target.min( 1 );
+		max[ 0 ] = target.max( 0 );
+		max[ 1 ] = target.max( 1 );
+
+		final List< RandomAccessibleInterval< A > > activeSources = new ArrayList<>();
+		final List< Converter< A, ARGBType > > activeConverters = new ArrayList<>();
+		for ( int i = 0; i < active.length; ++i )
+			if ( active[ i ] )
+			{
+				activeSources.add( sources.get( i ) );
+				activeConverters.add( converters.get( i ) );
+			}
+
+		final TaskExecutor taskExecutor = Parallelization.getTaskExecutor();
+		final List< Interval > rows = IntervalChunks.chunkInterval( new FinalInterval( target.dimension( 1 ) ), taskExecutor.suggestNumberOfTasks() );
+		final int[] data = target.update( null ).getCurrentStorageArray();
+		final FinalInterval sourceInterval = new FinalInterval( min, max );
+		taskExecutor.forEach( rows, chunk -> mapRows( activeSources, activeConverters, sourceInterval, data, chunk.min( 0 ), chunk.max( 0 ) ) );
+	}
+
+	private void mapRows(
+			final List< RandomAccessibleInterval< A > > sources,
+			final List< Converter< A, ARGBType > > converters,
+			final Interval sourceInterval,
+			final int[] data,
+			final long minRow,
+			final long maxRow )
+	{
+		final int numChannels = sources.size();
+		final int width = ( int ) target.dimension( 0 );
+		final BlendMode mode = blendMode;
+
+		@SuppressWarnings( "unchecked" )
+		final RandomAccess< A >[] accesses = new RandomAccess[ numChannels ];
+		@SuppressWarnings( "unchecked" )
+		final Converter< A, ARGBType >[] convs = new Converter[ numChannels ];
+		final ARGBType[] converted = new ARGBType[ numChannels ];
+		for ( int c = 0; c < numChannels; ++c )
+		{
+			accesses[ c ] = sources.get( c ).randomAccess( sourceInterval );
+			convs[ c ] = converters.get( c );
+			converted[ c ] = new ARGBType();
+		}
+
+		final long[] rowStart = min.clone();
+		for ( long y = minRow; y <= maxRow; ++y )
+		{
+			rowStart[ 1 ] = min[ 1 ] + y;
+			for ( int c = 0; c < numChannels; ++c )
+				accesses[ c ].setPosition( rowStart );
+
+			int o = ( int ) y * width;
+			for ( int x = 0; x < width; ++x, ++o )
+			{
+				int argb = 0;
+				for ( int c = 0; c < numChannels; ++c )
+				{
+					final RandomAccess< A > access = accesses[ c ];
+					convs[ c ].convert( access.get(), converted[ c ] );
+					argb = mode.blend( argb, converted[ c ].get() );
+					access.fwd( 0 );
+				}
+				data[ o ] = argb;
+			}
+		}
+	}
+
+	// -- packed ARGB arithmetic --
+
+	private static final int HIGH_BITS = 0x80808080;
+
+	/**
+	 * Per component sum of two packed ARGB values, saturated at 255.
+	 */
+	public static int addSaturated( final int a, final int b )
+	{
+		// t0: components where exactly one of a, b has the high bit set
+		final int t0 = ( a ^ b ) & HIGH_BITS;
+		// t1: components where both have the high bit set (overflow)
+		int t1 = a & b & HIGH_BITS;
+		final int x = ( a & ~HIGH_BITS ) + ( b & ~HIGH_BITS );
+		// overflow also where one high bit is set and the lower bits carry
+		t1 |= t0 & x;
+		// turn 0x80 into 0xff for overflowing components
+		t1 = ( t1 << 1 ) - ( t1 >>> 7 );
+		return ( x ^ t0 ) | t1;
+	}
+
+	/**
+	 * Per component maximum of two packed ARGB values.
+	 */
+	public static int max( final int a, final int b )
+	{
+		return Math.max( a >>> 24, b >>> 24 ) << 24 |
+				Math.max( ( a >> 16 ) & 0xff, ( b >> 16 ) & 0xff ) << 16 |
+				Math.max( ( a >> 8 ) & 0xff, ( b >> 8 ) & 0xff ) << 8 |
+				Math.max( a & 0xff, b & 0xff );
+	}
+
+	/**
+	 * Composite {@code src} over {@code dst}, weighted by the alpha of
+	 * {@code src}.
+	 */
+	public static int over( final int dst, final int src )
+	{
+		final int sa = src >>> 24;
+		final int da = 255 - sa;
+		final int a = sa + div255( ( dst >>> 24 ) * da );
+		final int r = div255( ( ( src >> 16 ) & 0xff ) * sa + ( ( dst >> 16 ) & 0xff ) * da );
+		final int g = div255( ( ( src >> 8 ) & 0xff ) * sa + ( ( dst >> 8 ) & 0xff ) * da );
+		final int b = div255( ( src & 0xff ) * sa + ( dst & 0xff ) * da );
+		return a << 24 | r << 16 | g << 8 | b;
+	}
+
+	/**
+	 * Rounded division by 255 for {@code 0 <= x <= 255 * 255}.
+	 */
+	private static int div255( final int x )
+	{
+		final int t = x + 128;
+		return ( t + ( t >> 8 ) ) >> 8;
+	}
+}
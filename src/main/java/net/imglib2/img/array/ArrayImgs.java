@@ -67,8 +67,11 @@ import net.imglib2.type.numeric.integer.UnsignedIntType;
 import net.imglib2.type.numeric.integer.UnsignedLongType;
 import net.imglib2.type.numeric.integer.UnsignedShortType;
 import net.imglib2.type.numeric.integer.UnsignedVariableBitLengthType;
+import net.imglib2.type.numeric.real.BFloat16Type;
 import net.imglib2.type.numeric.real.DoubleType;
 import net.imglib2.type.numeric.real.FloatType;
+import net.imglib2.type.numeric.real.FloatVectorType;
+import net.imglib2.type.numeric.real.HalfFloatType;
 import net.imglib2.util.Fraction;
 
 /**
@@ -546,6 +549,98 @@ final public class ArrayImgs
 		return img;
 	}
 
+	/**
+	 * Create an {@link ArrayImg}&lt;{@link HalfFloatType}, {@link ShortArray}&gt;.
+	 */
+	@SuppressWarnings( "unchecked" )
+	final static public ArrayImg< HalfFloatType, ShortArray > halfFloats( final long... dim )
+	{
+		return ( ArrayImg< HalfFloatType, ShortArray > ) new ArrayImgFactory<>( new HalfFloatType() ).create( dim );
+	}
+
+	/**
+	 * Creates an {@link ArrayImg}&lt;{@link HalfFloatType}, {@link ShortArray}&gt;
+	 * reusing a passed short[] array of half-precision bits.
+	 */
+	final public static ArrayImg< HalfFloatType, ShortArray > halfFloats( final short[] array, final long... dim )
+	{
+		return halfFloats( new ShortArray( array ), dim );
+	}
+
+	/**
+	 * Creates an {@link ArrayImg}&lt;{@link HalfFloatType}, {@link ShortAccess}&gt;
+	 * using a {@link ShortAccess} passed as argument.
+	 */
+	final static public < A extends ShortAccess > ArrayImg< HalfFloatType, A > halfFloats( final A access, final long... dim )
+	{
+		final ArrayImg< HalfFloatType, A > img = new ArrayImg<>( access, dim, new Fraction() );
+		final HalfFloatType t = new HalfFloatType( img );
+		img.setLinkedType( t );
+		return img;
+	}
+
+	/**
+	 * Create an {@link ArrayImg}&lt;{@link BFloat16Type}, {@link ShortArray}&gt;.
+	 */
+	@SuppressWarnings( "unchecked" )
+	final static public ArrayImg< BFloat16Type, ShortArray > bfloat16s( final long... dim )
+	{
+		return ( ArrayImg< BFloat16Type, ShortArray > ) new ArrayImgFactory<>( new BFloat16Type() ).create( dim );
+	}
+
+	/**
+	 * Creates an {@link ArrayImg}&lt;{@link BFloat16Type}, {@link ShortArray}&gt;
+	 * reusing a passed short[] array of bfloat16 bits.
+	 */
+	final public static ArrayImg< BFloat16Type, ShortArray > bfloat16s( final short[] array, final long... dim )
+	{
+		return bfloat16s( new ShortArray( array ), dim );
+	}
+
+	/**
+	 * Creates an {@link ArrayImg}&lt;{@link BFloat16Type}, {@link ShortAccess}&gt;
+	 * using a {@link ShortAccess} passed as argument.
+	 */
+	final static public < A extends ShortAccess > ArrayImg< BFloat16Type, A > bfloat16s( final A access, final long... dim )
+	{
+		final ArrayImg< BFloat16Type, A > img = new ArrayImg<>( access, dim, new Fraction() );
+		final BFloat16Type t = new BFloat16Type( img );
+		img.setLinkedType( t );
+		return img;
+	}
+
+	/**
+	 * Create an {@link ArrayImg}&lt;{@link FloatVectorType}, {@link FloatArray}&gt;
+	 * with the given number of components per pixel.
+	 */
+	@SuppressWarnings( "unchecked" )
+	final static public ArrayImg< FloatVectorType, FloatArray > floatVectors( final int numComponents, final long... dim )
+	{
+		return ( ArrayImg< FloatVectorType, FloatArray > ) new ArrayImgFactory<>( new FloatVectorType( numComponents ) ).create( dim );
+	}
+
+	/**
+	 * Creates an {@link ArrayImg}&lt;{@link FloatVectorType}, {@link FloatArray}&gt;
+	 * reusing a passed float[] array, that stores the components of each
+	 * pixel contiguously.
+	 */
+	final public static ArrayImg< FloatVectorType, FloatArray > floatVectors( final float[] array, final int numComponents, final long... dim )
+	{
+		return floatVectors( new FloatArray( array ), numComponents, dim );
+	}
+
+	/**
+	 * Creates an {@link ArrayImg}&lt;{@link FloatVectorType}, {@link FloatAccess}&gt;
+	 * using a {@link FloatAccess} passed as argument.
+	 */
+	final static public < A extends FloatAccess > ArrayImg< FloatVectorType, A > floatVectors( final A access, final int numComponents, final long... dim )
+	{
+		final ArrayImg< FloatVectorType, A > img = new ArrayImg<>( access, dim, new Fraction( numComponents, 1 ) );
+		final FloatVectorType t = new FloatVectorType( img, numComponents );
+		img.setLinkedType( t );
+		return img;
+	}
+
 	/**
 	 * Create an {@link ArrayImg}&lt;{@link DoubleType}, {@link DoubleArray}&gt;.
 	 */
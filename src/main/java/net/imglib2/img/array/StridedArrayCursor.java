@@ -0,0 +1,213 @@
+/*-
+ * #%L
+ * ImgLib2: a general-purpose, multidimensional image processing library.
+ * %%
+ * Copyright (C) 2009 - 2021 Tobias Pietzsch, Stephan Preibisch, Stephan Saalfeld,
+ * John Bogovic, Albert Cardona, Barry DeZonia, Christian Dietz, Jan Funke,
+ * Aivar Grislis, Jonathan Hale, Grant Harris, Stefan Helfrich, Mark Hiner,
+ * Martin Horn, Steffen Jaensch, Lee Kamentsky, Larry Lindsey, Melissa Linkert,
+ * Mark Longair, Brian Northan, Nick Perry, Curtis Rueden, Johannes Schindelin,
+ * Jean-Yves Tinevez and Michael Zinsmaier.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+package net.imglib2.img.array;
+
+import net.imglib2.AbstractCursor;
+import net.imglib2.Interval;
+import net.imglib2.type.Index;
+import net.imglib2.type.NativeType;
+import net.imglib2.util.IntervalIndexer;
+
+/**
+ * {@link net.imglib2.Cursor} that iterates an {@link Interval} in flat
+ * iteration order, where the pixel at position {@code x} of the interval is
+ * the element with index {@code offset + sum_d (x_d - min_d) * strides_d} of
+ * an {@link ArrayImg}.
+ * <p>
+ * This is used to iterate views, that are an integer affine mapping into an
+ * {@link ArrayImg}, e.g. subsampled, permuted, inverted or sliced views,
+ * without going through their {@link net.imglib2.RandomAccess}.
+ */
+public final class StridedArrayCursor< T extends NativeType< T > > extends AbstractCursor< T >
+{
+	private final ArrayImg< T, ? > img;
+
+	private final T type;
+
+	private final Index typeIndex;
+
+	private final int offset;
+
+	private final int[] strides;
+
+	/**
+	 * {@code strides[d] * dimension(d)}, the index difference when moving
+	 * from the max of dimension {@code d} back to the min.
+	 */
+	private final int[] rewinds;
+
+	private final long[] min;
+
+	private final long[] max;
+
+	private final long[] dimensions;
+
+	private final long[] position;
+
+	private final long lastIndex;
+
+	private long index;
+
+	/**
+	 * @param img
+	 *            the image that holds the pixels.
+	 * @param interval
+	 *            the iterated interval.
+	 * @param offset
+	 *            index into {@code img} of the min of the interval.
+	 * @param strides
+	 *            index difference between neighboring pixels in each
+	 *            dimension of the interval.
+	 */
+	public StridedArrayCursor( final ArrayImg< T, ? > img, final Interval interval, final int offset, final int[] strides )
+	{
+		super( interval.numDimensions() );
+		this.img = img;
+		this.type = img.createLinkedType();
+		this.typeIndex = type.index();
+		this.offset = offset;
+		this.strides = strides.clone();
+		this.min = new long[ n ];
+		this.max = new long[ n ];
+		this.dimensions = new long[ n ];
+		this.position = new long[ n ];
+		this.rewinds = new int[ n ];
+		interval.min( min );
+		interval.max( max );
+		interval.dimensions( dimensions );
+		long size = 1;
+		for ( int d = 0; d < n; ++d )
+		{
+			size *= dimensions[ d ];
+			rewinds[ d ] = ( int ) ( strides[ d ] * dimensions[ d ] );
+		}
+		this.lastIndex = size - 1;
+		reset();
+	}
+
+	private StridedArrayCursor( final StridedArrayCursor< T > cursor )
+	{
+		super( cursor.n );
+		this.img = cursor.img;
+		this.type = img.createLinkedType();
+		this.typeIndex = type.index();
+		this.offset = cursor.offset;
+		this.strides = cursor.strides;
+		this.rewinds = cursor.rewinds;
+		this.min = cursor.min;
+		this.max = cursor.max;
+		this.dimensions = cursor.dimensions;
+		this.position = cursor.position.clone();
+		this.lastIndex = cursor.lastIndex;
+		this.index = cursor.index;
+		typeIndex.set( cursor.typeIndex.get() );
+		type.updateContainer( this );
+	}
+
+	@Override
+	public T get()
+	{
+		return type;
+	}
+
+	@Override
+	public void fwd()
+	{
+		++index;
+		typeIndex.inc( strides[ 0 ] );
+		if ( ++position[ 0 ] > max[ 0 ] )
+			nextLine();
+	}
+
+	private void nextLine()
+	{
+		for ( int d = 0; d < n - 1 && position[ d ] > max[ d ]; ++d )
+		{
+			position[ d ] = min[ d ];
+			typeIndex.inc( strides[ d + 1 ] - rewinds[ d ] );
+			++position[ d + 1 ];
+		}
+	}
+
+	@Override
+	public void jumpFwd( final long steps )
+	{
+		index += steps;
+		IntervalIndexer.indexToPositionWithOffset( index, dimensions, min, position );
+		long i = offset;
+		for ( int d = 0; d < n; ++d )
+			i += ( position[ d ] - min[ d ] ) * strides[ d ];
+		typeIndex.set( ( int ) i );
+	}
+
+	@Override
+	public boolean hasNext()
+	{
+		return index < lastIndex;
+	}
+
+	@Override
+	public void reset()
+	{
+		index = -1;
+		System.arraycopy( min, 0, position, 0, n );
+		--position[ 0 ];
+		typeIndex.set( offset - strides[ 0 ] );
+		type.updateContainer( this );
+	}
+
+	@Override
+	public void localize( final long[] pos )
+	{
+		System.arraycopy( position, 0, pos, 0, n );
+	}
+
+	@Override
+	public long getLongPosition( final int d )
+	{
+		return position[ d ];
+	}
+
+	@Override
+	public StridedArrayCursor< T > copy()
+	{
+		return new StridedArrayCursor<>( this );
+	}
+
+	@Override
+	public StridedArrayCursor< T > copyCursor()
+	{
+		return copy();
+	}
+}
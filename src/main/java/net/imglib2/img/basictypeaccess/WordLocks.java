@@ -0,0 +1,98 @@
+/*-
+ * #%L
+ * ImgLib2: a general-purpose, multidimensional image processing library.
+ * %%
+ * Copyright (C) 2009 - 2021 Tobias Pietzsch, Stephan Preibisch, Stephan Saalfeld,
+ * John Bogovic, Albert Cardona, Barry DeZonia, Christian Dietz, Jan Funke,
+ * Aivar Grislis, Jonathan Hale, Grant Harris, Stefan Helfrich, Mark Hiner,
+ * Martin Horn, Steffen Jaensch, Lee Kamentsky, Larry Lindsey, Melissa Linkert,
+ * Mark Longair, Brian Northan, Nick Perry, Curtis Rueden, Johannes Schindelin,
+ * Jean-Yves Tinevez and Michael Zinsmaier.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+package net.imglib2.img.basictypeaccess;
+
+/**
+ * Striped locks for read-modify-write operations on single words of a
+ * {@link LongAccess}, as used by types that pack several pixels into one
+ * {@code long} (e.g. {@link net.imglib2.type.logic.BitType}).
+ * <p>
+ * Synchronizing on the access itself serializes all writes from all threads
+ * into the same image. Instead, the lock is chosen by the index of the word,
+ * so threads that write to different parts of an image rarely contend. Two
+ * writers of the same word always get the same lock. The locks are padded to
+ * avoid false sharing between them.
+ * <p>
+ * A write that modifies the two adjacent words {@code i} and {@code i + 1}
+ * must synchronize on {@link #first(int)} and then on {@link #second(int)},
+ * which acquires the locks of both words in a global order.
+ */
+public final class WordLocks
+{
+	private static final int BITS = 12;
+
+	private static final Object[] LOCKS = new Object[ 1 << BITS ];
+
+	static
+	{
+		for ( int i = 0; i < LOCKS.length; ++i )
+			LOCKS[ i ] = new long[ 8 ];
+	}
+
+	private WordLocks()
+	{
+		// prevent from instantiation
+	}
+
+	/**
+	 * Returns the lock for the word with the given index.
+	 */
+	public static Object lock( final int index )
+	{
+		return LOCKS[ stripe( index ) ];
+	}
+
+	/**
+	 * Returns the lock to acquire first, when modifying the words with index
+	 * {@code index} and {@code index + 1}.
+	 */
+	public static Object first( final int index )
+	{
+		return LOCKS[ Math.min( stripe( index ), stripe( index + 1 ) ) ];
+	}
+
+	/**
+	 * Returns the lock to acquire second, when modifying the words with index
+	 * {@code index} and {@code index + 1}.
+	 */
+	public static Object second( final int index )
+	{
+		return LOCKS[ Math.max( stripe( index ), stripe( index + 1 ) ) ];
+	}
+
+	private static int stripe( final int index )
+	{
+		return ( index * 0x9E3779B1 ) >>> ( 32 - BITS );
+	}
+}
@@ -34,8 +34,21 @@
 
 package net.imglib2.img.sparse;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+
+import net.imglib2.parallel.TaskExecutor;
+
 /**
  * N-dimensional equivalent of a quad/oct-tree.
+ * <p>
+ * Reading is lock-free: {@link #getNode(long[])} may be called concurrently
+ * with other readers and with a writer. Modifications of the tree structure
+ * are synchronized. Child arrays are fully initialized before they are
+ * published, and never modified afterwards, so readers always see a
+ * consistent path from the root to a leaf.
  * 
  * @author Tobias Pietzsch
  */
@@ -45,11 +58,11 @@ public final class Ntree< T extends Comparable< T >>
 	public static final class NtreeNode< T >
 	{
 
-		private T value;
+		private volatile T value;
 
 		private final NtreeNode< T > parent;
 
-		private NtreeNode< T >[] children;
+		private volatile NtreeNode< T >[] children;
 
 		public NtreeNode( final NtreeNode< T > parent, final T value )
 		{
@@ -102,7 +115,7 @@ public final class Ntree< T extends Comparable< T >>
 	/**
 	 * Root of the tree
 	 */
-	NtreeNode< T > root;
+	volatile NtreeNode< T > root;
 
 	/**
 	 * dimensions of tree
@@ -178,12 +191,13 @@ public final class Ntree< T extends Comparable< T >>
 	 *            a position inside the image.
 	 * @return the lowest-level node containing position.
 	 */
-	synchronized NtreeNode< T > getNode( final long[] position )
+	NtreeNode< T > getNode( final long[] position )
 	{
 		NtreeNode< T > current = root;
 		for ( int l = numTreeLevels - 2; l >= 0; --l )
 		{
-			if ( !current.hasChildren() )
+			final NtreeNode< T >[] children = current.children;
+			if ( children == null )
 				break;
 
 			final long bitmask = 1 << l;
@@ -191,7 +205,7 @@ public final class Ntree< T extends Comparable< T >>
 			for ( int d = 0; d < n; ++d )
 				if ( ( position[ d ] & bitmask ) != 0 )
 					childindex |= 1 << d;
-			current = current.children[ childindex ];
+			current = children[ childindex ];
 		}
 		return current;
 	}
@@ -212,9 +226,7 @@ public final class Ntree< T extends Comparable< T >>
 		{
 			if ( !current.hasChildren() )
 			{
-				current.children = new NtreeNode[ numChildren ];
-				for ( int i = 0; i < numChildren; ++i )
-					current.children[ i ] = new NtreeNode<>( current, current.getValue() );
+				current.children = split( current );
 			}
 
 			final long bitmask = 1 << l;
@@ -250,9 +262,7 @@ public final class Ntree< T extends Comparable< T >>
 				if ( current.getValue().compareTo( value ) == 0 )
 					return current;
 
-				current.children = new NtreeNode[ numChildren ];
-				for ( int i = 0; i < numChildren; ++i )
-					current.children[ i ] = new NtreeNode<>( current, current.getValue() );
+				current.children = split( current );
 			}
 
 			final long bitmask = 1 << l;
@@ -268,6 +278,19 @@ public final class Ntree< T extends Comparable< T >>
 		return mergeUpwards( current );
 	}
 
+	/**
+	 * Create a fully initialized array of children of node, which all have the
+	 * value of node.
+	 */
+	@SuppressWarnings( "unchecked" )
+	private NtreeNode< T >[] split( final NtreeNode< T > node )
+	{
+		final NtreeNode< T >[] children = new NtreeNode[ numChildren ];
+		for ( int i = 0; i < numChildren; ++i )
+			children[ i ] = new NtreeNode<>( node, node.getValue() );
+		return children;
+	}
+
 	/**
 	 * If all the children of our parent have the same value remove them all.
 	 * Call recursively for parent.
@@ -280,7 +303,8 @@ public final class Ntree< T extends Comparable< T >>
 	NtreeNode< T > mergeUpwards( final NtreeNode< T > node )
 	{
 		final NtreeNode< T > parent = node.parent;
-		if ( parent == null )
+		// the children of a parent that is built by build() are not attached yet
+		if ( parent == null || !parent.hasChildren() )
 			return node;
 		final NtreeNode< T > child0 = parent.children[ 0 ];
 		if ( child0.hasChildren() )
@@ -296,6 +320,177 @@ public final class Ntree< T extends Comparable< T >>
 		return mergeUpwards( parent );
 	}
 
+	/**
+	 * Replace the content of the tree by values written from an image of the
+	 * tree's dimensions. Subtrees are built in parallel, and octants of uniform
+	 * value are merged into a single node. Positions outside the image
+	 * dimensions take the value of a neighboring octant, so that they do not
+	 * prevent merging.
+	 * <p>
+	 * Every leaf is created with the current value of the root, and is passed
+	 * to a writer with its position, which sets the value of the leaf. While
+	 * the leaf is written, it is not attached to its parent.
+	 * <p>
+	 * This must not be called while the tree is accessed by other threads.
+	 *
+	 * @param writers
+	 *            provides, for each task, a function that sets the value of a
+	 *            leaf at a given position. The position array is re-used and
+	 *            must not be retained.
+	 * @param taskExecutor
+	 *            used to build subtrees in parallel.
+	 */
+	synchronized void build( final Supplier< BiConsumer< long[], NtreeNode< T > > > writers, final TaskExecutor taskExecutor )
+	{
+		final T initialValue = root.getValue();
+		final int rootLevel = numTreeLevels - 1;
+		final long[] offset = new long[ n ];
+		if ( rootLevel == 0 )
+		{
+			root = build( null, 0, offset, initialValue, writers.get() );
+			return;
+		}
+
+		// number of levels below the root that are built sequentially, such that
+		// there are enough subtrees for all tasks
+		int topLevels = 1;
+		for ( long subtrees = numChildren; subtrees < 4L * taskExecutor.suggestNumberOfTasks() && topLevels < rootLevel; subtrees *= numChildren )
+			++topLevels;
+
+		final List< Subtree > subtrees = new ArrayList<>();
+		final List< Subtree > topNodes = new ArrayList<>();
+		final NtreeNode< T > newRoot = buildTop( null, rootLevel, offset, topLevels, subtrees, topNodes );
+		taskExecutor.forEach( subtrees, subtree -> {
+			final BiConsumer< long[], NtreeNode< T > > writer = writers.get();
+			subtree.siblings[ subtree.childIndex ] = build( subtree.parent, subtree.level, subtree.offset, initialValue, writer );
+		} );
+		for ( final Subtree top : topNodes )
+			complete( top.parent, top.siblings );
+		root = newRoot;
+	}
+
+	/**
+	 * A subtree to be built by
+	 * {@link #build(NtreeNode, int, long[], Comparable, BiConsumer)} and
+	 * stored as child {@code childIndex} in the {@code siblings} array, which
+	 * becomes the children of {@code parent} once it is completed.
+	 */
+	private final class Subtree
+	{
+		final NtreeNode< T > parent;
+
+		final NtreeNode< T >[] siblings;
+
+		final int childIndex;
+
+		final int level;
+
+		final long[] offset;
+
+		Subtree( final NtreeNode< T > parent, final NtreeNode< T >[] siblings, final int childIndex, final int level, final long[] offset )
+		{
+			this.parent = parent;
+			this.siblings = siblings;
+			this.childIndex = childIndex;
+			this.level = level;
+			this.offset = offset;
+		}
+	}
+
+	/**
+	 * Create the upper {@code depth} levels of the tree. Subtrees below these
+	 * levels are collected into {@code subtrees}, the created nodes and their
+	 * pending children are added to {@code topNodes} in post-order.
+	 */
+	@SuppressWarnings( "unchecked" )
+	private NtreeNode< T > buildTop( final NtreeNode< T > parent, final int level, final long[] offset, final int depth, final List< Subtree > subtrees, final List< Subtree > topNodes )
+	{
+		final NtreeNode< T > node = new NtreeNode<>( parent, null );
+		final NtreeNode< T >[] children = new NtreeNode[ numChildren ];
+		for ( int i = 0; i < numChildren; ++i )
+		{
+			final long[] childOffset = childOffset( offset, i, level );
+			if ( isOutside( childOffset ) )
+				continue;
+			if ( depth > 1 && level > 1 )
+				children[ i ] = buildTop( node, level - 1, childOffset, depth - 1, subtrees, topNodes );
+			else
+				subtrees.add( new Subtree( node, children, i, level - 1, childOffset ) );
+		}
+		topNodes.add( new Subtree( node, children, -1, level, offset ) );
+		return node;
+	}
+
+	/**
+	 * Build the subtree of the given level at offset. Returns null if the
+	 * subtree lies completely outside the tree dimensions.
+	 */
+	@SuppressWarnings( "unchecked" )
+	private NtreeNode< T > build( final NtreeNode< T > parent, final int level, final long[] offset, final T initialValue, final BiConsumer< long[], NtreeNode< T > > writer )
+	{
+		if ( isOutside( offset ) )
+			return null;
+		if ( level == 0 )
+		{
+			final NtreeNode< T > leaf = new NtreeNode<>( parent, initialValue );
+			writer.accept( offset, leaf );
+			return leaf;
+		}
+		final NtreeNode< T > node = new NtreeNode<>( parent, null );
+		final NtreeNode< T >[] children = new NtreeNode[ numChildren ];
+		for ( int i = 0; i < numChildren; ++i )
+			children[ i ] = build( node, level - 1, childOffset( offset, i, level ), initialValue, writer );
+		complete( node, children );
+		return node;
+	}
+
+	/**
+	 * Merge the children into node if they are all leaves of the same value.
+	 * Otherwise, replace missing children by leaves and attach the children
+	 * to node.
+	 */
+	private void complete( final NtreeNode< T > node, final NtreeNode< T >[] children )
+	{
+		NtreeNode< T > first = null;
+		boolean uniform = true;
+		for ( final NtreeNode< T > child : children )
+		{
+			if ( child == null )
+				continue;
+			if ( first == null )
+				first = child;
+			if ( child.hasChildren() || first.getValue().compareTo( child.getValue() ) != 0 )
+				uniform = false;
+		}
+		node.value = first.getValue();
+		if ( uniform )
+		{
+			node.children = null;
+			return;
+		}
+		for ( int i = 0; i < numChildren; ++i )
+			if ( children[ i ] == null )
+				children[ i ] = new NtreeNode<>( node, first.getValue() );
+		node.children = children;
+	}
+
+	private long[] childOffset( final long[] offset, final int childIndex, final int level )
+	{
+		final long[] childOffset = new long[ n ];
+		final long half = 1L << ( level - 1 );
+		for ( int d = 0; d < n; ++d )
+			childOffset[ d ] = ( ( childIndex >> d ) & 1 ) == 0 ? offset[ d ] : offset[ d ] + half;
+		return childOffset;
+	}
+
+	private boolean isOutside( final long[] position )
+	{
+		for ( int d = 0; d < n; ++d )
+			if ( position[ d ] >= dimensions[ d ] )
+				return true;
+		return false;
+	}
+
 	/**
 	 * Returns the root node of the ntree
 	 * 
@@ -35,12 +35,19 @@
 package net.imglib2.img.sparse;
 
 import java.io.Serializable;
+import java.util.Arrays;
+import java.util.function.BiConsumer;
 
 import net.imglib2.FlatIterationOrder;
+import net.imglib2.RandomAccess;
+import net.imglib2.RandomAccessibleInterval;
 import net.imglib2.img.AbstractNativeImg;
 import net.imglib2.img.ImgFactory;
+import net.imglib2.img.sparse.Ntree.NtreeNode;
+import net.imglib2.parallel.Parallelization;
 import net.imglib2.type.NativeType;
 import net.imglib2.util.Fraction;
+import net.imglib2.util.Util;
 
 /**
  * @author Tobias Pietzsch
@@ -69,16 +76,78 @@ public final class NtreeImg< T extends NativeType< T >, A extends NtreeAccess< ?
 		this.data = img.data;
 	}
 
+	/**
+	 * Create a {@link NtreeImg} with the content of the source image. The tree
+	 * is built in parallel, using the {@link Parallelization} task executor,
+	 * and octants of uniform value are merged. This is much faster than
+	 * creating an empty image and setting the pixels one by one.
+	 *
+	 * @param source
+	 *            image to copy, the min of the source is mapped to the origin
+	 *            of the created image.
+	 */
+	public static < T extends NativeType< T > > NtreeImg< T, ? > copy( final RandomAccessibleInterval< T > source )
+	{
+		final NtreeImg< T, ? > img = new NtreeImgFactory<>( Util.getTypeFromInterval( source ) ).create( source );
+		img.build( img.data.getCurrentStorageNtree(), source );
+		return img;
+	}
+
+	/**
+	 * Replace the content of the tree by the values of source. Each task
+	 * writes the values through a pixel whose access is bound to a single
+	 * node tree, the root of which is set to the leaf that is currently built.
+	 */
+	@SuppressWarnings( "unchecked" )
+	private < L extends Comparable< L > > void build( final Ntree< L > tree, final RandomAccessibleInterval< T > source )
+	{
+		final int n = source.numDimensions();
+		final long[] min = source.minAsLongArray();
+		final long[] leafDimensions = new long[ n ];
+		Arrays.fill( leafDimensions, 1 );
+		tree.build( () -> {
+			final A leafAccess = ( A ) NtreeImgFactory.createNtreeAccess( linkedType.getNativeTypeFactory(), leafDimensions );
+			final Ntree< L > leafTree = ( Ntree< L > ) leafAccess.getCurrentStorageNtree();
+			final T pixel = linkedType.duplicateTypeOnSameNativeImg();
+			pixel.updateContainer( new LeafUpdater<>( leafAccess.createInstance( new long[ n ] ) ) );
+			final RandomAccess< T > sourceAccess = source.randomAccess();
+			final long[] sourcePosition = new long[ n ];
+			return ( BiConsumer< long[], NtreeNode< L > > ) ( position, leaf ) -> {
+				for ( int d = 0; d < n; ++d )
+					sourcePosition[ d ] = position[ d ] + min[ d ];
+				leafTree.root = leaf;
+				pixel.set( sourceAccess.setPositionAndGet( sourcePosition ) );
+			};
+		}, Parallelization.getTaskExecutor() );
+	}
+
 	public static interface PositionProvider
 	{
 		long[] getPosition();
 	}
 
+	/**
+	 * Updater that provides a given access, used to bind the pixels of
+	 * {@link #build(Ntree, RandomAccessibleInterval)} to their leaf trees.
+	 */
+	private static final class LeafUpdater< A >
+	{
+		final A access;
+
+		LeafUpdater( final A access )
+		{
+			this.access = access;
+		}
+	}
+
 	// updater is the RandomAccess / Cursor etc
 	// each call creates a new NtreeAccess wrapper
+	@SuppressWarnings( "unchecked" )
 	@Override
 	public A update( final Object updater )
 	{
+		if ( updater instanceof LeafUpdater )
+			return ( ( LeafUpdater< A > ) updater ).access;
 		return data.createView( updater );
 	}
 
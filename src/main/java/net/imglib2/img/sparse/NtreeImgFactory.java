@@ -35,6 +35,7 @@
 package net.imglib2.img.sparse;
 
 import net.imglib2.Dimensions;
+import net.imglib2.RandomAccessibleInterval;
 import net.imglib2.exception.IncompatibleTypeException;
 import net.imglib2.img.ImgFactory;
 import net.imglib2.img.NativeImgFactory;
@@ -73,6 +74,16 @@ public class NtreeImgFactory< T extends NativeType< T > > extends NativeImgFacto
 		return create( Util.int2long( dimensions ) );
 	}
 
+	/**
+	 * Create a {@link NtreeImg} with the content of the source image.
+	 *
+	 * @see NtreeImg#copy(RandomAccessibleInterval)
+	 */
+	public NtreeImg< T, ? > copy( final RandomAccessibleInterval< T > source )
+	{
+		return NtreeImg.copy( source );
+	}
+
 	private < A > NtreeImg< T, ? > create( final long[] dimensions, final T type, final NativeTypeFactory< T, A > typeFactory )
 	{
 		Dimensions.verify( dimensions );
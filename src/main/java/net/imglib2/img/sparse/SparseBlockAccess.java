@@ -0,0 +1,305 @@
+/*-
+ * #%L
+ * ImgLib2: a general-purpose, multidimensional image processing library.
+ * %%
+ * Copyright (C) 2009 - 2021 Tobias Pietzsch, Stephan Preibisch, Stephan Saalfeld,
+ * John Bogovic, Albert Cardona, Barry DeZonia, Christian Dietz, Jan Funke,
+ * Aivar Grislis, Jonathan Hale, Grant Harris, Stefan Helfrich, Mark Hiner,
+ * Martin Horn, Steffen Jaensch, Lee Kamentsky, Larry Lindsey, Melissa Linkert,
+ * Mark Longair, Brian Northan, Nick Perry, Curtis Rueden, Johannes Schindelin,
+ * Jean-Yves Tinevez and Michael Zinsmaier.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+package net.imglib2.img.sparse;
+
+import net.imglib2.img.basictypeaccess.BooleanAccess;
+import net.imglib2.img.basictypeaccess.ByteAccess;
+import net.imglib2.img.basictypeaccess.CharAccess;
+import net.imglib2.img.basictypeaccess.DataAccess;
+import net.imglib2.img.basictypeaccess.DoubleAccess;
+import net.imglib2.img.basictypeaccess.FloatAccess;
+import net.imglib2.img.basictypeaccess.IntAccess;
+import net.imglib2.img.basictypeaccess.LongAccess;
+import net.imglib2.img.basictypeaccess.ShortAccess;
+import net.imglib2.img.basictypeaccess.array.ArrayDataAccess;
+import net.imglib2.img.basictypeaccess.array.BooleanArray;
+import net.imglib2.img.basictypeaccess.array.ByteArray;
+import net.imglib2.img.basictypeaccess.array.CharArray;
+import net.imglib2.img.basictypeaccess.array.DoubleArray;
+import net.imglib2.img.basictypeaccess.array.FloatArray;
+import net.imglib2.img.basictypeaccess.array.IntArray;
+import net.imglib2.img.basictypeaccess.array.LongArray;
+import net.imglib2.img.basictypeaccess.array.ShortArray;
+import net.imglib2.img.sparse.SparseBlockImg.BlockRefProvider;
+import net.imglib2.img.sparse.SparseBlocks.BlockRef;
+
+/**
+ * Access of a {@link SparseBlockImg}. Reads and writes go to the current
+ * block of the accessor (see {@link BlockRefProvider}). Writing to a
+ * background block allocates the block.
+ *
+ * @param <D>
+ *            array access type of the blocks
+ * @param <A>
+ *            the concrete access type
+ */
+public abstract class SparseBlockAccess< D extends ArrayDataAccess< D >, A extends SparseBlockAccess< D, A > > implements DataAccess
+{
+	final BlockRef< D > ref;
+
+	SparseBlockAccess( final BlockRef< D > ref )
+	{
+		this.ref = ref;
+	}
+
+	abstract A createInstance( BlockRef< D > ref );
+
+	/**
+	 * Create a new {@link BlockRef} on the same blocks.
+	 */
+	BlockRef< D > createBlockRef()
+	{
+		return new BlockRef<>( ref.blocks );
+	}
+
+	SparseBlocks< D > blocks()
+	{
+		return ref.blocks;
+	}
+
+	@SuppressWarnings( "unchecked" )
+	@Override
+	public A createView( final Object updater )
+	{
+		return createInstance( ( BlockRef< D > ) ( ( BlockRefProvider ) updater ).getBlockRef() );
+	}
+
+	public static final class OfBoolean extends SparseBlockAccess< BooleanArray, OfBoolean > implements BooleanAccess
+	{
+		OfBoolean( final BlockRef< BooleanArray > ref )
+		{
+			super( ref );
+		}
+
+		@Override
+		public boolean getValue( final int index )
+		{
+			return ref.readable().getValue( index );
+		}
+
+		@Override
+		public void setValue( final int index, final boolean value )
+		{
+			ref.writable().setValue( index, value );
+		}
+
+		@Override
+		OfBoolean createInstance( final BlockRef< BooleanArray > ref )
+		{
+			return new OfBoolean( ref );
+		}
+	}
+
+	public static final class OfByte extends SparseBlockAccess< ByteArray, OfByte > implements ByteAccess
+	{
+		OfByte( final BlockRef< ByteArray > ref )
+		{
+			super( ref );
+		}
+
+		@Override
+		public byte getValue( final int index )
+		{
+			return ref.readable().getValue( index );
+		}
+
+		@Override
+		public void setValue( final int index, final byte value )
+		{
+			ref.writable().setValue( index, value );
+		}
+
+		@Override
+		OfByte createInstance( final BlockRef< ByteArray > ref )
+		{
+			return new OfByte( ref );
+		}
+	}
+
+	public static final class OfChar extends SparseBlockAccess< CharArray, OfChar > implements CharAccess
+	{
+		OfChar( final BlockRef< CharArray > ref )
+		{
+			super( ref );
+		}
+
+		@Override
+		public char getValue( final int index )
+		{
+			return ref.readable().getValue( index );
+		}
+
+		@Override
+		public void setValue( final int index, final char value )
+		{
+			ref.writable().setValue( index, value );
+		}
+
+		@Override
+		OfChar createInstance( final BlockRef< CharArray > ref )
+		{
+			return new OfChar( ref );
+		}
+	}
+
+	public static final class OfShort extends SparseBlockAccess< ShortArray, OfShort > implements ShortAccess
+	{
+		OfShort( final BlockRef< ShortArray > ref )
+		{
+			super( ref );
+		}
+
+		@Override
+		public short getValue( final int index )
+		{
+			return ref.readable().getValue( index );
+		}
+
+		@Override
+		public void setValue( final int index, final short value )
+		{
+			ref.writable().setValue( index, value );
+		}
+
+		@Override
+		OfShort createInstance( final BlockRef< ShortArray > ref )
+		{
+			return new OfShort( ref );
+		}
+	}
+
+	public static final class OfInt extends SparseBlockAccess< IntArray, OfInt > implements IntAccess
+	{
+		OfInt( final BlockRef< IntArray > ref )
+		{
+			super( ref );
+		}
+
+		@Override
+		public int getValue( final int index )
+		{
+			return ref.readable().getValue( index );
+		}
+
+		@Override
+		public void setValue( final int index, final int value )
+		{
+			ref.writable().setValue( index, value );
+		}
+
+		@Override
+		OfInt createInstance( final BlockRef< IntArray > ref )
+		{
+			return new OfInt( ref );
+		}
+	}
+
+	public static final class OfLong extends SparseBlockAccess< LongArray, OfLong > implements LongAccess
+	{
+		OfLong( final BlockRef< LongArray > ref )
+		{
+			super( ref );
+		}
+
+		@Override
+		public long getValue( final int index )
+		{
+			return ref.readable().getValue( index );
+		}
+
+		@Override
+		public void setValue( final int index, final long value )
+		{
+			ref.writable().setValue( index, value );
+		}
+
+		@Override
+		OfLong createInstance( final BlockRef< LongArray > ref )
+		{
+			return new OfLong( ref );
+		}
+	}
+
+	public static final class OfFloat extends SparseBlockAccess< FloatArray, OfFloat > implements FloatAccess
+	{
+		OfFloat( final BlockRef< FloatArray > ref )
+		{
+			super( ref );
+		}
+
+		@Override
+		public float getValue( final int index )
+		{
+			return ref.readable().getValue( index );
+		}
+
+		@Override
+		public void setValue( final int index, final float value )
+		{
+			ref.writable().setValue( index, value );
+		}
+
+		@Override
+		OfFloat createInstance( final BlockRef< FloatArray > ref )
+		{
+			return new OfFloat( ref );
+		}
+	}
+
+	public static final class OfDouble extends SparseBlockAccess< DoubleArray, OfDouble > implements DoubleAccess
+	{
+		OfDouble( final BlockRef< DoubleArray > ref )
+		{
+			super( ref );
+		}
+
+		@Override
+		public double getValue( final int index )
+		{
+			return ref.readable().getValue( index );
+		}
+
+		@Override
+		public void setValue( final int index, final double value )
+		{
+			ref.writable().setValue( index, value );
+		}
+
+		@Override
+		OfDouble createInstance( final BlockRef< DoubleArray > ref )
+		{
+			return new OfDouble( ref );
+		}
+	}
+}
@@ -0,0 +1,175 @@
+/*-
+ * #%L
+ * ImgLib2: a general-purpose, multidimensional image processing library.
+ * %%
+ * Copyright (C) 2009 - 2021 Tobias Pietzsch, Stephan Preibisch, Stephan Saalfeld,
+ * John Bogovic, Albert Cardona, Barry DeZonia, Christian Dietz, Jan Funke,
+ * Aivar Grislis, Jonathan Hale, Grant Harris, Stefan Helfrich, Mark Hiner,
+ * Martin Horn, Steffen Jaensch, Lee Kamentsky, Larry Lindsey, Melissa Linkert,
+ * Mark Longair, Brian Northan, Nick Perry, Curtis Rueden, Johannes Schindelin,
+ * Jean-Yves Tinevez and Michael Zinsmaier.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+package net.imglib2.img.sparse;
+
+import net.imglib2.AbstractCursor;
+import net.imglib2.img.sparse.SparseBlockImg.BlockRefProvider;
+import net.imglib2.img.sparse.SparseBlocks.BlockRef;
+import net.imglib2.type.NativeType;
+
+/**
+ * Cursor that visits only the pixels in the allocated blocks of a
+ * {@link SparseBlockImg}. The blocks are visited in order of their index, and
+ * the pixels in flat order inside each block. Blocks that are allocated after
+ * the cursor has been created are not visited.
+ */
+final class SparseBlockForegroundCursor< T extends NativeType< T > > extends AbstractCursor< T > implements BlockRefProvider
+{
+	private final SparseBlockImg< T, ? > img;
+
+	private final SparseBlocks< ? > blocks;
+
+	private final long[] keys;
+
+	private final BlockRef< ? > ref;
+
+	private final T type;
+
+	/**
+	 * index of the current block in {@link #keys}.
+	 */
+	private int block;
+
+	private final long[] min;
+
+	private final long[] max;
+
+	private final long[] position;
+
+	SparseBlockForegroundCursor( final SparseBlockImg< T, ? > img )
+	{
+		this( img, img.data.blocks().allocatedBlocks() );
+	}
+
+	private SparseBlockForegroundCursor( final SparseBlockImg< T, ? > img, final long[] keys )
+	{
+		super( img.numDimensions() );
+		this.img = img;
+		this.blocks = img.data.blocks();
+		this.keys = keys;
+		this.ref = img.createBlockRef();
+		this.type = img.createLinkedType();
+		min = new long[ n ];
+		max = new long[ n ];
+		position = new long[ n ];
+		type.updateContainer( this );
+		reset();
+	}
+
+	private SparseBlockForegroundCursor( final SparseBlockForegroundCursor< T > cursor )
+	{
+		this( cursor.img, cursor.keys );
+		block = cursor.block;
+		System.arraycopy( cursor.min, 0, min, 0, n );
+		System.arraycopy( cursor.max, 0, max, 0, n );
+		System.arraycopy( cursor.position, 0, position, 0, n );
+	}
+
+	@Override
+	public T get()
+	{
+		type.index().set( ref.locate( position ) );
+		return type;
+	}
+
+	@Override
+	public void fwd()
+	{
+		for ( int d = 0; d < n; ++d )
+		{
+			if ( ++position[ d ] <= max[ d ] )
+				return;
+			position[ d ] = min[ d ];
+		}
+		// end of block reached
+		++block;
+		blocks.blockBounds( keys[ block ], min, max );
+		System.arraycopy( min, 0, position, 0, n );
+	}
+
+	@Override
+	public boolean hasNext()
+	{
+		if ( block < keys.length - 1 )
+			return true;
+		if ( block >= keys.length )
+			return false;
+		for ( int d = 0; d < n; ++d )
+			if ( position[ d ] < max[ d ] )
+				return true;
+		return false;
+	}
+
+	@Override
+	public void reset()
+	{
+		// position at the last pixel of a single pixel "block" -1, such
+		// that fwd() moves to the first block
+		block = -1;
+		for ( int d = 0; d < n; ++d )
+			min[ d ] = max[ d ] = position[ d ] = 0;
+		if ( keys.length == 0 )
+			block = 0;
+	}
+
+	@Override
+	public void localize( final long[] pos )
+	{
+		System.arraycopy( position, 0, pos, 0, n );
+	}
+
+	@Override
+	public long getLongPosition( final int d )
+	{
+		return position[ d ];
+	}
+
+	@Override
+	public SparseBlockForegroundCursor< T > copy()
+	{
+		return new SparseBlockForegroundCursor<>( this );
+	}
+
+	@Override
+	public SparseBlockForegroundCursor< T > copyCursor()
+	{
+		return copy();
+	}
+
+	@Override
+	public BlockRef< ? > getBlockRef()
+	{
+		return ref;
+	}
+}
@@ -0,0 +1,219 @@
+/*-
+ * #%L
+ * ImgLib2: a general-purpose, multidimensional image processing library.
+ * %%
+ * Copyright (C) 2009 - 2021 Tobias Pietzsch, Stephan Preibisch, Stephan Saalfeld,
+ * John Bogovic, Albert Cardona, Barry DeZonia, Christian Dietz, Jan Funke,
+ * Aivar Grislis, Jonathan Hale, Grant Harris, Stefan Helfrich, Mark Hiner,
+ * Martin Horn, Steffen Jaensch, Lee Kamentsky, Larry Lindsey, Melissa Linkert,
+ * Mark Longair, Brian Northan, Nick Perry, Curtis Rueden, Johannes Schindelin,
+ * Jean-Yves Tinevez and Michael Zinsmaier.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+package net.imglib2.img.sparse;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import net.imglib2.Cursor;
+import net.imglib2.Dimensions;
+import net.imglib2.FlatIterationOrder;
+import net.imglib2.Interval;
+import net.imglib2.RandomAccessibleInterval;
+import net.imglib2.img.AbstractNativeImg;
+import net.imglib2.img.sparse.SparseBlocks.BlockRef;
+import net.imglib2.loops.LoopBuilder;
+import net.imglib2.parallel.Parallelization;
+import net.imglib2.type.NativeType;
+import net.imglib2.util.Fraction;
+import net.imglib2.util.Intervals;
+import net.imglib2.view.Views;
+
+/**
+ * A sparse image for label and mask data. The image is divided into blocks of
+ * equal size, and only blocks that contain foreground, i.e. blocks that have
+ * been written to, are stored. All other blocks read the background value,
+ * without using memory. The stored blocks are indexed by their position, in
+ * pages of references that are created when a block of the page is written.
+ * <p>
+ * Reading never allocates memory. Writing to a pixel of a background block
+ * allocates the block. Concurrent writes to different pixels are safe, as
+ * long as the type does not pack several pixels into one primitive value.
+ * <p>
+ * {@link #foregroundCursor()} iterates only the allocated blocks, so its cost
+ * is proportional to the size of the foreground. Use
+ * {@link SparseBlockImgFactory#copy(RandomAccessibleInterval)} and
+ * {@link #copyTo(RandomAccessibleInterval)} to convert from and to dense
+ * images.
+ *
+ * @param <T>
+ *            pixel type
+ * @param <A>
+ *            access type
+ *
+ * @see SparseBlockImgFactory
+ */
+public final class SparseBlockImg< T extends NativeType< T >, A extends SparseBlockAccess< ?, A > > extends AbstractNativeImg< T, A >
+{
+	final A data;
+
+	private final T background;
+
+	public SparseBlockImg( final A data, final long[] dim, final Fraction entitiesPerPixel, final T background )
+	{
+		super( dim, entitiesPerPixel );
+		this.data = data;
+		this.background = background.copy();
+	}
+
+	/**
+	 * Accessors of a {@link SparseBlockImg} provide the current block to the
+	 * {@link SparseBlockAccess} created in {@link SparseBlockImg#update}.
+	 */
+	public interface BlockRefProvider
+	{
+		BlockRef< ? > getBlockRef();
+	}
+
+	// updater is the RandomAccess / Cursor etc
+	// each call creates a new SparseBlockAccess wrapper
+	@Override
+	public A update( final Object updater )
+	{
+		return data.createView( updater );
+	}
+
+	BlockRef< ? > createBlockRef()
+	{
+		return data.createBlockRef();
+	}
+
+	/**
+	 * Returns the value of all pixels that have not been written to.
+	 */
+	public T getBackground()
+	{
+		return background.copy();
+	}
+
+	/**
+	 * Returns the size of the blocks.
+	 */
+	public int[] getBlockSize()
+	{
+		return data.blocks().blockSize.clone();
+	}
+
+	/**
+	 * Returns the number of blocks that are stored.
+	 */
+	public int numAllocatedBlocks()
+	{
+		return data.blocks().numAllocatedBlocks();
+	}
+
+	/**
+	 * Returns the intervals of the stored blocks, clipped to the image
+	 * bounds.
+	 */
+	public List< Interval > getAllocatedBlocks()
+	{
+		final SparseBlocks< ? > blocks = data.blocks();
+		final List< Interval > intervals = new ArrayList<>();
+		for ( final long key : blocks.allocatedBlocks() )
+			intervals.add( blocks.blockInterval( key ) );
+		return intervals;
+	}
+
+	@Override
+	public SparseBlockRandomAccess< T > randomAccess()
+	{
+		return new SparseBlockRandomAccess<>( this );
+	}
+
+	@Override
+	public SparseBlockCursor< T > cursor()
+	{
+		return new SparseBlockCursor<>( this );
+	}
+
+	@Override
+	public SparseBlockCursor< T > localizingCursor()
+	{
+		return cursor();
+	}
+
+	/**
+	 * Returns a cursor that visits only the pixels of allocated blocks. All
+	 * pixels that are not visited have the background value. The pixels are
+	 * visited block by block, in flat order inside each block.
+	 */
+	public Cursor< T > foregroundCursor()
+	{
+		return new SparseBlockForegroundCursor<>( this );
+	}
+
+	/**
+	 * Copy the content of this image into target. The target is filled with
+	 * the background value, and then the allocated blocks are copied, in
+	 * parallel using the {@link Parallelization} task executor.
+	 *
+	 * @param target
+	 *            image of the same dimensions, the origin of this image is
+	 *            mapped to the min of target.
+	 */
+	public void copyTo( final RandomAccessibleInterval< T > target )
+	{
+		if ( !Intervals.equalDimensions( ( Dimensions ) this, target ) )
+			throw new IllegalArgumentException( "target must have the same dimensions as the image." );
+		final T background = this.background;
+		LoopBuilder.setImages( target ).multiThreaded().forEachPixel( pixel -> pixel.set( background ) );
+		final RandomAccessibleInterval< T > zeroMinTarget = Views.zeroMin( target );
+		Parallelization.getTaskExecutor().forEach( getAllocatedBlocks(), block -> LoopBuilder
+				.setImages( Views.interval( this, block ), Views.interval( zeroMinTarget, block ) )
+				.forEachPixel( ( s, t ) -> t.set( s ) ) );
+	}
+
+	@Override
+	public SparseBlockImgFactory< T > factory()
+	{
+		return new SparseBlockImgFactory<>( background.copy(), getBlockSize() );
+	}
+
+	/**
+	 * Returns a copy of the image. Blocks that contain only background are
+	 * not copied.
+	 */
+	@Override
+	public SparseBlockImg< T, ? > copy()
+	{
+		return factory().copy( this );
+	}
+
+	@Override
+	public FlatIterationOrder iterationOrder()
+	{
+		return new FlatIterationOrder( this );
+	}
+}
@@ -0,0 +1,229 @@
+/*-
+ * #%L
+ * ImgLib2: a general-purpose, multidimensional image processing library.
+ * %%
+ * Copyright (C) 2009 - 2021 Tobias Pietzsch, Stephan Preibisch, Stephan Saalfeld,
+ * John Bogovic, Albert Cardona, Barry DeZonia, Christian Dietz, Jan Funke,
+ * Aivar Grislis, Jonathan Hale, Grant Harris, Stefan Helfrich, Mark Hiner,
+ * Martin Horn, Steffen Jaensch, Lee Kamentsky, Larry Lindsey, Melissa Linkert,
+ * Mark Longair, Brian Northan, Nick Perry, Curtis Rueden, Johannes Schindelin,
+ * Jean-Yves Tinevez and Michael Zinsmaier.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+package net.imglib2.img.sparse;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import net.imglib2.Dimensions;
+import net.imglib2.Interval;
+import net.imglib2.RandomAccessibleInterval;
+import net.imglib2.exception.IncompatibleTypeException;
+import net.imglib2.img.ImgFactory;
+import net.imglib2.img.NativeImg;
+import net.imglib2.img.NativeImgFactory;
+import net.imglib2.img.array.ArrayImg;
+import net.imglib2.img.array.ArrayImgFactory;
+import net.imglib2.img.basictypeaccess.array.ArrayDataAccess;
+import net.imglib2.img.basictypeaccess.array.BooleanArray;
+import net.imglib2.img.basictypeaccess.array.ByteArray;
+import net.imglib2.img.basictypeaccess.array.CharArray;
+import net.imglib2.img.basictypeaccess.array.DoubleArray;
+import net.imglib2.img.basictypeaccess.array.FloatArray;
+import net.imglib2.img.basictypeaccess.array.IntArray;
+import net.imglib2.img.basictypeaccess.array.LongArray;
+import net.imglib2.img.basictypeaccess.array.ShortArray;
+import net.imglib2.img.sparse.SparseBlocks.BlockRef;
+import net.imglib2.loops.LoopBuilder;
+import net.imglib2.parallel.Parallelization;
+import net.imglib2.type.NativeType;
+import net.imglib2.type.NativeTypeFactory;
+import net.imglib2.type.PrimitiveType;
+import net.imglib2.util.Intervals;
+import net.imglib2.util.Util;
+import net.imglib2.view.Views;
+
+/**
+ * Factory for {@link SparseBlockImg}s. The value of the type given to the
+ * factory is used as the background value of the created images.
+ */
+public class SparseBlockImgFactory< T extends NativeType< T > > extends NativeImgFactory< T >
+{
+	public static final int DEFAULT_BLOCK_SIZE = 32;
+
+	private final int[] blockSize;
+
+	/**
+	 * @param type
+	 *            pixel type, its value is the background value.
+	 * @param blockSize
+	 *            size of the blocks. If fewer values than dimensions are
+	 *            given, the last value is used for the remaining dimensions.
+	 */
+	public SparseBlockImgFactory( final T type, final int... blockSize )
+	{
+		super( type );
+		this.blockSize = blockSize.length == 0 ? new int[] { DEFAULT_BLOCK_SIZE } : blockSize.clone();
+		for ( final int s : this.blockSize )
+			if ( s <= 0 )
+				throw new IllegalArgumentException( "block size must be positive." );
+	}
+
+	@Override
+	public SparseBlockImg< T, ? > create( final long... dimensions )
+	{
+		return create( dimensions, type(), type().getNativeTypeFactory() );
+	}
+
+	@Override
+	public SparseBlockImg< T, ? > create( final Dimensions dimensions )
+	{
+		return create( Intervals.dimensionsAsLongArray( dimensions ) );
+	}
+
+	@Override
+	public SparseBlockImg< T, ? > create( final int[] dimensions )
+	{
+		return create( Util.int2long( dimensions ) );
+	}
+
+	/**
+	 * Create a {@link SparseBlockImg} with the content of the source image.
+	 * Only blocks that contain pixels different from the background value are
+	 * stored. The blocks are processed in parallel, using the
+	 * {@link Parallelization} task executor.
+	 *
+	 * @param source
+	 *            image to copy, the min of the source is mapped to the origin
+	 *            of the created image.
+	 */
+	public SparseBlockImg< T, ? > copy( final RandomAccessibleInterval< T > source )
+	{
+		final SparseBlockImg< T, ? > img = create( Intervals.dimensionsAsLongArray( source ) );
+		final SparseBlocks< ? > blocks = img.data.blocks();
+		final List< Interval > intervals = new ArrayList<>();
+		for ( long key = 0; key < blocks.numBlocks(); ++key )
+			intervals.add( blocks.blockInterval( key ) );
+
+		final T background = type();
+		final RandomAccessibleInterval< T > zeroMinSource = Views.zeroMin( source );
+		Parallelization.getTaskExecutor().forEach( intervals, interval -> {
+			final RandomAccessibleInterval< T > sourceBlock = Views.interval( zeroMinSource, interval );
+			for ( final T pixel : Views.iterable( sourceBlock ) )
+			{
+				if ( !pixel.valueEquals( background ) )
+				{
+					LoopBuilder.setImages( sourceBlock, Views.interval( img, interval ) ).forEachPixel( ( s, t ) -> t.set( s ) );
+					return;
+				}
+			}
+		} );
+		return img;
+	}
+
+	@SuppressWarnings( { "unchecked", "rawtypes" } )
+	private < A > SparseBlockImg< T, ? > create( final long[] dimensions, final T type, final NativeTypeFactory< T, A > typeFactory )
+	{
+		Dimensions.verify( dimensions );
+
+		final int n = dimensions.length;
+		final int[] size = new int[ n ];
+		for ( int d = 0; d < n; ++d )
+			size[ d ] = blockSize[ Math.min( d, blockSize.length - 1 ) ];
+		final SparseBlockImg< T, ? > img = new SparseBlockImg(
+				createSparseBlockAccess( typeFactory.getPrimitiveType(), dimensions, size, backgroundBlock( type, size ) ),
+				dimensions,
+				type.getEntitiesPerPixel(),
+				type );
+		img.setLinkedType( ( T ) typeFactory.createLinkedType( ( NativeImg ) img ) );
+		return img;
+	}
+
+	/**
+	 * Create the array access of one block, filled with the background value.
+	 */
+	private static < T extends NativeType< T > > ArrayDataAccess< ? > backgroundBlock( final T background, final int[] blockSize )
+	{
+		final ArrayImg< T, ? > block = new ArrayImgFactory<>( background ).create( blockSize );
+		block.forEach( pixel -> pixel.set( background ) );
+		return ( ArrayDataAccess< ? > ) block.update( null );
+	}
+
+	private static SparseBlockAccess< ?, ? > createSparseBlockAccess(
+			final PrimitiveType primitiveType,
+			final long[] dimensions,
+			final int[] blockSize,
+			final ArrayDataAccess< ? > background )
+	{
+		switch ( primitiveType )
+		{
+		case BOOLEAN:
+			return new SparseBlockAccess.OfBoolean( new BlockRef<>( new SparseBlocks<>( dimensions, blockSize, ( BooleanArray ) background ) ) );
+		case BYTE:
+			return new SparseBlockAccess.OfByte( new BlockRef<>( new SparseBlocks<>( dimensions, blockSize, ( ByteArray ) background ) ) );
+		case CHAR:
+			return new SparseBlockAccess.OfChar( new BlockRef<>( new SparseBlocks<>( dimensions, blockSize, ( CharArray ) background ) ) );
+		case SHORT:
+			return new SparseBlockAccess.OfShort( new BlockRef<>( new SparseBlocks<>( dimensions, blockSize, ( ShortArray ) background ) ) );
+		case INT:
+			return new SparseBlockAccess.OfInt( new BlockRef<>( new SparseBlocks<>( dimensions, blockSize, ( IntArray ) background ) ) );
+		case LONG:
+			return new SparseBlockAccess.OfLong( new BlockRef<>( new SparseBlocks<>( dimensions, blockSize, ( LongArray ) background ) ) );
+		case FLOAT:
+			return new SparseBlockAccess.OfFloat( new BlockRef<>( new SparseBlocks<>( dimensions, blockSize, ( FloatArray ) background ) ) );
+		case DOUBLE:
+			return new SparseBlockAccess.OfDouble( new BlockRef<>( new SparseBlocks<>( dimensions, blockSize, ( DoubleArray ) background ) ) );
+		default:
+			throw new IllegalArgumentException();
+		}
+	}
+
+	@SuppressWarnings( { "unchecked", "rawtypes" } )
+	@Override
+	public < S > ImgFactory< S > imgFactory( final S type ) throws IncompatibleTypeException
+	{
+		if ( NativeType.class.isInstance( type ) )
+			return new SparseBlockImgFactory( ( NativeType ) type, blockSize );
+		throw new IncompatibleTypeException( this, type.getClass().getCanonicalName() + " does not implement NativeType." );
+	}
+
+	/*
+	 * -----------------------------------------------------------------------
+	 *
+	 * Deprecated API.
+	 *
+	 * Supports backwards compatibility with ImgFactories that are constructed
+	 * without a type instance or supplier.
+	 *
+	 * -----------------------------------------------------------------------
+	 */
+
+	@Deprecated
+	@Override
+	public SparseBlockImg< T, ? > create( final long[] dimensions, final T type )
+	{
+		cache( type );
+		return create( dimensions, type, type.getNativeTypeFactory() );
+	}
+}
@@ -0,0 +1,273 @@
+/*-
+ * #%L
+ * ImgLib2: a general-purpose, multidimensional image processing library.
+ * %%
+ * Copyright (C) 2009 - 2021 Tobias Pietzsch, Stephan Preibisch, Stephan Saalfeld,
+ * John Bogovic, Albert Cardona, Barry DeZonia, Christian Dietz, Jan Funke,
+ * Aivar Grislis, Jonathan Hale, Grant Harris, Stefan Helfrich, Mark Hiner,
+ * Martin Horn, Steffen Jaensch, Lee Kamentsky, Larry Lindsey, Melissa Linkert,
+ * Mark Longair, Brian Northan, Nick Perry, Curtis Rueden, Johannes Schindelin,
+ * Jean-Yves Tinevez and Michael Zinsmaier.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+package net.imglib2.img.sparse;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import net.imglib2.FinalInterval;
+import net.imglib2.Interval;
+import net.imglib2.img.basictypeaccess.array.ArrayDataAccess;
+
+/**
+ * Storage of a {@link SparseBlockImg}. The image is divided into blocks of
+ * equal size. Only blocks that have been written to are stored, all other
+ * blocks share one read-only block filled with the background value.
+ * <p>
+ * The allocated blocks are stored in pages of {@link #PAGE_SIZE} blocks,
+ * indexed by the block key. Pages are created on the first allocation of
+ * one of their blocks. Looking up a block takes two volatile array reads.
+ *
+ * @param <D>
+ *            array access type of the blocks
+ */
+final class SparseBlocks< D extends ArrayDataAccess< D > >
+{
+	final int n;
+
+	final long[] dimensions;
+
+	final int[] blockSize;
+
+	final long[] numBlocks;
+
+	final D background;
+
+	private static final int PAGE_BITS = 12;
+
+	private static final int PAGE_SIZE = 1 << PAGE_BITS;
+
+	private final AtomicReferenceArray< AtomicReferenceArray< D > > pages;
+
+	private final AtomicInteger numAllocatedBlocks = new AtomicInteger();
+
+	SparseBlocks( final long[] dimensions, final int[] blockSize, final D background )
+	{
+		this.n = dimensions.length;
+		this.dimensions = dimensions.clone();
+		this.blockSize = blockSize.clone();
+		this.background = background;
+		numBlocks = new long[ n ];
+		for ( int d = 0; d < n; ++d )
+			numBlocks[ d ] = ( dimensions[ d ] + blockSize[ d ] - 1 ) / blockSize[ d ];
+		final long numPages = ( numBlocks() + PAGE_SIZE - 1 ) >>> PAGE_BITS;
+		if ( numPages > Integer.MAX_VALUE )
+			throw new IllegalArgumentException( "Too many blocks: " + numBlocks() );
+		pages = new AtomicReferenceArray<>( ( int ) numPages );
+	}
+
+	/**
+	 * Returns the stored block with the given index, or null if the block has
+	 * not been allocated.
+	 */
+	D get( final long key )
+	{
+		final AtomicReferenceArray< D > page = pages.get( ( int ) ( key >>> PAGE_BITS ) );
+		return page == null ? null : page.get( ( int ) key & ( PAGE_SIZE - 1 ) );
+	}
+
+	/**
+	 * Returns the stored block with the given index. If the block has not
+	 * been allocated yet, it is created as a copy of the background block.
+	 */
+	D allocate( final long key )
+	{
+		final int p = ( int ) ( key >>> PAGE_BITS );
+		AtomicReferenceArray< D > page = pages.get( p );
+		if ( page == null )
+		{
+			pages.compareAndSet( p, null, new AtomicReferenceArray<>( PAGE_SIZE ) );
+			page = pages.get( p );
+		}
+		final int i = ( int ) key & ( PAGE_SIZE - 1 );
+		final D existing = page.get( i );
+		if ( existing != null )
+			return existing;
+		final int length = background.getArrayLength();
+		final D block = background.createArray( length );
+		System.arraycopy( background.getCurrentStorageArray(), 0, block.getCurrentStorageArray(), 0, length );
+		if ( page.compareAndSet( i, null, block ) )
+		{
+			numAllocatedBlocks.incrementAndGet();
+			return block;
+		}
+		// another thread allocated the block concurrently
+		return page.get( i );
+	}
+
+	/**
+	 * Returns the indices of the allocated blocks in ascending order.
+	 */
+	long[] allocatedBlocks()
+	{
+		long[] keys = new long[ numAllocatedBlocks() ];
+		int k = 0;
+		for ( int p = 0; p < pages.length(); ++p )
+		{
+			final AtomicReferenceArray< D > page = pages.get( p );
+			if ( page != null )
+				for ( int i = 0; i < PAGE_SIZE; ++i )
+					if ( page.get( i ) != null )
+					{
+						// blocks may be allocated concurrently
+						if ( k == keys.length )
+							keys = Arrays.copyOf( keys, 2 * k + 1 );
+						keys[ k++ ] = ( ( long ) p << PAGE_BITS ) + i;
+					}
+		}
+		return k == keys.length ? keys : Arrays.copyOf( keys, k );
+	}
+
+	int numAllocatedBlocks()
+	{
+		return numAllocatedBlocks.get();
+	}
+
+	long numBlocks()
+	{
+		long numBlocks = 1;
+		for ( int d = 0; d < n; ++d )
+			numBlocks *= this.numBlocks[ d ];
+		return numBlocks;
+	}
+
+	/**
+	 * Writes the min and max of the block with the given index, clipped to
+	 * the image dimensions.
+	 */
+	void blockBounds( final long key, final long[] min, final long[] max )
+	{
+		long k = key;
+		for ( int d = 0; d < n; ++d )
+		{
+			final long b = k % numBlocks[ d ];
+			k /= numBlocks[ d ];
+			min[ d ] = b * blockSize[ d ];
+			max[ d ] = Math.min( min[ d ] + blockSize[ d ], dimensions[ d ] ) - 1;
+		}
+	}
+
+	Interval blockInterval( final long key )
+	{
+		final long[] min = new long[ n ];
+		final long[] max = new long[ n ];
+		blockBounds( key, min, max );
+		return new FinalInterval( min, max );
+	}
+
+	/**
+	 * The block that is currently accessed by an accessor. Each
+	 * {@link SparseBlockRandomAccess} or cursor has its own {@link BlockRef}.
+	 */
+	static final class BlockRef< D extends ArrayDataAccess< D > >
+	{
+		final SparseBlocks< D > blocks;
+
+		private long key = -1;
+
+		/**
+		 * data of the current block, this is the shared background block if
+		 * the current block is not allocated.
+		 */
+		private D data;
+
+		private boolean isBackground;
+
+		BlockRef( final SparseBlocks< D > blocks )
+		{
+			this.blocks = blocks;
+		}
+
+		/**
+		 * Make the block containing position the current block.
+		 *
+		 * @return the index of position inside the block.
+		 */
+		int locate( final long[] position )
+		{
+			final int[] blockSize = blocks.blockSize;
+			final long[] numBlocks = blocks.numBlocks;
+			long key = 0;
+			int index = 0;
+			for ( int d = blocks.n - 1; d >= 0; --d )
+			{
+				final long b = position[ d ] / blockSize[ d ];
+				key = key * numBlocks[ d ] + b;
+				index = index * blockSize[ d ] + ( int ) ( position[ d ] - b * blockSize[ d ] );
+			}
+			if ( key != this.key )
+			{
+				this.key = key;
+				final D block = blocks.get( key );
+				isBackground = block == null;
+				data = isBackground ? blocks.background : block;
+			}
+			return index;
+		}
+
+		/**
+		 * Returns the data of the current block for reading. If the current
+		 * block was not allocated when it was located, it is looked up
+		 * again, because another accessor may have allocated it since.
+		 */
+		D readable()
+		{
+			if ( isBackground )
+			{
+				final D block = blocks.get( key );
+				if ( block != null )
+				{
+					data = block;
+					isBackground = false;
+				}
+			}
+			return data;
+		}
+
+		/**
+		 * Returns the data of the current block, allocating the block if
+		 * necessary.
+		 */
+		D writable()
+		{
+			if ( isBackground )
+			{
+				data = blocks.allocate( key );
+				isBackground = false;
+			}
+			return data;
+		}
+	}
+}
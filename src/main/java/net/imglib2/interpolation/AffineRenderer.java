@@ -0,0 +1,196 @@
+/*-
+ * #%L
+ * ImgLib2: a general-purpose, multidimensional image processing library.
+ * %%
+ * Copyright (C) 2009 - 2021 Tobias Pietzsch, Stephan Preibisch, Stephan Saalfeld,
+ * John Bogovic, Albert Cardona, Barry DeZonia, Christian Dietz, Jan Funke,
+ * Aivar Grislis, Jonathan Hale, Grant Harris, Stefan Helfrich, Mark Hiner,
+ * Martin Horn, Steffen Jaensch, Lee Kamentsky, Larry Lindsey, Melissa Linkert,
+ * Mark Longair, Brian Northan, Nick Perry, Curtis Rueden, Johannes Schindelin,
+ * Jean-Yves Tinevez and Michael Zinsmaier.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+package net.imglib2.interpolation;
+
+import java.util.List;
+
+import net.imglib2.Interval;
+import net.imglib2.RandomAccess;
+import net.imglib2.RandomAccessibleInterval;
+import net.imglib2.RealPoint;
+import net.imglib2.RealRandomAccess;
+import net.imglib2.RealRandomAccessible;
+import net.imglib2.loops.IntervalChunks;
+import net.imglib2.parallel.Parallelization;
+import net.imglib2.parallel.TaskExecutor;
+import net.imglib2.transform.AffineGet;
+import net.imglib2.type.Type;
+import net.imglib2.util.Intervals;
+
+/**
+ * Renders a {@link RealRandomAccessible} into a
+ * {@link RandomAccessibleInterval} through an affine mapping from target to
+ * source coordinates.
+ * <p>
+ * Rendering through {@code Views.interval( Views.raster( ... ) )} with a
+ * transformed {@link RealRandomAccessible} applies the full transformation
+ * for every target pixel. Because the mapping is linear, the source position
+ * of a target pixel differs from that of its neighbor along dimension 0 by a
+ * constant offset, the first column of the matrix. {@link AffineRenderer}
+ * therefore maps only the first pixel of every row and then steps the
+ * {@link RealRandomAccess} along the row with
+ * {@link RealRandomAccess#move(net.imglib2.RealLocalizable)}. The target is
+ * split into tiles that are rendered in parallel by the {@link TaskExecutor}
+ * returned by {@link Parallelization#getTaskExecutor()}.
+ * <p>
+ * Any {@link RealRandomAccessible} can be used as source, in particular the
+ * result of {@code Views.interpolate} with any {@link InterpolatorFactory},
+ * including the stack interpolators in
+ * {@link net.imglib2.interpolation.stack}.
+ * <p>
+ * The {@link AffineGet} maps target coordinates to source coordinates, its
+ * number of source dimensions is that of the target and its number of target
+ * dimensions is that of the source.
+ */
+public class AffineRenderer
+{
+	private AffineRenderer()
+	{
+		// prevent from instantiation
+	}
+
+	/**
+	 * Render {@code source} into {@code target}, the source coordinates of a
+	 * target pixel are given by {@code affine} (target to source).
+	 *
+	 * @param source
+	 *            the (interpolated) source
+	 * @param affine
+	 *            maps target coordinates into source coordinates
+	 * @param target
+	 *            the target image
+	 */
+	public static < T extends Type< T > > void render(
+			final RealRandomAccessible< T > source,
+			final AffineGet affine,
+			final RandomAccessibleInterval< T > target )
+	{
+		render( source, affine, target, Parallelization.getTaskExecutor() );
+	}
+
+	/**
+	 * Render {@code source} into {@code target} using the given
+	 * {@link TaskExecutor}, the source coordinates of a target pixel are
+	 * given by {@code affine} (target to source).
+	 */
+	public static < T extends Type< T > > void render(
+			final RealRandomAccessible< T > source,
+			final AffineGet affine,
+			final RandomAccessibleInterval< T > target,
+			final TaskExecutor taskExecutor )
+	{
+		checkDimensions( source, affine, target );
+		if ( Intervals.isEmpty( target ) )
+			return;
+		final List< Interval > tiles = IntervalChunks.chunkInterval( target, taskExecutor.suggestNumberOfTasks() );
+		taskExecutor.forEach( tiles, tile -> renderTile( source, affine, target, tile ) );
+	}
+
+	/**
+	 * Render one {@code tile} of {@code target} in the current thread.
+	 */
+	public static < T extends Type< T > > void renderTile(
+			final RealRandomAccessible< T > source,
+			final AffineGet affine,
+			final RandomAccessibleInterval< T > target,
+			final Interval tile )
+	{
+		checkDimensions( source, affine, target );
+		final int m = affine.numTargetDimensions();
+		final int n = tile.numDimensions();
+
+		// copy the rows once, the affine is read for every row of the tile
+		final double[][] rows = new double[ m ][ n + 1 ];
+		final RealPoint step = new RealPoint( m );
+		for ( int r = 0; r < m; ++r )
+		{
+			for ( int c = 0; c <= n; ++c )
+				rows[ r ][ c ] = affine.get( r, c );
+			step.setPosition( rows[ r ][ 0 ], r );
+		}
+
+		final RealRandomAccess< T > sourceAccess = source.realRandomAccess();
+		final RandomAccess< T > targetAccess = target.randomAccess( tile );
+
+		final long[] position = Intervals.minAsLongArray( tile );
+		final long[] max = Intervals.maxAsLongArray( tile );
+		final long width = tile.dimension( 0 );
+		final double[] sourcePosition = new double[ m ];
+
+		while ( true )
+		{
+			// map the first pixel of the row
+			for ( int r = 0; r < m; ++r )
+			{
+				final double[] row = rows[ r ];
+				double s = row[ n ];
+				for ( int d = 0; d < n; ++d )
+					s += row[ d ] * position[ d ];
+				sourcePosition[ r ] = s;
+			}
+			sourceAccess.setPosition( sourcePosition );
+			targetAccess.setPosition( position );
+
+			// step along the row
+			for ( long x = 0; x < width; ++x )
+			{
+				targetAccess.get().set( sourceAccess.get() );
+				sourceAccess.move( step );
+				targetAccess.fwd( 0 );
+			}
+
+			// next row
+			int d = 1;
+			for ( ; d < n; ++d )
+			{
+				if ( position[ d ] < max[ d ] )
+				{
+					++position[ d ];
+					break;
+				}
+				position[ d ] = tile.min( d );
+			}
+			if ( d >= n )
+				return;
+		}
+	}
+
+	private static void checkDimensions( final RealRandomAccessible< ? > source, final AffineGet affine, final Interval target )
+	{
+		if ( affine.numTargetDimensions() != source.numDimensions() )
+			throw new IllegalArgumentException( "AffineRenderer, the affine maps into " + affine.numTargetDimensions() + " dimensions but the source has " + source.numDimensions() + "." );
+		if ( affine.numSourceDimensions() != target.numDimensions() )
+			throw new IllegalArgumentException( "AffineRenderer, the affine maps from " + affine.numSourceDimensions() + " dimensions but the target has " + target.numDimensions() + "." );
+	}
+}
@@ -0,0 +1,234 @@
+/*-
+ * #%L
+ * ImgLib2: a general-purpose, multidimensional image processing library.
+ * %%
+ * Copyright (C) 2009 - 2021 Tobias Pietzsch, Stephan Preibisch, Stephan Saalfeld,
+ * John Bogovic, Albert Cardona, Barry DeZonia, Christian Dietz, Jan Funke,
+ * Aivar Grislis, Jonathan Hale, Grant Harris, Stefan Helfrich, Mark Hiner,
+ * Martin Horn, Steffen Jaensch, Lee Kamentsky, Larry Lindsey, Melissa Linkert,
+ * Mark Longair, Brian Northan, Nick Perry, Curtis Rueden, Johannes Schindelin,
+ * Jean-Yves Tinevez and Michael Zinsmaier.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+package net.imglib2.loops;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import net.imglib2.Interval;
+import net.imglib2.type.NativeType;
+import net.imglib2.util.Intervals;
+
+/**
+ * Factory methods for {@link ChunkingStrategy}s.
+ * <p>
+ * {@link #slabs()} is the default used by {@link LoopBuilder}: chunks
+ * span the complete interval in the first dimensions and are thin along
+ * the last dimension. This is optimal for pixel wise operations, but
+ * operations that read a neighborhood of each pixel (e.g. convolutions of
+ * 3D images) then touch much more memory than fits in the cache.
+ * {@link #cacheTiles} produces compact tiles, whose data including the
+ * neighborhood fits in the L2 cache.
+ */
+public class ChunkingStrategies
+{
+	/**
+	 * Default L2 cache size used by {@link #cacheTiles}, in bytes.
+	 */
+	public static final long DEFAULT_CACHE_SIZE = 256 * 1024;
+
+	private ChunkingStrategies()
+	{
+		// prevent from instantiation
+	}
+
+	/**
+	 * Chunks that are split along the last dimension first, see
+	 * {@link IntervalChunks#chunkInterval(Interval, int)}.
+	 */
+	public static ChunkingStrategy slabs()
+	{
+		return IntervalChunks::chunkInterval;
+	}
+
+	/**
+	 * Chunks that are as close to cubes as possible. The interval is
+	 * repeatedly halved along its longest side, until there are enough
+	 * chunks.
+	 */
+	public static ChunkingStrategy cubes()
+	{
+		return ( interval, numberOfChunks ) -> {
+			final long[] dimensions = Intervals.dimensionsAsLongArray( interval );
+			final long[] chunkSize = dimensions.clone();
+			while ( numberOfChunks( dimensions, chunkSize ) < numberOfChunks && halveLongestSide( chunkSize, new long[ chunkSize.length ] ) )
+				;
+			return IntervalChunks.generateGrid( interval, chunkSize );
+		};
+	}
+
+	/**
+	 * Compact tiles, such that the pixels of a tile and of its neighborhood
+	 * fit into the L2 cache ({@link #DEFAULT_CACHE_SIZE}).
+	 *
+	 * @param type
+	 *            pixel type of the processed image(s), used to determine the
+	 *            number of bytes per pixel.
+	 * @param neighborhoodRadius
+	 *            radius of the neighborhood that is read for each pixel, per
+	 *            dimension. Missing values are treated as zero.
+	 */
+	public static ChunkingStrategy cacheTiles( final NativeType< ? > type, final long... neighborhoodRadius )
+	{
+		return cacheTiles( bytesPerPixel( type ), DEFAULT_CACHE_SIZE, neighborhoodRadius );
+	}
+
+	/**
+	 * Compact tiles, such that the pixels of a tile and of its neighborhood
+	 * fit into the given number of bytes.
+	 *
+	 * @param bytesPerPixel
+	 *            the number of bytes that are read or written per pixel, i.e.
+	 *            summed over all images processed.
+	 * @param cacheSize
+	 *            the targeted cache size in bytes.
+	 * @param neighborhoodRadius
+	 *            radius of the neighborhood that is read for each pixel, per
+	 *            dimension. Missing values are treated as zero.
+	 */
+	public static ChunkingStrategy cacheTiles( final double bytesPerPixel, final long cacheSize, final long... neighborhoodRadius )
+	{
+		if ( bytesPerPixel <= 0 || cacheSize <= 0 )
+			throw new IllegalArgumentException( "bytesPerPixel and cacheSize must be positive." );
+		return ( interval, numberOfChunks ) -> {
+			final int n = interval.numDimensions();
+			final long[] dimensions = Intervals.dimensionsAsLongArray( interval );
+			final long[] chunkSize = dimensions.clone();
+			final long[] border = new long[ n ];
+			for ( int d = 0; d < Math.min( n, neighborhoodRadius.length ); d++ )
+				border[ d ] = 2 * neighborhoodRadius[ d ];
+			while ( ( bytesPerPixel * footprint( chunkSize, border ) > cacheSize ||
+					numberOfChunks( dimensions, chunkSize ) < numberOfChunks ) &&
+					halveLongestSide( chunkSize, border ) )
+				;
+			return IntervalChunks.generateGrid( interval, chunkSize );
+		};
+	}
+
+	/**
+	 * Returns the chunks of the given strategy, sorted in Morton order
+	 * (Z-order) of their min corners. Chunks that are processed one after
+	 * the other are then neighbors in space, and so share more cached data,
+	 * e.g. the border of a neighborhood operation.
+	 */
+	public static ChunkingStrategy mortonOrder( final ChunkingStrategy strategy )
+	{
+		return ( interval, numberOfChunks ) -> {
+			final List< Interval > chunks = new ArrayList<>( strategy.chunkInterval( interval, numberOfChunks ) );
+			final long[] min = Intervals.minAsLongArray( interval );
+			chunks.sort( Comparator.comparing( chunk -> mortonKey( chunk, min ), ChunkingStrategies::compareMortonKeys ) );
+			return chunks;
+		};
+	}
+
+	/**
+	 * Number of bytes per pixel of the given {@link NativeType}.
+	 */
+	public static double bytesPerPixel( final NativeType< ? > type )
+	{
+		final int byteCount = type.getNativeTypeFactory().getPrimitiveType().getByteCount();
+		return type.getEntitiesPerPixel().getRatio() * Math.max( 1, byteCount );
+	}
+
+	// -- Helper methods --
+
+	private static long numberOfChunks( final long[] dimensions, final long[] chunkSize )
+	{
+		long result = 1;
+		for ( int d = 0; d < dimensions.length; d++ )
+			result *= IntervalChunks.divideAndRoundUp( dimensions[ d ], chunkSize[ d ] );
+		return result;
+	}
+
+	private static double footprint( final long[] chunkSize, final long[] border )
+	{
+		double result = 1;
+		for ( int d = 0; d < chunkSize.length; d++ )
+			result *= chunkSize[ d ] + border[ d ];
+		return result;
+	}
+
+	/**
+	 * Halves the chunk size in the dimension with the largest extent
+	 * (including the border). On ties the last dimension is split, such that
+	 * rows in the first dimension stay contiguous in memory for as long as
+	 * possible. Returns false, if no dimension can be split any more.
+	 */
+	private static boolean halveLongestSide( final long[] chunkSize, final long[] border )
+	{
+		int longest = -1;
+		for ( int d = 0; d < chunkSize.length; d++ )
+			if ( chunkSize[ d ] > 1 && ( longest < 0 || chunkSize[ d ] + border[ d ] >= chunkSize[ longest ] + border[ longest ] ) )
+				longest = d;
+		if ( longest < 0 )
+			return false;
+		chunkSize[ longest ] = IntervalChunks.divideAndRoundUp( chunkSize[ longest ], 2 );
+		return true;
+	}
+
+	/**
+	 * Position of the chunk relative to the given min, with the bits of all
+	 * coordinates interleaved. Bit {@code b} of dimension {@code d} is stored
+	 * at bit {@code b * n + d} of the key, the least significant bit is bit
+	 * 0 of {@code key[0]}.
+	 */
+	private static long[] mortonKey( final Interval chunk, final long[] min )
+	{
+		final int n = min.length;
+		final long[] key = new long[ n ];
+		for ( int d = 0; d < n; d++ )
+		{
+			final long x = chunk.min( d ) - min[ d ];
+			for ( int b = 0; b < 64; b++ )
+				if ( ( x & ( 1L << b ) ) != 0 )
+				{
+					final int bit = b * n + d;
+					key[ bit / 64 ] |= 1L << ( bit % 64 );
+				}
+		}
+		return key;
+	}
+
+	private static int compareMortonKeys( final long[] a, final long[] b )
+	{
+		for ( int i = a.length - 1; i >= 0; i-- )
+		{
+			final int c = Long.compareUnsigned( a[ i ], b[ i ] );
+			if ( c != 0 )
+				return c;
+		}
+		return 0;
+	}
+}
@@ -33,8 +33,10 @@
  */
 package net.imglib2.loops;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Objects;
 import java.util.StringJoiner;
@@ -54,10 +56,13 @@ import net.imglib2.RandomAccessibleInterval;
 import net.imglib2.img.array.AbstractArrayCursor;
 import net.imglib2.img.cell.CellCursor;
 import net.imglib2.img.planar.PlanarCursor;
+import net.imglib2.parallel.ForkJoinTaskExecutor;
 import net.imglib2.parallel.TaskExecutor;
 import net.imglib2.parallel.Parallelization;
 import net.imglib2.parallel.TaskExecutors;
 import net.imglib2.util.Intervals;
+import net.imglib2.util.Pair;
+import net.imglib2.util.ValuePair;
 import net.imglib2.view.Views;
 import net.imglib2.view.iteration.SlicingCursor;
 
@@ -99,6 +104,8 @@ public class LoopBuilder< T >
 
 	private boolean useFlatIterationOrder = false;
 
+	private ChunkingStrategy chunkingStrategy = null;
+
 	// public methods
 
 	/**
@@ -193,7 +200,7 @@ public class LoopBuilder< T >
 		if ( Intervals.numElements( dimensions ) == 0 )
 			return Collections.emptyList();
 		List< IterableInterval< ? > > iterableIntervals = imagesAsIterableIntervals();
-		if ( allCursorsAreFast( iterableIntervals ) )
+		if ( chunkingStrategy == null && allCursorsAreFast( iterableIntervals ) )
 			return runUsingCursors( iterableIntervals, action );
 		else
 			return runUsingRandomAccesses( action );
@@ -301,6 +308,30 @@ public class LoopBuilder< T >
 		return this;
 	}
 
+	/**
+	 * Sets the {@link ChunkingStrategy} that is used to divide the images
+	 * into chunks for multi-threading. For example, operations that read a
+	 * neighborhood of each pixel can use cache sized tiles:
+	 * <pre>
+	 * {@code
+	 * LoopBuilder.setImages( Views.interval( extendedSource, target ), target )
+	 *     .multiThreaded()
+	 *     .chunking( ChunkingStrategies.cacheTiles( target.firstElement(), 1, 1, 1 ) )
+	 *     .forEachPixel( ... );
+	 * }
+	 * </pre>
+	 * If no strategy is set, {@link LoopBuilder} chooses the chunks itself.
+	 * If a strategy is set, the chunks are always processed using
+	 * {@link RandomAccess}es.
+	 *
+	 * @see ChunkingStrategies
+	 */
+	public LoopBuilder< T > chunking( ChunkingStrategy chunkingStrategy )
+	{
+		this.chunkingStrategy = chunkingStrategy;
+		return this;
+	}
+
 	public interface TriConsumer< A, B, C >
 	{
 		void accept( A a, B b, C c );
@@ -352,7 +383,8 @@ public class LoopBuilder< T >
 	{
 		final int nTasks = taskExecutor.suggestNumberOfTasks();
 		final Interval interval = new FinalInterval( dimensions );
-		final List< Interval > chunks = IntervalChunks.chunkInterval( interval, nTasks );
+		final ChunkingStrategy strategy = chunkingStrategy == null ? ChunkingStrategies.slabs() : chunkingStrategy;
+		final List< Interval > chunks = strategy.chunkInterval( interval, nTasks );
 		return taskExecutor.forEachApply( chunks, chunk -> runOnChunkUsingRandomAccesses( images, chunkAction, chunk ) );
 	}
 
@@ -384,6 +416,8 @@ public class LoopBuilder< T >
 
 	private < R > List< R > runUsingCursors( List< IterableInterval< ? > > iterableIntervals, Function< Chunk< T >, R > chunkAction )
 	{
+		if ( taskExecutor instanceof ForkJoinTaskExecutor )
+			return runUsingCursorsAdaptively( ( ForkJoinTaskExecutor ) taskExecutor, iterableIntervals, chunkAction );
 		int nTasks = taskExecutor.suggestNumberOfTasks();
 		final FinalInterval indices = new FinalInterval( Intervals.numElements( images[ 0 ] ) );
 		List< Interval > chunks = IntervalChunks.chunkInterval( indices, nTasks );
@@ -391,6 +425,26 @@ public class LoopBuilder< T >
 				LoopBuilder.runOnChunkUsingCursors( iterableIntervals, chunkAction, chunk.min( 0 ), chunk.dimension( 0 ) ) );
 	}
 
+	/**
+	 * Splits the pixel indices with
+	 * {@link ForkJoinTaskExecutor#forEachRange}, which adapts the chunk size
+	 * to the cost per pixel. The results are returned in the order of the
+	 * chunks.
+	 */
+	private < R > List< R > runUsingCursorsAdaptively( ForkJoinTaskExecutor executor, List< IterableInterval< ? > > iterableIntervals, Function< Chunk< T >, R > chunkAction )
+	{
+		final List< Pair< Long, R > > results = new ArrayList<>();
+		executor.forEachRange( 0, Intervals.numElements( images[ 0 ] ), ( from, to ) -> {
+			final R result = runOnChunkUsingCursors( iterableIntervals, chunkAction, from, to - from );
+			synchronized ( results )
+			{
+				results.add( new ValuePair<>( from, result ) );
+			}
+		} );
+		results.sort( Comparator.comparing( Pair::getA ) );
+		return ListUtils.map( Pair::getB, results );
+	}
+
 	static < T, R > R runOnChunkUsingCursors( List< IterableInterval< ? > > iterableIntervals, Function< Chunk< T >, R > chunkAction, long offset, long numElements )
 	{
 		final List< Cursor< ? > > cursors = ListUtils.map( IterableInterval::cursor, iterableIntervals );
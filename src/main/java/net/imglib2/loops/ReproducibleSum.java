@@ -0,0 +1,128 @@
+/*-
+ * #%L
+ * ImgLib2: a general-purpose, multidimensional image processing library.
+ * %%
+ * Copyright (C) 2009 - 2021 Tobias Pietzsch, Stephan Preibisch, Stephan Saalfeld,
+ * John Bogovic, Albert Cardona, Barry DeZonia, Christian Dietz, Jan Funke,
+ * Aivar Grislis, Jonathan Hale, Grant Harris, Stefan Helfrich, Mark Hiner,
+ * Martin Horn, Steffen Jaensch, Lee Kamentsky, Larry Lindsey, Melissa Linkert,
+ * Mark Longair, Brian Northan, Nick Perry, Curtis Rueden, Johannes Schindelin,
+ * Jean-Yves Tinevez and Michael Zinsmaier.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+package net.imglib2.loops;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.ToDoubleFunction;
+
+import net.imglib2.Cursor;
+import net.imglib2.RandomAccessibleInterval;
+import net.imglib2.parallel.Parallelization;
+import net.imglib2.parallel.TaskExecutor;
+import net.imglib2.type.numeric.RealType;
+import net.imglib2.util.Intervals;
+import net.imglib2.util.RealSum;
+import net.imglib2.view.Views;
+
+/**
+ * Multi-threaded sums of the pixel values of an image, that are bit
+ * identical for every {@link TaskExecutor}, no matter how many threads it
+ * uses.
+ * <p>
+ * Floating point addition is not associative, so the usual approach of
+ * summing one chunk per task and adding up the chunk sums yields results that
+ * depend on the chunking, and thereby on the number of threads. Here, the
+ * pixels are instead divided into a canonical grid of {@link #BLOCK_SIZE}
+ * consecutive pixels in flat iteration order. Each block is summed using a
+ * {@link RealSum}, and the block sums are then combined, in block order,
+ * with another {@link RealSum}. Both steps are a fixed tree of additions,
+ * that does not depend on which task processed which block. Tasks only
+ * decide which blocks are computed in parallel.
+ */
+public final class ReproducibleSum
+{
+	/**
+	 * Number of pixels per block of the canonical grid. Changing this value
+	 * changes the results (in the last bits).
+	 */
+	public static final int BLOCK_SIZE = 1 << 14;
+
+	private ReproducibleSum()
+	{
+		// prevent from instantiation.
+	}
+
+	/**
+	 * Returns the sum of all pixel values of the image, using the
+	 * {@link TaskExecutor} returned by {@link Parallelization#getTaskExecutor()}.
+	 */
+	public static double sum( final RandomAccessibleInterval< ? extends RealType< ? > > image )
+	{
+		return sum( Parallelization.getTaskExecutor(), image, RealType::getRealDouble );
+	}
+
+	/**
+	 * Returns the mean of all pixel values of the image, using the
+	 * {@link TaskExecutor} returned by {@link Parallelization#getTaskExecutor()}.
+	 */
+	public static double mean( final RandomAccessibleInterval< ? extends RealType< ? > > image )
+	{
+		return sum( image ) / Intervals.numElements( image );
+	}
+
+	/**
+	 * Returns the sum of the values computed by the given function for all
+	 * pixels of the image. The function must be thread safe.
+	 */
+	public static < T > double sum( final TaskExecutor taskExecutor, final RandomAccessibleInterval< T > image, final ToDoubleFunction< ? super T > value )
+	{
+		final long numElements = Intervals.numElements( image );
+		final long totalBlocks = IntervalChunks.divideAndRoundUp( numElements, BLOCK_SIZE );
+		if ( totalBlocks > Integer.MAX_VALUE )
+			throw new IllegalArgumentException( "Image is too large." );
+		final int numBlocks = ( int ) totalBlocks;
+		final double[] blockSums = new double[ numBlocks ];
+		final int numTasks = Math.max( 1, Math.min( numBlocks, taskExecutor.suggestNumberOfTasks() ) );
+		final List< int[] > taskRanges = new ArrayList<>( numTasks );
+		for ( int i = 0; i < numTasks; i++ )
+			taskRanges.add( new int[] { ( int ) ( ( long ) numBlocks * i / numTasks ), ( int ) ( ( long ) numBlocks * ( i + 1 ) / numTasks ) } );
+		taskExecutor.forEach( taskRanges, range -> {
+			final Cursor< T > cursor = Views.flatIterable( image ).cursor();
+			cursor.jumpFwd( ( long ) range[ 0 ] * BLOCK_SIZE );
+			for ( int block = range[ 0 ]; block < range[ 1 ]; block++ )
+			{
+				final long size = Math.min( BLOCK_SIZE, numElements - ( long ) block * BLOCK_SIZE );
+				final RealSum sum = new RealSum( BLOCK_SIZE );
+				for ( long i = 0; i < size; i++ )
+					sum.add( value.applyAsDouble( cursor.next() ) );
+				blockSums[ block ] = sum.getSum();
+			}
+		} );
+		final RealSum sum = new RealSum( numBlocks );
+		for ( final double blockSum : blockSums )
+			sum.add( blockSum );
+		return sum.getSum();
+	}
+}
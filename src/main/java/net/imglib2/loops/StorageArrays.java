@@ -0,0 +1,217 @@
+/*-
+ * #%L
+ * ImgLib2: a general-purpose, multidimensional image processing library.
+ * %%
+ * Copyright (C) 2009 - 2021 Tobias Pietzsch, Stephan Preibisch, Stephan Saalfeld,
+ * John Bogovic, Albert Cardona, Barry DeZonia, Christian Dietz, Jan Funke,
+ * Aivar Grislis, Jonathan Hale, Grant Harris, Stefan Helfrich, Mark Hiner,
+ * Martin Horn, Steffen Jaensch, Lee Kamentsky, Larry Lindsey, Melissa Linkert,
+ * Mark Longair, Brian Northan, Nick Perry, Curtis Rueden, Johannes Schindelin,
+ * Jean-Yves Tinevez and Michael Zinsmaier.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+package net.imglib2.loops;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import net.imglib2.Dirty;
+import net.imglib2.RandomAccessible;
+import net.imglib2.img.array.ArrayImg;
+import net.imglib2.img.basictypeaccess.array.ArrayDataAccess;
+import net.imglib2.img.cell.Cell;
+import net.imglib2.img.cell.CellGrid;
+import net.imglib2.img.cell.CellImg;
+import net.imglib2.img.cell.LazyCellImg;
+import net.imglib2.parallel.Parallelization;
+import net.imglib2.parallel.TaskExecutor;
+
+/**
+ * The primitive arrays that store the pixels of an {@link ArrayImg} or an
+ * in-memory {@link CellImg}, one array per block (the whole image, or one
+ * cell), and a parallel loop over corresponding chunks of the arrays of
+ * several images with the same storage layout.
+ * <p>
+ * This is the common fast path of bulk operations that work directly on the
+ * primitive arrays, like {@code BitOperations} and {@code ComplexOperations}.
+ * Cell images that load their cells on demand, like {@link LazyCellImg} and
+ * cached images, are not supported, because collecting their arrays would
+ * load the whole image into memory.
+ */
+public final class StorageArrays
+{
+	private final long[] dimensions;
+
+	private final CellGrid grid;
+
+	private final List< Object > accesses;
+
+	private final List< Object > arrays;
+
+	private final long[] numPixels;
+
+	private StorageArrays( final long[] dimensions, final CellGrid grid, final List< Object > accesses, final List< Object > arrays, final long[] numPixels )
+	{
+		this.dimensions = dimensions;
+		this.grid = grid;
+		this.accesses = accesses;
+		this.arrays = arrays;
+		this.numPixels = numPixels;
+	}
+
+	/**
+	 * Returns the arrays that store the pixels of the image, or null if the
+	 * image is not an {@link ArrayImg} or {@link CellImg}, or not backed by
+	 * arrays of the given class, e.g. {@code float[].class}.
+	 */
+	public static StorageArrays of( final RandomAccessible< ? > image, final Class< ? > arrayClass )
+	{
+		final List< Object > accesses = new ArrayList<>();
+		final List< Object > arrays = new ArrayList<>();
+		if ( image instanceof ArrayImg )
+		{
+			final ArrayImg< ?, ? > arrayImg = ( ArrayImg< ?, ? > ) image;
+			final Object access = arrayImg.update( null );
+			final Object array = array( access, arrayClass );
+			if ( array == null )
+				return null;
+			accesses.add( access );
+			arrays.add( array );
+			return new StorageArrays( arrayImg.dimensionsAsLongArray(), null, accesses, arrays, new long[] { arrayImg.size() } );
+		}
+		if ( image instanceof CellImg )
+		{
+			final CellImg< ?, ? > cellImg = ( CellImg< ?, ? > ) image;
+			final long[] numPixels = new long[ ( int ) cellImg.getCells().size() ];
+			int i = 0;
+			for ( final Cell< ? > cell : cellImg.getCells() )
+			{
+				final Object array = array( cell.getData(), arrayClass );
+				if ( array == null )
+					return null;
+				accesses.add( cell.getData() );
+				arrays.add( array );
+				numPixels[ i++ ] = cell.size();
+			}
+			return new StorageArrays( cellImg.dimensionsAsLongArray(), cellImg.getCellGrid(), accesses, arrays, numPixels );
+		}
+		return null;
+	}
+
+	/**
+	 * Returns true, if both images have the same storage layout, i.e. are
+	 * {@link ArrayImg}s of equal dimensions or {@link CellImg}s with equal
+	 * cell grids, such that corresponding arrays store the same pixels.
+	 */
+	public boolean matches( final StorageArrays other )
+	{
+		return other != null
+				&& Arrays.equals( dimensions, other.dimensions )
+				&& ( grid == null ? other.grid == null : grid.equals( other.grid ) );
+	}
+
+	public int numBlocks()
+	{
+		return arrays.size();
+	}
+
+	public Object array( final int block )
+	{
+		return arrays.get( block );
+	}
+
+	public long numPixels( final int block )
+	{
+		return numPixels[ block ];
+	}
+
+	/**
+	 * Marks all accesses that implement {@link Dirty} dirty. Call this after
+	 * writing to the arrays.
+	 */
+	public void setDirty()
+	{
+		for ( final Object access : accesses )
+			if ( access instanceof Dirty )
+				( ( Dirty ) access ).setDirty();
+	}
+
+	/**
+	 * Operation on the units {@code from} to {@code to} (exclusive) of one
+	 * block, which stores {@code numPixels} pixels. {@code arrays} contains
+	 * the arrays of the block of each image.
+	 */
+	public interface ChunkFunction< R >
+	{
+		R apply( Object[] arrays, long numPixels, int from, int to );
+	}
+
+	/**
+	 * Divides the blocks into chunks of at least {@code minUnitsPerChunk}
+	 * units of {@code pixelsPerUnit} pixels (except for small blocks), such
+	 * that there are about as many chunks as suggested by the task executor
+	 * returned by {@link Parallelization#getTaskExecutor()}, and applies the
+	 * function to the corresponding arrays of all images in parallel. All
+	 * images must have the same storage layout.
+	 *
+	 * @return the results of all chunks.
+	 */
+	public static < R > List< R > forEachChunk( final int pixelsPerUnit, final int minUnitsPerChunk, final ChunkFunction< R > function, final StorageArrays... images )
+	{
+		final long[] numPixels = images[ 0 ].numPixels;
+		final TaskExecutor taskExecutor = Parallelization.getTaskExecutor();
+		final int numTasks = taskExecutor.suggestNumberOfTasks();
+		long totalUnits = 0;
+		for ( final long n : numPixels )
+			totalUnits += numUnits( n, pixelsPerUnit );
+		final long unitsPerChunk = Math.max( minUnitsPerChunk, ( totalUnits + numTasks - 1 ) / numTasks );
+		final List< int[] > chunks = new ArrayList<>();
+		for ( int b = 0; b < numPixels.length; ++b )
+		{
+			final int numUnits = numUnits( numPixels[ b ], pixelsPerUnit );
+			for ( int from = 0; from < numUnits; from += unitsPerChunk )
+				chunks.add( new int[] { b, from, ( int ) Math.min( numUnits, from + unitsPerChunk ) } );
+		}
+		return taskExecutor.forEachApply( chunks, chunk -> {
+			final Object[] arrays = new Object[ images.length ];
+			for ( int i = 0; i < images.length; ++i )
+				arrays[ i ] = images[ i ].arrays.get( chunk[ 0 ] );
+			return function.apply( arrays, numPixels[ chunk[ 0 ] ], chunk[ 1 ], chunk[ 2 ] );
+		} );
+	}
+
+	private static int numUnits( final long numPixels, final int pixelsPerUnit )
+	{
+		return ( int ) ( ( numPixels + pixelsPerUnit - 1 ) / pixelsPerUnit );
+	}
+
+	private static Object array( final Object access, final Class< ? > arrayClass )
+	{
+		if ( !( access instanceof ArrayDataAccess ) )
+			return null;
+		final Object array = ( ( ArrayDataAccess< ? > ) access ).getCurrentStorageArray();
+		return arrayClass.isInstance( array ) ? array : null;
+	}
+}
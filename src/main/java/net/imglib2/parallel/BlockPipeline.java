@@ -0,0 +1,365 @@
+/*-
+ * #%L
+ * ImgLib2: a general-purpose, multidimensional image processing library.
+ * %%
+ * Copyright (C) 2009 - 2021 Tobias Pietzsch, Stephan Preibisch, Stephan Saalfeld,
+ * John Bogovic, Albert Cardona, Barry DeZonia, Christian Dietz, Jan Funke,
+ * Aivar Grislis, Jonathan Hale, Grant Harris, Stefan Helfrich, Mark Hiner,
+ * Martin Horn, Steffen Jaensch, Lee Kamentsky, Larry Lindsey, Melissa Linkert,
+ * Mark Longair, Brian Northan, Nick Perry, Curtis Rueden, Johannes Schindelin,
+ * Jean-Yves Tinevez and Michael Zinsmaier.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+package net.imglib2.parallel;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import net.imglib2.FinalInterval;
+import net.imglib2.Interval;
+import net.imglib2.img.cell.CellGrid;
+
+/**
+ * Processes the blocks of a {@link CellGrid} in a chain of stages, that run
+ * concurrently and pass the blocks on through bounded queues.
+ * <p>
+ * Each stage is a function, the first one receives the {@link Interval} of
+ * a block, each following stage receives the result of the previous stage.
+ * A stage runs on up to a given number of workers at the same time. A stage
+ * only takes a new block, if the queue to the next stage has room for its
+ * result (backpressure), so at most {@link #queueCapacity(int) capacity}
+ * blocks are waiting between two stages, and the total number of blocks in
+ * memory is bounded by a few blocks per stage, independent of the size of
+ * the grid.
+ *
+ * <pre>
+ * {@code
+ * BlockPipeline.forGrid( grid )
+ *     .map( interval -> load( interval ) )
+ *     .map( 4, block -> filter( block ) )
+ *     .map( block -> threshold( block ) )
+ *     .forEach( block -> write( block ) );
+ * }
+ * </pre>
+ *
+ * Blocks are processed in no particular order. Stages with a single worker
+ * (the default) are only called from one thread at a time. Stages with more
+ * workers must be thread safe. Stages must not return {@code null}.
+ * <p>
+ * The workers run as tasks of the {@link TaskExecutor}. They are not bound
+ * to a stage: each task repeatedly runs whichever stage has a block ready,
+ * preferring later stages. A task only waits while another task is running
+ * a stage, so the pipeline never deadlocks, even if the
+ * {@link TaskExecutor} runs fewer tasks at the same time than requested,
+ * e.g. when the pipeline is started from within another parallel task. In
+ * the extreme case, a single task processes all blocks.
+ */
+public class BlockPipeline< T >
+{
+	/**
+	 * Default capacity of the queues between the stages.
+	 */
+	public static final int DEFAULT_QUEUE_CAPACITY = 2;
+
+	private final CellGrid grid;
+
+	private final List< Stage > stages;
+
+	private final int queueCapacity;
+
+	private BlockPipeline( final CellGrid grid, final List< Stage > stages, final int queueCapacity )
+	{
+		this.grid = grid;
+		this.stages = stages;
+		this.queueCapacity = queueCapacity;
+	}
+
+	/**
+	 * Returns a pipeline, that starts with the {@link Interval}s of the cells
+	 * of the given grid.
+	 */
+	public static BlockPipeline< Interval > forGrid( final CellGrid grid )
+	{
+		return new BlockPipeline<>( grid, Collections.emptyList(), DEFAULT_QUEUE_CAPACITY );
+	}
+
+	/**
+	 * Returns a pipeline with an additional stage, that runs on a single
+	 * worker.
+	 */
+	public < R > BlockPipeline< R > map( final Function< ? super T, ? extends R > stage )
+	{
+		return map( 1, stage );
+	}
+
+	/**
+	 * Returns a pipeline with an additional stage, that runs on the given
+	 * number of workers.
+	 */
+	public < R > BlockPipeline< R > map( final int numWorkers, final Function< ? super T, ? extends R > stage )
+	{
+		return new BlockPipeline<>( grid, append( new Stage( numWorkers, stage ) ), queueCapacity );
+	}
+
+	/**
+	 * Returns a pipeline that uses the given capacity for the queues between
+	 * the stages.
+	 */
+	public BlockPipeline< T > queueCapacity( final int capacity )
+	{
+		if ( capacity < 1 )
+			throw new IllegalArgumentException( "Queue capacity must be positive." );
+		return new BlockPipeline<>( grid, stages, capacity );
+	}
+
+	/**
+	 * Runs the pipeline with the {@link TaskExecutor} returned by
+	 * {@link Parallelization#getTaskExecutor()}, and passes the results of
+	 * the last stage to the given consumer (on a single worker).
+	 */
+	public void forEach( final Consumer< ? super T > sink )
+	{
+		forEach( Parallelization.getTaskExecutor(), sink );
+	}
+
+	/**
+	 * Runs the pipeline with the given {@link TaskExecutor}, and passes the
+	 * results of the last stage to the given consumer (on a single worker).
+	 * Returns when all blocks have been processed. If a stage throws an
+	 * exception, the pipeline is stopped and the exception is rethrown.
+	 */
+	public void forEach( final TaskExecutor taskExecutor, final Consumer< ? super T > sink )
+	{
+		final Function< T, Object > consume = block -> {
+			sink.accept( block );
+			return null;
+		};
+		final List< Stage > all = append( new Stage( 1, consume ) );
+		int numWorkers = 0;
+		for ( final Stage stage : all )
+			numWorkers += stage.numWorkers;
+		new Run( all ).run( taskExecutor, Math.min( numWorkers, taskExecutor.getParallelism() ) );
+	}
+
+	// -- Helper methods --
+
+	private List< Stage > append( final Stage stage )
+	{
+		final List< Stage > result = new ArrayList<>( stages );
+		result.add( stage );
+		return result;
+	}
+
+	private Interval getBlock( final long index )
+	{
+		final int n = grid.numDimensions();
+		final long[] min = new long[ n ];
+		final int[] dims = new int[ n ];
+		final long[] size = new long[ n ];
+		grid.getCellDimensions( index, min, dims );
+		for ( int d = 0; d < n; d++ )
+			size[ d ] = dims[ d ];
+		return FinalInterval.createMinSize( min, size );
+	}
+
+	private long numBlocks()
+	{
+		long result = 1;
+		for ( final long d : grid.getGridDimensions() )
+			result *= d;
+		return result;
+	}
+
+	private static class Stage
+	{
+		private final int numWorkers;
+
+		private final Function< Object, Object > function;
+
+		@SuppressWarnings( "unchecked" )
+		private Stage( final int numWorkers, final Function< ?, ? > function )
+		{
+			if ( numWorkers < 1 )
+				throw new IllegalArgumentException( "Number of workers must be positive." );
+			this.numWorkers = numWorkers;
+			this.function = ( Function< Object, Object > ) function;
+		}
+	}
+
+	/**
+	 * State of one execution of the pipeline. Queue {@code i} holds the
+	 * inputs of stage {@code i}, the inputs of the first stage are created
+	 * on demand. All state is guarded by the monitor of the {@link Run}.
+	 */
+	private class Run
+	{
+		private final List< Stage > stages;
+
+		private final List< ArrayDeque< Object > > queues = new ArrayList<>();
+
+		/**
+		 * Number of workers currently running each stage.
+		 */
+		private final int[] busy;
+
+		private final long numBlocks;
+
+		private long nextBlock = 0;
+
+		/**
+		 * Number of blocks that left the source, but not the last stage.
+		 */
+		private long inFlight = 0;
+
+		private Throwable error;
+
+		private Run( final List< Stage > stages )
+		{
+			this.stages = stages;
+			for ( int i = 0; i < stages.size(); i++ )
+				queues.add( new ArrayDeque<>() );
+			busy = new int[ stages.size() ];
+			numBlocks = numBlocks();
+		}
+
+		private void run( final TaskExecutor taskExecutor, final int numTasks )
+		{
+			final List< Runnable > tasks = new ArrayList<>();
+			for ( int i = 0; i < numTasks; i++ )
+				tasks.add( this::work );
+			taskExecutor.runAll( tasks );
+			final Throwable t = error;
+			if ( t instanceof RuntimeException )
+				throw ( RuntimeException ) t;
+			if ( t instanceof Error )
+				throw ( Error ) t;
+			if ( t != null )
+				throw new RuntimeException( t );
+		}
+
+		private void work()
+		{
+			while ( true )
+			{
+				final Task task = claim();
+				if ( task == null )
+					return;
+				final Object result;
+				try
+				{
+					result = stages.get( task.stage ).function.apply( task.input );
+				}
+				catch ( final Throwable t )
+				{
+					fail( t );
+					return;
+				}
+				complete( task.stage, result );
+			}
+		}
+
+		/**
+		 * Returns the next block to process, or null if all blocks have been
+		 * processed or a stage failed. Waits if no block is ready, which
+		 * implies that another worker is running a stage.
+		 */
+		private synchronized Task claim()
+		{
+			while ( true )
+			{
+				if ( error != null || ( nextBlock == numBlocks && inFlight == 0 ) )
+					return null;
+				for ( int stage = stages.size() - 1; stage >= 0; stage-- )
+				{
+					if ( busy[ stage ] >= stages.get( stage ).numWorkers || !hasRoomForResult( stage ) )
+						continue;
+					if ( stage > 0 && !queues.get( stage ).isEmpty() )
+					{
+						busy[ stage ]++;
+						return new Task( stage, queues.get( stage ).poll() );
+					}
+					if ( stage == 0 && nextBlock < numBlocks )
+					{
+						busy[ stage ]++;
+						inFlight++;
+						return new Task( stage, getBlock( nextBlock++ ) );
+					}
+				}
+				try
+				{
+					wait();
+				}
+				catch ( final InterruptedException e )
+				{
+					Thread.currentThread().interrupt();
+					throw new RuntimeException( e );
+				}
+			}
+		}
+
+		/**
+		 * Returns true, if a result of the stage fits into the queue of the
+		 * next stage, counting the results of the running workers. The last
+		 * stage has no queue.
+		 */
+		private boolean hasRoomForResult( final int stage )
+		{
+			return stage == stages.size() - 1 || queues.get( stage + 1 ).size() + busy[ stage ] < queueCapacity + stages.get( stage ).numWorkers;
+		}
+
+		private synchronized void complete( final int stage, final Object result )
+		{
+			busy[ stage ]--;
+			if ( stage == stages.size() - 1 )
+				inFlight--;
+			else
+				queues.get( stage + 1 ).add( result );
+			notifyAll();
+		}
+
+		private synchronized void fail( final Throwable t )
+		{
+			if ( error == null )
+				error = t;
+			notifyAll();
+		}
+	}
+
+	private static class Task
+	{
+		private final int stage;
+
+		private final Object input;
+
+		private Task( final int stage, final Object input )
+		{
+			this.stage = stage;
+			this.input = input;
+		}
+	}
+}
@@ -0,0 +1,114 @@
+/*-
+ * #%L
+ * ImgLib2: a general-purpose, multidimensional image processing library.
+ * %%
+ * Copyright (C) 2009 - 2021 Tobias Pietzsch, Stephan Preibisch, Stephan Saalfeld,
+ * John Bogovic, Albert Cardona, Barry DeZonia, Christian Dietz, Jan Funke,
+ * Aivar Grislis, Jonathan Hale, Grant Harris, Stefan Helfrich, Mark Hiner,
+ * Martin Horn, Steffen Jaensch, Lee Kamentsky, Larry Lindsey, Melissa Linkert,
+ * Mark Longair, Brian Northan, Nick Perry, Curtis Rueden, Johannes Schindelin,
+ * Jean-Yves Tinevez and Michael Zinsmaier.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+package net.imglib2.parallel;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Allows to cancel a computation that is run with a
+ * {@link MonitoredTaskExecutor}, either explicitly by calling
+ * {@link #cancel()}, or when a deadline is reached.
+ * <p>
+ * Cancellation is cooperative: the {@link MonitoredTaskExecutor} checks the
+ * token before every task (chunk), and long running tasks may call
+ * {@link #checkCancelled()} themselves.
+ *
+ * @see TaskExecutors#monitored(TaskExecutor, CancellationToken, ProgressListener)
+ */
+public class CancellationToken
+{
+	private static final long NO_DEADLINE = Long.MAX_VALUE;
+
+	private volatile boolean cancelled = false;
+
+	private volatile long deadline = NO_DEADLINE;
+
+	/**
+	 * Creates a {@link CancellationToken} without deadline.
+	 */
+	public CancellationToken()
+	{}
+
+	/**
+	 * Creates a {@link CancellationToken} that is cancelled automatically
+	 * after the given timeout.
+	 */
+	public CancellationToken( final long timeout, final TimeUnit unit )
+	{
+		setDeadline( timeout, unit );
+	}
+
+	/**
+	 * Request cancellation.
+	 */
+	public void cancel()
+	{
+		cancelled = true;
+	}
+
+	/**
+	 * Cancel automatically after the given timeout, measured from now.
+	 */
+	public void setDeadline( final long timeout, final TimeUnit unit )
+	{
+		deadline = System.nanoTime() + unit.toNanos( timeout );
+	}
+
+	/**
+	 * Returns true if {@link #cancel()} was called, or the deadline has
+	 * passed.
+	 */
+	public boolean isCancelled()
+	{
+		if ( cancelled )
+			return true;
+		final long deadline = this.deadline;
+		if ( deadline != NO_DEADLINE && System.nanoTime() - deadline >= 0 )
+		{
+			cancelled = true;
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Throws a {@link CancellationException} if this token is cancelled.
+	 */
+	public void checkCancelled() throws CancellationException
+	{
+		if ( isCancelled() )
+			throw new CancellationException( "The computation was cancelled." );
+	}
+}
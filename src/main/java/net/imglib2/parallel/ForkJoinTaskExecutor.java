@@ -0,0 +1,316 @@
+/*-
+ * #%L
+ * ImgLib2: a general-purpose, multidimensional image processing library.
+ * %%
+ * Copyright (C) 2009 - 2021 Tobias Pietzsch, Stephan Preibisch, Stephan Saalfeld,
+ * John Bogovic, Albert Cardona, Barry DeZonia, Christian Dietz, Jan Funke,
+ * Aivar Grislis, Jonathan Hale, Grant Harris, Stefan Helfrich, Mark Hiner,
+ * Martin Horn, Steffen Jaensch, Lee Kamentsky, Larry Lindsey, Melissa Linkert,
+ * Mark Longair, Brian Northan, Nick Perry, Curtis Rueden, Johannes Schindelin,
+ * Jean-Yves Tinevez and Michael Zinsmaier.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+package net.imglib2.parallel;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.IntConsumer;
+
+/**
+ * {@link TaskExecutor} that executes tasks as {@link ForkJoinTask}s on a
+ * {@link ForkJoinPool}, by recursively splitting the list of tasks.
+ * <p>
+ * Tasks run with this executor set as the {@link TaskExecutor} of their
+ * thread, see {@link Parallelization#getTaskExecutor()}. Calls from a worker
+ * thread of the same pool (nested parallelism, e.g. a multi-threaded
+ * algorithm calling another multi-threaded algorithm) are executed within the
+ * current fork/join computation. The calling thread
+ * takes part in the work instead of blocking, which avoids deadlocks and
+ * blocked pool threads. In that case, {@link #suggestNumberOfTasks()}
+ * returns fewer tasks, because the enclosing level already provides enough
+ * parallelism, which avoids oversubscription.
+ * <p>
+ * {@link #forEachRange(long, long, RangeAction)} splits an index range
+ * adaptively: the cost per element is measured on a first, sequential part
+ * of the range, and the remainder is split recursively down to a grain size
+ * of about {@link #TARGET_TASK_NANOS} of work. Idle workers steal the
+ * unprocessed halves, which balances uneven workloads.
+ */
+public class ForkJoinTaskExecutor implements TaskExecutor
+{
+	/**
+	 * Approximate duration of the smallest task created by
+	 * {@link #forEachRange(long, long, RangeAction)}.
+	 */
+	public static final long TARGET_TASK_NANOS = 100_000;
+
+	/**
+	 * If a nested call finds more than this number of surplus tasks queued
+	 * in the current worker, it runs single-threaded.
+	 */
+	private static final int NESTED_SURPLUS_THRESHOLD = 2;
+
+	private final ForkJoinPool pool;
+
+	private final boolean ownsPool;
+
+	/**
+	 * Creates a {@link ForkJoinTaskExecutor} that uses the common
+	 * {@link ForkJoinPool}.
+	 */
+	public ForkJoinTaskExecutor()
+	{
+		this( ForkJoinPool.commonPool(), false );
+	}
+
+	/**
+	 * Creates a {@link ForkJoinTaskExecutor} that uses the given
+	 * {@link ForkJoinPool}. The pool is not shut down by {@link #close()}.
+	 */
+	public ForkJoinTaskExecutor( final ForkJoinPool pool )
+	{
+		this( pool, false );
+	}
+
+	/**
+	 * Creates a {@link ForkJoinTaskExecutor} with a new
+	 * {@link ForkJoinPool} of the given parallelism. The pool is shut down
+	 * by {@link #close()}.
+	 */
+	public ForkJoinTaskExecutor( final int numThreads )
+	{
+		this( new ForkJoinPool( Math.max( 1, numThreads ) ), true );
+	}
+
+	private ForkJoinTaskExecutor( final ForkJoinPool pool, final boolean ownsPool )
+	{
+		this.pool = pool;
+		this.ownsPool = ownsPool;
+	}
+
+	@Override
+	public int getParallelism()
+	{
+		return pool.getParallelism();
+	}
+
+	/**
+	 * Returns 4 times the parallelism, when called from outside of the pool.
+	 * When called from a worker thread of the pool, returns the parallelism,
+	 * or 1 if the worker already has enough queued tasks.
+	 */
+	@Override
+	public int suggestNumberOfTasks()
+	{
+		final int parallelism = getParallelism();
+		if ( parallelism == 1 )
+			return 1;
+		if ( isNested() )
+			return ForkJoinTask.getSurplusQueuedTaskCount() > NESTED_SURPLUS_THRESHOLD ? 1 : parallelism;
+		return ( int ) Math.min( ( long ) parallelism * 4L, ( long ) Integer.MAX_VALUE );
+	}
+
+	@Override
+	public void runAll( final List< Runnable > tasks )
+	{
+		forEach( tasks, Runnable::run );
+	}
+
+	@Override
+	public < T > void forEach( final List< ? extends T > parameters, final Consumer< ? super T > task )
+	{
+		invoke( new IndexTask( 0, parameters.size(), i -> runWithThisExecutor( () -> task.accept( parameters.get( i ) ) ) ) );
+	}
+
+	@Override
+	public < T, R > List< R > forEachApply( final List< ? extends T > parameters, final Function< ? super T, ? extends R > task )
+	{
+		final Object[] results = new Object[ parameters.size() ];
+		invoke( new IndexTask( 0, parameters.size(), i -> runWithThisExecutor( () -> results[ i ] = task.apply( parameters.get( i ) ) ) ) );
+		@SuppressWarnings( "unchecked" )
+		final List< R > list = ( List< R > ) new ArrayList<>( Arrays.asList( results ) );
+		return list;
+	}
+
+	/**
+	 * Action on a range of indices.
+	 */
+	public interface RangeAction
+	{
+		/**
+		 * Process indices {@code from} (inclusive) to {@code to}
+		 * (exclusive).
+		 */
+		void run( long from, long to );
+	}
+
+	/**
+	 * Process the indices {@code from} (inclusive) to {@code to} (exclusive)
+	 * in parallel, with adaptive splitting of the range. {@code action} is
+	 * called for disjoint sub-ranges that together cover the full range.
+	 */
+	public void forEachRange( final long from, final long to, final RangeAction action )
+	{
+		if ( from >= to )
+			return;
+
+		// measure the cost per element on sequential probes of doubling size
+		long next = from;
+		long probeSize = 1;
+		long elapsed = 0;
+		while ( next < to && elapsed < TARGET_TASK_NANOS )
+		{
+			final long end = Math.min( to, next + probeSize );
+			final long start = System.nanoTime();
+			action.run( next, end );
+			elapsed += System.nanoTime() - start;
+			next = end;
+			probeSize *= 2;
+		}
+		if ( next >= to )
+			return;
+
+		final double nanosPerElement = Math.max( 1, elapsed ) / ( double ) ( next - from );
+		final long remaining = to - next;
+		final long maxGrain = Math.max( 1, remaining / ( 4L * getParallelism() ) );
+		final long grain = Math.max( 1, Math.min( maxGrain, ( long ) ( TARGET_TASK_NANOS / nanosPerElement ) ) );
+		invoke( new RangeTask( next, to, grain, ( a, b ) -> runWithThisExecutor( () -> action.run( a, b ) ) ) );
+	}
+
+	/**
+	 * Returns the {@link ForkJoinPool}. It must not be shut down.
+	 */
+	@Override
+	public ExecutorService getExecutorService()
+	{
+		return pool;
+	}
+
+	@Override
+	public void close()
+	{
+		if ( ownsPool )
+			pool.shutdown();
+	}
+
+	private boolean isNested()
+	{
+		final Thread thread = Thread.currentThread();
+		return thread instanceof ForkJoinWorkerThread && ( ( ForkJoinWorkerThread ) thread ).getPool() == pool;
+	}
+
+	/**
+	 * Runs a task with this executor set as the {@link TaskExecutor} of the
+	 * current thread, such that algorithms called by the task, which use
+	 * {@link Parallelization#getTaskExecutor()}, run nested in this executor.
+	 */
+	private void runWithThisExecutor( final Runnable task )
+	{
+		if ( Parallelization.getTaskExecutor() == this )
+			task.run();
+		else
+			Parallelization.runWithExecutor( this, task );
+	}
+
+	private void invoke( final ForkJoinTask< ? > task )
+	{
+		if ( isNested() )
+			task.invoke();
+		else
+			pool.invoke( task );
+	}
+
+	/**
+	 * Recursively splits a range of list indices down to single indices.
+	 */
+	private static class IndexTask extends RecursiveAction
+	{
+		private final int from;
+
+		private final int to;
+
+		private final IntConsumer action;
+
+		IndexTask( final int from, final int to, final IntConsumer action )
+		{
+			this.from = from;
+			this.to = to;
+			this.action = action;
+		}
+
+		@Override
+		protected void compute()
+		{
+			if ( to - from == 1 )
+				action.accept( from );
+			else if ( to - from > 1 )
+			{
+				final int mid = ( from + to ) >>> 1;
+				invokeAll( new IndexTask( from, mid, action ), new IndexTask( mid, to, action ) );
+			}
+		}
+	}
+
+	/**
+	 * Recursively splits a range of indices down to the grain size.
+	 */
+	private static class RangeTask extends RecursiveAction
+	{
+		private final long from;
+
+		private final long to;
+
+		private final long grain;
+
+		private final RangeAction action;
+
+		RangeTask( final long from, final long to, final long grain, final RangeAction action )
+		{
+			this.from = from;
+			this.to = to;
+			this.grain = grain;
+			this.action = action;
+		}
+
+		@Override
+		protected void compute()
+		{
+			if ( to - from <= grain )
+				action.run( from, to );
+			else
+			{
+				final long mid = from + ( to - from ) / 2;
+				invokeAll( new RangeTask( from, mid, grain, action ), new RangeTask( mid, to, grain, action ) );
+			}
+		}
+	}
+}
@@ -0,0 +1,193 @@
+/*-
+ * #%L
+ * ImgLib2: a general-purpose, multidimensional image processing library.
+ * %%
+ * Copyright (C) 2009 - 2021 Tobias Pietzsch, Stephan Preibisch, Stephan Saalfeld,
+ * John Bogovic, Albert Cardona, Barry DeZonia, Christian Dietz, Jan Funke,
+ * Aivar Grislis, Jonathan Hale, Grant Harris, Stefan Helfrich, Mark Hiner,
+ * Martin Horn, Steffen Jaensch, Lee Kamentsky, Larry Lindsey, Melissa Linkert,
+ * Mark Longair, Brian Northan, Nick Perry, Curtis Rueden, Johannes Schindelin,
+ * Jean-Yves Tinevez and Michael Zinsmaier.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+package net.imglib2.parallel;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * {@link TaskExecutor} with two pools: one for compute-bound and one for
+ * I/O-bound tasks.
+ * <p>
+ * All {@link TaskExecutor} methods are delegated to the compute
+ * {@link TaskExecutor}. Tasks that block on I/O, e.g. loading cells of a
+ * {@link net.imglib2.img.cell.LazyCellImg}, should instead be routed to
+ * {@link #getIoTaskExecutor()}, or be wrapped in {@link #callIo(Callable)}.
+ * This keeps the threads of the compute pool busy with computations. When
+ * available, the I/O {@link TaskExecutor} uses a virtual thread per task
+ * (see {@link TaskExecutors#virtualThreads()}).
+ * <p>
+ * Example, a {@link net.imglib2.img.cell.LazyCellImg} whose cells are
+ * loaded on the I/O pool:
+ *
+ * <pre>
+ * {@code
+ * HybridTaskExecutor executor = TaskExecutors.hybrid();
+ * LazyCellImg< T, A > img = new LazyCellImg<>( grid, type, index -> executor.callIo( () -> loader.get( index ) ) );
+ * }
+ * </pre>
+ *
+ * @see Parallelization#getIoTaskExecutor()
+ */
+public class HybridTaskExecutor implements TaskExecutor
+{
+	private final TaskExecutor compute;
+
+	private final TaskExecutor io;
+
+	public HybridTaskExecutor( final TaskExecutor compute, final TaskExecutor io )
+	{
+		this.compute = compute;
+		this.io = io;
+	}
+
+	/**
+	 * Returns the {@link TaskExecutor} for compute-bound tasks.
+	 */
+	public TaskExecutor getComputeTaskExecutor()
+	{
+		return compute;
+	}
+
+	/**
+	 * Returns the {@link TaskExecutor} for I/O-bound tasks.
+	 */
+	public TaskExecutor getIoTaskExecutor()
+	{
+		return io;
+	}
+
+	/**
+	 * Runs {@code task} on the I/O pool and waits for its result. If called
+	 * from a {@link ForkJoinPool} worker thread, the pool is informed that
+	 * the thread is blocked (see {@link ForkJoinPool#managedBlock}), so that
+	 * it can compensate with another worker.
+	 */
+	public < R > R callIo( final Callable< R > task )
+	{
+		final Future< R > future = io.getExecutorService().submit( task );
+		try
+		{
+			ForkJoinPool.managedBlock( new ForkJoinPool.ManagedBlocker()
+			{
+				@Override
+				public boolean block() throws InterruptedException
+				{
+					try
+					{
+						future.get();
+					}
+					catch ( final ExecutionException e )
+					{
+						// NB: rethrown by future.get() below
+					}
+					return true;
+				}
+
+				@Override
+				public boolean isReleasable()
+				{
+					return future.isDone();
+				}
+			} );
+			return future.get();
+		}
+		catch ( final InterruptedException e )
+		{
+			Thread.currentThread().interrupt();
+			throw new RuntimeException( e );
+		}
+		catch ( final ExecutionException e )
+		{
+			final Throwable cause = e.getCause();
+			if ( cause instanceof RuntimeException )
+				throw ( RuntimeException ) cause;
+			if ( cause instanceof Error )
+				throw ( Error ) cause;
+			throw new RuntimeException( cause );
+		}
+	}
+
+	@Override
+	public int getParallelism()
+	{
+		return compute.getParallelism();
+	}
+
+	@Override
+	public int suggestNumberOfTasks()
+	{
+		return compute.suggestNumberOfTasks();
+	}
+
+	@Override
+	public void runAll( final List< Runnable > tasks )
+	{
+		compute.runAll( tasks );
+	}
+
+	@Override
+	public < T > void forEach( final List< ? extends T > parameters, final Consumer< ? super T > task )
+	{
+		compute.forEach( parameters, task );
+	}
+
+	@Override
+	public < T, R > List< R > forEachApply( final List< ? extends T > parameters, final Function< ? super T, ? extends R > task )
+	{
+		return compute.forEachApply( parameters, task );
+	}
+
+	@Override
+	public ExecutorService getExecutorService()
+	{
+		return compute.getExecutorService();
+	}
+
+	/**
+	 * Closes both {@link TaskExecutor}s.
+	 */
+	@Override
+	public void close()
+	{
+		compute.close();
+		io.close();
+	}
+}
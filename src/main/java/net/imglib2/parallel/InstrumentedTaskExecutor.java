@@ -0,0 +1,202 @@
+/*-
+ * #%L
+ * ImgLib2: a general-purpose, multidimensional image processing library.
+ * %%
+ * Copyright (C) 2009 - 2021 Tobias Pietzsch, Stephan Preibisch, Stephan Saalfeld,
+ * John Bogovic, Albert Cardona, Barry DeZonia, Christian Dietz, Jan Funke,
+ * Aivar Grislis, Jonathan Hale, Grant Harris, Stefan Helfrich, Mark Hiner,
+ * Martin Horn, Steffen Jaensch, Lee Kamentsky, Larry Lindsey, Melissa Linkert,
+ * Mark Longair, Brian Northan, Nick Perry, Curtis Rueden, Johannes Schindelin,
+ * Jean-Yves Tinevez and Michael Zinsmaier.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+package net.imglib2.parallel;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import net.imglib2.Dimensions;
+import net.imglib2.util.Intervals;
+
+/**
+ * {@link TaskExecutor} that records {@link TaskMetrics} (tasks per call,
+ * wall time and queue wait of the tasks, idle workers, chunk sizes) for the
+ * tasks it passes to another {@link TaskExecutor}.
+ * <p>
+ * Instrumentation is opt-in: only code that runs with an
+ * {@link InstrumentedTaskExecutor} (e.g. set with
+ * {@link Parallelization#runWithExecutor(TaskExecutor, Runnable)}) is
+ * measured, all other code is unaffected. Recording can be switched off
+ * with {@link #setEnabled(boolean)}, which reduces the overhead to one
+ * field read per call.
+ *
+ * @see TaskExecutors#instrumented(TaskExecutor, TaskMetrics)
+ */
+public class InstrumentedTaskExecutor implements TaskExecutor
+{
+	private final TaskExecutor taskExecutor;
+
+	private final TaskMetrics metrics;
+
+	private volatile boolean enabled = true;
+
+	public InstrumentedTaskExecutor( final TaskExecutor taskExecutor, final TaskMetrics metrics )
+	{
+		this.taskExecutor = taskExecutor;
+		this.metrics = metrics;
+	}
+
+	public TaskMetrics getMetrics()
+	{
+		return metrics;
+	}
+
+	public void setEnabled( final boolean enabled )
+	{
+		this.enabled = enabled;
+	}
+
+	public boolean isEnabled()
+	{
+		return enabled;
+	}
+
+	@Override
+	public int getParallelism()
+	{
+		return taskExecutor.getParallelism();
+	}
+
+	@Override
+	public int suggestNumberOfTasks()
+	{
+		return taskExecutor.suggestNumberOfTasks();
+	}
+
+	@Override
+	public void runAll( final List< Runnable > tasks )
+	{
+		forEach( tasks, Runnable::run );
+	}
+
+	@Override
+	public < T > void forEach( final List< ? extends T > parameters, final Consumer< ? super T > task )
+	{
+		if ( !enabled )
+		{
+			taskExecutor.forEach( parameters, task );
+			return;
+		}
+		final long callStart = startCall( parameters );
+		final LongAdder busy = new LongAdder();
+		try
+		{
+			taskExecutor.forEach( parameters, parameter -> {
+				final long start = startTask( callStart );
+				try
+				{
+					task.accept( parameter );
+				}
+				finally
+				{
+					finishTask( start, busy );
+				}
+			} );
+		}
+		finally
+		{
+			finishCall( callStart, busy );
+		}
+	}
+
+	@Override
+	public < T, R > List< R > forEachApply( final List< ? extends T > parameters, final Function< ? super T, ? extends R > task )
+	{
+		if ( !enabled )
+			return taskExecutor.forEachApply( parameters, task );
+		final long callStart = startCall( parameters );
+		final LongAdder busy = new LongAdder();
+		try
+		{
+			return taskExecutor.forEachApply( parameters, parameter -> {
+				final long start = startTask( callStart );
+				try
+				{
+					return task.apply( parameter );
+				}
+				finally
+				{
+					finishTask( start, busy );
+				}
+			} );
+		}
+		finally
+		{
+			finishCall( callStart, busy );
+		}
+	}
+
+	private long startCall( final List< ? > parameters )
+	{
+		metrics.recordCall( parameters.size() );
+		for ( final Object parameter : parameters )
+			if ( parameter instanceof Dimensions )
+				metrics.recordChunkSize( Intervals.numElements( ( Dimensions ) parameter ) );
+		return System.nanoTime();
+	}
+
+	private long startTask( final long callStart )
+	{
+		final long start = System.nanoTime();
+		metrics.recordTaskStarted( start - callStart );
+		return start;
+	}
+
+	private void finishTask( final long start, final LongAdder busy )
+	{
+		final long nanos = System.nanoTime() - start;
+		metrics.recordTaskFinished( nanos );
+		busy.add( nanos );
+	}
+
+	private void finishCall( final long callStart, final LongAdder busy )
+	{
+		metrics.recordCallFinished( System.nanoTime() - callStart, busy.sum(), getParallelism() );
+	}
+
+	@Override
+	public ExecutorService getExecutorService()
+	{
+		return taskExecutor.getExecutorService();
+	}
+
+	@Override
+	public void close()
+	{
+		taskExecutor.close();
+	}
+}
@@ -0,0 +1,153 @@
+/*-
+ * #%L
+ * ImgLib2: a general-purpose, multidimensional image processing library.
+ * %%
+ * Copyright (C) 2009 - 2021 Tobias Pietzsch, Stephan Preibisch, Stephan Saalfeld,
+ * John Bogovic, Albert Cardona, Barry DeZonia, Christian Dietz, Jan Funke,
+ * Aivar Grislis, Jonathan Hale, Grant Harris, Stefan Helfrich, Mark Hiner,
+ * Martin Horn, Steffen Jaensch, Lee Kamentsky, Larry Lindsey, Melissa Linkert,
+ * Mark Longair, Brian Northan, Nick Perry, Curtis Rueden, Johannes Schindelin,
+ * Jean-Yves Tinevez and Michael Zinsmaier.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+package net.imglib2.parallel;
+
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * {@link TaskExecutor} that adds cancellation and progress reporting to
+ * another {@link TaskExecutor}.
+ * <p>
+ * Before a task is started, the {@link CancellationToken} is checked. Once
+ * it is cancelled, the remaining tasks return immediately and the call to
+ * {@link #runAll}, {@link #forEach} or {@link #forEachApply} throws a
+ * {@link CancellationException}. After each completed task, the
+ * {@link ProgressListener} is notified.
+ * <p>
+ * Algorithms that split their work according to
+ * {@link #suggestNumberOfTasks()}, such as
+ * {@link net.imglib2.loops.LoopBuilder} with multi-threading enabled, are
+ * therefore cancelled at chunk granularity. To make that granularity finer,
+ * {@link #suggestNumberOfTasks()} returns {@link #TASKS_FACTOR} times the
+ * number suggested by the wrapped {@link TaskExecutor}.
+ *
+ * <pre>
+ * {@code
+ * CancellationToken token = new CancellationToken();
+ * TaskExecutor executor = TaskExecutors.monitored( TaskExecutors.multiThreaded(), token, ( done, total ) -> updateProgressBar( done, total ) );
+ * // ... token.cancel() may be called from another thread
+ * Parallelization.runWithExecutor( executor, () -> LoopBuilder.setImages( in, out ).multiThreaded().forEachPixel( op ) );
+ * }
+ * </pre>
+ */
+public class MonitoredTaskExecutor implements TaskExecutor
+{
+	/**
+	 * {@link #suggestNumberOfTasks()} is this factor times the number
+	 * suggested by the wrapped {@link TaskExecutor}.
+	 */
+	public static final int TASKS_FACTOR = 4;
+
+	private static final ProgressListener NO_PROGRESS = ( completedTasks, totalTasks ) -> {};
+
+	private final TaskExecutor taskExecutor;
+
+	private final CancellationToken token;
+
+	private final ProgressListener progressListener;
+
+	public MonitoredTaskExecutor( final TaskExecutor taskExecutor, final CancellationToken token, final ProgressListener progressListener )
+	{
+		this.taskExecutor = taskExecutor;
+		this.token = token != null ? token : new CancellationToken();
+		this.progressListener = progressListener != null ? progressListener : NO_PROGRESS;
+	}
+
+	public CancellationToken getCancellationToken()
+	{
+		return token;
+	}
+
+	@Override
+	public int getParallelism()
+	{
+		return taskExecutor.getParallelism();
+	}
+
+	@Override
+	public int suggestNumberOfTasks()
+	{
+		return ( int ) Math.min( ( long ) taskExecutor.suggestNumberOfTasks() * TASKS_FACTOR, ( long ) Integer.MAX_VALUE );
+	}
+
+	@Override
+	public void runAll( final List< Runnable > tasks )
+	{
+		forEach( tasks, Runnable::run );
+	}
+
+	@Override
+	public < T > void forEach( final List< ? extends T > parameters, final Consumer< ? super T > task )
+	{
+		token.checkCancelled();
+		final long total = parameters.size();
+		final AtomicLong completed = new AtomicLong();
+		taskExecutor.forEach( parameters, parameter -> {
+			token.checkCancelled();
+			task.accept( parameter );
+			progressListener.progress( completed.incrementAndGet(), total );
+		} );
+	}
+
+	@Override
+	public < T, R > List< R > forEachApply( final List< ? extends T > parameters, final Function< ? super T, ? extends R > task )
+	{
+		token.checkCancelled();
+		final long total = parameters.size();
+		final AtomicLong completed = new AtomicLong();
+		return taskExecutor.forEachApply( parameters, parameter -> {
+			token.checkCancelled();
+			final R result = task.apply( parameter );
+			progressListener.progress( completed.incrementAndGet(), total );
+			return result;
+		} );
+	}
+
+	@Override
+	public ExecutorService getExecutorService()
+	{
+		return taskExecutor.getExecutorService();
+	}
+
+	@Override
+	public void close()
+	{
+		taskExecutor.close();
+	}
+}
@@ -104,6 +104,20 @@ public final class Parallelization
 		return getTaskExecutor().getExecutorService();
 	}
 
+	/**
+	 * Returns the {@link TaskExecutor} that should be used for tasks that
+	 * block on I/O. If the {@link TaskExecutor} set for this thread is a
+	 * {@link HybridTaskExecutor}, this is its I/O {@link TaskExecutor},
+	 * otherwise the {@link TaskExecutor} set for this thread.
+	 */
+	public static TaskExecutor getIoTaskExecutor()
+	{
+		final TaskExecutor taskExecutor = getTaskExecutor();
+		return taskExecutor instanceof HybridTaskExecutor ?
+				( ( HybridTaskExecutor ) taskExecutor ).getIoTaskExecutor() :
+				taskExecutor;
+	}
+
 	// Method to call a multi-threaded algorithm
 
 	/**
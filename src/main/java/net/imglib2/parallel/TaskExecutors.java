@@ -33,6 +33,7 @@
  */
 package net.imglib2.parallel;
 
+import java.lang.reflect.Method;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ForkJoinPool;
@@ -70,6 +71,137 @@ public final class TaskExecutors
 	private static final TaskExecutor FORK_JOIN_TASK_EXECUTOR =
 			new DefaultTaskExecutor( new ForkJoinExecutorService() );
 
+	/**
+	 * {@link TaskExecutor} for multi-threaded execution on the common
+	 * {@link ForkJoinPool}, that supports nested parallelism and adaptive
+	 * splitting of index ranges.
+	 *
+	 * @see ForkJoinTaskExecutor
+	 */
+	public static ForkJoinTaskExecutor workStealing()
+	{
+		return WORK_STEALING_TASK_EXECUTOR;
+	}
+
+	private static final ForkJoinTaskExecutor WORK_STEALING_TASK_EXECUTOR = new ForkJoinTaskExecutor();
+
+	/**
+	 * Like {@link #workStealing()} but uses a new {@link ForkJoinPool} with
+	 * the given number of threads. The {@link TaskExecutor} needs to be closed
+	 * by calling {@link TaskExecutor#close()}.
+	 */
+	public static ForkJoinTaskExecutor workStealing( int numThreads )
+	{
+		return new ForkJoinTaskExecutor( numThreads );
+	}
+
+	/**
+	 * Default value of {@link TaskExecutor#suggestNumberOfTasks()} for the
+	 * I/O {@link TaskExecutor}s returned by {@link #virtualThreads()} and
+	 * {@link #hybrid()}.
+	 */
+	public static final int DEFAULT_IO_TASKS = 64;
+
+	private static final Method NEW_VIRTUAL_THREAD_PER_TASK_EXECUTOR = virtualThreadPerTaskExecutorFactory();
+
+	private static Method virtualThreadPerTaskExecutorFactory()
+	{
+		try
+		{
+			final Method method = Executors.class.getMethod( "newVirtualThreadPerTaskExecutor" );
+			// NB: fails if virtual threads are a disabled preview feature
+			( ( ExecutorService ) method.invoke( null ) ).shutdown();
+			return method;
+		}
+		catch ( final Exception | LinkageError e )
+		{
+			return null;
+		}
+	}
+
+	/**
+	 * Returns true if the runtime supports virtual threads (Java 21 and
+	 * later).
+	 */
+	public static boolean supportsVirtualThreads()
+	{
+		return NEW_VIRTUAL_THREAD_PER_TASK_EXECUTOR != null;
+	}
+
+	/**
+	 * Returns a {@link TaskExecutor} that starts a new virtual thread for
+	 * each task, suitable for tasks that block on I/O.
+	 * {@link TaskExecutor#getParallelism()} returns the number of available
+	 * processors, i.e. the number of threads that carry the virtual threads,
+	 * and {@link TaskExecutor#suggestNumberOfTasks()} returns
+	 * {@link #DEFAULT_IO_TASKS}. The {@link TaskExecutor} needs to be closed
+	 * by calling {@link TaskExecutor#close()}.
+	 *
+	 * @throws UnsupportedOperationException
+	 *             if the runtime does not support virtual threads
+	 * @see #supportsVirtualThreads()
+	 */
+	public static TaskExecutor virtualThreads()
+	{
+		return virtualThreads( DEFAULT_IO_TASKS );
+	}
+
+	/**
+	 * Like {@link #virtualThreads()}, but
+	 * {@link TaskExecutor#suggestNumberOfTasks()} returns the given number
+	 * of tasks.
+	 */
+	public static TaskExecutor virtualThreads( int numTasks )
+	{
+		if ( !supportsVirtualThreads() )
+			throw new UnsupportedOperationException( "Virtual threads are not supported by this Java runtime." );
+		final ExecutorService executorService;
+		try
+		{
+			executorService = ( ExecutorService ) NEW_VIRTUAL_THREAD_PER_TASK_EXECUTOR.invoke( null );
+		}
+		catch ( final ReflectiveOperationException e )
+		{
+			throw new UnsupportedOperationException( "Virtual threads are not supported by this Java runtime.", e );
+		}
+		return new DefaultTaskExecutor( executorService )
+		{
+			@Override
+			public int getParallelism()
+			{
+				return Runtime.getRuntime().availableProcessors();
+			}
+
+			@Override
+			public int suggestNumberOfTasks()
+			{
+				return numTasks;
+			}
+		};
+	}
+
+	/**
+	 * Returns a {@link HybridTaskExecutor} that runs compute-bound tasks
+	 * with {@link #multiThreaded()} and I/O-bound tasks with
+	 * {@link #virtualThreads()}. If the runtime does not support virtual
+	 * threads, I/O tasks are run on a cached pool of daemon threads instead.
+	 * The {@link TaskExecutor} needs to be closed by calling
+	 * {@link TaskExecutor#close()}.
+	 */
+	public static HybridTaskExecutor hybrid()
+	{
+		final TaskExecutor io;
+		if ( supportsVirtualThreads() )
+			io = virtualThreads();
+		else
+			io = forExecutorServiceAndNumTasks( Executors.newCachedThreadPool( runnable -> {
+				final Thread thread = Executors.defaultThreadFactory().newThread( runnable );
+				thread.setDaemon( true );
+				return thread;
+			} ), DEFAULT_IO_TASKS );
+		return new HybridTaskExecutor( multiThreaded(), io );
+	}
+
 	/**
 	 * {@link TaskExecutor} that uses the given number or threads.
 	 * The {@link TaskExecutor} needs to be closed by calling {@link TaskExecutor#close()}.
@@ -120,6 +252,30 @@ public final class TaskExecutors
 		};
 	}
 
+	/**
+	 * Returns a {@link TaskExecutor} that runs the tasks with the given
+	 * {@link TaskExecutor}, but checks the {@link CancellationToken} before
+	 * each task and notifies the {@link ProgressListener} after each task.
+	 * Both {@code token} and {@code progressListener} may be null.
+	 *
+	 * @see MonitoredTaskExecutor
+	 */
+	public static MonitoredTaskExecutor monitored( TaskExecutor taskExecutor, CancellationToken token, ProgressListener progressListener )
+	{
+		return new MonitoredTaskExecutor( taskExecutor, token, progressListener );
+	}
+
+	/**
+	 * Returns a {@link TaskExecutor} that runs the tasks with the given
+	 * {@link TaskExecutor} and records {@link TaskMetrics} about them.
+	 *
+	 * @see InstrumentedTaskExecutor
+	 */
+	public static InstrumentedTaskExecutor instrumented( TaskExecutor taskExecutor, TaskMetrics metrics )
+	{
+		return new InstrumentedTaskExecutor( taskExecutor, metrics );
+	}
+
 	/**
 	 * Returns a {@link TaskExecutor} that uses a fixed thread pool with the
 	 * given number of threads.
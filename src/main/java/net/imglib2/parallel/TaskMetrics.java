@@ -0,0 +1,251 @@
+/*-
+ * #%L
+ * ImgLib2: a general-purpose, multidimensional image processing library.
+ * %%
+ * Copyright (C) 2009 - 2021 Tobias Pietzsch, Stephan Preibisch, Stephan Saalfeld,
+ * John Bogovic, Albert Cardona, Barry DeZonia, Christian Dietz, Jan Funke,
+ * Aivar Grislis, Jonathan Hale, Grant Harris, Stefan Helfrich, Mark Hiner,
+ * Martin Horn, Steffen Jaensch, Lee Kamentsky, Larry Lindsey, Melissa Linkert,
+ * Mark Longair, Brian Northan, Nick Perry, Curtis Rueden, Johannes Schindelin,
+ * Jean-Yves Tinevez and Michael Zinsmaier.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+package net.imglib2.parallel;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * Counters and histograms recorded by an {@link InstrumentedTaskExecutor}.
+ * All methods are thread safe. The metrics can be read directly, or be
+ * published as MBean with {@link #register(String)} for monitoring tools.
+ *
+ * @see TaskExecutors#instrumented(TaskExecutor, TaskMetrics)
+ */
+public class TaskMetrics implements TaskMetricsMXBean
+{
+	private final LongAdder calls = new LongAdder();
+
+	private final LongAdder tasks = new LongAdder();
+
+	private final AtomicLong activeTasks = new AtomicLong();
+
+	private final LongAdder idleWorkerNanos = new LongAdder();
+
+	private final Histogram tasksPerCall = new Histogram();
+
+	private final Histogram taskNanos = new Histogram();
+
+	private final Histogram queueWaitNanos = new Histogram();
+
+	private final Histogram chunkSizes = new Histogram();
+
+	/**
+	 * Register these metrics with the platform MBean server, under the
+	 * given object name, e.g. {@code "net.imglib2.parallel:type=TaskMetrics,name=myPipeline"}.
+	 *
+	 * @return the {@link ObjectName} under which the MBean was registered.
+	 */
+	public ObjectName register( final String objectName ) throws JMException
+	{
+		final ObjectName name = new ObjectName( objectName );
+		ManagementFactory.getPlatformMBeanServer().registerMBean( this, name );
+		return name;
+	}
+
+	// -- recording --
+
+	void recordCall( final int numTasks )
+	{
+		calls.increment();
+		tasksPerCall.record( numTasks );
+	}
+
+	void recordChunkSize( final long numElements )
+	{
+		chunkSizes.record( numElements );
+	}
+
+	void recordTaskStarted( final long queueWait )
+	{
+		activeTasks.incrementAndGet();
+		queueWaitNanos.record( queueWait );
+	}
+
+	void recordTaskFinished( final long nanos )
+	{
+		activeTasks.decrementAndGet();
+		tasks.increment();
+		taskNanos.record( nanos );
+	}
+
+	void recordCallFinished( final long callNanos, final long busyNanos, final int parallelism )
+	{
+		idleWorkerNanos.add( Math.max( 0, callNanos * parallelism - busyNanos ) );
+	}
+
+	// -- TaskMetricsMXBean --
+
+	@Override
+	public long getCalls()
+	{
+		return calls.sum();
+	}
+
+	@Override
+	public long getTasks()
+	{
+		return tasks.sum();
+	}
+
+	@Override
+	public long getActiveTasks()
+	{
+		return activeTasks.get();
+	}
+
+	@Override
+	public long[] getTasksPerCallHistogram()
+	{
+		return tasksPerCall.getCounts();
+	}
+
+	@Override
+	public long[] getTaskNanosHistogram()
+	{
+		return taskNanos.getCounts();
+	}
+
+	@Override
+	public double getMeanTaskNanos()
+	{
+		return taskNanos.getMean();
+	}
+
+	@Override
+	public long getMaxTaskNanos()
+	{
+		return taskNanos.getMax();
+	}
+
+	@Override
+	public long[] getQueueWaitNanosHistogram()
+	{
+		return queueWaitNanos.getCounts();
+	}
+
+	@Override
+	public double getMeanQueueWaitNanos()
+	{
+		return queueWaitNanos.getMean();
+	}
+
+	@Override
+	public long getIdleWorkerNanos()
+	{
+		return idleWorkerNanos.sum();
+	}
+
+	@Override
+	public long[] getChunkSizeHistogram()
+	{
+		return chunkSizes.getCounts();
+	}
+
+	@Override
+	public double getMeanChunkSize()
+	{
+		return chunkSizes.getMean();
+	}
+
+	@Override
+	public void reset()
+	{
+		calls.reset();
+		tasks.reset();
+		idleWorkerNanos.reset();
+		tasksPerCall.reset();
+		taskNanos.reset();
+		queueWaitNanos.reset();
+		chunkSizes.reset();
+	}
+
+	/**
+	 * Histogram of non-negative values, with power-of-two buckets.
+	 */
+	private static class Histogram
+	{
+		private final AtomicLongArray counts = new AtomicLongArray( 65 );
+
+		private final LongAdder sum = new LongAdder();
+
+		private final LongAdder count = new LongAdder();
+
+		private final AtomicLong max = new AtomicLong();
+
+		void record( final long value )
+		{
+			final long v = Math.max( 0, value );
+			counts.incrementAndGet( 64 - Long.numberOfLeadingZeros( v ) );
+			sum.add( v );
+			count.increment();
+			long m = max.get();
+			while ( v > m && !max.compareAndSet( m, v ) )
+				m = max.get();
+		}
+
+		long[] getCounts()
+		{
+			final long[] result = new long[ counts.length() ];
+			for ( int i = 0; i < result.length; ++i )
+				result[ i ] = counts.get( i );
+			return result;
+		}
+
+		double getMean()
+		{
+			final long n = count.sum();
+			return n == 0 ? 0 : sum.sum() / ( double ) n;
+		}
+
+		long getMax()
+		{
+			return max.get();
+		}
+
+		void reset()
+		{
+			for ( int i = 0; i < counts.length(); ++i )
+				counts.set( i, 0 );
+			sum.reset();
+			count.reset();
+			max.set( 0 );
+		}
+	}
+}
@@ -0,0 +1,99 @@
+/*-
+ * #%L
+ * ImgLib2: a general-purpose, multidimensional image processing library.
+ * %%
+ * Copyright (C) 2009 - 2021 Tobias Pietzsch, Stephan Preibisch, Stephan Saalfeld,
+ * John Bogovic, Albert Cardona, Barry DeZonia, Christian Dietz, Jan Funke,
+ * Aivar Grislis, Jonathan Hale, Grant Harris, Stefan Helfrich, Mark Hiner,
+ * Martin Horn, Steffen Jaensch, Lee Kamentsky, Larry Lindsey, Melissa Linkert,
+ * Mark Longair, Brian Northan, Nick Perry, Curtis Rueden, Johannes Schindelin,
+ * Jean-Yves Tinevez and Michael Zinsmaier.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+package net.imglib2.parallel;
+
+/**
+ * Management interface of {@link TaskMetrics}, see
+ * {@link TaskMetrics#register(String)}. Histograms are returned as counts
+ * per power-of-two bucket, where bucket {@code i > 0} counts values
+ * {@code v} with {@code 2^(i-1) <= v < 2^i} and bucket 0 counts zeros.
+ */
+public interface TaskMetricsMXBean
+{
+	/**
+	 * Number of calls to {@code runAll}, {@code forEach} or
+	 * {@code forEachApply}.
+	 */
+	long getCalls();
+
+	/**
+	 * Total number of executed tasks.
+	 */
+	long getTasks();
+
+	/**
+	 * Number of tasks that are currently running.
+	 */
+	long getActiveTasks();
+
+	long[] getTasksPerCallHistogram();
+
+	/**
+	 * Histogram of the wall time of the tasks, in nanoseconds.
+	 */
+	long[] getTaskNanosHistogram();
+
+	double getMeanTaskNanos();
+
+	long getMaxTaskNanos();
+
+	/**
+	 * Histogram of the time between the start of a call and the start of a
+	 * task, in nanoseconds.
+	 */
+	long[] getQueueWaitNanosHistogram();
+
+	double getMeanQueueWaitNanos();
+
+	/**
+	 * Total time that workers were idle during calls, in nanoseconds. For
+	 * each call this is the parallelism times the wall time of the call,
+	 * minus the summed wall time of its tasks.
+	 */
+	long getIdleWorkerNanos();
+
+	/**
+	 * Histogram of the number of elements of the tasks' parameters, for
+	 * parameters that are {@link net.imglib2.Dimensions} (e.g. chunks from
+	 * {@link net.imglib2.loops.IntervalChunks}).
+	 */
+	long[] getChunkSizeHistogram();
+
+	double getMeanChunkSize();
+
+	/**
+	 * Reset all counters and histograms.
+	 */
+	void reset();
+}
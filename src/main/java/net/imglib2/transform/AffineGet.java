@@ -0,0 +1,77 @@
+/*-
+ * #%L
+ * ImgLib2: a general-purpose, multidimensional image processing library.
+ * %%
+ * Copyright (C) 2009 - 2021 Tobias Pietzsch, Stephan Preibisch, Stephan Saalfeld,
+ * John Bogovic, Albert Cardona, Barry DeZonia, Christian Dietz, Jan Funke,
+ * Aivar Grislis, Jonathan Hale, Grant Harris, Stefan Helfrich, Mark Hiner,
+ * Martin Horn, Steffen Jaensch, Lee Kamentsky, Larry Lindsey, Melissa Linkert,
+ * Mark Longair, Brian Northan, Nick Perry, Curtis Rueden, Johannes Schindelin,
+ * Jean-Yves Tinevez and Michael Zinsmaier.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+package net.imglib2.transform;
+
+/**
+ * Read access to an affine transformation from R<sup><em>n</em></sup> to
+ * R<sup><em>m</em></sup>.
+ * 
+ * <p>
+ * The transformation is an <em>m</em>&times;(<em>n</em>+1) matrix whose last
+ * column holds the translation. Applying it to a <em>n</em>-dimensional
+ * <em>source</em> vector yields the <em>m</em>-dimensional <em>target</em>
+ * vector
+ * </p>
+ * 
+ * <pre>
+ * target[ r ] = get( r, 0 ) * source[ 0 ] + ... + get( r, n - 1 ) * source[ n - 1 ] + get( r, n )
+ * </pre>
+ */
+public interface AffineGet
+{
+	/**
+	 * Returns <em>n</em>, the dimension of the source vector.
+	 * 
+	 * @return the dimension of the source vector.
+	 */
+	public int numSourceDimensions();
+
+	/**
+	 * Returns <em>m</em>, the dimension of the target vector.
+	 * 
+	 * @return the dimension of the target vector.
+	 */
+	public int numTargetDimensions();
+
+	/**
+	 * Get a field of the <em>m</em>&times;(<em>n</em>+1) matrix.
+	 * 
+	 * @param row
+	 *            the row, {@code 0 <= row < m}
+	 * @param column
+	 *            the column, {@code 0 <= column <= n}
+	 */
+	public double get( final int row, final int column );
+}
@@ -0,0 +1,132 @@
+/*-
+ * #%L
+ * ImgLib2: a general-purpose, multidimensional image processing library.
+ * %%
+ * Copyright (C) 2009 - 2021 Tobias Pietzsch, Stephan Preibisch, Stephan Saalfeld,
+ * John Bogovic, Albert Cardona, Barry DeZonia, Christian Dietz, Jan Funke,
+ * Aivar Grislis, Jonathan Hale, Grant Harris, Stefan Helfrich, Mark Hiner,
+ * Martin Horn, Steffen Jaensch, Lee Kamentsky, Larry Lindsey, Melissa Linkert,
+ * Mark Longair, Brian Northan, Nick Perry, Curtis Rueden, Johannes Schindelin,
+ * Jean-Yves Tinevez and Michael Zinsmaier.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+package net.imglib2.transform;
+
+/**
+ * An affine transformation from R<sup><em>n</em></sup> to
+ * R<sup><em>m</em></sup> stored as an <em>m</em>&times;(<em>n</em>+1) matrix.
+ * 
+ * @see AffineGet
+ */
+public class AffineTransform implements AffineGet
+{
+	protected final int numSourceDimensions;
+
+	protected final int numTargetDimensions;
+
+	protected final double[][] matrix;
+
+	/**
+	 * Create the transformation from R<sup><em>n</em></sup> to
+	 * R<sup><em>m</em></sup> with all fields 0, except for the diagonal which
+	 * is 1.
+	 * 
+	 * @param numSourceDimensions
+	 *            <em>n</em>
+	 * @param numTargetDimensions
+	 *            <em>m</em>
+	 */
+	public AffineTransform( final int numSourceDimensions, final int numTargetDimensions )
+	{
+		this.numSourceDimensions = numSourceDimensions;
+		this.numTargetDimensions = numTargetDimensions;
+		matrix = new double[ numTargetDimensions ][ numSourceDimensions + 1 ];
+		for ( int d = 0; d < Math.min( numSourceDimensions, numTargetDimensions ); ++d )
+			matrix[ d ][ d ] = 1;
+	}
+
+	/**
+	 * Create the transformation from an <em>m</em>&times;(<em>n</em>+1)
+	 * matrix. The matrix is copied.
+	 */
+	public AffineTransform( final double[][] matrix )
+	{
+		this( matrix[ 0 ].length - 1, matrix.length );
+		set( matrix );
+	}
+
+	@Override
+	public int numSourceDimensions()
+	{
+		return numSourceDimensions;
+	}
+
+	@Override
+	public int numTargetDimensions()
+	{
+		return numTargetDimensions;
+	}
+
+	@Override
+	public double get( final int row, final int column )
+	{
+		return matrix[ row ][ column ];
+	}
+
+	/**
+	 * Set a field of the matrix.
+	 */
+	public void set( final double value, final int row, final int column )
+	{
+		matrix[ row ][ column ] = value;
+	}
+
+	/**
+	 * Set the matrix to the given <em>m</em>&times;(<em>n</em>+1) matrix.
+	 */
+	public void set( final double[][] values )
+	{
+		if ( values.length != numTargetDimensions )
+			throw new IllegalArgumentException( "AffineTransform, expected " + numTargetDimensions + " rows but got " + values.length + "." );
+		for ( int r = 0; r < numTargetDimensions; ++r )
+		{
+			if ( values[ r ].length != numSourceDimensions + 1 )
+				throw new IllegalArgumentException( "AffineTransform, expected " + ( numSourceDimensions + 1 ) + " columns but got " + values[ r ].length + "." );
+			System.arraycopy( values[ r ], 0, matrix[ r ], 0, numSourceDimensions + 1 );
+		}
+	}
+
+	/**
+	 * Set the matrix to a copy of {@code affine}.
+	 */
+	public void set( final AffineGet affine )
+	{
+		if ( affine.numSourceDimensions() != numSourceDimensions || affine.numTargetDimensions() != numTargetDimensions )
+			throw new IllegalArgumentException( "AffineTransform, dimensions do not match." );
+		for ( int r = 0; r < numTargetDimensions; ++r )
+			for ( int c = 0; c <= numSourceDimensions; ++c )
+				matrix[ r ][ c ] = affine.get( r, c );
+	}
+}
@@ -0,0 +1,136 @@
+/*-
+ * #%L
+ * ImgLib2: a general-purpose, multidimensional image processing library.
+ * %%
+ * Copyright (C) 2009 - 2021 Tobias Pietzsch, Stephan Preibisch, Stephan Saalfeld,
+ * John Bogovic, Albert Cardona, Barry DeZonia, Christian Dietz, Jan Funke,
+ * Aivar Grislis, Jonathan Hale, Grant Harris, Stefan Helfrich, Mark Hiner,
+ * Martin Horn, Steffen Jaensch, Lee Kamentsky, Larry Lindsey, Melissa Linkert,
+ * Mark Longair, Brian Northan, Nick Perry, Curtis Rueden, Johannes Schindelin,
+ * Jean-Yves Tinevez and Michael Zinsmaier.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+package net.imglib2.transform.integer;
+
+import net.imglib2.Localizable;
+import net.imglib2.Positionable;
+import net.imglib2.concatenate.Concatenable;
+import net.imglib2.concatenate.PreConcatenable;
+import net.imglib2.transform.Transform;
+
+/**
+ * Integer scaling of each dimension, target = source * steps. This is the
+ * transform from the coordinates of a {@link net.imglib2.view.SubsampleView}
+ * to the coordinates of its source.
+ */
+public class SubsampleTransform implements Transform, BoundingBoxTransform, Concatenable< SubsampleTransform >, PreConcatenable< SubsampleTransform >
+{
+	private final long[] steps;
+
+	public SubsampleTransform( final long... steps )
+	{
+		this.steps = steps.clone();
+	}
+
+	public long[] getSteps()
+	{
+		return steps.clone();
+	}
+
+	public long getStep( final int d )
+	{
+		return steps[ d ];
+	}
+
+	@Override
+	public int numSourceDimensions()
+	{
+		return steps.length;
+	}
+
+	@Override
+	public int numTargetDimensions()
+	{
+		return steps.length;
+	}
+
+	@Override
+	public void apply( final long[] source, final long[] target )
+	{
+		for ( int d = 0; d < steps.length; ++d )
+			target[ d ] = source[ d ] * steps[ d ];
+	}
+
+	@Override
+	public void apply( final int[] source, final int[] target )
+	{
+		for ( int d = 0; d < steps.length; ++d )
+			target[ d ] = ( int ) ( source[ d ] * steps[ d ] );
+	}
+
+	@Override
+	public void apply( final Localizable source, final Positionable target )
+	{
+		for ( int d = 0; d < steps.length; ++d )
+			target.setPosition( source.getLongPosition( d ) * steps[ d ], d );
+	}
+
+	@Override
+	public BoundingBox transform( final BoundingBox boundingBox )
+	{
+		for ( int d = 0; d < steps.length; ++d )
+		{
+			boundingBox.corner1[ d ] *= steps[ d ];
+			boundingBox.corner2[ d ] *= steps[ d ];
+		}
+		return boundingBox;
+	}
+
+	@Override
+	public SubsampleTransform concatenate( final SubsampleTransform t )
+	{
+		final long[] s = new long[ steps.length ];
+		for ( int d = 0; d < steps.length; ++d )
+			s[ d ] = steps[ d ] * t.steps[ d ];
+		return new SubsampleTransform( s );
+	}
+
+	@Override
+	public Class< SubsampleTransform > getConcatenableClass()
+	{
+		return SubsampleTransform.class;
+	}
+
+	@Override
+	public SubsampleTransform preConcatenate( final SubsampleTransform t )
+	{
+		return concatenate( t );
+	}
+
+	@Override
+	public Class< SubsampleTransform > getPreConcatenableClass()
+	{
+		return SubsampleTransform.class;
+	}
+}
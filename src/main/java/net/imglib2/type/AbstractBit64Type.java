@@ -37,6 +37,7 @@ package net.imglib2.type;
 
 import net.imglib2.img.NativeImg;
 import net.imglib2.img.basictypeaccess.LongAccess;
+import net.imglib2.img.basictypeaccess.WordLocks;
 import net.imglib2.img.basictypeaccess.array.LongArray;
 
 /**
@@ -136,33 +137,32 @@ public abstract class AbstractBit64Type< T extends AbstractBit64Type< T > > exte
 		final int i1 = (int)(k >>> 6); // k / 64;
 		final long shift = k & 63; // Same as k % 64;
 		final long safeValue = value & mask;
-		synchronized ( dataAccess ) {
-			if (0 == shift) {
-				// Number contained in a single long, ending exactly at the first bit
+		if (0 == shift) {
+			// Number contained in a single long, ending exactly at the first bit
+			synchronized ( WordLocks.lock( i1 ) ) {
 				dataAccess.setValue(i1, (dataAccess.getValue(i1) & invMask) | safeValue);
-			} else {
-				final long antiShift = 64 - shift;
-				final long v = dataAccess.getValue(i1);
-				if (antiShift < nBits) {
-					// Number split between two adjacent longs
-					// 1. Store the lower bits of safeValue at the upper bits of v1
-					final long v1 = (v & (0xffffffffffffffffL >>> antiShift)) // clear upper bits, keep other values
-							| ((safeValue & (mask >>> (nBits - antiShift))) << shift); // the lower part of safeValue, stored at the upper end
-					dataAccess.setValue(i1, v1);
-					// 2. Store the upper bits of safeValue at the lower bits of v2
-					final long v2 = (dataAccess.getValue(i1 + 1) & (0xffffffffffffffffL << (nBits - antiShift))) // other
-							| (safeValue >>> antiShift); // upper part of safeValue, stored at the lower end
-					dataAccess.setValue(i1 + 1, v2);
-				} else {
-					// Number contained inside a single long
-					if (0 == v) {
-						// Trivial case
-						dataAccess.setValue(i1, safeValue << shift);
-					} else {
-						// Clear the bits first
-						dataAccess.setValue(i1, (v & ~(mask << shift)) | (safeValue << shift));
+			}
+		} else {
+			final long antiShift = 64 - shift;
+			if (antiShift < nBits) {
+				// Number split between two adjacent longs
+				synchronized ( WordLocks.first( i1 ) ) {
+					synchronized ( WordLocks.second( i1 ) ) {
+						// 1. Store the lower bits of safeValue at the upper bits of v1
+						final long v1 = (dataAccess.getValue(i1) & (0xffffffffffffffffL >>> antiShift)) // clear upper bits, keep other values
+								| ((safeValue & (mask >>> (nBits - antiShift))) << shift); // the lower part of safeValue, stored at the upper end
+						dataAccess.setValue(i1, v1);
+						// 2. Store the upper bits of safeValue at the lower bits of v2
+						final long v2 = (dataAccess.getValue(i1 + 1) & (0xffffffffffffffffL << (nBits - antiShift))) // other
+								| (safeValue >>> antiShift); // upper part of safeValue, stored at the lower end
+						dataAccess.setValue(i1 + 1, v2);
 					}
 				}
+			} else {
+				// Number contained inside a single long
+				synchronized ( WordLocks.lock( i1 ) ) {
+					dataAccess.setValue(i1, (dataAccess.getValue(i1) & ~(mask << shift)) | (safeValue << shift));
+				}
 			}
 		}
 	}
@@ -0,0 +1,257 @@
+/*-
+ * #%L
+ * ImgLib2: a general-purpose, multidimensional image processing library.
+ * %%
+ * Copyright (C) 2009 - 2021 Tobias Pietzsch, Stephan Preibisch, Stephan Saalfeld,
+ * John Bogovic, Albert Cardona, Barry DeZonia, Christian Dietz, Jan Funke,
+ * Aivar Grislis, Jonathan Hale, Grant Harris, Stefan Helfrich, Mark Hiner,
+ * Martin Horn, Steffen Jaensch, Lee Kamentsky, Larry Lindsey, Melissa Linkert,
+ * Mark Longair, Brian Northan, Nick Perry, Curtis Rueden, Johannes Schindelin,
+ * Jean-Yves Tinevez and Michael Zinsmaier.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+package net.imglib2.type.logic;
+
+import java.util.List;
+import java.util.function.LongBinaryOperator;
+
+import net.imglib2.RandomAccessibleInterval;
+import net.imglib2.img.array.ArrayImg;
+import net.imglib2.img.cell.CellImg;
+import net.imglib2.img.cell.LazyCellImg;
+import net.imglib2.loops.LoopBuilder;
+import net.imglib2.loops.StorageArrays;
+import net.imglib2.parallel.Parallelization;
+import net.imglib2.parallel.TaskExecutor;
+import net.imglib2.view.Views;
+
+/**
+ * Bulk logical operations on {@link BitType} images.
+ * <p>
+ * For {@link ArrayImg}s and {@link CellImg}s that store their bits in
+ * {@code long[]} arrays, the operations work directly on the 64-bit words,
+ * i.e. they process 64 pixels per instruction. The words are divided into
+ * word-aligned chunks, which are processed in parallel by the
+ * {@link TaskExecutor} returned by {@link Parallelization#getTaskExecutor()}.
+ * Binary operations use the fast path, if all images have the same storage
+ * layout, i.e. are {@link ArrayImg}s of equal dimensions or {@link CellImg}s
+ * with equal cell grids. All other images, including images that load their
+ * cells on demand like {@link LazyCellImg}, are processed pixel by pixel.
+ */
+public final class BitOperations
+{
+	/**
+	 * Minimal number of words per chunk, smaller chunks are not worth the
+	 * overhead of a task.
+	 */
+	static final int MIN_WORDS_PER_CHUNK = 1024;
+
+	private BitOperations()
+	{
+		// prevent from instantiation
+	}
+
+	/**
+	 * Returns the number of pixels that are {@code true}.
+	 */
+	public static long countOnes( final RandomAccessibleInterval< BitType > image )
+	{
+		final StorageArrays words = words( image );
+		if ( words == null )
+		{
+			long count = 0;
+			for ( final BitType pixel : Views.iterable( image ) )
+				if ( pixel.get() )
+					++count;
+			return count;
+		}
+		final List< Long > counts = StorageArrays.forEachChunk( 64, MIN_WORDS_PER_CHUNK, ( arrays, numBits, from, to ) -> {
+			final long[] w = ( long[] ) arrays[ 0 ];
+			long count = 0;
+			for ( int i = from; i < to; ++i )
+				count += Long.bitCount( w[ i ] & mask( numBits, i ) );
+			return count;
+		}, words );
+		long count = 0;
+		for ( final long c : counts )
+			count += c;
+		return count;
+	}
+
+	/**
+	 * Returns true, if at least one pixel is {@code true}.
+	 */
+	public static boolean any( final RandomAccessibleInterval< BitType > image )
+	{
+		final StorageArrays words = words( image );
+		if ( words == null )
+		{
+			for ( final BitType pixel : Views.iterable( image ) )
+				if ( pixel.get() )
+					return true;
+			return false;
+		}
+		for ( int b = 0; b < words.numBlocks(); ++b )
+		{
+			final long[] w = ( long[] ) words.array( b );
+			final long numBits = words.numPixels( b );
+			for ( int i = 0; i < numWords( numBits ); ++i )
+				if ( ( w[ i ] & mask( numBits, i ) ) != 0 )
+					return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Returns true, if all pixels are {@code true}.
+	 */
+	public static boolean all( final RandomAccessibleInterval< BitType > image )
+	{
+		final StorageArrays words = words( image );
+		if ( words == null )
+		{
+			for ( final BitType pixel : Views.iterable( image ) )
+				if ( !pixel.get() )
+					return false;
+			return true;
+		}
+		for ( int b = 0; b < words.numBlocks(); ++b )
+		{
+			final long[] w = ( long[] ) words.array( b );
+			final long numBits = words.numPixels( b );
+			for ( int i = 0; i < numWords( numBits ); ++i )
+			{
+				final long mask = mask( numBits, i );
+				if ( ( w[ i ] & mask ) != mask )
+					return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Sets {@code target = a AND b}.
+	 */
+	public static void and( final RandomAccessibleInterval< BitType > a, final RandomAccessibleInterval< BitType > b, final RandomAccessibleInterval< BitType > target )
+	{
+		binary( a, b, target, ( x, y ) -> x & y );
+	}
+
+	/**
+	 * Sets {@code target = a OR b}.
+	 */
+	public static void or( final RandomAccessibleInterval< BitType > a, final RandomAccessibleInterval< BitType > b, final RandomAccessibleInterval< BitType > target )
+	{
+		binary( a, b, target, ( x, y ) -> x | y );
+	}
+
+	/**
+	 * Sets {@code target = a XOR b}.
+	 */
+	public static void xor( final RandomAccessibleInterval< BitType > a, final RandomAccessibleInterval< BitType > b, final RandomAccessibleInterval< BitType > target )
+	{
+		binary( a, b, target, ( x, y ) -> x ^ y );
+	}
+
+	/**
+	 * Sets {@code target = a AND NOT b}.
+	 */
+	public static void andNot( final RandomAccessibleInterval< BitType > a, final RandomAccessibleInterval< BitType > b, final RandomAccessibleInterval< BitType > target )
+	{
+		binary( a, b, target, ( x, y ) -> x & ~y );
+	}
+
+	/**
+	 * Sets {@code target = NOT a}.
+	 */
+	public static void not( final RandomAccessibleInterval< BitType > a, final RandomAccessibleInterval< BitType > target )
+	{
+		final StorageArrays wordsTarget = words( target );
+		final StorageArrays wordsA = wordsTarget == null ? null : words( a );
+		if ( wordsA == null || !wordsTarget.matches( wordsA ) )
+		{
+			LoopBuilder.setImages( a, target ).multiThreaded().forEachPixel( ( x, t ) -> t.set( !x.get() ) );
+			return;
+		}
+		apply( wordsTarget, wordsA, wordsA, ( x, y ) -> ~x );
+	}
+
+	// -- Helper methods --
+
+	private static void binary( final RandomAccessibleInterval< BitType > a, final RandomAccessibleInterval< BitType > b, final RandomAccessibleInterval< BitType > target, final LongBinaryOperator operator )
+	{
+		final StorageArrays wordsTarget = words( target );
+		final StorageArrays wordsA = wordsTarget == null ? null : words( a );
+		final StorageArrays wordsB = wordsA == null ? null : words( b );
+		if ( wordsB == null || !wordsTarget.matches( wordsA ) || !wordsTarget.matches( wordsB ) )
+		{
+			LoopBuilder.setImages( a, b, target ).multiThreaded().forEachPixel( ( x, y, t ) -> t.set( operator.applyAsLong( x.getIntegerLong(), y.getIntegerLong() ) != 0 ) );
+			return;
+		}
+		apply( wordsTarget, wordsA, wordsB, operator );
+	}
+
+	/**
+	 * Writes {@code operator( a, b )} to each word of the target in parallel,
+	 * and marks the target dirty. Bits beyond the last pixel of a block are
+	 * kept zero.
+	 */
+	private static void apply( final StorageArrays target, final StorageArrays a, final StorageArrays b, final LongBinaryOperator operator )
+	{
+		StorageArrays.forEachChunk( 64, MIN_WORDS_PER_CHUNK, ( arrays, numBits, from, to ) -> {
+			final long[] t = ( long[] ) arrays[ 0 ];
+			final long[] x = ( long[] ) arrays[ 1 ];
+			final long[] y = ( long[] ) arrays[ 2 ];
+			for ( int i = from; i < to; ++i )
+				t[ i ] = operator.applyAsLong( x[ i ], y[ i ] ) & mask( numBits, i );
+			return null;
+		}, target, a, b );
+		target.setDirty();
+	}
+
+	/**
+	 * Returns the {@code long[]} words that store the pixels of the image, or
+	 * null if the image is not an {@link ArrayImg} or {@link CellImg} backed
+	 * by {@code long[]} arrays.
+	 */
+	private static StorageArrays words( final RandomAccessibleInterval< BitType > image )
+	{
+		return StorageArrays.of( image, long[].class );
+	}
+
+	private static int numWords( final long numBits )
+	{
+		return ( int ) ( ( numBits + 63 ) >>> 6 );
+	}
+
+	/**
+	 * Mask of the bits in word {@code i} of a block of {@code numBits}
+	 * pixels, that store pixels.
+	 */
+	private static long mask( final long numBits, final int i )
+	{
+		final long remainingBits = numBits - ( ( long ) i << 6 );
+		return remainingBits >= 64 ? -1L : ( 1L << remainingBits ) - 1;
+	}
+}
@@ -38,6 +38,7 @@ import java.math.BigInteger;
 
 import net.imglib2.img.NativeImg;
 import net.imglib2.img.basictypeaccess.LongAccess;
+import net.imglib2.img.basictypeaccess.WordLocks;
 import net.imglib2.img.basictypeaccess.array.LongArray;
 import net.imglib2.type.BooleanType;
 import net.imglib2.type.Index;
@@ -137,7 +138,7 @@ public class BitType extends AbstractIntegerType< BitType > implements BooleanTy
 		final int j = i.get();
 		final int i1 = j >>> 6; // Same as i / 64
 		final long bit = 1l << (j & 63);
-		synchronized ( dataAccess )
+		synchronized ( WordLocks.lock( i1 ) )
 		{
 			// Clear or set the bit
 			if ( value )
@@ -0,0 +1,397 @@
+/*-
+ * #%L
+ * ImgLib2: a general-purpose, multidimensional image processing library.
+ * %%
+ * Copyright (C) 2009 - 2021 Tobias Pietzsch, Stephan Preibisch, Stephan Saalfeld,
+ * John Bogovic, Albert Cardona, Barry DeZonia, Christian Dietz, Jan Funke,
+ * Aivar Grislis, Jonathan Hale, Grant Harris, Stefan Helfrich, Mark Hiner,
+ * Martin Horn, Steffen Jaensch, Lee Kamentsky, Larry Lindsey, Melissa Linkert,
+ * Mark Longair, Brian Northan, Nick Perry, Curtis Rueden, Johannes Schindelin,
+ * Jean-Yves Tinevez and Michael Zinsmaier.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+package net.imglib2.type.numeric.complex;
+
+import net.imglib2.RandomAccessibleInterval;
+import net.imglib2.img.AbstractNativeImg;
+import net.imglib2.img.array.ArrayImg;
+import net.imglib2.img.cell.CellImg;
+import net.imglib2.img.cell.LazyCellImg;
+import net.imglib2.loops.LoopBuilder;
+import net.imglib2.loops.StorageArrays;
+import net.imglib2.parallel.Parallelization;
+import net.imglib2.parallel.TaskExecutor;
+import net.imglib2.type.numeric.ComplexType;
+import net.imglib2.type.numeric.RealType;
+import net.imglib2.type.numeric.real.DoubleType;
+import net.imglib2.type.numeric.real.FloatType;
+
+/**
+ * Bulk operations on complex images, e.g. for filtering in the frequency
+ * domain, and conversion between the interleaved storage of
+ * {@link ComplexFloatType} and {@link ComplexDoubleType} and a planar layout
+ * with separate real and imaginary images.
+ * <p>
+ * For {@link ArrayImg}s and {@link CellImg}s of {@link ComplexFloatType},
+ * {@link ComplexDoubleType}, {@link FloatType} and {@link DoubleType}, the
+ * operations work directly on the {@code float[]} or {@code double[]} arrays,
+ * if all images have the same storage layout and precision, i.e. are
+ * {@link ArrayImg}s of equal dimensions or {@link CellImg}s with equal cell
+ * grids. The arrays are divided into chunks, which are processed in parallel
+ * by the {@link TaskExecutor} returned by
+ * {@link Parallelization#getTaskExecutor()}. All other images, including
+ * images that load their cells on demand like {@link LazyCellImg}, are
+ * processed pixel by pixel.
+ * <p>
+ * The target image may be one of the input images.
+ */
+public final class ComplexOperations
+{
+	/**
+	 * Minimal number of pixels per chunk, smaller chunks are not worth the
+	 * overhead of a task.
+	 */
+	static final int MIN_PIXELS_PER_CHUNK = 4096;
+
+	private ComplexOperations()
+	{
+		// prevent from instantiation
+	}
+
+	/**
+	 * Sets {@code target = a * b}.
+	 */
+	public static < A extends ComplexType< A >, B extends ComplexType< B >, C extends ComplexType< C > > void multiply( final RandomAccessibleInterval< A > a, final RandomAccessibleInterval< B > b, final RandomAccessibleInterval< C > target )
+	{
+		final boolean isDouble = isDouble( target );
+		final StorageArrays storageTarget = arrays( target, true, isDouble );
+		final StorageArrays storageA = storageTarget == null ? null : arrays( a, true, isDouble );
+		final StorageArrays storageB = storageA == null ? null : arrays( b, true, isDouble );
+		if ( storageB == null || !storageTarget.matches( storageA ) || !storageTarget.matches( storageB ) )
+		{
+			LoopBuilder.setImages( a, b, target ).multiThreaded().forEachPixel( ( x, y, t ) -> {
+				final double xr = x.getRealDouble();
+				final double xi = x.getImaginaryDouble();
+				final double yr = y.getRealDouble();
+				final double yi = y.getImaginaryDouble();
+				t.setComplexNumber( xr * yr - xi * yi, xr * yi + xi * yr );
+			} );
+			return;
+		}
+		run( ( arrays, from, to ) -> {
+			if ( isDouble )
+			{
+				final double[] x = ( double[] ) arrays[ 0 ];
+				final double[] y = ( double[] ) arrays[ 1 ];
+				final double[] t = ( double[] ) arrays[ 2 ];
+				for ( int k = 2 * from; k < 2 * to; k += 2 )
+				{
+					final double xr = x[ k ], xi = x[ k + 1 ], yr = y[ k ], yi = y[ k + 1 ];
+					t[ k ] = xr * yr - xi * yi;
+					t[ k + 1 ] = xr * yi + xi * yr;
+				}
+			}
+			else
+			{
+				final float[] x = ( float[] ) arrays[ 0 ];
+				final float[] y = ( float[] ) arrays[ 1 ];
+				final float[] t = ( float[] ) arrays[ 2 ];
+				for ( int k = 2 * from; k < 2 * to; k += 2 )
+				{
+					final float xr = x[ k ], xi = x[ k + 1 ], yr = y[ k ], yi = y[ k + 1 ];
+					t[ k ] = xr * yr - xi * yi;
+					t[ k + 1 ] = xr * yi + xi * yr;
+				}
+			}
+		}, storageA, storageB, storageTarget );
+		storageTarget.setDirty();
+	}
+
+	/**
+	 * Sets {@code target = a * conj( b )}, where {@code conj} is the complex
+	 * conjugate. This is the frequency-domain equivalent of a correlation.
+	 */
+	public static < A extends ComplexType< A >, B extends ComplexType< B >, C extends ComplexType< C > > void multiplyConjugate( final RandomAccessibleInterval< A > a, final RandomAccessibleInterval< B > b, final RandomAccessibleInterval< C > target )
+	{
+		final boolean isDouble = isDouble( target );
+		final StorageArrays storageTarget = arrays( target, true, isDouble );
+		final StorageArrays storageA = storageTarget == null ? null : arrays( a, true, isDouble );
+		final StorageArrays storageB = storageA == null ? null : arrays( b, true, isDouble );
+		if ( storageB == null || !storageTarget.matches( storageA ) || !storageTarget.matches( storageB ) )
+		{
+			LoopBuilder.setImages( a, b, target ).multiThreaded().forEachPixel( ( x, y, t ) -> {
+				final double xr = x.getRealDouble();
+				final double xi = x.getImaginaryDouble();
+				final double yr = y.getRealDouble();
+				final double yi = y.getImaginaryDouble();
+				t.setComplexNumber( xr * yr + xi * yi, xi * yr - xr * yi );
+			} );
+			return;
+		}
+		run( ( arrays, from, to ) -> {
+			if ( isDouble )
+			{
+				final double[] x = ( double[] ) arrays[ 0 ];
+				final double[] y = ( double[] ) arrays[ 1 ];
+				final double[] t = ( double[] ) arrays[ 2 ];
+				for ( int k = 2 * from; k < 2 * to; k += 2 )
+				{
+					final double xr = x[ k ], xi = x[ k + 1 ], yr = y[ k ], yi = y[ k + 1 ];
+					t[ k ] = xr * yr + xi * yi;
+					t[ k + 1 ] = xi * yr - xr * yi;
+				}
+			}
+			else
+			{
+				final float[] x = ( float[] ) arrays[ 0 ];
+				final float[] y = ( float[] ) arrays[ 1 ];
+				final float[] t = ( float[] ) arrays[ 2 ];
+				for ( int k = 2 * from; k < 2 * to; k += 2 )
+				{
+					final float xr = x[ k ], xi = x[ k + 1 ], yr = y[ k ], yi = y[ k + 1 ];
+					t[ k ] = xr * yr + xi * yi;
+					t[ k + 1 ] = xi * yr - xr * yi;
+				}
+			}
+		}, storageA, storageB, storageTarget );
+		storageTarget.setDirty();
+	}
+
+	/**
+	 * Sets {@code target} to the magnitude {@code sqrt( re^2 + im^2 )} of
+	 * {@code complex}, as {@link ComplexType#getPowerDouble()}.
+	 */
+	public static < C extends ComplexType< C >, R extends RealType< R > > void magnitude( final RandomAccessibleInterval< C > complex, final RandomAccessibleInterval< R > target )
+	{
+		final boolean isDouble = isDouble( target );
+		final StorageArrays storageTarget = arrays( target, false, isDouble );
+		final StorageArrays storageComplex = storageTarget == null ? null : arrays( complex, true, isDouble );
+		if ( storageComplex == null || !storageTarget.matches( storageComplex ) )
+		{
+			LoopBuilder.setImages( complex, target ).multiThreaded().forEachPixel( ( c, t ) -> t.setReal( c.getPowerDouble() ) );
+			return;
+		}
+		run( ( arrays, from, to ) -> {
+			if ( isDouble )
+			{
+				final double[] c = ( double[] ) arrays[ 0 ];
+				final double[] t = ( double[] ) arrays[ 1 ];
+				for ( int i = from; i < to; ++i )
+				{
+					final double re = c[ 2 * i ], im = c[ 2 * i + 1 ];
+					t[ i ] = Math.sqrt( re * re + im * im );
+				}
+			}
+			else
+			{
+				final float[] c = ( float[] ) arrays[ 0 ];
+				final float[] t = ( float[] ) arrays[ 1 ];
+				for ( int i = from; i < to; ++i )
+				{
+					final double re = c[ 2 * i ], im = c[ 2 * i + 1 ];
+					t[ i ] = ( float ) Math.sqrt( re * re + im * im );
+				}
+			}
+		}, storageComplex, storageTarget );
+		storageTarget.setDirty();
+	}
+
+	/**
+	 * Sets {@code target} to the phase {@code atan2( im, re )} of
+	 * {@code complex}, as {@link ComplexType#getPhaseDouble()}.
+	 */
+	public static < C extends ComplexType< C >, R extends RealType< R > > void phase( final RandomAccessibleInterval< C > complex, final RandomAccessibleInterval< R > target )
+	{
+		final boolean isDouble = isDouble( target );
+		final StorageArrays storageTarget = arrays( target, false, isDouble );
+		final StorageArrays storageComplex = storageTarget == null ? null : arrays( complex, true, isDouble );
+		if ( storageComplex == null || !storageTarget.matches( storageComplex ) )
+		{
+			LoopBuilder.setImages( complex, target ).multiThreaded().forEachPixel( ( c, t ) -> t.setReal( c.getPhaseDouble() ) );
+			return;
+		}
+		run( ( arrays, from, to ) -> {
+			if ( isDouble )
+			{
+				final double[] c = ( double[] ) arrays[ 0 ];
+				final double[] t = ( double[] ) arrays[ 1 ];
+				for ( int i = from; i < to; ++i )
+					t[ i ] = Math.atan2( c[ 2 * i + 1 ], c[ 2 * i ] );
+			}
+			else
+			{
+				final float[] c = ( float[] ) arrays[ 0 ];
+				final float[] t = ( float[] ) arrays[ 1 ];
+				for ( int i = from; i < to; ++i )
+					t[ i ] = ( float ) Math.atan2( c[ 2 * i + 1 ], c[ 2 * i ] );
+			}
+		}, storageComplex, storageTarget );
+		storageTarget.setDirty();
+	}
+
+	/**
+	 * Copies the real and imaginary parts of the interleaved
+	 * {@code complex} image into the separate {@code real} and
+	 * {@code imaginary} images.
+	 */
+	public static < C extends ComplexType< C >, R extends RealType< R >, I extends RealType< I > > void split( final RandomAccessibleInterval< C > complex, final RandomAccessibleInterval< R > real, final RandomAccessibleInterval< I > imaginary )
+	{
+		final boolean isDouble = isDouble( complex );
+		final StorageArrays storageComplex = arrays( complex, true, isDouble );
+		final StorageArrays storageReal = storageComplex == null ? null : arrays( real, false, isDouble );
+		final StorageArrays storageImaginary = storageReal == null ? null : arrays( imaginary, false, isDouble );
+		if ( storageImaginary == null || !storageComplex.matches( storageReal ) || !storageComplex.matches( storageImaginary ) )
+		{
+			LoopBuilder.setImages( complex, real, imaginary ).multiThreaded().forEachPixel( ( c, r, i ) -> {
+				r.setReal( c.getRealDouble() );
+				i.setReal( c.getImaginaryDouble() );
+			} );
+			return;
+		}
+		run( ( arrays, from, to ) -> {
+			if ( isDouble )
+			{
+				final double[] c = ( double[] ) arrays[ 0 ];
+				final double[] r = ( double[] ) arrays[ 1 ];
+				final double[] i = ( double[] ) arrays[ 2 ];
+				for ( int j = from; j < to; ++j )
+				{
+					r[ j ] = c[ 2 * j ];
+					i[ j ] = c[ 2 * j + 1 ];
+				}
+			}
+			else
+			{
+				final float[] c = ( float[] ) arrays[ 0 ];
+				final float[] r = ( float[] ) arrays[ 1 ];
+				final float[] i = ( float[] ) arrays[ 2 ];
+				for ( int j = from; j < to; ++j )
+				{
+					r[ j ] = c[ 2 * j ];
+					i[ j ] = c[ 2 * j + 1 ];
+				}
+			}
+		}, storageComplex, storageReal, storageImaginary );
+		storageReal.setDirty();
+		storageImaginary.setDirty();
+	}
+
+	/**
+	 * Copies the separate {@code real} and {@code imaginary} images into the
+	 * interleaved {@code complex} image. This is the inverse of
+	 * {@link #split}.
+	 */
+	public static < R extends RealType< R >, I extends RealType< I >, C extends ComplexType< C > > void interleave( final RandomAccessibleInterval< R > real, final RandomAccessibleInterval< I > imaginary, final RandomAccessibleInterval< C > complex )
+	{
+		final boolean isDouble = isDouble( complex );
+		final StorageArrays storageComplex = arrays( complex, true, isDouble );
+		final StorageArrays storageReal = storageComplex == null ? null : arrays( real, false, isDouble );
+		final StorageArrays storageImaginary = storageReal == null ? null : arrays( imaginary, false, isDouble );
+		if ( storageImaginary == null || !storageComplex.matches( storageReal ) || !storageComplex.matches( storageImaginary ) )
+		{
+			LoopBuilder.setImages( real, imaginary, complex ).multiThreaded().forEachPixel( ( r, i, c ) -> c.setComplexNumber( r.getRealDouble(), i.getRealDouble() ) );
+			return;
+		}
+		run( ( arrays, from, to ) -> {
+			if ( isDouble )
+			{
+				final double[] r = ( double[] ) arrays[ 0 ];
+				final double[] i = ( double[] ) arrays[ 1 ];
+				final double[] c = ( double[] ) arrays[ 2 ];
+				for ( int j = from; j < to; ++j )
+				{
+					c[ 2 * j ] = r[ j ];
+					c[ 2 * j + 1 ] = i[ j ];
+				}
+			}
+			else
+			{
+				final float[] r = ( float[] ) arrays[ 0 ];
+				final float[] i = ( float[] ) arrays[ 1 ];
+				final float[] c = ( float[] ) arrays[ 2 ];
+				for ( int j = from; j < to; ++j )
+				{
+					c[ 2 * j ] = r[ j ];
+					c[ 2 * j + 1 ] = i[ j ];
+				}
+			}
+		}, storageReal, storageImaginary, storageComplex );
+		storageComplex.setDirty();
+	}
+
+	// -- Helper methods --
+
+	/**
+	 * Operation on the pixels {@code from} to {@code to} (exclusive) of one
+	 * block of each image.
+	 */
+	private interface Kernel
+	{
+		void apply( Object[] arrays, int from, int to );
+	}
+
+	/**
+	 * Applies the kernel to chunks of at least {@link #MIN_PIXELS_PER_CHUNK}
+	 * pixels of the corresponding arrays of all images in parallel.
+	 */
+	private static void run( final Kernel kernel, final StorageArrays... images )
+	{
+		StorageArrays.forEachChunk( 1, MIN_PIXELS_PER_CHUNK, ( arrays, numPixels, from, to ) -> {
+			kernel.apply( arrays, from, to );
+			return null;
+		}, images );
+	}
+
+	/**
+	 * Returns true, if the image is a native image of {@link DoubleType} or
+	 * {@link ComplexDoubleType}.
+	 */
+	private static boolean isDouble( final RandomAccessibleInterval< ? > image )
+	{
+		if ( !( image instanceof AbstractNativeImg ) )
+			return false;
+		final Class< ? > type = ( ( AbstractNativeImg< ?, ? > ) image ).createLinkedType().getClass();
+		return type == DoubleType.class || type == ComplexDoubleType.class;
+	}
+
+	/**
+	 * Returns the arrays that store the pixels of the image, or null if the
+	 * image is not an {@link ArrayImg} or {@link CellImg} of
+	 * {@link ComplexFloatType} or {@link ComplexDoubleType} (if
+	 * {@code complex}), or of {@link FloatType} or {@link DoubleType}
+	 * (otherwise), with the given precision.
+	 */
+	private static StorageArrays arrays( final RandomAccessibleInterval< ? > image, final boolean complex, final boolean isDouble )
+	{
+		if ( !( image instanceof AbstractNativeImg ) )
+			return null;
+		final Class< ? > type = ( ( AbstractNativeImg< ?, ? > ) image ).createLinkedType().getClass();
+		final Class< ? > expected = complex
+				? ( isDouble ? ComplexDoubleType.class : ComplexFloatType.class )
+				: ( isDouble ? DoubleType.class : FloatType.class );
+		if ( type != expected )
+			return null;
+		return StorageArrays.of( image, isDouble ? double[].class : float[].class );
+	}
+}
@@ -148,43 +148,43 @@ public abstract class GenericByteType< T extends GenericByteType< T > > extends
 	@Override
 	public void mul( final float c )
 	{
-		final byte a = getByte();
-		setByte( ( byte ) Util.round( a * c ) );
+		final int j = i.get();
+		dataAccess.setValue( j, ( byte ) Util.round( dataAccess.getValue( j ) * c ) );
 	}
 
 	@Override
 	public void mul( final double c )
 	{
-		final byte a = getByte();
-		setByte( ( byte ) Util.round( a * c ) );
+		final int j = i.get();
+		dataAccess.setValue( j, ( byte ) Util.round( dataAccess.getValue( j ) * c ) );
 	}
 
 	@Override
 	public void add( final T c )
 	{
-		final byte a = getByte();
-		setByte( ( byte ) ( a + c.getByte() ) );
+		final int j = i.get();
+		dataAccess.setValue( j, ( byte ) ( dataAccess.getValue( j ) + c.getByte() ) );
 	}
 
 	@Override
 	public void div( final T c )
 	{
-		final byte a = getByte();
-		setByte( ( byte ) ( a / c.getByte() ) );
+		final int j = i.get();
+		dataAccess.setValue( j, ( byte ) ( dataAccess.getValue( j ) / c.getByte() ) );
 	}
 
 	@Override
 	public void mul( final T c )
 	{
-		final byte a = getByte();
-		setByte( ( byte ) ( a * c.getByte() ) );
+		final int j = i.get();
+		dataAccess.setValue( j, ( byte ) ( dataAccess.getValue( j ) * c.getByte() ) );
 	}
 
 	@Override
 	public void sub( final T c )
 	{
-		final byte a = getByte();
-		setByte( ( byte ) ( a - c.getByte() ) );
+		final int j = i.get();
+		dataAccess.setValue( j, ( byte ) ( dataAccess.getValue( j ) - c.getByte() ) );
 	}
 
 	@Override
@@ -208,15 +208,83 @@ public abstract class GenericByteType< T extends GenericByteType< T > > extends
 	@Override
 	public void inc()
 	{
-		byte a = getByte();
-		setByte( ++a );
+		final int j = i.get();
+		dataAccess.setValue( j, ( byte ) ( dataAccess.getValue( j ) + 1 ) );
 	}
 
 	@Override
 	public void dec()
 	{
-		byte a = getByte();
-		setByte( --a );
+		final int j = i.get();
+		dataAccess.setValue( j, ( byte ) ( dataAccess.getValue( j ) - 1 ) );
+	}
+
+	/**
+	 * Sets this to {@code this + a * b}. Like {@link #add} and
+	 * {@link #mul}, the result wraps around on overflow.
+	 */
+	public void mulAdd( final T a, final T b )
+	{
+		final int j = i.get();
+		dataAccess.setValue( j, ( byte ) ( dataAccess.getValue( j ) + a.getByte() * b.getByte() ) );
+	}
+
+	/**
+	 * Sets this to {@code this + c}, clamped to the range of the type.
+	 */
+	public void addAndClamp( final T c )
+	{
+		final int j = i.get();
+		dataAccess.setValue( j, clamp( ( long ) toValue( dataAccess.getValue( j ) ) + c.toValue( c.getByte() ) ) );
+	}
+
+	/**
+	 * Sets this to {@code this - c}, clamped to the range of the type.
+	 */
+	public void subAndClamp( final T c )
+	{
+		final int j = i.get();
+		dataAccess.setValue( j, clamp( ( long ) toValue( dataAccess.getValue( j ) ) - c.toValue( c.getByte() ) ) );
+	}
+
+	/**
+	 * Sets this to {@code this * c}, clamped to the range of the type.
+	 */
+	public void mulAndClamp( final T c )
+	{
+		final int j = i.get();
+		dataAccess.setValue( j, clamp( ( long ) toValue( dataAccess.getValue( j ) ) * c.toValue( c.getByte() ) ) );
+	}
+
+	/**
+	 * Sets this to {@code this + a * b}, clamped to the range of the type.
+	 */
+	public void mulAddAndClamp( final T a, final T b )
+	{
+		final int j = i.get();
+		dataAccess.setValue( j, clamp( toValue( dataAccess.getValue( j ) ) + ( long ) a.toValue( a.getByte() ) * b.toValue( b.getByte() ) ) );
+	}
+
+	/**
+	 * Returns the value that is represented by the primitive byte value
+	 * {@code f}. This is {@code f} itself for signed types, unsigned types
+	 * override this method.
+	 */
+	protected int toValue( final byte f )
+	{
+		return f;
+	}
+
+	/**
+	 * Clamps the value to the range of the type, which is the range of
+	 * {@code byte} for signed types and {@code [0, 0xff]} for
+	 * unsigned types, as determined by {@link #toValue}.
+	 */
+	private byte clamp( final long value )
+	{
+		if ( toValue( ( byte ) -1 ) < 0 )
+			return ( byte ) Math.max( Byte.MIN_VALUE, Math.min( Byte.MAX_VALUE, value ) );
+		return ( byte ) Math.max( 0, Math.min( 0xffL, value ) );
 	}
 
 	@Override
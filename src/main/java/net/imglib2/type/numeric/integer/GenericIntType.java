@@ -148,57 +148,43 @@ public abstract class GenericIntType< T extends GenericIntType< T > > extends Ab
 	@Override
 	public void mul( final float c )
 	{
-		final int a = getInt();
-		setInt( Util.round( a * c ) );
+		final int j = i.get();
+		dataAccess.setValue( j, Util.round( dataAccess.getValue( j ) * c ) );
 	}
 
 	@Override
 	public void mul( final double c )
 	{
-		final int a = getInt();
-		setInt( ( int ) Util.round( a * c ) );
+		final int j = i.get();
+		dataAccess.setValue( j, ( int ) Util.round( dataAccess.getValue( j ) * c ) );
 	}
 
 	@Override
 	public void add( final T c )
 	{
-		final int a = getInt();
-		setInt( a + c.getInt() );
+		final int j = i.get();
+		dataAccess.setValue( j, dataAccess.getValue( j ) + c.getInt() );
 	}
 
 	@Override
 	public void div( final T c )
 	{
-		final int a = getInt();
-		setInt( a / c.getInt() );
+		final int j = i.get();
+		dataAccess.setValue( j, dataAccess.getValue( j ) / c.getInt() );
 	}
 
 	@Override
 	public void mul( final T c )
 	{
-		final int a = getInt();
-		setInt( a * c.getInt() );
+		final int j = i.get();
+		dataAccess.setValue( j, dataAccess.getValue( j ) * c.getInt() );
 	}
 
 	@Override
 	public void sub( final T c )
 	{
-		final int a = getInt();
-		setInt( a - c.getInt() );
-	}
-
-	@Override
-	public void pow( final T c )
-	{
-		final int a = getInt();
-		setReal( Math.pow( a, c.getInt() ) );
-	}
-
-	@Override
-	public void pow( final double power )
-	{
-		final int a = getInt();
-		setReal( Math.pow( a, power ) );
+		final int j = i.get();
+		dataAccess.setValue( j, dataAccess.getValue( j ) - c.getInt() );
 	}
 
 	@Override
@@ -222,15 +208,93 @@ public abstract class GenericIntType< T extends GenericIntType< T > > extends Ab
 	@Override
 	public void inc()
 	{
-		int a = getInt();
-		setInt( ++a );
+		final int j = i.get();
+		dataAccess.setValue( j, dataAccess.getValue( j ) + 1 );
 	}
 
 	@Override
 	public void dec()
 	{
-		int a = getInt();
-		setInt( --a );
+		final int j = i.get();
+		dataAccess.setValue( j, dataAccess.getValue( j ) - 1 );
+	}
+
+	/**
+	 * Sets this to {@code this + a * b}. Like {@link #add} and
+	 * {@link #mul}, the result wraps around on overflow.
+	 */
+	public void mulAdd( final T a, final T b )
+	{
+		final int j = i.get();
+		dataAccess.setValue( j, dataAccess.getValue( j ) + a.getInt() * b.getInt() );
+	}
+
+	/**
+	 * Sets this to {@code this + c}, clamped to the range of the type.
+	 */
+	public void addAndClamp( final T c )
+	{
+		final int j = i.get();
+		dataAccess.setValue( j, clamp( ( long ) toValue( dataAccess.getValue( j ) ) + c.toValue( c.getInt() ) ) );
+	}
+
+	/**
+	 * Sets this to {@code this - c}, clamped to the range of the type.
+	 */
+	public void subAndClamp( final T c )
+	{
+		final int j = i.get();
+		dataAccess.setValue( j, clamp( ( long ) toValue( dataAccess.getValue( j ) ) - c.toValue( c.getInt() ) ) );
+	}
+
+	/**
+	 * Sets this to {@code this * c}, clamped to the range of the type.
+	 */
+	public void mulAndClamp( final T c )
+	{
+		final int j = i.get();
+		dataAccess.setValue( j, clamp( multiply( toValue( dataAccess.getValue( j ) ), c.toValue( c.getInt() ) ) ) );
+	}
+
+	/**
+	 * Sets this to {@code this + a * b}, clamped to the range of the type.
+	 */
+	public void mulAddAndClamp( final T a, final T b )
+	{
+		final int j = i.get();
+		dataAccess.setValue( j, clamp( toValue( dataAccess.getValue( j ) ) + multiply( a.toValue( a.getInt() ), b.toValue( b.getInt() ) ) ) );
+	}
+
+	/**
+	 * Returns the value that is represented by the primitive int value
+	 * {@code f}. This is {@code f} itself for signed types, unsigned types
+	 * override this method.
+	 */
+	protected long toValue( final int f )
+	{
+		return f;
+	}
+
+	/**
+	 * Clamps the value to the range of the type, which is the range of
+	 * {@code int} for signed types and {@code [0, 0xffffffff]} for
+	 * unsigned types, as determined by {@link #toValue}.
+	 */
+	private int clamp( final long value )
+	{
+		if ( toValue( ( int ) -1 ) < 0 )
+			return ( int ) Math.max( Integer.MIN_VALUE, Math.min( Integer.MAX_VALUE, value ) );
+		return ( int ) Math.max( 0, Math.min( 0xffffffffL, value ) );
+	}
+
+	/**
+	 * Returns {@code x * y}, or a value above the range of the type if the
+	 * product of two unsigned values overflows.
+	 */
+	private static long multiply( final long x, final long y )
+	{
+		final long product = x * y;
+		return ( product < 0 && x > 0 && y > 0 ) ? Long.MAX_VALUE / 2 : product;
 	}
 
 	@Override
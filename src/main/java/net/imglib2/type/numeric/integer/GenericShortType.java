@@ -152,43 +152,43 @@ public abstract class GenericShortType< T extends GenericShortType< T > >
 	@Override
 	public void mul( final float c )
 	{
-		final short a = getShort();
-		setShort( ( short ) Util.round( a * c ) );
+		final int j = i.get();
+		dataAccess.setValue( j, ( short ) Util.round( dataAccess.getValue( j ) * c ) );
 	}
 
 	@Override
 	public void mul( final double c )
 	{
-		final short a = getShort();
-		setShort( ( short ) Util.round( a * c ) );
+		final int j = i.get();
+		dataAccess.setValue( j, ( short ) Util.round( dataAccess.getValue( j ) * c ) );
 	}
 
 	@Override
 	public void add( final T c )
 	{
-		final short a = getShort();
-		setShort( ( short ) ( a + c.getShort() ) );
+		final int j = i.get();
+		dataAccess.setValue( j, ( short ) ( dataAccess.getValue( j ) + c.getShort() ) );
 	}
 
 	@Override
 	public void div( final T c )
 	{
-		final short a = getShort();
-		setShort( ( short ) ( a / c.getShort() ) );
+		final int j = i.get();
+		dataAccess.setValue( j, ( short ) ( dataAccess.getValue( j ) / c.getShort() ) );
 	}
 
 	@Override
 	public void mul( final T c )
 	{
-		final short a = getShort();
-		setShort( ( short ) ( a * c.getShort() ) );
+		final int j = i.get();
+		dataAccess.setValue( j, ( short ) ( dataAccess.getValue( j ) * c.getShort() ) );
 	}
 
 	@Override
 	public void sub( final T c )
 	{
-		final short a = getShort();
-		setShort( ( short ) ( a - c.getShort() ) );
+		final int j = i.get();
+		dataAccess.setValue( j, ( short ) ( dataAccess.getValue( j ) - c.getShort() ) );
 	}
 
 	@Override
@@ -212,15 +212,83 @@ public abstract class GenericShortType< T extends GenericShortType< T > >
 	@Override
 	public void inc()
 	{
-		short a = getShort();
-		setShort( ++a );
+		final int j = i.get();
+		dataAccess.setValue( j, ( short ) ( dataAccess.getValue( j ) + 1 ) );
 	}
 
 	@Override
 	public void dec()
 	{
-		short a = getShort();
-		setShort( --a );
+		final int j = i.get();
+		dataAccess.setValue( j, ( short ) ( dataAccess.getValue( j ) - 1 ) );
+	}
+
+	/**
+	 * Sets this to {@code this + a * b}. Like {@link #add} and
+	 * {@link #mul}, the result wraps around on overflow.
+	 */
+	public void mulAdd( final T a, final T b )
+	{
+		final int j = i.get();
+		dataAccess.setValue( j, ( short ) ( dataAccess.getValue( j ) + a.getShort() * b.getShort() ) );
+	}
+
+	/**
+	 * Sets this to {@code this + c}, clamped to the range of the type.
+	 */
+	public void addAndClamp( final T c )
+	{
+		final int j = i.get();
+		dataAccess.setValue( j, clamp( ( long ) toValue( dataAccess.getValue( j ) ) + c.toValue( c.getShort() ) ) );
+	}
+
+	/**
+	 * Sets this to {@code this - c}, clamped to the range of the type.
+	 */
+	public void subAndClamp( final T c )
+	{
+		final int j = i.get();
+		dataAccess.setValue( j, clamp( ( long ) toValue( dataAccess.getValue( j ) ) - c.toValue( c.getShort() ) ) );
+	}
+
+	/**
+	 * Sets this to {@code this * c}, clamped to the range of the type.
+	 */
+	public void mulAndClamp( final T c )
+	{
+		final int j = i.get();
+		dataAccess.setValue( j, clamp( ( long ) toValue( dataAccess.getValue( j ) ) * c.toValue( c.getShort() ) ) );
+	}
+
+	/**
+	 * Sets this to {@code this + a * b}, clamped to the range of the type.
+	 */
+	public void mulAddAndClamp( final T a, final T b )
+	{
+		final int j = i.get();
+		dataAccess.setValue( j, clamp( toValue( dataAccess.getValue( j ) ) + ( long ) a.toValue( a.getShort() ) * b.toValue( b.getShort() ) ) );
+	}
+
+	/**
+	 * Returns the value that is represented by the primitive short value
+	 * {@code f}. This is {@code f} itself for signed types, unsigned types
+	 * override this method.
+	 */
+	protected int toValue( final short f )
+	{
+		return f;
+	}
+
+	/**
+	 * Clamps the value to the range of the type, which is the range of
+	 * {@code short} for signed types and {@code [0, 0xffff]} for
+	 * unsigned types, as determined by {@link #toValue}.
+	 */
+	private short clamp( final long value )
+	{
+		if ( toValue( ( short ) -1 ) < 0 )
+			return ( short ) Math.max( Short.MIN_VALUE, Math.min( Short.MAX_VALUE, value ) );
+		return ( short ) Math.max( 0, Math.min( 0xffffL, value ) );
 	}
 
 	@Override
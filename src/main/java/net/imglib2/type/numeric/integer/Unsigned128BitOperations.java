@@ -0,0 +1,359 @@
+/*-
+ * #%L
+ * ImgLib2: a general-purpose, multidimensional image processing library.
+ * %%
+ * Copyright (C) 2009 - 2021 Tobias Pietzsch, Stephan Preibisch, Stephan Saalfeld,
+ * John Bogovic, Albert Cardona, Barry DeZonia, Christian Dietz, Jan Funke,
+ * Aivar Grislis, Jonathan Hale, Grant Harris, Stefan Helfrich, Mark Hiner,
+ * Martin Horn, Steffen Jaensch, Lee Kamentsky, Larry Lindsey, Melissa Linkert,
+ * Mark Longair, Brian Northan, Nick Perry, Curtis Rueden, Johannes Schindelin,
+ * Jean-Yves Tinevez and Michael Zinsmaier.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+package net.imglib2.type.numeric.integer;
+
+import net.imglib2.RandomAccessibleInterval;
+import net.imglib2.img.array.ArrayImg;
+import net.imglib2.img.cell.CellImg;
+import net.imglib2.loops.LoopBuilder;
+import net.imglib2.loops.StorageArrays;
+import net.imglib2.parallel.Parallelization;
+import net.imglib2.parallel.TaskExecutor;
+
+/**
+ * Allocation-free unsigned 128-bit arithmetic on pairs of longs, as used by
+ * {@link Unsigned128BitType}, and bulk operations on images of
+ * {@link Unsigned128BitType}.
+ * <p>
+ * A 128-bit value is represented by its lower and upper 64 bits. All
+ * operations are modulo {@code 2^128}. The bulk operations work directly on
+ * the {@code long[]} storage of {@link ArrayImg}s of equal dimensions or
+ * {@link CellImg}s with equal cell grids, divided into chunks that are
+ * processed in parallel by the {@link TaskExecutor} returned by
+ * {@link Parallelization#getTaskExecutor()}. All other images are processed
+ * pixel by pixel, also in parallel.
+ */
+public final class Unsigned128BitOperations
+{
+	/**
+	 * Minimal number of pixels per chunk of the bulk operations.
+	 */
+	static final int MIN_PIXELS_PER_CHUNK = 4096;
+
+	private Unsigned128BitOperations()
+	{
+		// prevent from instantiation
+	}
+
+	/**
+	 * Returns the upper 64 bits of the unsigned 128-bit product of two
+	 * unsigned 64-bit values.
+	 */
+	public static long multiplyHighUnsigned( final long x, final long y )
+	{
+		final long x0 = x & 0xffffffffL;
+		final long x1 = x >>> 32;
+		final long y0 = y & 0xffffffffL;
+		final long y1 = y >>> 32;
+		final long p01 = x0 * y1;
+		final long p10 = x1 * y0;
+		final long middle = ( ( x0 * y0 ) >>> 32 ) + ( p01 & 0xffffffffL ) + ( p10 & 0xffffffffL );
+		return x1 * y1 + ( p01 >>> 32 ) + ( p10 >>> 32 ) + ( middle >>> 32 );
+	}
+
+	/**
+	 * Compares two unsigned 128-bit values, like
+	 * {@link Long#compareUnsigned(long, long)}.
+	 */
+	public static int compare( final long lowerA, final long upperA, final long lowerB, final long upperB )
+	{
+		final int compareUpper = Long.compareUnsigned( upperA, upperB );
+		return compareUpper != 0 ? compareUpper : Long.compareUnsigned( lowerA, lowerB );
+	}
+
+	/**
+	 * Writes the lower and upper 64 bits of {@code a + b} to
+	 * {@code result[ offset ]} and {@code result[ offset + 1 ]}.
+	 */
+	public static void add( final long lowerA, final long upperA, final long lowerB, final long upperB, final long[] result, final int offset )
+	{
+		final long lower = lowerA + lowerB;
+		result[ offset ] = lower;
+		result[ offset + 1 ] = upperA + upperB + ( Long.compareUnsigned( lower, lowerA ) < 0 ? 1 : 0 );
+	}
+
+	/**
+	 * Writes the lower and upper 64 bits of {@code a - b} to
+	 * {@code result[ offset ]} and {@code result[ offset + 1 ]}.
+	 */
+	public static void subtract( final long lowerA, final long upperA, final long lowerB, final long upperB, final long[] result, final int offset )
+	{
+		result[ offset ] = lowerA - lowerB;
+		result[ offset + 1 ] = upperA - upperB - ( Long.compareUnsigned( lowerA, lowerB ) < 0 ? 1 : 0 );
+	}
+
+	/**
+	 * Writes the lower and upper 64 bits of {@code a * b} to
+	 * {@code result[ offset ]} and {@code result[ offset + 1 ]}.
+	 */
+	public static void multiply( final long lowerA, final long upperA, final long lowerB, final long upperB, final long[] result, final int offset )
+	{
+		result[ offset ] = lowerA * lowerB;
+		result[ offset + 1 ] = multiplyHighUnsigned( lowerA, lowerB ) + lowerA * upperB + upperA * lowerB;
+	}
+
+	/**
+	 * Writes the lower and upper 64 bits of {@code a / b}, rounded towards
+	 * zero, to {@code result[ offset ]} and {@code result[ offset + 1 ]}.
+	 *
+	 * @throws ArithmeticException
+	 *             if {@code b} is zero.
+	 */
+	public static void divide( final long lowerA, final long upperA, final long lowerB, final long upperB, final long[] result, final int offset )
+	{
+		if ( lowerB == 0 && upperB == 0 )
+			throw new ArithmeticException( "BigInteger divide by zero" );
+		if ( upperA == 0 && upperB == 0 )
+		{
+			result[ offset ] = Long.divideUnsigned( lowerA, lowerB );
+			result[ offset + 1 ] = 0;
+			return;
+		}
+		if ( compare( lowerA, upperA, lowerB, upperB ) < 0 )
+		{
+			result[ offset ] = 0;
+			result[ offset + 1 ] = 0;
+			return;
+		}
+
+		// shift-subtract division, starting with the divisor aligned to the
+		// most significant bit of the dividend
+		final int shift = numberOfLeadingZeros( lowerB, upperB ) - numberOfLeadingZeros( lowerA, upperA );
+		long dLower;
+		long dUpper;
+		if ( shift >= 64 )
+		{
+			dUpper = lowerB << ( shift - 64 );
+			dLower = 0;
+		}
+		else if ( shift > 0 )
+		{
+			dUpper = ( upperB << shift ) | ( lowerB >>> ( 64 - shift ) );
+			dLower = lowerB << shift;
+		}
+		else
+		{
+			dUpper = upperB;
+			dLower = lowerB;
+		}
+		long rLower = lowerA;
+		long rUpper = upperA;
+		long qLower = 0;
+		long qUpper = 0;
+		for ( int s = shift; s >= 0; --s )
+		{
+			qUpper = ( qUpper << 1 ) | ( qLower >>> 63 );
+			qLower <<= 1;
+			if ( compare( rLower, rUpper, dLower, dUpper ) >= 0 )
+			{
+				final long lower = rLower - dLower;
+				rUpper = rUpper - dUpper - ( Long.compareUnsigned( rLower, dLower ) < 0 ? 1 : 0 );
+				rLower = lower;
+				qLower |= 1;
+			}
+			dLower = ( dLower >>> 1 ) | ( dUpper << 63 );
+			dUpper >>>= 1;
+		}
+		result[ offset ] = qLower;
+		result[ offset + 1 ] = qUpper;
+	}
+
+	/**
+	 * Writes the lower and upper 64 bits of {@code a * c}, rounded towards
+	 * zero, modulo {@code 2^128}, to {@code result[ offset ]} and
+	 * {@code result[ offset + 1 ]}. The product is computed exactly.
+	 *
+	 * @throws NumberFormatException
+	 *             if {@code c} is infinite or NaN.
+	 */
+	public static void multiply( final long lowerA, final long upperA, final double c, final long[] result, final int offset )
+	{
+		if ( Double.isNaN( c ) || Double.isInfinite( c ) )
+			throw new NumberFormatException( "Infinite or NaN" );
+
+		// c = sign * m * 2^e
+		final long bits = Double.doubleToRawLongBits( c );
+		final int biasedExponent = ( int ) ( ( bits >>> 52 ) & 0x7ff );
+		final long fraction = bits & 0xfffffffffffffL;
+		final long m = biasedExponent == 0 ? fraction : fraction | 0x10000000000000L;
+		final int e = biasedExponent == 0 ? -1074 : biasedExponent - 1075;
+
+		// 192-bit product a * m
+		final long p0 = lowerA * m;
+		final long t = multiplyHighUnsigned( lowerA, m );
+		final long p1 = t + upperA * m;
+		final long p2 = multiplyHighUnsigned( upperA, m ) + ( Long.compareUnsigned( p1, t ) < 0 ? 1 : 0 );
+
+		long lower;
+		long upper;
+		if ( e >= 128 )
+		{
+			lower = 0;
+			upper = 0;
+		}
+		else if ( e >= 64 )
+		{
+			lower = 0;
+			upper = p0 << ( e - 64 );
+		}
+		else if ( e > 0 )
+		{
+			lower = p0 << e;
+			upper = ( p1 << e ) | ( p0 >>> ( 64 - e ) );
+		}
+		else if ( e == 0 )
+		{
+			lower = p0;
+			upper = p1;
+		}
+		else
+		{
+			final int s = -e;
+			if ( s >= 192 )
+			{
+				lower = 0;
+				upper = 0;
+			}
+			else if ( s >= 128 )
+			{
+				lower = p2 >>> ( s - 128 );
+				upper = 0;
+			}
+			else if ( s > 64 )
+			{
+				lower = ( p1 >>> ( s - 64 ) ) | ( p2 << ( 128 - s ) );
+				upper = p2 >>> ( s - 64 );
+			}
+			else if ( s == 64 )
+			{
+				lower = p1;
+				upper = p2;
+			}
+			else
+			{
+				lower = ( p0 >>> s ) | ( p1 << ( 64 - s ) );
+				upper = ( p1 >>> s ) | ( p2 << ( 64 - s ) );
+			}
+		}
+
+		if ( bits < 0 )
+		{
+			// two's complement negation
+			upper = ~upper + ( lower == 0 ? 1 : 0 );
+			lower = -lower;
+		}
+		result[ offset ] = lower;
+		result[ offset + 1 ] = upper;
+	}
+
+	private static int numberOfLeadingZeros( final long lower, final long upper )
+	{
+		return upper != 0 ? Long.numberOfLeadingZeros( upper ) : 64 + Long.numberOfLeadingZeros( lower );
+	}
+
+	// -- Bulk operations --
+
+	/**
+	 * Sets {@code target = a + b}.
+	 */
+	public static void add( final RandomAccessibleInterval< Unsigned128BitType > a, final RandomAccessibleInterval< Unsigned128BitType > b, final RandomAccessibleInterval< Unsigned128BitType > target )
+	{
+		apply( a, b, target, Unsigned128BitOperations::add );
+	}
+
+	/**
+	 * Sets {@code target = a - b}.
+	 */
+	public static void subtract( final RandomAccessibleInterval< Unsigned128BitType > a, final RandomAccessibleInterval< Unsigned128BitType > b, final RandomAccessibleInterval< Unsigned128BitType > target )
+	{
+		apply( a, b, target, Unsigned128BitOperations::subtract );
+	}
+
+	/**
+	 * Sets {@code target = a * b}.
+	 */
+	public static void multiply( final RandomAccessibleInterval< Unsigned128BitType > a, final RandomAccessibleInterval< Unsigned128BitType > b, final RandomAccessibleInterval< Unsigned128BitType > target )
+	{
+		apply( a, b, target, Unsigned128BitOperations::multiply );
+	}
+
+	/**
+	 * Sets {@code target = a / b}.
+	 *
+	 * @throws ArithmeticException
+	 *             if a pixel of {@code b} is zero.
+	 */
+	public static void divide( final RandomAccessibleInterval< Unsigned128BitType > a, final RandomAccessibleInterval< Unsigned128BitType > b, final RandomAccessibleInterval< Unsigned128BitType > target )
+	{
+		apply( a, b, target, Unsigned128BitOperations::divide );
+	}
+
+	/**
+	 * Operation on two 128-bit values, that writes the result into an array.
+	 */
+	private interface Operation
+	{
+		void apply( long lowerA, long upperA, long lowerB, long upperB, long[] result, int offset );
+	}
+
+	private static void apply( final RandomAccessibleInterval< Unsigned128BitType > a, final RandomAccessibleInterval< Unsigned128BitType > b, final RandomAccessibleInterval< Unsigned128BitType > target, final Operation operation )
+	{
+		final StorageArrays wordsTarget = StorageArrays.of( target, long[].class );
+		final StorageArrays wordsA = wordsTarget == null ? null : StorageArrays.of( a, long[].class );
+		final StorageArrays wordsB = wordsA == null ? null : StorageArrays.of( b, long[].class );
+		if ( wordsB == null || !wordsTarget.matches( wordsA ) || !wordsTarget.matches( wordsB ) )
+		{
+			LoopBuilder.setImages( a, b, target ).multiThreaded().forEachChunk( chunk -> {
+				final long[] result = new long[ 2 ];
+				chunk.forEachPixel( ( x, y, t ) -> {
+					final int kx = x.index().get() * 2;
+					final int ky = y.index().get() * 2;
+					operation.apply( x.dataAccess.getValue( kx ), x.dataAccess.getValue( kx + 1 ), y.dataAccess.getValue( ky ), y.dataAccess.getValue( ky + 1 ), result, 0 );
+					t.set( result[ 0 ], result[ 1 ] );
+				} );
+				return null;
+			} );
+			return;
+		}
+		StorageArrays.forEachChunk( 1, MIN_PIXELS_PER_CHUNK, ( arrays, numPixels, from, to ) -> {
+			final long[] t = ( long[] ) arrays[ 0 ];
+			final long[] x = ( long[] ) arrays[ 1 ];
+			final long[] y = ( long[] ) arrays[ 2 ];
+			for ( int k = 2 * from; k < 2 * to; k += 2 )
+				operation.apply( x[ k ], x[ k + 1 ], y[ k ], y[ k + 1 ], t, k );
+			return null;
+		}, wordsTarget, wordsA, wordsB );
+		wordsTarget.setDirty();
+	}
+}
@@ -34,7 +34,6 @@
 
 package net.imglib2.type.numeric.integer;
 
-import java.math.BigDecimal;
 import java.math.BigInteger;
 
 import net.imglib2.img.NativeImg;
@@ -50,11 +49,11 @@ import net.imglib2.util.Util;
 
 /**
  * A {@link Type} with a bit depth of 128. Each value is stored in two adjacent
- * long in an array, with the lower long first, then the upper long. Currently
- * the math methods defined in the superinterface {@link NumericType} are
- * implemented using {@link BigInteger} and {@link BigDecimal}. This class is
- * not {@link Thread}-safe; do a {@link #copy()} first to operate on a different
- * {@link Thread}.
+ * long in an array, with the lower long first, then the upper long. The math
+ * methods defined in the superinterface {@link NumericType} work on the two
+ * longs directly and do not allocate objects (see
+ * {@link Unsigned128BitOperations}). This class is not {@link Thread}-safe; do
+ * a {@link #copy()} first to operate on a different {@link Thread}.
  *
  * @author Albert Cardona
  */
@@ -67,6 +66,9 @@ public class Unsigned128BitType extends AbstractIntegerType< Unsigned128BitType
 	// 17, so the first byte is 0 to mean positive integer
 	final protected byte[] bytes = new byte[ 17 ];
 
+	// result of the arithmetic operations, lower long first
+	private final long[] result = new long[ 2 ];
+
 	// the DataAccess that holds the information
 	protected LongAccess dataAccess;
 
@@ -193,6 +195,13 @@ public class Unsigned128BitType extends AbstractIntegerType< Unsigned128BitType
 		dataAccess.setValue( k + 1, upper );
 	}
 
+	@Override
+	public void set( final Unsigned128BitType t )
+	{
+		final int kt = t.i.get() * 2;
+		set( t.dataAccess.getValue( kt ), t.dataAccess.getValue( kt + 1 ) );
+	}
+
 	/** Return the lowest 32 bits, like {@link BigInteger#intValue()}. */
 	@Override
 	public int getInteger()
@@ -393,41 +402,57 @@ public class Unsigned128BitType extends AbstractIntegerType< Unsigned128BitType
 	}
 
 	/**
-	 * Implemented using {@link BigDecimal#multiply(BigDecimal)} and
-	 * {@link BigDecimal#toBigInteger()}.
+	 * The exact product, rounded towards zero, modulo {@code 2^128}.
+	 *
+	 * @throws NumberFormatException
+	 *             if {@code c} is infinite or NaN.
 	 */
 	@Override
 	public void mul( final double c )
 	{
-		set( new BigDecimal( get() ).multiply( new BigDecimal( c ) ).toBigInteger() );
+		final int k = i.get() * 2;
+		Unsigned128BitOperations.multiply( dataAccess.getValue( k ), dataAccess.getValue( k + 1 ), c, result, 0 );
+		set( result[ 0 ], result[ 1 ] );
 	}
 
-	/** Relies on {@link BigInteger#add(BigInteger)}. */
 	@Override
 	public void add( final Unsigned128BitType t )
 	{
-		set( get().add( t.get() ).toByteArray() );
+		final int k = i.get() * 2;
+		final int kt = t.i.get() * 2;
+		Unsigned128BitOperations.add( dataAccess.getValue( k ), dataAccess.getValue( k + 1 ), t.dataAccess.getValue( kt ), t.dataAccess.getValue( kt + 1 ), result, 0 );
+		set( result[ 0 ], result[ 1 ] );
 	}
 
-	/** Relies on {@link BigInteger#subtract(BigInteger)}. */
 	@Override
 	public void sub( final Unsigned128BitType t )
 	{
-		set( get().subtract( t.get() ).toByteArray() );
+		final int k = i.get() * 2;
+		final int kt = t.i.get() * 2;
+		Unsigned128BitOperations.subtract( dataAccess.getValue( k ), dataAccess.getValue( k + 1 ), t.dataAccess.getValue( kt ), t.dataAccess.getValue( kt + 1 ), result, 0 );
+		set( result[ 0 ], result[ 1 ] );
 	}
 
-	/** Relies on {@link BigInteger#multiply(BigInteger)}. */
 	@Override
 	public void mul( final Unsigned128BitType t )
 	{
-		set( get().multiply( t.get() ).toByteArray() );
+		final int k = i.get() * 2;
+		final int kt = t.i.get() * 2;
+		Unsigned128BitOperations.multiply( dataAccess.getValue( k ), dataAccess.getValue( k + 1 ), t.dataAccess.getValue( kt ), t.dataAccess.getValue( kt + 1 ), result, 0 );
+		set( result[ 0 ], result[ 1 ] );
 	}
 
-	/** Relies on {@link BigInteger#divide(BigInteger)}. */
+	/**
+	 * @throws ArithmeticException
+	 *             if {@code t} is zero.
+	 */
 	@Override
 	public void div( final Unsigned128BitType t )
 	{
-		set( get().divide( t.get() ).toByteArray() );
+		final int k = i.get() * 2;
+		final int kt = t.i.get() * 2;
+		Unsigned128BitOperations.divide( dataAccess.getValue( k ), dataAccess.getValue( k + 1 ), t.dataAccess.getValue( kt ), t.dataAccess.getValue( kt + 1 ), result, 0 );
+		set( result[ 0 ], result[ 1 ] );
 	}
 
 	@Override
@@ -445,17 +470,9 @@ public class Unsigned128BitType extends AbstractIntegerType< Unsigned128BitType
 	@Override
 	public int compareTo( final Unsigned128BitType t )
 	{
-		final int j = i.get();
-		final int tj = t.i.get();
-		final long upper1 = dataAccess.getValue( j * 2 + 1 );
-		final long upper2 = t.dataAccess.getValue( tj * 2 + 1 );
-		final int compareUpper = Long.compareUnsigned( upper1, upper2 );
-		if ( compareUpper != 0 )
-			return compareUpper;
-
-		final long lower1 = dataAccess.getValue( j * 2 );
-		final long lower2 = t.dataAccess.getValue( tj * 2 );
-		return Long.compareUnsigned( lower1, lower2 );
+		final int k = i.get() * 2;
+		final int kt = t.i.get() * 2;
+		return Unsigned128BitOperations.compare( dataAccess.getValue( k ), dataAccess.getValue( k + 1 ), t.dataAccess.getValue( kt ), t.dataAccess.getValue( kt + 1 ) );
 	}
 
 	@Override
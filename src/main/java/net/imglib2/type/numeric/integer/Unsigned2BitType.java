@@ -36,6 +36,7 @@ package net.imglib2.type.numeric.integer;
 
 import net.imglib2.img.NativeImg;
 import net.imglib2.img.basictypeaccess.LongAccess;
+import net.imglib2.img.basictypeaccess.WordLocks;
 import net.imglib2.img.basictypeaccess.array.LongArray;
 import net.imglib2.type.NativeTypeFactory;
 import net.imglib2.type.Type;
@@ -125,7 +126,7 @@ public class Unsigned2BitType extends AbstractIntegerBitType< Unsigned2BitType >
 
 		final long bitsToRetain = ~( mask << shift );
 		final long bitsToSet = ( value & mask ) << shift;
-		synchronized ( dataAccess )
+		synchronized ( WordLocks.lock( i1 ) )
 		{
 			dataAccess.setValue( i1, ( dataAccess.getValue( i1 ) & bitsToRetain ) | bitsToSet );
 		}
@@ -36,6 +36,7 @@ package net.imglib2.type.numeric.integer;
 
 import net.imglib2.img.NativeImg;
 import net.imglib2.img.basictypeaccess.LongAccess;
+import net.imglib2.img.basictypeaccess.WordLocks;
 import net.imglib2.img.basictypeaccess.array.LongArray;
 import net.imglib2.type.NativeTypeFactory;
 import net.imglib2.type.Type;
@@ -117,7 +118,7 @@ public class Unsigned4BitType extends AbstractIntegerBitType< Unsigned4BitType >
 
 		final long bitsToRetain = ~( mask << shift );
 		final long bitsToSet = ( value & mask ) << shift;
-		synchronized ( dataAccess )
+		synchronized ( WordLocks.lock( i1 ) )
 		{
 			dataAccess.setValue( i1, ( dataAccess.getValue( i1 ) & bitsToRetain ) | bitsToSet );
 		}
@@ -110,40 +110,28 @@ public class UnsignedByteType extends GenericByteType< UnsignedByteType >
 	@Override
 	public void mul( final float c )
 	{
-
-		final int a = getUnsignedByte( getByte() );
-		setByte( getCodedSignedByte( Util.round( a * c ) ) );
+		final int j = i.get();
+		dataAccess.setValue( j, getCodedSignedByte( Util.round( getUnsignedByte( dataAccess.getValue( j ) ) * c ) ) );
 	}
 
 	@Override
 	public void mul( final double c )
 	{
-		final int a = getUnsignedByte( getByte() );
-		setByte( getCodedSignedByte( ( int ) Util.round( a * c ) ) );
-	}
-
-	@Override
-	public void add( final UnsignedByteType c )
-	{
-		set( get() + c.get() );
+		final int j = i.get();
+		dataAccess.setValue( j, getCodedSignedByte( ( int ) Util.round( getUnsignedByte( dataAccess.getValue( j ) ) * c ) ) );
 	}
 
 	@Override
 	public void div( final UnsignedByteType c )
 	{
-		set( get() / c.get() );
-	}
-
-	@Override
-	public void mul( final UnsignedByteType c )
-	{
-		set( get() * c.get() );
+		final int j = i.get();
+		dataAccess.setValue( j, getCodedSignedByte( getUnsignedByte( dataAccess.getValue( j ) ) / c.get() ) );
 	}
 
 	@Override
-	public void sub( final UnsignedByteType c )
+	protected int toValue( final byte f )
 	{
-		set( get() - c.get() );
+		return getUnsignedByte( f );
 	}
 
 	public int get()
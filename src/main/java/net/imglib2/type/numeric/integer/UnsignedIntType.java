@@ -110,39 +110,28 @@ public class UnsignedIntType extends GenericIntType< UnsignedIntType >
 	@Override
 	public void mul( final float c )
 	{
-		final long a = getUnsignedInt( getInt() );
-		setInt( getCodedSignedInt( Util.round( a * c ) ) );
+		final int j = i.get();
+		dataAccess.setValue( j, getCodedSignedInt( Util.round( getUnsignedInt( dataAccess.getValue( j ) ) * c ) ) );
 	}
 
 	@Override
 	public void mul( final double c )
 	{
-		final long a = getUnsignedInt( getInt() );
-		setInt( getCodedSignedInt( ( int ) Util.round( a * c ) ) );
-	}
-
-	@Override
-	public void add( final UnsignedIntType c )
-	{
-		set( get() + c.get() );
+		final int j = i.get();
+		dataAccess.setValue( j, getCodedSignedInt( ( int ) Util.round( getUnsignedInt( dataAccess.getValue( j ) ) * c ) ) );
 	}
 
 	@Override
 	public void div( final UnsignedIntType c )
 	{
-		set( get() / c.get() );
-	}
-
-	@Override
-	public void mul( final UnsignedIntType c )
-	{
-		set( get() * c.get() );
+		final int j = i.get();
+		dataAccess.setValue( j, getCodedSignedInt( getUnsignedInt( dataAccess.getValue( j ) ) / c.get() ) );
 	}
 
 	@Override
-	public void sub( final UnsignedIntType c )
+	protected long toValue( final int f )
 	{
-		set( get() - c.get() );
+		return getUnsignedInt( f );
 	}
 
 	@Override
@@ -157,18 +146,6 @@ public class UnsignedIntType extends GenericIntType< UnsignedIntType >
 		set( 0 );
 	}
 
-	@Override
-	public void inc()
-	{
-		set( get() + 1 );
-	}
-
-	@Override
-	public void dec()
-	{
-		set( get() - 1 );
-	}
-
 	@Override
 	public String toString()
 	{
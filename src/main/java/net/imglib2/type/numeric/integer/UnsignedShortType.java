@@ -110,49 +110,28 @@ public class UnsignedShortType extends GenericShortType< UnsignedShortType >
 	@Override
 	public void mul( final float c )
 	{
-		set( Util.round( get() * c ) );
+		final int j = i.get();
+		dataAccess.setValue( j, getCodedSignedShort( Util.round( getUnsignedShort( dataAccess.getValue( j ) ) * c ) ) );
 	}
 
 	@Override
 	public void mul( final double c )
 	{
-		set( ( int ) Util.round( get() * c ) );
-	}
-
-	@Override
-	public void add( final UnsignedShortType c )
-	{
-		set( get() + c.get() );
+		final int j = i.get();
+		dataAccess.setValue( j, getCodedSignedShort( ( int ) Util.round( getUnsignedShort( dataAccess.getValue( j ) ) * c ) ) );
 	}
 
 	@Override
 	public void div( final UnsignedShortType c )
 	{
-		set( get() / c.get() );
-	}
-
-	@Override
-	public void mul( final UnsignedShortType c )
-	{
-		set( get() * c.get() );
-	}
-
-	@Override
-	public void sub( final UnsignedShortType c )
-	{
-		set( get() - c.get() );
-	}
-
-	@Override
-	public void inc()
-	{
-		set( get() + 1 );
+		final int j = i.get();
+		dataAccess.setValue( j, getCodedSignedShort( getUnsignedShort( dataAccess.getValue( j ) ) / c.get() ) );
 	}
 
 	@Override
-	public void dec()
+	protected int toValue( final short f )
 	{
-		set( get() - 1 );
+		return getUnsignedShort( f );
 	}
 
 	public int get()
@@ -0,0 +1,356 @@
+/*-
+ * #%L
+ * ImgLib2: a general-purpose, multidimensional image processing library.
+ * %%
+ * Copyright (C) 2009 - 2021 Tobias Pietzsch, Stephan Preibisch, Stephan Saalfeld,
+ * John Bogovic, Albert Cardona, Barry DeZonia, Christian Dietz, Jan Funke,
+ * Aivar Grislis, Jonathan Hale, Grant Harris, Stefan Helfrich, Mark Hiner,
+ * Martin Horn, Steffen Jaensch, Lee Kamentsky, Larry Lindsey, Melissa Linkert,
+ * Mark Longair, Brian Northan, Nick Perry, Curtis Rueden, Johannes Schindelin,
+ * Jean-Yves Tinevez and Michael Zinsmaier.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+package net.imglib2.type.numeric.real;
+
+import net.imglib2.img.NativeImg;
+import net.imglib2.img.basictypeaccess.ShortAccess;
+import net.imglib2.img.basictypeaccess.array.ShortArray;
+import net.imglib2.type.Index;
+import net.imglib2.type.NativeType;
+import net.imglib2.type.NativeTypeFactory;
+import net.imglib2.util.Fraction;
+import net.imglib2.util.Util;
+
+/**
+ * A 16-bit "brain floating point" number (bfloat16: 1 sign bit, 8 exponent
+ * bits, 7 mantissa bits), stored in a {@link ShortAccess}. A bfloat16 value
+ * consists of the upper 16 bits of a {@code float}, so it has the range of a
+ * {@code float} with reduced precision.
+ * <p>
+ * Values are converted from {@code float} and {@code double} with correct
+ * rounding to nearest even. Arithmetic is performed in {@code float}
+ * precision and rounded to bfloat16.
+ */
+public class BFloat16Type extends AbstractRealType< BFloat16Type > implements NativeType< BFloat16Type >
+{
+	private final Index i;
+
+	final protected NativeImg< ?, ? extends ShortAccess > img;
+
+	// the DataAccess that holds the information
+	protected ShortAccess dataAccess;
+
+	// this is the constructor if you want it to read from an array
+	public BFloat16Type( final NativeImg< ?, ? extends ShortAccess > shortStorage )
+	{
+		i = new Index();
+		img = shortStorage;
+	}
+
+	// this is the constructor if you want it to be a variable
+	public BFloat16Type( final float value )
+	{
+		i = new Index();
+		img = null;
+		dataAccess = new ShortArray( 1 );
+		set( value );
+	}
+
+	// this is the constructor if you want to specify the dataAccess
+	public BFloat16Type( final ShortAccess access )
+	{
+		i = new Index();
+		img = null;
+		dataAccess = access;
+	}
+
+	// this is the constructor if you want it to be a variable
+	public BFloat16Type()
+	{
+		this( 0 );
+	}
+
+	@Override
+	public void updateContainer( final Object c )
+	{
+		dataAccess = img.update( c );
+	}
+
+	@Override
+	public Index index()
+	{
+		return i;
+	}
+
+	@Override
+	public BFloat16Type duplicateTypeOnSameNativeImg()
+	{
+		return new BFloat16Type( img );
+	}
+
+	private static final NativeTypeFactory< BFloat16Type, ShortAccess > typeFactory = NativeTypeFactory.SHORT( BFloat16Type::new );
+
+	@Override
+	public NativeTypeFactory< BFloat16Type, ShortAccess > getNativeTypeFactory()
+	{
+		return typeFactory;
+	}
+
+	public float get()
+	{
+		return toFloat( dataAccess.getValue( i.get() ) );
+	}
+
+	public void set( final float f )
+	{
+		dataAccess.setValue( i.get(), fromFloat( f ) );
+	}
+
+	/**
+	 * Returns the 16 bits that encode the value.
+	 */
+	public short getBits()
+	{
+		return dataAccess.getValue( i.get() );
+	}
+
+	/**
+	 * Sets the 16 bits that encode the value.
+	 */
+	public void setBits( final short bits )
+	{
+		dataAccess.setValue( i.get(), bits );
+	}
+
+	@Override
+	public float getRealFloat()
+	{
+		return get();
+	}
+
+	@Override
+	public double getRealDouble()
+	{
+		return get();
+	}
+
+	@Override
+	public void setReal( final float real )
+	{
+		set( real );
+	}
+
+	@Override
+	public void setReal( final double real )
+	{
+		set( HalfFloatType.roundToOdd( real ) );
+	}
+
+	@Override
+	public double getMaxValue()
+	{
+		return MAX_VALUE;
+	}
+
+	@Override
+	public double getMinValue()
+	{
+		return -MAX_VALUE;
+	}
+
+	@Override
+	public double getMinIncrement()
+	{
+		return MIN_VALUE;
+	}
+
+	@Override
+	public void mul( final float c )
+	{
+		set( get() * c );
+	}
+
+	@Override
+	public void mul( final double c )
+	{
+		setReal( get() * c );
+	}
+
+	@Override
+	public void add( final BFloat16Type c )
+	{
+		set( get() + c.get() );
+	}
+
+	@Override
+	public void div( final BFloat16Type c )
+	{
+		set( get() / c.get() );
+	}
+
+	@Override
+	public void mul( final BFloat16Type c )
+	{
+		set( get() * c.get() );
+	}
+
+	@Override
+	public void sub( final BFloat16Type c )
+	{
+		set( get() - c.get() );
+	}
+
+	@Override
+	public void set( final BFloat16Type c )
+	{
+		setBits( c.getBits() );
+	}
+
+	@Override
+	public void setOne()
+	{
+		set( 1 );
+	}
+
+	@Override
+	public void setZero()
+	{
+		set( 0 );
+	}
+
+	@Override
+	public void inc()
+	{
+		set( get() + 1 );
+	}
+
+	@Override
+	public void dec()
+	{
+		set( get() - 1 );
+	}
+
+	@Override
+	public BFloat16Type createVariable()
+	{
+		return new BFloat16Type( 0 );
+	}
+
+	@Override
+	public BFloat16Type copy()
+	{
+		final BFloat16Type copy = new BFloat16Type();
+		copy.setBits( getBits() );
+		return copy;
+	}
+
+	@Override
+	public Fraction getEntitiesPerPixel()
+	{
+		return new Fraction();
+	}
+
+	@Override
+	public int getBitsPerPixel()
+	{
+		return 16;
+	}
+
+	@Override
+	public int compareTo( final BFloat16Type other )
+	{
+		return Float.compare( get(), other.get() );
+	}
+
+	@Override
+	public boolean valueEquals( final BFloat16Type other )
+	{
+		return FloatType.equals( get(), other.get() );
+	}
+
+	@Override
+	public boolean equals( final Object obj )
+	{
+		return Util.valueEqualsObject( this, obj );
+	}
+
+	@Override
+	public int hashCode()
+	{
+		return Float.hashCode( get() );
+	}
+
+	// -- Conversion --
+
+	/**
+	 * The largest finite bfloat16 value, about {@code 3.39e38}.
+	 */
+	public static final float MAX_VALUE = Float.intBitsToFloat( 0x7f7f0000 );
+
+	/**
+	 * The smallest positive bfloat16 value, {@code 2^-133}.
+	 */
+	public static final float MIN_VALUE = Float.intBitsToFloat( 0x00010000 );
+
+	/**
+	 * Returns the {@code float} value of the given bfloat16 bits.
+	 */
+	public static float toFloat( final short bits )
+	{
+		return Float.intBitsToFloat( bits << 16 );
+	}
+
+	/**
+	 * Returns the bfloat16 bits of the given {@code float}, rounded to nearest
+	 * even. NaN stays NaN.
+	 */
+	public static short fromFloat( final float value )
+	{
+		final int bits = Float.floatToRawIntBits( value );
+		if ( ( bits & 0x7fffffff ) > 0x7f800000 )
+			// NaN, make sure that the truncated mantissa is not zero
+			return ( short ) ( ( bits >>> 16 ) | 0x40 );
+		return ( short ) ( ( bits + 0x7fff + ( ( bits >>> 16 ) & 1 ) ) >>> 16 );
+	}
+
+	/**
+	 * Converts {@code length} bfloat16 values of {@code src}, starting at
+	 * {@code srcPos}, to {@code float}.
+	 */
+	public static void toFloat( final short[] src, final int srcPos, final float[] dest, final int destPos, final int length )
+	{
+		for ( int k = 0; k < length; ++k )
+			dest[ destPos + k ] = Float.intBitsToFloat( src[ srcPos + k ] << 16 );
+	}
+
+	/**
+	 * Converts {@code length} {@code float} values of {@code src}, starting at
+	 * {@code srcPos}, to bfloat16.
+	 */
+	public static void fromFloat( final float[] src, final int srcPos, final short[] dest, final int destPos, final int length )
+	{
+		for ( int k = 0; k < length; ++k )
+			dest[ destPos + k ] = fromFloat( src[ srcPos + k ] );
+	}
+}
@@ -0,0 +1,444 @@
+/*-
+ * #%L
+ * ImgLib2: a general-purpose, multidimensional image processing library.
+ * %%
+ * Copyright (C) 2009 - 2021 Tobias Pietzsch, Stephan Preibisch, Stephan Saalfeld,
+ * John Bogovic, Albert Cardona, Barry DeZonia, Christian Dietz, Jan Funke,
+ * Aivar Grislis, Jonathan Hale, Grant Harris, Stefan Helfrich, Mark Hiner,
+ * Martin Horn, Steffen Jaensch, Lee Kamentsky, Larry Lindsey, Melissa Linkert,
+ * Mark Longair, Brian Northan, Nick Perry, Curtis Rueden, Johannes Schindelin,
+ * Jean-Yves Tinevez and Michael Zinsmaier.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+package net.imglib2.type.numeric.real;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import net.imglib2.RandomAccessibleInterval;
+import net.imglib2.Sampler;
+import net.imglib2.converter.Converters;
+import net.imglib2.converter.readwrite.SamplerConverter;
+import net.imglib2.img.NativeImg;
+import net.imglib2.img.array.ArrayImg;
+import net.imglib2.img.array.ArrayImgs;
+import net.imglib2.img.basictypeaccess.FloatAccess;
+import net.imglib2.img.basictypeaccess.array.FloatArray;
+import net.imglib2.loops.LoopBuilder;
+import net.imglib2.type.AbstractNativeType;
+import net.imglib2.type.NativeTypeFactory;
+import net.imglib2.type.numeric.NumericType;
+import net.imglib2.type.numeric.RealType;
+import net.imglib2.util.Fraction;
+import net.imglib2.util.Util;
+import net.imglib2.view.Views;
+import net.imglib2.view.composite.RealComposite;
+
+/**
+ * A vector of a fixed number of {@code float} components. The components of a
+ * pixel are stored contiguously in a {@link FloatAccess}, i.e. an image of
+ * {@link FloatVectorType} stores its pixels interleaved, with
+ * {@link #numComponents()} entities per pixel. This keeps all channels of a
+ * pixel cache-local, as opposed to an extra channel dimension that is
+ * collapsed with {@link Views#collapseReal}.
+ * <p>
+ * The {@link NumericType} operations work component-wise. Use
+ * {@link #toChannels} and {@link #fromChannels} to convert from and to images
+ * with a channel dimension.
+ */
+public class FloatVectorType extends AbstractNativeType< FloatVectorType > implements NumericType< FloatVectorType >
+{
+	private final int numComponents;
+
+	final protected NativeImg< ?, ? extends FloatAccess > img;
+
+	// the DataAccess that holds the information
+	protected FloatAccess dataAccess;
+
+	private NativeTypeFactory< FloatVectorType, FloatAccess > typeFactory;
+
+	// this is the constructor if you want it to read from an array
+	public FloatVectorType( final NativeImg< ?, ? extends FloatAccess > floatStorage, final int numComponents )
+	{
+		if ( numComponents < 1 )
+			throw new IllegalArgumentException( "number of components must be positive." );
+		this.numComponents = numComponents;
+		img = floatStorage;
+	}
+
+	// this is the constructor if you want it to be a variable
+	public FloatVectorType( final float... values )
+	{
+		this( new FloatArray( values.clone() ), values.length );
+	}
+
+	// this is the constructor if you want it to be a variable
+	public FloatVectorType( final int numComponents )
+	{
+		this( new FloatArray( numComponents ), numComponents );
+	}
+
+	// this is the constructor if you want to specify the dataAccess
+	public FloatVectorType( final FloatAccess access, final int numComponents )
+	{
+		this( ( NativeImg< ?, ? extends FloatAccess > ) null, numComponents );
+		dataAccess = access;
+	}
+
+	@Override
+	public void updateContainer( final Object c )
+	{
+		dataAccess = img.update( c );
+	}
+
+	@Override
+	public FloatVectorType duplicateTypeOnSameNativeImg()
+	{
+		return new FloatVectorType( img, numComponents );
+	}
+
+	@Override
+	public NativeTypeFactory< FloatVectorType, FloatAccess > getNativeTypeFactory()
+	{
+		if ( typeFactory == null )
+		{
+			final int n = numComponents;
+			typeFactory = NativeTypeFactory.FLOAT( storage -> new FloatVectorType( storage, n ) );
+		}
+		return typeFactory;
+	}
+
+	/**
+	 * Returns the number of components.
+	 */
+	public int numComponents()
+	{
+		return numComponents;
+	}
+
+	/**
+	 * Returns the value of the given component.
+	 */
+	public float get( final int component )
+	{
+		return dataAccess.getValue( i.get() * numComponents + component );
+	}
+
+	/**
+	 * Sets the value of the given component.
+	 */
+	public void set( final int component, final float value )
+	{
+		dataAccess.setValue( i.get() * numComponents + component, value );
+	}
+
+	/**
+	 * Copies all components into {@code values}.
+	 */
+	public void get( final float[] values )
+	{
+		final int k = i.get() * numComponents;
+		for ( int c = 0; c < numComponents; ++c )
+			values[ c ] = dataAccess.getValue( k + c );
+	}
+
+	/**
+	 * Sets all components from {@code values}.
+	 */
+	public void set( final float... values )
+	{
+		checkLength( values.length );
+		final int k = i.get() * numComponents;
+		for ( int c = 0; c < numComponents; ++c )
+			dataAccess.setValue( k + c, values[ c ] );
+	}
+
+	@Override
+	public void set( final FloatVectorType c )
+	{
+		checkLength( c.numComponents );
+		final int k = i.get() * numComponents;
+		final int kc = c.i.get() * numComponents;
+		for ( int j = 0; j < numComponents; ++j )
+			dataAccess.setValue( k + j, c.dataAccess.getValue( kc + j ) );
+	}
+
+	@Override
+	public void add( final FloatVectorType c )
+	{
+		checkLength( c.numComponents );
+		final int k = i.get() * numComponents;
+		final int kc = c.i.get() * numComponents;
+		for ( int j = 0; j < numComponents; ++j )
+			dataAccess.setValue( k + j, dataAccess.getValue( k + j ) + c.dataAccess.getValue( kc + j ) );
+	}
+
+	@Override
+	public void sub( final FloatVectorType c )
+	{
+		checkLength( c.numComponents );
+		final int k = i.get() * numComponents;
+		final int kc = c.i.get() * numComponents;
+		for ( int j = 0; j < numComponents; ++j )
+			dataAccess.setValue( k + j, dataAccess.getValue( k + j ) - c.dataAccess.getValue( kc + j ) );
+	}
+
+	@Override
+	public void mul( final FloatVectorType c )
+	{
+		checkLength( c.numComponents );
+		final int k = i.get() * numComponents;
+		final int kc = c.i.get() * numComponents;
+		for ( int j = 0; j < numComponents; ++j )
+			dataAccess.setValue( k + j, dataAccess.getValue( k + j ) * c.dataAccess.getValue( kc + j ) );
+	}
+
+	@Override
+	public void div( final FloatVectorType c )
+	{
+		checkLength( c.numComponents );
+		final int k = i.get() * numComponents;
+		final int kc = c.i.get() * numComponents;
+		for ( int j = 0; j < numComponents; ++j )
+			dataAccess.setValue( k + j, dataAccess.getValue( k + j ) / c.dataAccess.getValue( kc + j ) );
+	}
+
+	@Override
+	public void pow( final FloatVectorType c )
+	{
+		checkLength( c.numComponents );
+		final int k = i.get() * numComponents;
+		final int kc = c.i.get() * numComponents;
+		for ( int j = 0; j < numComponents; ++j )
+			dataAccess.setValue( k + j, ( float ) Math.pow( dataAccess.getValue( k + j ), c.dataAccess.getValue( kc + j ) ) );
+	}
+
+	@Override
+	public void pow( final double power )
+	{
+		final int k = i.get() * numComponents;
+		for ( int j = 0; j < numComponents; ++j )
+			dataAccess.setValue( k + j, ( float ) Math.pow( dataAccess.getValue( k + j ), power ) );
+	}
+
+	@Override
+	public void mul( final float c )
+	{
+		final int k = i.get() * numComponents;
+		for ( int j = 0; j < numComponents; ++j )
+			dataAccess.setValue( k + j, dataAccess.getValue( k + j ) * c );
+	}
+
+	@Override
+	public void mul( final double c )
+	{
+		final int k = i.get() * numComponents;
+		for ( int j = 0; j < numComponents; ++j )
+			dataAccess.setValue( k + j, ( float ) ( dataAccess.getValue( k + j ) * c ) );
+	}
+
+	/**
+	 * Sets all components to one.
+	 */
+	@Override
+	public void setOne()
+	{
+		fill( 1 );
+	}
+
+	@Override
+	public void setZero()
+	{
+		fill( 0 );
+	}
+
+	private void fill( final float value )
+	{
+		final int k = i.get() * numComponents;
+		for ( int j = 0; j < numComponents; ++j )
+			dataAccess.setValue( k + j, value );
+	}
+
+	private void checkLength( final int length )
+	{
+		if ( length != numComponents )
+			throw new IllegalArgumentException( "Expected " + numComponents + " components, but got " + length + "." );
+	}
+
+	@Override
+	public FloatVectorType createVariable()
+	{
+		return new FloatVectorType( numComponents );
+	}
+
+	@Override
+	public FloatVectorType copy()
+	{
+		final FloatVectorType copy = createVariable();
+		copy.set( this );
+		return copy;
+	}
+
+	@Override
+	public Fraction getEntitiesPerPixel()
+	{
+		return new Fraction( numComponents, 1 );
+	}
+
+	@Override
+	public boolean valueEquals( final FloatVectorType other )
+	{
+		if ( other.numComponents != numComponents )
+			return false;
+		for ( int j = 0; j < numComponents; ++j )
+			if ( !FloatType.equals( get( j ), other.get( j ) ) )
+				return false;
+		return true;
+	}
+
+	@Override
+	public boolean equals( final Object obj )
+	{
+		return Util.valueEqualsObject( this, obj );
+	}
+
+	@Override
+	public int hashCode()
+	{
+		int hash = numComponents;
+		for ( int j = 0; j < numComponents; ++j )
+			hash = Util.combineHash( hash, Float.hashCode( get( j ) ) );
+		return hash;
+	}
+
+	@Override
+	public String toString()
+	{
+		final float[] values = new float[ numComponents ];
+		get( values );
+		return Arrays.toString( values );
+	}
+
+	// -- Conversion from and to channel images --
+
+	/**
+	 * Returns a view of the components of the vectors as an image with an
+	 * additional, last dimension that indexes the components. The view is
+	 * writable. For an {@link ArrayImg} with a {@link FloatArray}, the view is
+	 * backed directly by the {@code float[]} array.
+	 */
+	public static RandomAccessibleInterval< FloatType > toChannels( final RandomAccessibleInterval< FloatVectorType > vectors )
+	{
+		final int numComponents = Util.getTypeFromInterval( vectors ).numComponents();
+		final int n = vectors.numDimensions();
+		if ( vectors instanceof ArrayImg )
+		{
+			final Object access = ( ( ArrayImg< ?, ? > ) vectors ).update( null );
+			if ( access instanceof FloatArray )
+			{
+				final long[] dimensions = new long[ n + 1 ];
+				dimensions[ 0 ] = numComponents;
+				for ( int d = 0; d < n; ++d )
+					dimensions[ d + 1 ] = vectors.dimension( d );
+				return Views.translate( Views.moveAxis( ArrayImgs.floats( ( FloatArray ) access, dimensions ), 0, n ), append( vectors.minAsLongArray(), 0 ) );
+			}
+		}
+		final List< RandomAccessibleInterval< FloatType > > components = new ArrayList<>();
+		for ( int c = 0; c < numComponents; ++c )
+			components.add( Converters.convert( vectors, new ComponentConverter( c ) ) );
+		return Views.stack( components );
+	}
+
+	/**
+	 * Copies an image with a channel dimension into a new {@link ArrayImg} of
+	 * {@link FloatVectorType}. The last dimension of {@code channels} is used
+	 * as the component index. The origin of the result corresponds to the min
+	 * of {@code channels}.
+	 */
+	public static ArrayImg< FloatVectorType, FloatArray > fromChannels( final RandomAccessibleInterval< ? extends RealType< ? > > channels )
+	{
+		final int n = channels.numDimensions() - 1;
+		final long numComponents = channels.dimension( n );
+		if ( numComponents > Integer.MAX_VALUE )
+			throw new IllegalArgumentException( "too many channels." );
+		final long[] dimensions = new long[ n ];
+		for ( int d = 0; d < n; ++d )
+			dimensions[ d ] = channels.dimension( d );
+		final ArrayImg< FloatVectorType, FloatArray > vectors = ArrayImgs.floatVectors( ( int ) numComponents, dimensions );
+		copyChannels( Views.zeroMin( channels ), vectors );
+		return vectors;
+	}
+
+	private static < T extends RealType< T > > void copyChannels( final RandomAccessibleInterval< ? extends RealType< ? > > channels, final RandomAccessibleInterval< FloatVectorType > vectors )
+	{
+		@SuppressWarnings( "unchecked" )
+		final RandomAccessibleInterval< T > source = ( RandomAccessibleInterval< T > ) channels;
+		final RandomAccessibleInterval< RealComposite< T > > composites = Views.collapseReal( source );
+		LoopBuilder.setImages( composites, vectors ).multiThreaded().forEachPixel( ( composite, vector ) -> {
+			for ( int c = 0; c < vector.numComponents; ++c )
+				vector.set( c, composite.get( c ).getRealFloat() );
+		} );
+	}
+
+	private static long[] append( final long[] values, final long value )
+	{
+		final long[] result = Arrays.copyOf( values, values.length + 1 );
+		result[ values.length ] = value;
+		return result;
+	}
+
+	/**
+	 * Provides read and write access to one component of a
+	 * {@link FloatVectorType}.
+	 */
+	private static class ComponentConverter implements SamplerConverter< FloatVectorType, FloatType >
+	{
+		private final int component;
+
+		ComponentConverter( final int component )
+		{
+			this.component = component;
+		}
+
+		@Override
+		public FloatType convert( final Sampler< ? extends FloatVectorType > sampler )
+		{
+			return new FloatType( new FloatAccess()
+			{
+				@Override
+				public float getValue( final int index )
+				{
+					return sampler.get().get( component );
+				}
+
+				@Override
+				public void setValue( final int index, final float value )
+				{
+					sampler.get().set( component, value );
+				}
+			} );
+		}
+	}
+}
@@ -0,0 +1,420 @@
+/*-
+ * #%L
+ * ImgLib2: a general-purpose, multidimensional image processing library.
+ * %%
+ * Copyright (C) 2009 - 2021 Tobias Pietzsch, Stephan Preibisch, Stephan Saalfeld,
+ * John Bogovic, Albert Cardona, Barry DeZonia, Christian Dietz, Jan Funke,
+ * Aivar Grislis, Jonathan Hale, Grant Harris, Stefan Helfrich, Mark Hiner,
+ * Martin Horn, Steffen Jaensch, Lee Kamentsky, Larry Lindsey, Melissa Linkert,
+ * Mark Longair, Brian Northan, Nick Perry, Curtis Rueden, Johannes Schindelin,
+ * Jean-Yves Tinevez and Michael Zinsmaier.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+package net.imglib2.type.numeric.real;
+
+import net.imglib2.img.NativeImg;
+import net.imglib2.img.basictypeaccess.ShortAccess;
+import net.imglib2.img.basictypeaccess.array.ShortArray;
+import net.imglib2.type.Index;
+import net.imglib2.type.NativeType;
+import net.imglib2.type.NativeTypeFactory;
+import net.imglib2.util.Fraction;
+import net.imglib2.util.Util;
+
+/**
+ * A 16-bit IEEE 754 half-precision floating point number (1 sign bit, 5
+ * exponent bits, 10 mantissa bits), stored in a {@link ShortAccess}.
+ * <p>
+ * Values are converted to {@code float} by a lookup table, and from
+ * {@code float} and {@code double} with correct rounding to nearest even.
+ * Arithmetic is performed in {@code float} precision and rounded to half
+ * precision.
+ */
+public class HalfFloatType extends AbstractRealType< HalfFloatType > implements NativeType< HalfFloatType >
+{
+	private final Index i;
+
+	final protected NativeImg< ?, ? extends ShortAccess > img;
+
+	// the DataAccess that holds the information
+	protected ShortAccess dataAccess;
+
+	// this is the constructor if you want it to read from an array
+	public HalfFloatType( final NativeImg< ?, ? extends ShortAccess > shortStorage )
+	{
+		i = new Index();
+		img = shortStorage;
+	}
+
+	// this is the constructor if you want it to be a variable
+	public HalfFloatType( final float value )
+	{
+		i = new Index();
+		img = null;
+		dataAccess = new ShortArray( 1 );
+		set( value );
+	}
+
+	// this is the constructor if you want to specify the dataAccess
+	public HalfFloatType( final ShortAccess access )
+	{
+		i = new Index();
+		img = null;
+		dataAccess = access;
+	}
+
+	// this is the constructor if you want it to be a variable
+	public HalfFloatType()
+	{
+		this( 0 );
+	}
+
+	@Override
+	public void updateContainer( final Object c )
+	{
+		dataAccess = img.update( c );
+	}
+
+	@Override
+	public Index index()
+	{
+		return i;
+	}
+
+	@Override
+	public HalfFloatType duplicateTypeOnSameNativeImg()
+	{
+		return new HalfFloatType( img );
+	}
+
+	private static final NativeTypeFactory< HalfFloatType, ShortAccess > typeFactory = NativeTypeFactory.SHORT( HalfFloatType::new );
+
+	@Override
+	public NativeTypeFactory< HalfFloatType, ShortAccess > getNativeTypeFactory()
+	{
+		return typeFactory;
+	}
+
+	public float get()
+	{
+		return toFloat( dataAccess.getValue( i.get() ) );
+	}
+
+	public void set( final float f )
+	{
+		dataAccess.setValue( i.get(), fromFloat( f ) );
+	}
+
+	/**
+	 * Returns the 16 bits that encode the value.
+	 */
+	public short getBits()
+	{
+		return dataAccess.getValue( i.get() );
+	}
+
+	/**
+	 * Sets the 16 bits that encode the value.
+	 */
+	public void setBits( final short bits )
+	{
+		dataAccess.setValue( i.get(), bits );
+	}
+
+	@Override
+	public float getRealFloat()
+	{
+		return get();
+	}
+
+	@Override
+	public double getRealDouble()
+	{
+		return get();
+	}
+
+	@Override
+	public void setReal( final float real )
+	{
+		set( real );
+	}
+
+	@Override
+	public void setReal( final double real )
+	{
+		set( roundToOdd( real ) );
+	}
+
+	@Override
+	public double getMaxValue()
+	{
+		return MAX_VALUE;
+	}
+
+	@Override
+	public double getMinValue()
+	{
+		return -MAX_VALUE;
+	}
+
+	@Override
+	public double getMinIncrement()
+	{
+		return MIN_VALUE;
+	}
+
+	@Override
+	public void mul( final float c )
+	{
+		set( get() * c );
+	}
+
+	@Override
+	public void mul( final double c )
+	{
+		setReal( get() * c );
+	}
+
+	@Override
+	public void add( final HalfFloatType c )
+	{
+		set( get() + c.get() );
+	}
+
+	@Override
+	public void div( final HalfFloatType c )
+	{
+		set( get() / c.get() );
+	}
+
+	@Override
+	public void mul( final HalfFloatType c )
+	{
+		set( get() * c.get() );
+	}
+
+	@Override
+	public void sub( final HalfFloatType c )
+	{
+		set( get() - c.get() );
+	}
+
+	@Override
+	public void set( final HalfFloatType c )
+	{
+		setBits( c.getBits() );
+	}
+
+	@Override
+	public void setOne()
+	{
+		set( 1 );
+	}
+
+	@Override
+	public void setZero()
+	{
+		set( 0 );
+	}
+
+	@Override
+	public void inc()
+	{
+		set( get() + 1 );
+	}
+
+	@Override
+	public void dec()
+	{
+		set( get() - 1 );
+	}
+
+	@Override
+	public HalfFloatType createVariable()
+	{
+		return new HalfFloatType( 0 );
+	}
+
+	@Override
+	public HalfFloatType copy()
+	{
+		final HalfFloatType copy = new HalfFloatType();
+		copy.setBits( getBits() );
+		return copy;
+	}
+
+	@Override
+	public Fraction getEntitiesPerPixel()
+	{
+		return new Fraction();
+	}
+
+	@Override
+	public int getBitsPerPixel()
+	{
+		return 16;
+	}
+
+	@Override
+	public int compareTo( final HalfFloatType other )
+	{
+		return Float.compare( get(), other.get() );
+	}
+
+	@Override
+	public boolean valueEquals( final HalfFloatType other )
+	{
+		return FloatType.equals( get(), other.get() );
+	}
+
+	@Override
+	public boolean equals( final Object obj )
+	{
+		return Util.valueEqualsObject( this, obj );
+	}
+
+	@Override
+	public int hashCode()
+	{
+		return Float.hashCode( get() );
+	}
+
+	// -- Conversion --
+
+	/**
+	 * The largest finite half-precision value, {@code 65504}.
+	 */
+	public static final float MAX_VALUE = 65504f;
+
+	/**
+	 * The smallest positive half-precision value, {@code 2^-24}.
+	 */
+	public static final float MIN_VALUE = 0x1p-24f;
+
+	/**
+	 * {@code float} values of all 2^16 half-precision bit patterns.
+	 */
+	private static final float[] TO_FLOAT = new float[ 1 << 16 ];
+
+	static
+	{
+		for ( int h = 0; h < TO_FLOAT.length; ++h )
+			TO_FLOAT[ h ] = decode( h );
+	}
+
+	private static float decode( final int h )
+	{
+		final int sign = ( h & 0x8000 ) << 16;
+		final int exponent = ( h >>> 10 ) & 0x1f;
+		final int mantissa = h & 0x3ff;
+		if ( exponent == 0x1f )
+			return Float.intBitsToFloat( sign | 0x7f800000 | ( mantissa << 13 ) );
+		if ( exponent == 0 )
+		{
+			final float subnormal = mantissa * MIN_VALUE;
+			return sign == 0 ? subnormal : -subnormal;
+		}
+		return Float.intBitsToFloat( sign | ( ( exponent + 112 ) << 23 ) | ( mantissa << 13 ) );
+	}
+
+	/**
+	 * Returns the {@code float} value of the given half-precision bits.
+	 */
+	public static float toFloat( final short bits )
+	{
+		return TO_FLOAT[ bits & 0xffff ];
+	}
+
+	/**
+	 * Returns the half-precision bits of the given {@code float}, rounded to
+	 * nearest even. Values that are too large become infinite, NaN stays NaN.
+	 */
+	public static short fromFloat( final float value )
+	{
+		final int bits = Float.floatToRawIntBits( value );
+		final int sign = ( bits >>> 16 ) & 0x8000;
+		final int abs = bits & 0x7fffffff;
+		if ( abs >= 0x7f800000 )
+			// infinite or NaN, keep the upper mantissa bits of a NaN
+			return ( short ) ( sign | 0x7c00 | ( abs > 0x7f800000 ? 0x200 | ( ( abs >>> 13 ) & 0x3ff ) : 0 ) );
+		if ( abs >= 0x477ff000 )
+			// 65520 and larger round to infinity
+			return ( short ) ( sign | 0x7c00 );
+		if ( abs >= 0x38800000 )
+		{
+			// normal: re-bias the exponent from 127 to 15, round the mantissa
+			final int h = ( abs - 0x38000000 ) >>> 13;
+			final int rest = abs & 0x1fff;
+			return ( short ) ( sign | ( rest > 0x1000 || rest == 0x1000 && ( h & 1 ) != 0 ? h + 1 : h ) );
+		}
+		if ( abs <= 0x33000000 )
+			// 2^-25 and smaller round to zero
+			return ( short ) sign;
+		// subnormal: the value in units of 2^-24, rounded
+		final int shift = 126 - ( abs >>> 23 );
+		final int mantissa = ( abs & 0x7fffff ) | 0x800000;
+		final int h = mantissa >>> shift;
+		final int rest = mantissa & ( ( 1 << shift ) - 1 );
+		final int half = 1 << ( shift - 1 );
+		return ( short ) ( sign | ( rest > half || rest == half && ( h & 1 ) != 0 ? h + 1 : h ) );
+	}
+
+	/**
+	 * Converts {@code length} half-precision values of {@code src}, starting at
+	 * {@code srcPos}, to {@code float}.
+	 */
+	public static void toFloat( final short[] src, final int srcPos, final float[] dest, final int destPos, final int length )
+	{
+		for ( int k = 0; k < length; ++k )
+			dest[ destPos + k ] = TO_FLOAT[ src[ srcPos + k ] & 0xffff ];
+	}
+
+	/**
+	 * Converts {@code length} {@code float} values of {@code src}, starting at
+	 * {@code srcPos}, to half precision.
+	 */
+	public static void fromFloat( final float[] src, final int srcPos, final short[] dest, final int destPos, final int length )
+	{
+		for ( int k = 0; k < length; ++k )
+			dest[ destPos + k ] = fromFloat( src[ srcPos + k ] );
+	}
+
+	/**
+	 * Converts a {@code double} to {@code float}, rounding to odd, i.e. inexact
+	 * results are truncated and the last mantissa bit is set. Rounding the
+	 * result to nearest even with at most 22 mantissa bits gives the same
+	 * result as rounding the {@code double} directly, which avoids double
+	 * rounding errors.
+	 */
+	static float roundToOdd( final double value )
+	{
+		final float f = ( float ) value;
+		if ( f == value || Double.isNaN( value ) )
+			return f;
+		int bits = Float.floatToRawIntBits( f );
+		if ( Math.abs( ( double ) f ) > Math.abs( value ) )
+			--bits;
+		return Float.intBitsToFloat( bits | 1 );
+	}
+}
@@ -34,6 +34,10 @@
 
 package net.imglib2.util;
 
+import net.imglib2.Cursor;
+import net.imglib2.IterableInterval;
+import net.imglib2.type.numeric.RealType;
+
 /**
  * {@link RealSum} implements a method to reduce numerical instabilities when
  * summing up a very large number of double precision numbers. Numerical
@@ -43,11 +47,27 @@ package net.imglib2.util;
  * intermediate sums for all power of two elements such that the final sum can
  * be generated from intermediate sums that result from equal number of
  * summands.
+ * <p>
+ * Arrays are best added with the bulk methods, e.g.
+ * {@link #add(float[], int, int)}. These sum blocks of {@link #BLOCK_SIZE}
+ * elements pairwise, in loops that the JIT compiler can unroll, and add each
+ * block sum at the level of the intermediate sums that corresponds to
+ * {@link #BLOCK_SIZE} summands. This is much faster than adding the elements
+ * one by one. Integer blocks are summed exactly. Floating point blocks are
+ * summed in eight interleaved partial sums, so the results usually differ
+ * slightly from adding the elements one by one.
  * 
  * @author Stephan Saalfeld
  */
 public class RealSum
 {
+	/**
+	 * Number of elements that the bulk methods sum up in one block.
+	 */
+	public static final int BLOCK_SIZE = 1 << 8;
+
+	private static final int BLOCK_LEVEL = 8;
+
 	protected boolean[] flags;
 
 	protected double[] sums;
@@ -134,4 +154,250 @@ public class RealSum
 			expand( s );
 		}
 	}
+
+	/**
+	 * Add the given number of elements of the array, starting at the given
+	 * offset.
+	 */
+	final public void add( final double[] values, final int offset, final int length )
+	{
+		final int end = offset + length;
+		int i = offset;
+		for ( ; i + BLOCK_SIZE <= end; i += BLOCK_SIZE )
+		{
+			double s0 = 0, s1 = 0, s2 = 0, s3 = 0, s4 = 0, s5 = 0, s6 = 0, s7 = 0;
+			for ( int j = i; j < i + BLOCK_SIZE; j += 8 )
+			{
+				s0 += values[ j ];
+				s1 += values[ j + 1 ];
+				s2 += values[ j + 2 ];
+				s3 += values[ j + 3 ];
+				s4 += values[ j + 4 ];
+				s5 += values[ j + 5 ];
+				s6 += values[ j + 6 ];
+				s7 += values[ j + 7 ];
+			}
+			add( ( ( s0 + s1 ) + ( s2 + s3 ) ) + ( ( s4 + s5 ) + ( s6 + s7 ) ), BLOCK_LEVEL );
+		}
+		for ( ; i < end; ++i )
+			add( values[ i ] );
+	}
+
+	/**
+	 * Add the given number of elements of the array, starting at the given
+	 * offset.
+	 */
+	final public void add( final float[] values, final int offset, final int length )
+	{
+		final int end = offset + length;
+		int i = offset;
+		for ( ; i + BLOCK_SIZE <= end; i += BLOCK_SIZE )
+		{
+			double s0 = 0, s1 = 0, s2 = 0, s3 = 0, s4 = 0, s5 = 0, s6 = 0, s7 = 0;
+			for ( int j = i; j < i + BLOCK_SIZE; j += 8 )
+			{
+				s0 += values[ j ];
+				s1 += values[ j + 1 ];
+				s2 += values[ j + 2 ];
+				s3 += values[ j + 3 ];
+				s4 += values[ j + 4 ];
+				s5 += values[ j + 5 ];
+				s6 += values[ j + 6 ];
+				s7 += values[ j + 7 ];
+			}
+			add( ( ( s0 + s1 ) + ( s2 + s3 ) ) + ( ( s4 + s5 ) + ( s6 + s7 ) ), BLOCK_LEVEL );
+		}
+		for ( ; i < end; ++i )
+			add( values[ i ] );
+	}
+
+	/**
+	 * Add the given number of elements of the array, starting at the given
+	 * offset. The elements are interpreted as signed values, see
+	 * {@link #addUnsigned(int[], int, int)} for unsigned values. The elements of
+	 * a block are summed exactly.
+	 */
+	final public void add( final int[] values, final int offset, final int length )
+	{
+		final int end = offset + length;
+		int i = offset;
+		for ( ; i + BLOCK_SIZE <= end; i += BLOCK_SIZE )
+		{
+			long s = 0;
+			for ( int j = i; j < i + BLOCK_SIZE; ++j )
+				s += values[ j ];
+			add( s, BLOCK_LEVEL );
+		}
+		for ( ; i < end; ++i )
+			add( values[ i ] );
+	}
+
+	/**
+	 * Add the given number of elements of the array, starting at the given
+	 * offset. The elements are interpreted as unsigned values, as stored by
+	 * e.g. {@link net.imglib2.type.numeric.integer.UnsignedIntType}. The
+	 * elements of a block are summed exactly.
+	 */
+	final public void addUnsigned( final int[] values, final int offset, final int length )
+	{
+		final int end = offset + length;
+		int i = offset;
+		for ( ; i + BLOCK_SIZE <= end; i += BLOCK_SIZE )
+		{
+			long s = 0;
+			for ( int j = i; j < i + BLOCK_SIZE; ++j )
+				s += values[ j ] & 0xffffffffL;
+			add( s, BLOCK_LEVEL );
+		}
+		for ( ; i < end; ++i )
+			add( values[ i ] & 0xffffffffL );
+	}
+
+	/**
+	 * Add the given number of elements of the array, starting at the given
+	 * offset. The elements are interpreted as signed values, see
+	 * {@link #addUnsigned(short[], int, int)} for unsigned values. The elements of
+	 * a block are summed exactly.
+	 */
+	final public void add( final short[] values, final int offset, final int length )
+	{
+		final int end = offset + length;
+		int i = offset;
+		for ( ; i + BLOCK_SIZE <= end; i += BLOCK_SIZE )
+		{
+			long s = 0;
+			for ( int j = i; j < i + BLOCK_SIZE; ++j )
+				s += values[ j ];
+			add( s, BLOCK_LEVEL );
+		}
+		for ( ; i < end; ++i )
+			add( values[ i ] );
+	}
+
+	/**
+	 * Add the given number of elements of the array, starting at the given
+	 * offset. The elements are interpreted as unsigned values, as stored by
+	 * e.g. {@link net.imglib2.type.numeric.integer.UnsignedShortType}. The
+	 * elements of a block are summed exactly.
+	 */
+	final public void addUnsigned( final short[] values, final int offset, final int length )
+	{
+		final int end = offset + length;
+		int i = offset;
+		for ( ; i + BLOCK_SIZE <= end; i += BLOCK_SIZE )
+		{
+			long s = 0;
+			for ( int j = i; j < i + BLOCK_SIZE; ++j )
+				s += values[ j ] & 0xffff;
+			add( s, BLOCK_LEVEL );
+		}
+		for ( ; i < end; ++i )
+			add( values[ i ] & 0xffff );
+	}
+
+	/**
+	 * Add the given number of elements of the array, starting at the given
+	 * offset. The elements are interpreted as signed values, see
+	 * {@link #addUnsigned(byte[], int, int)} for unsigned values. The elements of
+	 * a block are summed exactly.
+	 */
+	final public void add( final byte[] values, final int offset, final int length )
+	{
+		final int end = offset + length;
+		int i = offset;
+		for ( ; i + BLOCK_SIZE <= end; i += BLOCK_SIZE )
+		{
+			long s = 0;
+			for ( int j = i; j < i + BLOCK_SIZE; ++j )
+				s += values[ j ];
+			add( s, BLOCK_LEVEL );
+		}
+		for ( ; i < end; ++i )
+			add( values[ i ] );
+	}
+
+	/**
+	 * Add the given number of elements of the array, starting at the given
+	 * offset. The elements are interpreted as unsigned values, as stored by
+	 * e.g. {@link net.imglib2.type.numeric.integer.UnsignedByteType}. The
+	 * elements of a block are summed exactly.
+	 */
+	final public void addUnsigned( final byte[] values, final int offset, final int length )
+	{
+		final int end = offset + length;
+		int i = offset;
+		for ( ; i + BLOCK_SIZE <= end; i += BLOCK_SIZE )
+		{
+			long s = 0;
+			for ( int j = i; j < i + BLOCK_SIZE; ++j )
+				s += values[ j ] & 0xff;
+			add( s, BLOCK_LEVEL );
+		}
+		for ( ; i < end; ++i )
+			add( values[ i ] & 0xff );
+	}
+
+	/**
+	 * Add the values of all elements of the given {@link IterableInterval}.
+	 */
+	final public void addAll( final IterableInterval< ? extends RealType< ? > > values )
+	{
+		final double[] buffer = new double[ BLOCK_SIZE ];
+		final Cursor< ? extends RealType< ? > > cursor = values.cursor();
+		int n = 0;
+		while ( cursor.hasNext() )
+		{
+			buffer[ n++ ] = cursor.next().getRealDouble();
+			if ( n == BLOCK_SIZE )
+			{
+				add( buffer, 0, BLOCK_SIZE );
+				n = 0;
+			}
+		}
+		add( buffer, 0, n );
+	}
+
+	/**
+	 * Add all elements that have been added to another {@link RealSum}, e.g.
+	 * to combine the partial sums computed by several threads. The other
+	 * {@link RealSum} is not modified.
+	 */
+	final public void add( final RealSum other )
+	{
+		for ( int i = 0; i < other.flags.length; ++i )
+			if ( other.flags[ i ] )
+				add( other.sums[ i ], i );
+	}
+
+	/**
+	 * Add an intermediate sum of {@code 2^level} summands.
+	 */
+	final protected void add( final double a, final int level )
+	{
+		if ( level >= flags.length )
+		{
+			final double[] oldSums = sums;
+			sums = new double[ level + 1 ];
+			System.arraycopy( oldSums, 0, sums, 0, oldSums.length );
+			final boolean[] oldFlags = flags;
+			flags = new boolean[ level + 1 ];
+			System.arraycopy( oldFlags, 0, flags, 0, oldFlags.length );
+		}
+		int i = level;
+		double s = a;
+		while ( i < flags.length && flags[ i ] )
+		{
+			flags[ i ] = false;
+			s += sums[ i ];
+			sums[ i ] = 0.0;
+			++i;
+		}
+		if ( i < flags.length )
+		{
+			flags[ i ] = true;
+			sums[ i ] = s;
+		}
+		else
+			expand( s );
+	}
 }
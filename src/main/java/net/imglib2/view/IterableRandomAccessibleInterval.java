@@ -44,6 +44,7 @@ import net.imglib2.IterableInterval;
 import net.imglib2.RandomAccess;
 import net.imglib2.RandomAccessibleInterval;
 import net.imglib2.View;
+import net.imglib2.view.iteration.IterableTransformBuilder;
 
 /**
  * Generates {@link Cursor Cursors} that iterate a
@@ -56,6 +57,15 @@ public class IterableRandomAccessibleInterval< T > extends AbstractWrappedInterv
 {
 	final long size;
 
+	/**
+	 * Prototype of the cursors returned by {@link #cursor()}, see
+	 * {@link IterableTransformBuilder#getFastCursor}. It is built on the first
+	 * call of {@link #cursor()}, and null if there is no fast cursor.
+	 */
+	private volatile Cursor< T > fastCursor;
+
+	private volatile boolean fastCursorBuilt;
+
 	public static < T > IterableRandomAccessibleInterval< T > create( final RandomAccessibleInterval< T > interval )
 	{
 		return new IterableRandomAccessibleInterval< T >( interval );
@@ -82,7 +92,7 @@ public class IterableRandomAccessibleInterval< T > extends AbstractWrappedInterv
 	{
 		// we cannot simply create an randomaccessible on interval
 		// this does not ensure it will be placed at the first element
-		return cursor().next();
+		return new RandomAccessibleIntervalCursor< T >( sourceInterval ).next();
 	}
 
 	@Override
@@ -100,7 +110,13 @@ public class IterableRandomAccessibleInterval< T > extends AbstractWrappedInterv
 	@Override
 	public Cursor< T > cursor()
 	{
-		return new RandomAccessibleIntervalCursor< T >( sourceInterval );
+		if ( !fastCursorBuilt )
+		{
+			fastCursor = IterableTransformBuilder.getFastCursor( sourceInterval );
+			fastCursorBuilt = true;
+		}
+		final Cursor< T > prototype = fastCursor;
+		return prototype != null ? prototype.copyCursor() : new RandomAccessibleIntervalCursor< T >( sourceInterval );
 	}
 
 	@Override
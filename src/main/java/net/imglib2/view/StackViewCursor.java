@@ -0,0 +1,184 @@
+/*-
+ * #%L
+ * ImgLib2: a general-purpose, multidimensional image processing library.
+ * %%
+ * Copyright (C) 2009 - 2021 Tobias Pietzsch, Stephan Preibisch, Stephan Saalfeld,
+ * John Bogovic, Albert Cardona, Barry DeZonia, Christian Dietz, Jan Funke,
+ * Aivar Grislis, Jonathan Hale, Grant Harris, Stefan Helfrich, Mark Hiner,
+ * Martin Horn, Steffen Jaensch, Lee Kamentsky, Larry Lindsey, Melissa Linkert,
+ * Mark Longair, Brian Northan, Nick Perry, Curtis Rueden, Johannes Schindelin,
+ * Jean-Yves Tinevez and Michael Zinsmaier.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+package net.imglib2.view;
+
+import java.util.List;
+
+import net.imglib2.AbstractCursor;
+import net.imglib2.Cursor;
+import net.imglib2.FinalInterval;
+import net.imglib2.Interval;
+import net.imglib2.RandomAccessibleInterval;
+import net.imglib2.util.Intervals;
+
+/**
+ * {@link Cursor} over an interval of a {@link StackView}, in flat iteration
+ * order. As the stack dimension is the last dimension, this is the flat
+ * iteration of each slice, one slice after the other. Each slice is iterated
+ * with its own (possibly optimized) flat iteration cursor.
+ */
+public class StackViewCursor< T > extends AbstractCursor< T >
+{
+	private final List< RandomAccessibleInterval< T > > slices;
+
+	private final Interval sliceInterval;
+
+	private final long minSlice;
+
+	private final long maxSlice;
+
+	private final long sliceSize;
+
+	private long slice;
+
+	/**
+	 * Flat index of the current pixel in the iterated interval.
+	 */
+	private long index;
+
+	private Cursor< T > sliceCursor;
+
+	/**
+	 * @param slices
+	 *            the slices of the {@link StackView}, see
+	 *            {@link StackView#getSourceSlices()}.
+	 * @param interval
+	 *            the iterated interval of the {@link StackView}.
+	 */
+	public StackViewCursor( final List< RandomAccessibleInterval< T > > slices, final Interval interval )
+	{
+		super( interval.numDimensions() );
+		this.slices = slices;
+		final long[] min = new long[ n - 1 ];
+		final long[] max = new long[ n - 1 ];
+		for ( int d = 0; d < n - 1; ++d )
+		{
+			min[ d ] = interval.min( d );
+			max[ d ] = interval.max( d );
+		}
+		this.sliceInterval = new FinalInterval( min, max );
+		this.minSlice = interval.min( n - 1 );
+		this.maxSlice = interval.max( n - 1 );
+		this.sliceSize = Intervals.numElements( sliceInterval );
+		reset();
+	}
+
+	private StackViewCursor( final StackViewCursor< T > cursor )
+	{
+		super( cursor.n );
+		this.slices = cursor.slices;
+		this.sliceInterval = cursor.sliceInterval;
+		this.minSlice = cursor.minSlice;
+		this.maxSlice = cursor.maxSlice;
+		this.sliceSize = cursor.sliceSize;
+		this.slice = cursor.slice;
+		this.index = cursor.index;
+		this.sliceCursor = cursor.sliceCursor.copyCursor();
+	}
+
+	private Cursor< T > sliceCursor( final long s )
+	{
+		return Views.flatIterable( Views.interval( slices.get( ( int ) s ), sliceInterval ) ).cursor();
+	}
+
+	@Override
+	public T get()
+	{
+		return sliceCursor.get();
+	}
+
+	@Override
+	public void fwd()
+	{
+		if ( !sliceCursor.hasNext() )
+			sliceCursor = sliceCursor( ++slice );
+		sliceCursor.fwd();
+		++index;
+	}
+
+	@Override
+	public void jumpFwd( final long steps )
+	{
+		index += steps;
+		final long s = minSlice + index / sliceSize;
+		if ( s == slice )
+			sliceCursor.jumpFwd( steps );
+		else
+		{
+			slice = s;
+			sliceCursor = sliceCursor( s );
+			sliceCursor.jumpFwd( index % sliceSize + 1 );
+		}
+	}
+
+	@Override
+	public boolean hasNext()
+	{
+		return slice < maxSlice || sliceCursor.hasNext();
+	}
+
+	@Override
+	public void reset()
+	{
+		slice = minSlice;
+		index = -1;
+		sliceCursor = sliceCursor( slice );
+	}
+
+	@Override
+	public void localize( final long[] position )
+	{
+		for ( int d = 0; d < n - 1; ++d )
+			position[ d ] = sliceCursor.getLongPosition( d );
+		position[ n - 1 ] = slice;
+	}
+
+	@Override
+	public long getLongPosition( final int d )
+	{
+		return d == n - 1 ? slice : sliceCursor.getLongPosition( d );
+	}
+
+	@Override
+	public StackViewCursor< T > copy()
+	{
+		return new StackViewCursor<>( this );
+	}
+
+	@Override
+	public StackViewCursor< T > copyCursor()
+	{
+		return copy();
+	}
+}
@@ -36,11 +36,16 @@ package net.imglib2.view;
 
 import java.util.LinkedList;
 import java.util.ListIterator;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 import net.imglib2.Interval;
 import net.imglib2.RandomAccess;
 import net.imglib2.RandomAccessible;
 import net.imglib2.RandomAccessibleInterval;
+import net.imglib2.converter.Converter;
+import net.imglib2.converter.read.ConvertedRandomAccessible;
+import net.imglib2.converter.read.ConvertedRandomAccessibleInterval;
 import net.imglib2.img.WrappedImg;
 import net.imglib2.transform.Transform;
 import net.imglib2.transform.integer.BoundingBox;
@@ -48,7 +53,9 @@ import net.imglib2.transform.integer.BoundingBoxTransform;
 import net.imglib2.transform.integer.Mixed;
 import net.imglib2.transform.integer.MixedTransform;
 import net.imglib2.transform.integer.SlicingTransform;
+import net.imglib2.transform.integer.SubsampleTransform;
 import net.imglib2.transform.integer.TranslationTransform;
+import net.imglib2.type.Type;
 import net.imglib2.util.Intervals;
 
 /**
@@ -82,7 +89,9 @@ public class TransformBuilder< T >
 	}
 
 	/**
-	 * Provides the untransformed random access.
+	 * Provides the untransformed random access. If there are
+	 * {@link #converters}, its type is the source type of the innermost
+	 * converter rather than {@code T}.
 	 */
 	protected RandomAccessible< T > source;
 
@@ -99,6 +108,16 @@ public class TransformBuilder< T >
 	 */
 	protected LinkedList< Transform > transforms;
 
+	/**
+	 * Converters passed while traversing the view hierarchy, innermost first.
+	 * Each wraps a RandomAccessible of its source type into a converted
+	 * RandomAccessible. Converters act on single pixels, so they commute with
+	 * the {@link #transforms}, and {@link #build()} applies them on top of
+	 * the transformed {@link #source}. Then the transforms below and above a
+	 * converter are joined.
+	 */
+	protected LinkedList< Function< RandomAccessible< ? >, RandomAccessible< ? > > > converters;
+
 	/**
 	 * Create a new TransformBuilder. Starting from {@code randomAccessible}, go
 	 * down the view hierarchy to the RandomAccessible that will provide the
@@ -117,6 +136,7 @@ public class TransformBuilder< T >
 	protected TransformBuilder( final Interval interval, final RandomAccessible< T > randomAccessible )
 	{
 		transforms = new LinkedList< Transform >();
+		converters = new LinkedList<>();
 		boundingBox = ( interval == null ) ? null : new BoundingBox( interval );
 		// System.out.println( randomAccessible );
 		visit( randomAccessible );
@@ -144,9 +164,11 @@ public class TransformBuilder< T >
 	/**
 	 * Visit a RandomAccessible (while traversing the view hierarchy). The
 	 * {@code randomAccessible} is handled by
-	 * {@link #visitTransformed(TransformedRandomAccessible)} or
-	 * {@link #visitExtended(ExtendedRandomAccessibleInterval)} when it has the
-	 * appropriate type. Otherwise, the traversal stops and
+	 * {@link #visitTransformed(TransformedRandomAccessible)},
+	 * {@link #visitExtended(ExtendedRandomAccessibleInterval)},
+	 * {@link #visitSubsample(SubsampleView)} or
+	 * {@link #visitConverted(RandomAccessible, RandomAccessible, Function)}
+	 * when it has the appropriate type. Otherwise, the traversal stops and
 	 * {@code randomAccessible} is set as the {@link #source}.
 	 * 
 	 * @param randomAccessible
@@ -162,6 +184,20 @@ public class TransformBuilder< T >
 		{
 			visitExtended( ( ExtendedRandomAccessibleInterval< T, ? > ) randomAccessible );
 		}
+		else if ( SubsampleView.class.isInstance( randomAccessible ) )
+		{
+			visitSubsample( ( SubsampleView< T > ) randomAccessible );
+		}
+		else if ( ConvertedRandomAccessible.class.isInstance( randomAccessible ) )
+		{
+			final ConvertedRandomAccessible< ?, ? > converted = ( ConvertedRandomAccessible< ?, ? > ) randomAccessible;
+			visitConverted( randomAccessible, converted.getSource(), converter( converted ) );
+		}
+		else if ( ConvertedRandomAccessibleInterval.class.isInstance( randomAccessible ) )
+		{
+			final ConvertedRandomAccessibleInterval< ?, ? > converted = ( ConvertedRandomAccessibleInterval< ?, ? > ) randomAccessible;
+			visitConverted( randomAccessible, converted.getSource(), converter( converted ) );
+		}
 		else if ( IntervalView.class.isInstance( randomAccessible ) )
 		{
 			visit( ( ( IntervalView< T > ) randomAccessible ).getSource() );
@@ -189,6 +225,56 @@ public class TransformBuilder< T >
 		visit( randomAccessible.getSource() );
 	}
 
+	/**
+	 * Visit a SubsampleView (while traversing the view hierarchy). Append a
+	 * {@link SubsampleTransform} to the list and
+	 * {@link #visit(RandomAccessible)} the view's source.
+	 * 
+	 * @param randomAccessible
+	 */
+	protected void visitSubsample( final SubsampleView< T > randomAccessible )
+	{
+		prependTransform( new SubsampleTransform( randomAccessible.getSteps() ) );
+		visit( randomAccessible.getSource() );
+	}
+
+	/**
+	 * Visit a converted RandomAccessible (while traversing the view
+	 * hierarchy). Prepend the {@code converter} to the {@link #converters}
+	 * list and {@link #visit(RandomAccessible)} the view's source.
+	 * 
+	 * @param randomAccessible
+	 *            the converted view
+	 * @param convertedSource
+	 *            the source of the converted view
+	 * @param converter
+	 *            wraps a RandomAccessible like {@code convertedSource} into a
+	 *            converted RandomAccessible like {@code randomAccessible}
+	 */
+	@SuppressWarnings( "unchecked" )
+	protected void visitConverted( final RandomAccessible< T > randomAccessible, final RandomAccessible< ? > convertedSource, final Function< RandomAccessible< ? >, RandomAccessible< ? > > converter )
+	{
+		converters.addFirst( converter );
+		// below the converter, T is the converter's source type
+		visit( ( RandomAccessible< T > ) convertedSource );
+	}
+
+	private static < A, B extends Type< B > > Function< RandomAccessible< ? >, RandomAccessible< ? > > converter( final ConvertedRandomAccessible< A, B > view )
+	{
+		return converter( view.getConverterSupplier(), view.getDestinationType() );
+	}
+
+	private static < A, B extends Type< B > > Function< RandomAccessible< ? >, RandomAccessible< ? > > converter( final ConvertedRandomAccessibleInterval< A, B > view )
+	{
+		return converter( view.getConverterSupplier(), view.getDestinationType() );
+	}
+
+	@SuppressWarnings( "unchecked" )
+	private static < A, B extends Type< B > > Function< RandomAccessible< ? >, RandomAccessible< ? > > converter( final Supplier< Converter< ? super A, ? super B > > converterSupplier, final B type )
+	{
+		return s -> new ConvertedRandomAccessible<>( ( RandomAccessible< A > ) s, converterSupplier, type );
+	}
+
 	/**
 	 * Visit a ExtendedRandomAccessibleInterval (while traversing the view
 	 * hierarchy). If the no out-of-bounds extension is needed for the current
@@ -281,8 +367,66 @@ public class TransformBuilder< T >
 	}
 
 	/**
-	 * Simplify the {@link #transforms} list. First, concatenate neighboring
-	 * transforms if possible. Then, for every {@link Mixed} transform:
+	 * Move all {@link SubsampleTransform}s in the {@link #transforms} list
+	 * towards the end of the list (i.e., to the view side). A
+	 * {@link SubsampleTransform} {@code S} that is followed by a {@link Mixed}
+	 * transform {@code M} is replaced by {@code M'} followed by {@code S'},
+	 * where {@code S'} applies the steps of {@code S} to the corresponding
+	 * source components of {@code M}, and {@code M'} is {@code M} with the
+	 * translation multiplied by the steps. Afterwards the {@link Mixed}
+	 * transforms are neighbors and can be concatenated.
+	 */
+	protected void moveSubsamplingToEnd()
+	{
+		boolean moved;
+		do
+		{
+			moved = false;
+			for ( int i = 0; i < transforms.size() - 1; ++i )
+			{
+				final Transform t = transforms.get( i );
+				final Transform u = transforms.get( i + 1 );
+				if ( SubsampleTransform.class.isInstance( t ) && Mixed.class.isInstance( u ) )
+				{
+					final SubsampleTransform subsample = ( SubsampleTransform ) t;
+					final Mixed mixed = ( Mixed ) u;
+					final int n = mixed.numSourceDimensions();
+					final int m = mixed.numTargetDimensions();
+					final long[] steps = new long[ n ];
+					final long[] translation = new long[ m ];
+					final boolean[] zero = new boolean[ m ];
+					final boolean[] invert = new boolean[ m ];
+					final int[] component = new int[ m ];
+					mixed.getTranslation( translation );
+					mixed.getComponentZero( zero );
+					mixed.getComponentInversion( invert );
+					mixed.getComponentMapping( component );
+					for ( int d = 0; d < n; ++d )
+						steps[ d ] = 1;
+					for ( int d = 0; d < m; ++d )
+					{
+						translation[ d ] *= subsample.getStep( d );
+						if ( !zero[ d ] )
+							steps[ component[ d ] ] = subsample.getStep( d );
+					}
+					final MixedTransform scaled = new MixedTransform( n, m );
+					scaled.setTranslation( translation );
+					scaled.setComponentZero( zero );
+					scaled.setComponentInversion( invert );
+					scaled.setComponentMapping( component );
+					transforms.set( i, scaled );
+					transforms.set( i + 1, new SubsampleTransform( steps ) );
+					moved = true;
+				}
+			}
+		}
+		while ( moved );
+	}
+
+	/**
+	 * Simplify the {@link #transforms} list. First, move subsampling to the
+	 * end of the list, and concatenate neighboring transforms if possible.
+	 * Then, for every {@link Mixed} transform:
 	 * <ul>
 	 * <li>remove it if it is the identity transforms.
 	 * <li>replace it by a {@link TranslationTransform} if it is a pure
@@ -292,6 +436,7 @@ public class TransformBuilder< T >
 	 */
 	protected void simplifyTransforms()
 	{
+		moveSubsamplingToEnd();
 		net.imglib2.concatenate.ConcatenateUtils.join( transforms );
 
 		for ( final ListIterator< Transform > i = transforms.listIterator(); i.hasNext(); )
@@ -345,11 +490,27 @@ public class TransformBuilder< T >
 
 	/**
 	 * Create a sequence of wrapped RandomAccessibles from the
-	 * {@link #transforms} list.
+	 * {@link #transforms} list, and wrap the result with the
+	 * {@link #converters}.
 	 * 
 	 * @return RandomAccessible on the interval specified in the constructor.
 	 */
+	@SuppressWarnings( "unchecked" )
 	protected RandomAccessible< T > build()
+	{
+		RandomAccessible< ? > result = buildTransformed();
+		for ( final Function< RandomAccessible< ? >, RandomAccessible< ? > > converter : converters )
+			result = converter.apply( result );
+		return ( RandomAccessible< T > ) result;
+	}
+
+	/**
+	 * Create a sequence of wrapped RandomAccessibles from the
+	 * {@link #transforms} list. If there are {@link #converters}, the
+	 * RandomAccessible provides the source type of the innermost converter
+	 * rather than {@code T}.
+	 */
+	protected RandomAccessible< T > buildTransformed()
 	{
 		RandomAccessible< T > result = source;
 		for ( final ListIterator< Transform > i = transforms.listIterator(); i.hasNext(); )
@@ -361,6 +522,8 @@ public class TransformBuilder< T >
 				result = wrapTranslationTransform( result, ( TranslationTransform ) t );
 			else if ( SlicingTransform.class.isInstance( t ) )
 				result = wrapSlicingTransform( result, ( SlicingTransform ) t );
+			else if ( SubsampleTransform.class.isInstance( t ) )
+				result = new SubsampleView< T >( result, ( ( SubsampleTransform ) t ).getSteps() );
 			else
 				result = wrapGenericTransform( result, t );
 		}
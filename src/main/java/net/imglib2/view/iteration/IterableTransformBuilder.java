@@ -42,10 +42,20 @@ import net.imglib2.FlatIterationOrder;
 import net.imglib2.Interval;
 import net.imglib2.IterableInterval;
 import net.imglib2.RandomAccessible;
+import net.imglib2.RandomAccessibleInterval;
+import net.imglib2.img.array.ArrayImg;
+import net.imglib2.img.array.StridedArrayCursor;
+import net.imglib2.transform.Transform;
 import net.imglib2.transform.integer.BoundingBox;
+import net.imglib2.transform.integer.Mixed;
 import net.imglib2.transform.integer.SlicingTransform;
+import net.imglib2.transform.integer.SubsampleTransform;
+import net.imglib2.util.IntervalIndexer;
 import net.imglib2.util.Intervals;
 import net.imglib2.view.IterableRandomAccessibleInterval;
+import net.imglib2.view.RandomAccessibleIntervalCursor;
+import net.imglib2.view.StackView;
+import net.imglib2.view.StackViewCursor;
 import net.imglib2.view.TransformBuilder;
 import net.imglib2.view.Views;
 
@@ -105,6 +115,26 @@ public class IterableTransformBuilder< T > extends TransformBuilder< T >
 		this.interval = interval;
 	}
 
+	/**
+	 * Get a fast {@link Cursor} that iterates the given
+	 * {@link RandomAccessibleInterval} in flat iteration order. If the view
+	 * hierarchy ends in an {@link ArrayImg} (through translations,
+	 * permutations, inversions, slicing and subsampling), a
+	 * {@link StridedArrayCursor} is returned. If it ends in a
+	 * {@link StackView}, a {@link StackViewCursor} is returned. Otherwise,
+	 * {@code null} is returned.
+	 * <p>
+	 * This walks the view hierarchy, so callers that create many cursors
+	 * should keep the result and use {@link Cursor#copyCursor() copies} of
+	 * it.
+	 */
+	public static < S > Cursor< S > getFastCursor( final RandomAccessibleInterval< S > interval )
+	{
+		if ( Intervals.numElements( interval ) == 0 )
+			return null;
+		return new IterableTransformBuilder< S >( interval, interval ).buildFastCursor();
+	}
+
 	/**
 	 * An {@link IterableInterval} on {@link IterableTransformBuilder#interval
 	 * interval} of {@link SubIntervalIterable}.
@@ -228,7 +258,8 @@ public class IterableTransformBuilder< T > extends TransformBuilder< T >
 	 */
 	public IterableInterval< T > buildIterableInterval()
 	{
-		if ( boundingBox != null && SubIntervalIterable.class.isInstance( source ) )
+		// the optimized iterables provide the source type, not the converted type
+		if ( boundingBox != null && converters.isEmpty() && SubIntervalIterable.class.isInstance( source ) )
 		{
 			@SuppressWarnings( "unchecked" )
 			final SubIntervalIterable< T > iterableSource = ( SubIntervalIterable< T > ) source;
@@ -284,6 +315,63 @@ public class IterableTransformBuilder< T > extends TransformBuilder< T >
 				}
 			}
 		}
-		return new IterableRandomAccessibleInterval< T >( Views.interval( build(), interval ) );
+		final Cursor< T > fastCursor = Intervals.numElements( interval ) > 0 ? buildFastCursor() : null;
+		return new IterableRandomAccessibleInterval< T >( Views.interval( build(), interval ) )
+		{
+			@Override
+			public Cursor< T > cursor()
+			{
+				return fastCursor != null ? fastCursor.copyCursor() : new RandomAccessibleIntervalCursor< T >( sourceInterval );
+			}
+		};
+	}
+
+	/**
+	 * Returns a {@link StridedArrayCursor} or {@link StackViewCursor} over
+	 * {@link #interval}, or {@code null} if neither applies to the simplified
+	 * view hierarchy or if it contains {@link #converters}.
+	 */
+	@SuppressWarnings( { "unchecked", "rawtypes" } )
+	protected Cursor< T > buildFastCursor()
+	{
+		if ( interval == null || boundingBox == null || !converters.isEmpty() )
+			return null;
+		if ( StackView.class.isInstance( source ) && transforms.isEmpty() && interval.numDimensions() > 1 )
+			return new StackViewCursor< T >( ( ( StackView< T > ) source ).getSourceSlices(), interval );
+		if ( !ArrayImg.class.isInstance( source ) )
+			return null;
+		final ArrayImg img = ( ArrayImg ) source;
+		if ( !Intervals.contains( img, boundingBox.getInterval() ) )
+			return null;
+		for ( final Transform t : transforms )
+			if ( !Mixed.class.isInstance( t ) && !SubsampleTransform.class.isInstance( t ) )
+				return null;
+
+		// the transforms are integer affine, so the index of a pixel is
+		// offset + sum_d x_d * strides_d
+		final int n = interval.numDimensions();
+		final long[] position = Intervals.minAsLongArray( interval );
+		final long offset = sourceIndex( img, position );
+		final int[] strides = new int[ n ];
+		for ( int d = 0; d < n; ++d )
+		{
+			++position[ d ];
+			strides[ d ] = ( int ) ( sourceIndex( img, position ) - offset );
+			--position[ d ];
+		}
+		return new StridedArrayCursor( img, interval, ( int ) offset, strides );
+	}
+
+	private long sourceIndex( final ArrayImg< ?, ? > img, final long[] position )
+	{
+		long[] p = position;
+		for ( int i = transforms.size() - 1; i >= 0; --i )
+		{
+			final Transform t = transforms.get( i );
+			final long[] target = new long[ t.numTargetDimensions() ];
+			t.apply( p, target );
+			p = target;
+		}
+		return IntervalIndexer.positionToIndex( p, Intervals.dimensionsAsLongArray( img ) );
 	}
 }
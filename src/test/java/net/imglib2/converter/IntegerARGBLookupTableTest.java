@@ -0,0 +1,132 @@
+/*-
+ * #%L
+ * ImgLib2: a general-purpose, multidimensional image processing library.
+ * %%
+ * Copyright (C) 2009 - 2021 Tobias Pietzsch, Stephan Preibisch, Stephan Saalfeld,
+ * John Bogovic, Albert Cardona, Barry DeZonia, Christian Dietz, Jan Funke,
+ * Aivar Grislis, Jonathan Hale, Grant Harris, Stefan Helfrich, Mark Hiner,
+ * Martin Horn, Steffen Jaensch, Lee Kamentsky, Larry Lindsey, Melissa Linkert,
+ * Mark Longair, Brian Northan, Nick Perry, Curtis Rueden, Johannes Schindelin,
+ * Jean-Yves Tinevez and Michael Zinsmaier.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+package net.imglib2.converter;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import net.imglib2.display.ColorTable8;
+import net.imglib2.type.numeric.ARGBType;
+import net.imglib2.type.numeric.integer.ShortType;
+import net.imglib2.type.numeric.integer.UnsignedByteType;
+import net.imglib2.type.numeric.integer.UnsignedShortType;
+import net.imglib2.type.numeric.real.FloatType;
+
+/**
+ * Tests that the lookup tables used by {@link RealARGBConverter} and
+ * {@link RealLUTConverter} for integer types give the same result as the
+ * per-pixel computation.
+ */
+public class IntegerARGBLookupTableTest
+{
+	private static int expectedGray( final double value, final double min, final double max, final int alpha )
+	{
+		final int b = Math.min( 255, ( int ) ( Math.max( 0, ( value - min ) / ( max - min ) * 255.0 ) + 0.5 ) );
+		return alpha << 24 | b << 16 | b << 8 | b;
+	}
+
+	@Test
+	public void testRealARGBConverterUnsignedByte()
+	{
+		final RealARGBConverter< UnsignedByteType > converter = new RealARGBConverter<>( 10, 200 );
+		final UnsignedByteType in = new UnsignedByteType();
+		final ARGBType out = new ARGBType();
+		for ( int i = 0; i < 256; ++i )
+		{
+			in.set( i );
+			converter.convert( in, out );
+			assertEquals( expectedGray( i, 10, 200, 255 ), out.get() );
+		}
+	}
+
+	@Test
+	public void testRealARGBConverterUpdatesTable()
+	{
+		final RealARGBConverter< ShortType > converter = new RealARGBConverter<>( -1000, 1000 );
+		final ShortType in = new ShortType();
+		final ARGBType out = new ARGBType();
+		in.set( ( short ) -300 );
+		converter.convert( in, out );
+		assertEquals( expectedGray( -300, -1000, 1000, 255 ), out.get() );
+		converter.setMin( -500 );
+		converter.setMax( 0 );
+		converter.setAlpha( 128 );
+		converter.convert( in, out );
+		assertEquals( expectedGray( -300, -500, 0, 128 ), out.get() );
+		in.set( Short.MIN_VALUE );
+		converter.convert( in, out );
+		assertEquals( expectedGray( Short.MIN_VALUE, -500, 0, 128 ), out.get() );
+		in.set( Short.MAX_VALUE );
+		converter.convert( in, out );
+		assertEquals( expectedGray( Short.MAX_VALUE, -500, 0, 128 ), out.get() );
+	}
+
+	@Test
+	public void testRealARGBConverterFallback()
+	{
+		final RealARGBConverter< FloatType > converter = new RealARGBConverter<>( 0, 1 );
+		final ARGBType out = new ARGBType();
+		converter.convert( new FloatType( 0.3f ), out );
+		assertEquals( expectedGray( 0.3f, 0, 1, 255 ), out.get() );
+	}
+
+	@Test
+	public void testRealLUTConverter()
+	{
+		final byte[] r = new byte[ 256 ];
+		final byte[] g = new byte[ 256 ];
+		final byte[] b = new byte[ 256 ];
+		for ( int i = 0; i < 256; ++i )
+		{
+			r[ i ] = ( byte ) i;
+			g[ i ] = ( byte ) ( 255 - i );
+			b[ i ] = ( byte ) ( i * 7 );
+		}
+		final ColorTable8 lut = new ColorTable8( r, g, b );
+		final RealLUTConverter< UnsignedShortType > converter = new RealLUTConverter<>( 100, 40000, lut );
+		final UnsignedShortType in = new UnsignedShortType();
+		final ARGBType out = new ARGBType();
+		for ( int i = 0; i < 65536; i += 37 )
+		{
+			in.set( i );
+			converter.convert( in, out );
+			assertEquals( lut.lookupARGB( 100, 40000, i ), out.get() );
+		}
+		converter.setMax( 1000 );
+		in.set( 500 );
+		converter.convert( in, out );
+		assertEquals( lut.lookupARGB( 100, 1000, 500 ), out.get() );
+	}
+}
@@ -34,16 +34,42 @@
 
 package net.imglib2.converter;
 
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
 import net.imglib2.RandomAccessibleInterval;
 import net.imglib2.img.Img;
+import net.imglib2.img.NativeImgFactory;
+import net.imglib2.img.array.ArrayImgFactory;
 import net.imglib2.img.array.ArrayImgs;
+import net.imglib2.img.basictypeaccess.array.DirtyFloatArray;
+import net.imglib2.img.basictypeaccess.array.FloatArray;
+import net.imglib2.img.cell.Cell;
+import net.imglib2.img.cell.CellGrid;
+import net.imglib2.img.cell.CellImgFactory;
+import net.imglib2.img.cell.LazyCellImg;
+import net.imglib2.img.list.ListImgFactory;
+import net.imglib2.loops.LoopBuilder;
 import net.imglib2.test.ImgLib2Assert;
+import net.imglib2.type.NativeType;
+import net.imglib2.type.numeric.IntegerType;
+import net.imglib2.type.numeric.RealType;
+import net.imglib2.type.numeric.integer.ByteType;
+import net.imglib2.type.numeric.integer.IntType;
+import net.imglib2.type.numeric.integer.LongType;
+import net.imglib2.type.numeric.integer.ShortType;
 import net.imglib2.type.numeric.integer.UnsignedByteType;
+import net.imglib2.type.numeric.integer.UnsignedIntType;
+import net.imglib2.type.numeric.integer.UnsignedShortType;
 import net.imglib2.type.numeric.real.DoubleType;
 import net.imglib2.type.numeric.real.FloatType;
 import org.junit.Test;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 
 /**
  * Tests {@link RealTypeConverters}.
@@ -86,4 +112,100 @@ public class RealTypeConvertersTest
 		RealTypeConverters.copyFromTo( source, destination );
 		ImgLib2Assert.assertImageEqualsRealType( source, destination, 0 );
 	}
+
+	private static final List< RealType< ? > > NATIVE_TYPES = Arrays.asList(
+			new ByteType(), new UnsignedByteType(), new ShortType(), new UnsignedShortType(),
+			new IntType(), new UnsignedIntType(), new LongType(), new FloatType(), new DoubleType() );
+
+	@Test
+	@SuppressWarnings( { "unchecked", "rawtypes" } )
+	public void testCopyFastPathMatchesConverter()
+	{
+		for ( RealType< ? > in : NATIVE_TYPES )
+			for ( RealType< ? > out : NATIVE_TYPES )
+			{
+				testCopyFastPath( new ArrayImgFactory( ( NativeType ) in ), out );
+				testCopyFastPath( new CellImgFactory( ( NativeType ) in, 7 ), out );
+			}
+	}
+
+	@SuppressWarnings( { "unchecked", "rawtypes" } )
+	private static void testCopyFastPath( NativeImgFactory factory, RealType out )
+	{
+		Img< RealType > source = factory.create( 50, 30 );
+		Img< RealType > destination = factory.imgFactory( ( NativeType ) out ).create( 50, 30 );
+		fillRandom( ( Img ) source );
+		// the ListImg is not supported by the fast path
+		Img< RealType > expected = new ListImgFactory( out ).create( source );
+		RealTypeConverters.copyFromTo( ( Img ) source, ( Img ) expected );
+		assertTrue( RealTypeArrayConverters.copy( source, destination ) );
+		String pair = source.firstElement().getClass().getSimpleName() + " -> " + out.getClass().getSimpleName();
+		LoopBuilder.setImages( expected, destination ).forEachPixel( ( e, a ) -> assertTrue( pair + ": expected " + e + " but was " + a, e.valueEquals( a ) ) );
+	}
+
+	@Test
+	public void testCopyFastPathSkipsLazyCellImg()
+	{
+		CellGrid grid = new CellGrid( new long[] { 10, 10 }, new int[] { 5, 5 } );
+		AtomicInteger loadedCells = new AtomicInteger();
+		LazyCellImg< FloatType, FloatArray > source = new LazyCellImg<>( grid, new FloatType(), index -> {
+			loadedCells.incrementAndGet();
+			long[] min = new long[ 2 ];
+			int[] size = new int[ 2 ];
+			grid.getCellDimensions( index, min, size );
+			return new Cell<>( size, min, new FloatArray( size[ 0 ] * size[ 1 ] ) );
+		} );
+		Img< FloatType > destination = new CellImgFactory<>( new FloatType(), 5 ).create( 10, 10 );
+		assertFalse( RealTypeArrayConverters.copy( source, destination ) );
+		assertEquals( 0, loadedCells.get() );
+	}
+
+	@Test
+	public void testCopyFastPathSetsDirty()
+	{
+		DirtyFloatArray access = new DirtyFloatArray( 100 );
+		Img< FloatType > destination = ArrayImgs.floats( access, 10, 10 );
+		Img< IntType > source = ArrayImgs.ints( 10, 10 );
+		assertTrue( RealTypeArrayConverters.copy( source, destination ) );
+		assertTrue( access.isDirty() );
+	}
+
+	private static < S extends RealType< S > > void fillRandom( Img< S > image )
+	{
+		Random random = new Random( 42 );
+		double[] special = { 0, 0.5, -0.5, 1.5, -2.5, 255.5, 65535.6, 1e10, -1e10, 3e19, Double.NaN, Double.POSITIVE_INFINITY };
+		for ( S pixel : image )
+		{
+			if ( pixel instanceof IntegerType )
+				( ( IntegerType< ? > ) pixel ).setInteger( random.nextLong() );
+			else if ( random.nextBoolean() )
+				pixel.setReal( special[ random.nextInt( special.length ) ] );
+			else
+				pixel.setReal( random.nextGaussian() * Math.pow( 10, random.nextInt( 12 ) ) );
+		}
+	}
+
+	@Test
+	public void testCopyLinear()
+	{
+		Img< UnsignedShortType > source = ArrayImgs.unsignedShorts( new short[] { 0, 100, ( short ) 65535, 7 }, 2, 2 );
+		Img< FloatType > floats = ArrayImgs.floats( 2, 2 );
+		RealTypeConverters.copyFromTo( source, floats, 0.5, -10 );
+		ImgLib2Assert.assertImageEquals( ArrayImgs.floats( new float[] { -10, 40, 32757.5f, -6.5f }, 2, 2 ), floats );
+	}
+
+	@Test
+	public void testCopyLinearClampsAndRounds()
+	{
+		float[] values = { -5, 70000, 1.5f, 2.4f, Float.NaN, 65535.4f };
+		short[] expected = { 0, ( short ) 65535, 2, 2, 0, ( short ) 65535 };
+		Img< FloatType > source = ArrayImgs.floats( values, 6 );
+		Img< UnsignedShortType > destination = ArrayImgs.unsignedShorts( 6 );
+		RealTypeConverters.copyFromTo( source, destination, 1, 0 );
+		ImgLib2Assert.assertImageEquals( ArrayImgs.unsignedShorts( expected, 6 ), destination );
+		// pixel by pixel
+		Img< UnsignedShortType > list = new ListImgFactory<>( new UnsignedShortType() ).create( 6 );
+		RealTypeConverters.copyFromTo( source, list, 1, 0 );
+		ImgLib2Assert.assertImageEquals( destination, list );
+	}
 }
@@ -0,0 +1,128 @@
+/*-
+ * #%L
+ * ImgLib2: a general-purpose, multidimensional image processing library.
+ * %%
+ * Copyright (C) 2009 - 2021 Tobias Pietzsch, Stephan Preibisch, Stephan Saalfeld,
+ * John Bogovic, Albert Cardona, Barry DeZonia, Christian Dietz, Jan Funke,
+ * Aivar Grislis, Jonathan Hale, Grant Harris, Stefan Helfrich, Mark Hiner,
+ * Martin Horn, Steffen Jaensch, Lee Kamentsky, Larry Lindsey, Melissa Linkert,
+ * Mark Longair, Brian Northan, Nick Perry, Curtis Rueden, Johannes Schindelin,
+ * Jean-Yves Tinevez and Michael Zinsmaier.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+package net.imglib2.display.projector;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import net.imglib2.Cursor;
+import net.imglib2.RandomAccess;
+import net.imglib2.RandomAccessibleInterval;
+import net.imglib2.img.Img;
+import net.imglib2.img.array.ArrayImgs;
+import net.imglib2.img.planar.PlanarImgs;
+import net.imglib2.parallel.Parallelization;
+import net.imglib2.type.numeric.real.DoubleType;
+import net.imglib2.type.numeric.real.FloatType;
+import net.imglib2.util.Intervals;
+import net.imglib2.view.Views;
+
+/**
+ * Tests {@link Projections}.
+ */
+public class ProjectionsTest
+{
+	private static void fillRandom( final Img< FloatType > img )
+	{
+		final Random random = new Random( 3 );
+		img.forEach( t -> t.set( random.nextFloat() * 100 - 50 ) );
+	}
+
+	@Test
+	public void testAllAxesAndReductions()
+	{
+		final Img< FloatType > planar = PlanarImgs.floats( 7, 5, 4, 3 );
+		fillRandom( planar );
+		final RandomAccessibleInterval< FloatType > source = Views.translate( planar, 2, -1, 0, 5 );
+		for ( int axis = 0; axis < 4; ++axis )
+			for ( final Projections.Reduction reduction : Projections.Reduction.values() )
+			{
+				final RandomAccessibleInterval< DoubleType > actual = Views.translate(
+						ArrayImgs.doubles( Intervals.dimensionsAsLongArray( Intervals.hyperSlice( source, axis ) ) ), 1, 1, 1 );
+				final int a = axis;
+				Parallelization.runMultiThreaded( () -> Projections.project( source, a, actual, reduction ) );
+				assertProjection( source, axis, reduction, actual );
+			}
+	}
+
+	@Test
+	public void testMaxIntoSameType()
+	{
+		final Img< FloatType > img = ArrayImgs.floats( 3, 2, 2 );
+		final float[] values = { 1, 5, 3, 0, 0, 0, 4, 2, 6, 1, -1, 7 };
+		int i = 0;
+		for ( final FloatType t : img )
+			t.set( values[ i++ ] );
+		final Img< FloatType > mip = ArrayImgs.floats( 3, 2 );
+		Projections.max( img, 2, mip );
+		final float[] expected = { 4, 5, 6, 1, 0, 7 };
+		i = 0;
+		for ( final FloatType t : mip )
+			assertEquals( expected[ i++ ], t.get(), 0 );
+	}
+
+	@Test( expected = IllegalArgumentException.class )
+	public void testMismatchingTarget()
+	{
+		Projections.max( ArrayImgs.floats( 3, 2, 2 ), 1, ArrayImgs.floats( 3, 3 ) );
+	}
+
+	private static void assertProjection( final RandomAccessibleInterval< FloatType > source, final int axis, final Projections.Reducer reducer, final RandomAccessibleInterval< DoubleType > actual )
+	{
+		final Cursor< DoubleType > cursor = Views.iterable( actual ).localizingCursor();
+		final RandomAccess< FloatType > access = source.randomAccess();
+		final int n = source.numDimensions();
+		while ( cursor.hasNext() )
+		{
+			cursor.fwd();
+			for ( int d = 0, td = 0; d < n; ++d )
+				if ( d != axis )
+				{
+					access.setPosition( source.min( d ) + cursor.getLongPosition( td ) - actual.min( td ), d );
+					++td;
+				}
+			double expected = reducer.identity();
+			for ( long k = source.min( axis ); k <= source.max( axis ); ++k )
+			{
+				access.setPosition( k, axis );
+				expected = reducer.accumulate( expected, access.get().getRealDouble() );
+			}
+			expected = reducer.finish( expected, source.dimension( axis ) );
+			assertEquals( expected, cursor.get().get(), 1e-10 );
+		}
+	}
+}
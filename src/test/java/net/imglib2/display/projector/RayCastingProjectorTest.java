@@ -0,0 +1,125 @@
+/*-
+ * #%L
+ * ImgLib2: a general-purpose, multidimensional image processing library.
+ * %%
+ * Copyright (C) 2009 - 2021 Tobias Pietzsch, Stephan Preibisch, Stephan Saalfeld,
+ * John Bogovic, Albert Cardona, Barry DeZonia, Christian Dietz, Jan Funke,
+ * Aivar Grislis, Jonathan Hale, Grant Harris, Stefan Helfrich, Mark Hiner,
+ * Martin Horn, Steffen Jaensch, Lee Kamentsky, Larry Lindsey, Melissa Linkert,
+ * Mark Longair, Brian Northan, Nick Perry, Curtis Rueden, Johannes Schindelin,
+ * Jean-Yves Tinevez and Michael Zinsmaier.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+package net.imglib2.display.projector;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+import net.imglib2.converter.Converter;
+import net.imglib2.display.screenimage.awt.ARGBScreenImage;
+import net.imglib2.img.array.ArrayImg;
+import net.imglib2.img.array.ArrayImgs;
+import net.imglib2.img.basictypeaccess.array.ByteArray;
+import net.imglib2.interpolation.randomaccess.NLinearInterpolatorFactory;
+import net.imglib2.interpolation.randomaccess.NearestNeighborInterpolatorFactory;
+import net.imglib2.transform.AffineGet;
+import net.imglib2.transform.AffineTransform;
+import net.imglib2.type.numeric.ARGBType;
+import net.imglib2.type.numeric.integer.UnsignedByteType;
+import net.imglib2.util.Intervals;
+import net.imglib2.view.Views;
+
+/**
+ * Tests {@link RayCastingProjector}.
+ */
+public class RayCastingProjectorTest
+{
+	private final Converter< UnsignedByteType, ARGBType > gray = ( in, out ) -> {
+		final int v = in.get();
+		out.set( ARGBType.rgba( v, v, v, v ) );
+	};
+
+	private static ArrayImg< UnsignedByteType, ByteArray > sparseVolume()
+	{
+		final ArrayImg< UnsignedByteType, ByteArray > volume = ArrayImgs.unsignedBytes( 32, 24, 20 );
+		final Random random = new Random( 4 );
+		// random values in a small sub-volume, the rest is empty
+		Views.interval( volume, Intervals.createMinMax( 3, 14, 11, 10, 20, 16 ) ).forEach( t -> t.set( random.nextInt( 256 ) ) );
+		return volume;
+	}
+
+	@Test
+	public void testAxisAlignedMaxEqualsProjection()
+	{
+		final ArrayImg< UnsignedByteType, ByteArray > volume = sparseVolume();
+		final ArrayImg< UnsignedByteType, ByteArray > mip = ArrayImgs.unsignedBytes( 32, 24 );
+		Projections.max( volume, 2, mip );
+
+		final ARGBScreenImage target = new ARGBScreenImage( 32, 24 );
+		final RayCastingProjector< UnsignedByteType > projector = new RayCastingProjector<>( volume, new NearestNeighborInterpolatorFactory<>(), 4, target, gray );
+		projector.setNumSteps( 20 );
+		projector.map();
+
+		final int[] data = target.getData();
+		int i = 0;
+		for ( final UnsignedByteType t : mip )
+			assertEquals( t.get(), ARGBType.red( data[ i++ ] ) );
+	}
+
+	@Test
+	public void testEmptySpaceSkippingDoesNotChangeResult()
+	{
+		final ArrayImg< UnsignedByteType, ByteArray > volume = sparseVolume();
+		final AffineTransform view = new AffineTransform( new double[][] {
+				{ 0.8, 0.1, 0.5, -3 },
+				{ -0.2, 0.9, 0.3, 2 },
+				{ 0.3, -0.2, 0.7, -5 } } );
+		for ( final RayCastingProjector.Mode mode : RayCastingProjector.Mode.values() )
+		{
+			final ARGBScreenImage skipping = render( volume, 5, view, mode );
+			final ARGBScreenImage reference = render( volume, 0, view, mode );
+			if ( mode != RayCastingProjector.Mode.MIN )
+				assertTrue( Arrays.stream( reference.getData() ).anyMatch( argb -> argb != 0 ) );
+			assertArrayEquals( reference.getData(), skipping.getData() );
+		}
+	}
+
+	private ARGBScreenImage render( final ArrayImg< UnsignedByteType, ByteArray > volume, final int cellSize, final AffineGet view, final RayCastingProjector.Mode mode )
+	{
+		final ARGBScreenImage target = new ARGBScreenImage( 40, 30 );
+		final RayCastingProjector< UnsignedByteType > projector = new RayCastingProjector<>( volume, new NLinearInterpolatorFactory<>(), cellSize, target, gray );
+		projector.setViewTransform( view );
+		projector.setNumSteps( 60 );
+		projector.setMode( mode );
+		projector.setTransparentBelow( 0 );
+		projector.map();
+		return target;
+	}
+}
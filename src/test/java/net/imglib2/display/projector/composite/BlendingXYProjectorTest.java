@@ -0,0 +1,141 @@
+/*-
+ * #%L
+ * ImgLib2: a general-purpose, multidimensional image processing library.
+ * %%
+ * Copyright (C) 2009 - 2021 Tobias Pietzsch, Stephan Preibisch, Stephan Saalfeld,
+ * John Bogovic, Albert Cardona, Barry DeZonia, Christian Dietz, Jan Funke,
+ * Aivar Grislis, Jonathan Hale, Grant Harris, Stefan Helfrich, Mark Hiner,
+ * Martin Horn, Steffen Jaensch, Lee Kamentsky, Larry Lindsey, Melissa Linkert,
+ * Mark Longair, Brian Northan, Nick Perry, Curtis Rueden, Johannes Schindelin,
+ * Jean-Yves Tinevez and Michael Zinsmaier.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+package net.imglib2.display.projector.composite;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import net.imglib2.RandomAccessibleInterval;
+import net.imglib2.converter.Converter;
+import net.imglib2.converter.RealLUTConverter;
+import net.imglib2.display.ColorTable8;
+import net.imglib2.display.screenimage.awt.ARGBScreenImage;
+import net.imglib2.img.array.ArrayImg;
+import net.imglib2.img.array.ArrayImgs;
+import net.imglib2.img.basictypeaccess.array.ByteArray;
+import net.imglib2.type.numeric.ARGBType;
+import net.imglib2.type.numeric.integer.UnsignedByteType;
+import net.imglib2.view.Views;
+
+/**
+ * Tests {@link BlendingXYProjector}.
+ */
+public class BlendingXYProjectorTest
+{
+	@Test
+	public void testAddSaturated()
+	{
+		final Random random = new Random( 1 );
+		for ( int i = 0; i < 100000; ++i )
+		{
+			final int a = random.nextInt();
+			final int b = random.nextInt();
+			final int expected = ARGBType.rgba(
+					Math.min( 255, ARGBType.red( a ) + ARGBType.red( b ) ),
+					Math.min( 255, ARGBType.green( a ) + ARGBType.green( b ) ),
+					Math.min( 255, ARGBType.blue( a ) + ARGBType.blue( b ) ),
+					Math.min( 255, ARGBType.alpha( a ) + ARGBType.alpha( b ) ) );
+			assertEquals( expected, BlendingXYProjector.addSaturated( a, b ) );
+		}
+	}
+
+	@Test
+	public void testOver()
+	{
+		assertEquals( 0xff123456, BlendingXYProjector.over( 0xff654321, 0xff123456 ) );
+		assertEquals( 0xff654321, BlendingXYProjector.over( 0xff654321, 0x00123456 ) );
+		assertEquals( 0xff808080, BlendingXYProjector.over( 0xff000000, 0x80ffffff ) );
+	}
+
+	@Test
+	public void testSumEqualsCompositeXYProjector()
+	{
+		final ArrayImg< UnsignedByteType, ByteArray > img = ArrayImgs.unsignedBytes( 13, 7, 3, 2 );
+		final Random random = new Random( 2 );
+		img.forEach( t -> t.set( random.nextInt( 256 ) ) );
+
+		final ArrayList< Converter< UnsignedByteType, ARGBType > > converters = new ArrayList<>();
+		for ( int c = 0; c < 3; ++c )
+		{
+			final byte[] r = new byte[ 256 ];
+			final byte[] g = new byte[ 256 ];
+			final byte[] b = new byte[ 256 ];
+			for ( int i = 0; i < 256; ++i )
+			{
+				r[ i ] = ( byte ) ( c == 0 ? i : 0 );
+				g[ i ] = ( byte ) ( c == 1 ? i : i / 2 );
+				b[ i ] = ( byte ) ( c == 2 ? i : 0 );
+			}
+			converters.add( new RealLUTConverter<>( 10, 240, new ColorTable8( r, g, b ) ) );
+		}
+
+		final ARGBScreenImage expected = new ARGBScreenImage( 13, 7 );
+		final CompositeXYProjector< UnsignedByteType > composite = new CompositeXYProjector<>( img, expected, converters, 2 );
+		composite.setComposite( true );
+		composite.setPosition( 1, 3 );
+		composite.map();
+
+		final List< RandomAccessibleInterval< UnsignedByteType > > channels = new ArrayList<>();
+		for ( int c = 0; c < 3; ++c )
+			channels.add( Views.hyperSlice( img, 2, c ) );
+		final ARGBScreenImage actual = new ARGBScreenImage( 13, 7 );
+		final BlendingXYProjector< UnsignedByteType > blending = new BlendingXYProjector<>( channels, converters, actual, BlendingXYProjector.BlendMode.SUM );
+		blending.setPosition( 1, 2 );
+		blending.map();
+
+		assertArrayEquals( expected.getData(), actual.getData() );
+	}
+
+	@Test
+	public void testMaxAndActive()
+	{
+		final ArrayImg< UnsignedByteType, ByteArray > a = ArrayImgs.unsignedBytes( new byte[] { 1, 2, 3, 4 }, 2, 2 );
+		final ArrayImg< UnsignedByteType, ByteArray > b = ArrayImgs.unsignedBytes( new byte[] { 4, 3, 2, 1 }, 2, 2 );
+		final Converter< UnsignedByteType, ARGBType > gray = ( in, out ) -> out.set( ARGBType.rgba( in.get(), in.get(), in.get(), 255 ) );
+		final ARGBScreenImage target = new ARGBScreenImage( 2, 2 );
+		final BlendingXYProjector< UnsignedByteType > projector = new BlendingXYProjector<>( Arrays.asList( a, b ), Arrays.asList( gray, gray ), target, BlendingXYProjector.BlendMode.MAX );
+		projector.map();
+		assertArrayEquals( new int[] { 0xff040404, 0xff030303, 0xff030303, 0xff040404 }, target.getData() );
+		projector.setActive( 1, false );
+		projector.map();
+		assertArrayEquals( new int[] { 0xff010101, 0xff020202, 0xff030303, 0xff040404 }, target.getData() );
+	}
+}
@@ -34,9 +34,25 @@
 
 package net.imglib2.img.sparse;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import net.imglib2.RandomAccess;
+import net.imglib2.img.Img;
+import net.imglib2.img.array.ArrayImgs;
+import net.imglib2.loops.LoopBuilder;
+import net.imglib2.parallel.Parallelization;
+import net.imglib2.type.numeric.integer.IntType;
+import net.imglib2.type.numeric.integer.UnsignedByteType;
+import net.imglib2.util.Intervals;
+import net.imglib2.view.Views;
+
 import org.junit.Test;
 
 /**
@@ -94,4 +110,84 @@ public class NtreeTest
 
 		assertFalse( t.root.hasChildren() );
 	}
+
+	@Test
+	public void test_copy()
+	{
+		final Img< UnsignedByteType > source = ArrayImgs.unsignedBytes( 37, 64, 21 );
+		final Random random = new Random( 42 );
+		// blocks of uniform values, such that octants can be merged
+		LoopBuilder.setImages( Intervals.positions( source ), source ).forEachPixel( ( position, pixel ) -> {
+			if ( position.getLongPosition( 0 ) >= 8 || position.getLongPosition( 1 ) >= 8 )
+				pixel.set( ( int ) ( position.getLongPosition( 2 ) / 4 ) );
+		} );
+		source.randomAccess().setPositionAndGet( 3, 4, 5 ).set( random.nextInt( 256 ) );
+
+		final NtreeImg< UnsignedByteType, ? > copy = Parallelization.runMultiThreaded( () -> NtreeImg.copy( Views.translate( source, 5, -3, 7 ) ) );
+		assertTrue( Intervals.equals( source, copy ) );
+		LoopBuilder.setImages( source, copy ).forEachPixel( ( s, c ) -> assertEquals( s.get(), c.get() ) );
+
+		// modify the copy, to check that the built tree supports writing
+		final RandomAccess< UnsignedByteType > ra = copy.randomAccess();
+		ra.setPositionAndGet( 36, 63, 20 ).set( 200 );
+		ra.setPositionAndGet( 3, 4, 5 ).set( 0 );
+		assertEquals( 200, ra.setPositionAndGet( 36, 63, 20 ).get() );
+		assertEquals( 0, ra.setPositionAndGet( 3, 4, 5 ).get() );
+		assertEquals( 4, ra.setPositionAndGet( 36, 63, 19 ).get() );
+	}
+
+	@Test
+	public void test_copyMergesUniformImage()
+	{
+		final Img< IntType > source = ArrayImgs.ints( 100, 100 );
+		source.forEach( pixel -> pixel.set( 7 ) );
+		final NtreeImg< IntType, ? > copy = new NtreeImgFactory<>( new IntType() ).copy( source );
+		assertFalse( copy.data.getCurrentStorageNtree().getRootNode().hasChildren() );
+		assertEquals( 7, copy.firstElement().get() );
+	}
+
+	@Test
+	public void test_copySinglePixel()
+	{
+		final Img< IntType > source = ArrayImgs.ints( new int[] { 42 }, 1, 1 );
+		final NtreeImg< IntType, ? > copy = NtreeImg.copy( source );
+		assertEquals( 42, copy.firstElement().get() );
+		assertEquals( 42, copy.data.getCurrentStorageNtree().getRootNode().getValue() );
+	}
+
+	@Test
+	public void test_concurrentReadAndWrite() throws Exception
+	{
+		final Ntree< Integer > t = new Ntree<>( new long[] { 64, 64 }, 0 );
+		final ExecutorService executor = Executors.newFixedThreadPool( 4 );
+		try
+		{
+			final Future< ? > writer = executor.submit( () -> {
+				final long[] pos = new long[ 2 ];
+				for ( int i = 0; i < 100000; ++i )
+				{
+					pos[ 0 ] = i % 64;
+					pos[ 1 ] = ( i / 64 ) % 64;
+					t.createNodeWithValue( pos, i % 3 == 0 ? 1 : 2 );
+				}
+			} );
+			final Future< ? > reader = executor.submit( () -> {
+				final long[] pos = new long[ 2 ];
+				while ( !writer.isDone() )
+				{
+					for ( pos[ 0 ] = 0; pos[ 0 ] < 64; ++pos[ 0 ] )
+					{
+						final int value = t.getNode( pos ).getValue();
+						assertTrue( value >= 0 && value <= 2 );
+					}
+				}
+			} );
+			writer.get();
+			reader.get();
+		}
+		finally
+		{
+			executor.shutdown();
+		}
+	}
 }
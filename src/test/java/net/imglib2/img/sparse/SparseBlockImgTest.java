@@ -0,0 +1,229 @@
+/*-
+ * #%L
+ * ImgLib2: a general-purpose, multidimensional image processing library.
+ * %%
+ * Copyright (C) 2009 - 2021 Tobias Pietzsch, Stephan Preibisch, Stephan Saalfeld,
+ * John Bogovic, Albert Cardona, Barry DeZonia, Christian Dietz, Jan Funke,
+ * Aivar Grislis, Jonathan Hale, Grant Harris, Stefan Helfrich, Mark Hiner,
+ * Martin Horn, Steffen Jaensch, Lee Kamentsky, Larry Lindsey, Melissa Linkert,
+ * Mark Longair, Brian Northan, Nick Perry, Curtis Rueden, Johannes Schindelin,
+ * Jean-Yves Tinevez and Michael Zinsmaier.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+package net.imglib2.img.sparse;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import net.imglib2.Cursor;
+import net.imglib2.FinalInterval;
+import net.imglib2.Point;
+import net.imglib2.RandomAccess;
+import net.imglib2.img.Img;
+import net.imglib2.img.array.ArrayImgs;
+import net.imglib2.img.cell.CellImgFactory;
+import net.imglib2.loops.LoopBuilder;
+import net.imglib2.type.logic.BitType;
+import net.imglib2.type.numeric.complex.ComplexFloatType;
+import net.imglib2.type.numeric.integer.IntType;
+import net.imglib2.type.numeric.integer.UnsignedShortType;
+import net.imglib2.util.Intervals;
+import net.imglib2.view.Views;
+
+import org.junit.Test;
+
+/**
+ * Tests {@link SparseBlockImg}.
+ */
+public class SparseBlockImgTest
+{
+	@Test
+	public void testBackground()
+	{
+		final SparseBlockImg< IntType, ? > img = new SparseBlockImgFactory<>( new IntType( 7 ), 8 ).create( 20, 30 );
+		for ( final IntType pixel : img )
+			assertEquals( 7, pixel.get() );
+		assertEquals( 7, img.randomAccess().setPositionAndGet( 19, 29 ).get() );
+		assertEquals( 0, img.numAllocatedBlocks() );
+		assertFalse( img.foregroundCursor().hasNext() );
+	}
+
+	@Test
+	public void testWriteAllocatesBlock()
+	{
+		final SparseBlockImg< UnsignedShortType, ? > img = new SparseBlockImgFactory<>( new UnsignedShortType(), 8, 4 ).create( 20, 30 );
+		final RandomAccess< UnsignedShortType > ra = img.randomAccess();
+		ra.setPositionAndGet( 17, 13 ).set( 42 );
+		ra.setPositionAndGet( 18, 14 ).set( 43 );
+		assertEquals( 1, img.numAllocatedBlocks() );
+		assertTrue( Intervals.equals( Intervals.createMinMax( 16, 12, 19, 15 ), img.getAllocatedBlocks().get( 0 ) ) );
+		assertEquals( 42, ra.setPositionAndGet( 17, 13 ).get() );
+		assertEquals( 43, img.randomAccess().setPositionAndGet( 18, 14 ).get() );
+		assertEquals( 0, ra.setPositionAndGet( 16, 13 ).get() );
+		assertEquals( 1, img.numAllocatedBlocks() );
+	}
+
+	@Test
+	public void testReadSeesBlockAllocatedByOtherAccessor()
+	{
+		final SparseBlockImg< IntType, ? > img = new SparseBlockImgFactory<>( new IntType(), 8 ).create( 20, 30 );
+		final RandomAccess< IntType > r1 = img.randomAccess();
+		final RandomAccess< IntType > r2 = img.randomAccess();
+		final IntType pixel = r1.setPositionAndGet( 3, 4 );
+		assertEquals( 0, pixel.get() );
+		r2.setPositionAndGet( 3, 4 ).set( 42 );
+		assertEquals( 42, r2.get().get() );
+		assertEquals( 42, pixel.get() );
+		assertEquals( 42, r1.get().get() );
+		assertEquals( 42, img.randomAccess().setPositionAndGet( 3, 4 ).get() );
+		r1.get().set( 43 );
+		assertEquals( 43, r2.get().get() );
+		assertEquals( 1, img.numAllocatedBlocks() );
+	}
+
+	@Test
+	public void testForegroundCursor()
+	{
+		final SparseBlockImg< IntType, ? > img = new SparseBlockImgFactory<>( new IntType(), 5 ).create( 23, 17, 3 );
+		final RandomAccess< IntType > ra = img.randomAccess();
+		ra.setPositionAndGet( 22, 16, 2 ).set( 1 );
+		ra.setPositionAndGet( 0, 0, 0 ).set( 2 );
+		ra.setPositionAndGet( 7, 12, 1 ).set( 3 );
+
+		final Set< Point > visited = new HashSet<>();
+		long sum = 0;
+		final Cursor< IntType > cursor = img.foregroundCursor();
+		while ( cursor.hasNext() )
+		{
+			sum += cursor.next().get();
+			assertTrue( visited.add( cursor.positionAsPoint() ) );
+			assertTrue( Intervals.contains( img, cursor ) );
+		}
+		assertEquals( 6, sum );
+		// 3 * 2 * 3 + 5 * 5 * 3 + 5 * 5 * 3
+		assertEquals( 168, visited.size() );
+
+		final Cursor< IntType > copy = cursor.copyCursor();
+		assertFalse( copy.hasNext() );
+		cursor.reset();
+		cursor.fwd();
+		assertEquals( 2, cursor.copyCursor().get().get() );
+	}
+
+	@Test
+	public void testCopyFromAndToArrayImg()
+	{
+		final Img< IntType > source = ArrayImgs.ints( 100, 80 );
+		Views.interval( source, Intervals.createMinMax( 10, 20, 30, 25 ) ).forEach( pixel -> pixel.set( 5 ) );
+		source.randomAccess().setPositionAndGet( 99, 79 ).set( -1 );
+
+		final SparseBlockImg< IntType, ? > img = new SparseBlockImgFactory<>( new IntType(), 16 ).copy( source );
+		assertEquals( 3, img.numAllocatedBlocks() );
+		LoopBuilder.setImages( source, img ).forEachPixel( ( s, t ) -> assertEquals( s.get(), t.get() ) );
+
+		final Img< IntType > target = new CellImgFactory<>( new IntType(), 7 ).create( 100, 80 );
+		target.forEach( pixel -> pixel.set( 9 ) );
+		img.copyTo( target );
+		LoopBuilder.setImages( source, target ).forEachPixel( ( s, t ) -> assertEquals( s.get(), t.get() ) );
+
+		final SparseBlockImg< IntType, ? > copy = img.copy();
+		assertEquals( 3, copy.numAllocatedBlocks() );
+		LoopBuilder.setImages( source, copy ).forEachPixel( ( s, t ) -> assertEquals( s.get(), t.get() ) );
+	}
+
+	@Test
+	public void testCopyFromTranslatedSource()
+	{
+		final Img< IntType > source = ArrayImgs.ints( 10, 10 );
+		source.randomAccess().setPositionAndGet( 3, 4 ).set( 1 );
+		final SparseBlockImg< IntType, ? > img = new SparseBlockImgFactory<>( new IntType() ).copy( Views.translate( source, -5, 7 ) );
+		assertEquals( 1, img.randomAccess().setPositionAndGet( 3, 4 ).get() );
+	}
+
+	@Test
+	public void testCursor()
+	{
+		final SparseBlockImg< IntType, ? > img = new SparseBlockImgFactory<>( new IntType(), 4 ).create( 9, 7 );
+		final Cursor< IntType > cursor = img.cursor();
+		int i = 0;
+		while ( cursor.hasNext() )
+			cursor.next().set( i++ );
+		assertEquals( 63, i );
+		assertEquals( 6, img.numAllocatedBlocks() );
+		final RandomAccess< IntType > ra = img.randomAccess();
+		for ( int y = 0; y < 7; ++y )
+			for ( int x = 0; x < 9; ++x )
+				assertEquals( y * 9 + x, ra.setPositionAndGet( x, y ).get() );
+
+		final Cursor< IntType > c = img.cursor();
+		c.jumpFwd( 10 );
+		final Cursor< IntType > copy = c.copyCursor();
+		assertEquals( c.get().get(), copy.get().get() );
+		assertEquals( c.next().get(), copy.next().get() );
+	}
+
+	@Test
+	public void testBitType()
+	{
+		final SparseBlockImg< BitType, ? > img = new SparseBlockImgFactory<>( new BitType(), 10 ).create( 30, 30 );
+		img.randomAccess().setPositionAndGet( 11, 12 ).set( true );
+		long count = 0;
+		for ( final BitType pixel : img )
+			if ( pixel.get() )
+				++count;
+		assertEquals( 1, count );
+		assertEquals( 1, img.numAllocatedBlocks() );
+	}
+
+	@Test
+	public void testComplexType()
+	{
+		final SparseBlockImg< ComplexFloatType, ? > img = new SparseBlockImgFactory<>( new ComplexFloatType( 1, 2 ), 4 ).create( 5, 5 );
+		final RandomAccess< ComplexFloatType > ra = img.randomAccess();
+		ra.setPositionAndGet( 4, 4 ).set( 3, 4 );
+		assertEquals( new ComplexFloatType( 3, 4 ), ra.setPositionAndGet( 4, 4 ) );
+		assertEquals( new ComplexFloatType( 1, 2 ), ra.setPositionAndGet( 4, 3 ) );
+		assertEquals( new ComplexFloatType( 1, 2 ), ra.setPositionAndGet( 0, 0 ) );
+	}
+
+	@Test( expected = IllegalArgumentException.class )
+	public void testCopyToWrongDimensions()
+	{
+		new SparseBlockImgFactory<>( new IntType() ).create( 5, 5 ).copyTo( ArrayImgs.ints( 5, 6 ) );
+	}
+
+	@Test
+	public void testFactory()
+	{
+		final SparseBlockImg< IntType, ? > img = new SparseBlockImgFactory<>( new IntType( 3 ), 4, 5 ).create( new FinalInterval( 9, 9, 9 ) );
+		final SparseBlockImg< IntType, ? > other = img.factory().create( 2, 2 );
+		assertEquals( 3, other.firstElement().get() );
+		assertEquals( 3, img.getBlockSize().length );
+		assertEquals( 5, img.getBlockSize()[ 2 ] );
+	}
+}
@@ -0,0 +1,128 @@
+/*-
+ * #%L
+ * ImgLib2: a general-purpose, multidimensional image processing library.
+ * %%
+ * Copyright (C) 2009 - 2021 Tobias Pietzsch, Stephan Preibisch, Stephan Saalfeld,
+ * John Bogovic, Albert Cardona, Barry DeZonia, Christian Dietz, Jan Funke,
+ * Aivar Grislis, Jonathan Hale, Grant Harris, Stefan Helfrich, Mark Hiner,
+ * Martin Horn, Steffen Jaensch, Lee Kamentsky, Larry Lindsey, Melissa Linkert,
+ * Mark Longair, Brian Northan, Nick Perry, Curtis Rueden, Johannes Schindelin,
+ * Jean-Yves Tinevez and Michael Zinsmaier.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+package net.imglib2.interpolation;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import net.imglib2.Cursor;
+import net.imglib2.IterableInterval;
+import net.imglib2.RealRandomAccess;
+import net.imglib2.RealRandomAccessible;
+import net.imglib2.img.array.ArrayImg;
+import net.imglib2.img.array.ArrayImgs;
+import net.imglib2.img.basictypeaccess.array.DoubleArray;
+import net.imglib2.interpolation.randomaccess.NLinearInterpolatorFactory;
+import net.imglib2.parallel.Parallelization;
+import net.imglib2.transform.AffineGet;
+import net.imglib2.transform.AffineTransform;
+import net.imglib2.type.numeric.real.DoubleType;
+import net.imglib2.view.Views;
+
+/**
+ * Tests {@link AffineRenderer}.
+ */
+public class AffineRendererTest
+{
+	private static RealRandomAccessible< DoubleType > randomSource( final long... dimensions )
+	{
+		final ArrayImg< DoubleType, DoubleArray > img = ArrayImgs.doubles( dimensions );
+		final Random random = new Random( 42 );
+		img.forEach( t -> t.set( random.nextDouble() ) );
+		return Views.interpolate( Views.extendBorder( img ), new NLinearInterpolatorFactory<>() );
+	}
+
+	@Test
+	public void testRender3D()
+	{
+		final RealRandomAccessible< DoubleType > source = randomSource( 20, 30, 10 );
+		final AffineTransform affine = new AffineTransform( new double[][] {
+				{ 0.9, 0.2, 0.1, 1.5 },
+				{ -0.3, 1.1, 0.05, -2.25 },
+				{ 0.01, 0.02, 0.7, 0.5 } } );
+		final ArrayImg< DoubleType, DoubleArray > target = ArrayImgs.doubles( 17, 25, 9 );
+		Parallelization.runMultiThreaded( () -> AffineRenderer.render( source, affine, target ) );
+		assertRenderedAsExpected( source, affine, target );
+	}
+
+	@Test
+	public void testRenderSliceOfVolume()
+	{
+		final RealRandomAccessible< DoubleType > source = randomSource( 20, 30, 10 );
+		final AffineTransform affine = new AffineTransform( new double[][] {
+				{ 0.7, -0.7, 10 },
+				{ 0.7, 0.7, 3 },
+				{ 0.1, 0.0, 4.5 } } );
+		final ArrayImg< DoubleType, DoubleArray > target = ArrayImgs.doubles( 15, 12 );
+		Parallelization.runSingleThreaded( () -> AffineRenderer.render( source, affine, Views.translate( target, 3, -4 ) ) );
+		assertRenderedAsExpected( source, affine, Views.translate( target, 3, -4 ) );
+	}
+
+	@Test( expected = IllegalArgumentException.class )
+	public void testMismatchingAffine()
+	{
+		AffineRenderer.render( randomSource( 5, 5 ), new AffineTransform( new double[][] { { 1, 0 }, { 0, 1 } } ), ArrayImgs.doubles( 5, 5 ) );
+	}
+
+	@Test( expected = IllegalArgumentException.class )
+	public void testMismatchingAffineTile()
+	{
+		final ArrayImg< DoubleType, DoubleArray > target = ArrayImgs.doubles( 5, 5 );
+		AffineRenderer.renderTile( randomSource( 5, 5 ), new AffineTransform( new double[][] { { 1, 0 }, { 0, 1 } } ), target, target );
+	}
+
+	private static void assertRenderedAsExpected( final RealRandomAccessible< DoubleType > source, final AffineGet affine, final IterableInterval< DoubleType > target )
+	{
+		final Cursor< DoubleType > cursor = target.localizingCursor();
+		final RealRandomAccess< DoubleType > access = source.realRandomAccess();
+		final int n = cursor.numDimensions();
+		final double[] position = new double[ affine.numTargetDimensions() ];
+		while ( cursor.hasNext() )
+		{
+			cursor.fwd();
+			for ( int r = 0; r < affine.numTargetDimensions(); ++r )
+			{
+				double s = affine.get( r, n );
+				for ( int d = 0; d < n; ++d )
+					s += affine.get( r, d ) * cursor.getDoublePosition( d );
+				position[ r ] = s;
+			}
+			access.setPosition( position );
+			assertEquals( access.get().get(), cursor.get().get(), 1e-10 );
+		}
+	}
+}
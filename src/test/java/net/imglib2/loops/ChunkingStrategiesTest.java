@@ -0,0 +1,135 @@
+/*-
+ * #%L
+ * ImgLib2: a general-purpose, multidimensional image processing library.
+ * %%
+ * Copyright (C) 2009 - 2021 Tobias Pietzsch, Stephan Preibisch, Stephan Saalfeld,
+ * John Bogovic, Albert Cardona, Barry DeZonia, Christian Dietz, Jan Funke,
+ * Aivar Grislis, Jonathan Hale, Grant Harris, Stefan Helfrich, Mark Hiner,
+ * Martin Horn, Steffen Jaensch, Lee Kamentsky, Larry Lindsey, Melissa Linkert,
+ * Mark Longair, Brian Northan, Nick Perry, Curtis Rueden, Johannes Schindelin,
+ * Jean-Yves Tinevez and Michael Zinsmaier.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+package net.imglib2.loops;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+
+import org.junit.Test;
+
+import net.imglib2.Interval;
+import net.imglib2.img.array.ArrayImg;
+import net.imglib2.img.array.ArrayImgs;
+import net.imglib2.img.basictypeaccess.array.IntArray;
+import net.imglib2.parallel.TaskExecutors;
+import net.imglib2.type.numeric.complex.ComplexDoubleType;
+import net.imglib2.type.numeric.integer.IntType;
+import net.imglib2.type.numeric.real.FloatType;
+import net.imglib2.util.Intervals;
+
+public class ChunkingStrategiesTest
+{
+	private final Interval interval = Intervals.createMinSize( -3, 2, 5, 100, 70, 30 );
+
+	@Test
+	public void testSlabs()
+	{
+		final List< Interval > chunks = ChunkingStrategies.slabs().chunkInterval( interval, 3 );
+		assertEquals( IntervalChunks.chunkInterval( interval, 3 ).size(), chunks.size() );
+		assertCovers( interval, chunks );
+	}
+
+	@Test
+	public void testCubes()
+	{
+		final List< Interval > chunks = ChunkingStrategies.cubes().chunkInterval( interval, 8 );
+		assertEquals( 8, chunks.size() );
+		assertCovers( interval, chunks );
+		assertEquals( 25, chunks.get( 0 ).dimension( 0 ) );
+		assertEquals( 35, chunks.get( 0 ).dimension( 1 ) );
+		assertEquals( 30, chunks.get( 0 ).dimension( 2 ) );
+	}
+
+	@Test
+	public void testCacheTiles()
+	{
+		final long cacheSize = 16 * 1024;
+		final List< Interval > chunks = ChunkingStrategies.cacheTiles( 4, cacheSize, 2, 2, 2 ).chunkInterval( interval, 1 );
+		assertCovers( interval, chunks );
+		for ( final Interval chunk : chunks )
+		{
+			long footprint = 4;
+			for ( int d = 0; d < 3; d++ )
+				footprint *= chunk.dimension( d ) + 4;
+			assertTrue( footprint <= cacheSize );
+		}
+		assertTrue( chunks.size() > 1 );
+	}
+
+	@Test
+	public void testBytesPerPixel()
+	{
+		assertEquals( 4, ChunkingStrategies.bytesPerPixel( new FloatType() ), 0 );
+		assertEquals( 16, ChunkingStrategies.bytesPerPixel( new ComplexDoubleType() ), 0 );
+	}
+
+	@Test
+	public void testMortonOrder()
+	{
+		final Interval square = Intervals.createMinSize( 10, 10, 4, 4 );
+		final List< Interval > chunks = ChunkingStrategies.mortonOrder( ChunkingStrategies.cubes() ).chunkInterval( square, 16 );
+		assertCovers( square, chunks );
+		final long[][] expected = { { 0, 0 }, { 1, 0 }, { 0, 1 }, { 1, 1 }, { 2, 0 }, { 3, 0 }, { 2, 1 }, { 3, 1 }, { 0, 2 } };
+		for ( int i = 0; i < expected.length; i++ )
+		{
+			assertEquals( 10 + expected[ i ][ 0 ], chunks.get( i ).min( 0 ) );
+			assertEquals( 10 + expected[ i ][ 1 ], chunks.get( i ).min( 1 ) );
+		}
+	}
+
+	@Test
+	public void testLoopBuilderChunking()
+	{
+		final ArrayImg< IntType, IntArray > image = ArrayImgs.ints( 20, 30, 40 );
+		LoopBuilder.setImages( image )
+				.multiThreaded( TaskExecutors.fixedThreadPool( 4 ) )
+				.chunking( ChunkingStrategies.mortonOrder( ChunkingStrategies.cacheTiles( 4, 1024, 1, 1, 1 ) ) )
+				.forEachPixel( pixel -> pixel.inc() );
+		for ( final IntType pixel : image )
+			assertEquals( 1, pixel.get() );
+	}
+
+	private static void assertCovers( final Interval interval, final List< Interval > chunks )
+	{
+		long sum = 0;
+		for ( final Interval chunk : chunks )
+		{
+			assertTrue( Intervals.contains( interval, chunk ) );
+			sum += Intervals.numElements( chunk );
+		}
+		assertEquals( Intervals.numElements( interval ), sum );
+	}
+}
@@ -0,0 +1,83 @@
+/*-
+ * #%L
+ * ImgLib2: a general-purpose, multidimensional image processing library.
+ * %%
+ * Copyright (C) 2009 - 2021 Tobias Pietzsch, Stephan Preibisch, Stephan Saalfeld,
+ * John Bogovic, Albert Cardona, Barry DeZonia, Christian Dietz, Jan Funke,
+ * Aivar Grislis, Jonathan Hale, Grant Harris, Stefan Helfrich, Mark Hiner,
+ * Martin Horn, Steffen Jaensch, Lee Kamentsky, Larry Lindsey, Melissa Linkert,
+ * Mark Longair, Brian Northan, Nick Perry, Curtis Rueden, Johannes Schindelin,
+ * Jean-Yves Tinevez and Michael Zinsmaier.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+package net.imglib2.loops;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import net.imglib2.img.array.ArrayImg;
+import net.imglib2.img.array.ArrayImgs;
+import net.imglib2.img.basictypeaccess.array.DoubleArray;
+import net.imglib2.parallel.Parallelization;
+import net.imglib2.parallel.TaskExecutor;
+import net.imglib2.parallel.TaskExecutors;
+import net.imglib2.type.numeric.real.DoubleType;
+
+public class ReproducibleSumTest
+{
+	@Test
+	public void testIndependentOfParallelism()
+	{
+		final ArrayImg< DoubleType, DoubleArray > image = ArrayImgs.doubles( 301, 207, 11 );
+		final Random random = new Random( 42 );
+		for ( final DoubleType pixel : image )
+			pixel.set( Math.pow( 10, random.nextInt( 20 ) - 10 ) * ( random.nextDouble() - 0.3 ) );
+		final double expected = ReproducibleSum.sum( TaskExecutors.singleThreaded(), image, DoubleType::get );
+		for ( final int numThreads : new int[] { 2, 3, 7, 16 } )
+		{
+			try (TaskExecutor executor = TaskExecutors.fixedThreadPool( numThreads ))
+			{
+				final double actual = ReproducibleSum.sum( executor, image, DoubleType::get );
+				assertEquals( Double.doubleToLongBits( expected ), Double.doubleToLongBits( actual ) );
+			}
+		}
+		final double workStealing = Parallelization.runWithExecutor( TaskExecutors.workStealing(), () -> ReproducibleSum.sum( image ) );
+		assertEquals( Double.doubleToLongBits( expected ), Double.doubleToLongBits( workStealing ) );
+	}
+
+	@Test
+	public void testSumAndMean()
+	{
+		final ArrayImg< DoubleType, DoubleArray > image = ArrayImgs.doubles( 100, 1000 );
+		long i = 0;
+		for ( final DoubleType pixel : image )
+			pixel.set( i++ );
+		final double n = 100 * 1000;
+		assertEquals( n * ( n - 1 ) / 2, ReproducibleSum.sum( image ), 0 );
+		assertEquals( ( n - 1 ) / 2, ReproducibleSum.mean( image ), 0 );
+	}
+}
@@ -0,0 +1,192 @@
+/*-
+ * #%L
+ * ImgLib2: a general-purpose, multidimensional image processing library.
+ * %%
+ * Copyright (C) 2009 - 2021 Tobias Pietzsch, Stephan Preibisch, Stephan Saalfeld,
+ * John Bogovic, Albert Cardona, Barry DeZonia, Christian Dietz, Jan Funke,
+ * Aivar Grislis, Jonathan Hale, Grant Harris, Stefan Helfrich, Mark Hiner,
+ * Martin Horn, Steffen Jaensch, Lee Kamentsky, Larry Lindsey, Melissa Linkert,
+ * Mark Longair, Brian Northan, Nick Perry, Curtis Rueden, Johannes Schindelin,
+ * Jean-Yves Tinevez and Michael Zinsmaier.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+package net.imglib2.parallel;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Arrays;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import net.imglib2.Interval;
+import net.imglib2.img.array.ArrayImg;
+import net.imglib2.img.array.ArrayImgs;
+import net.imglib2.img.basictypeaccess.array.IntArray;
+import net.imglib2.img.cell.CellGrid;
+import net.imglib2.type.numeric.integer.IntType;
+import net.imglib2.util.Intervals;
+import net.imglib2.view.Views;
+
+/**
+ * Tests {@link BlockPipeline}.
+ */
+public class BlockPipelineTest
+{
+	private final CellGrid grid = new CellGrid( new long[] { 100, 95 }, new int[] { 10, 10 } );
+
+	@Test
+	public void testAllBlocksProcessed()
+	{
+		final ArrayImg< IntType, IntArray > image = ArrayImgs.ints( 100, 95 );
+		final Set< Interval > seen = ConcurrentHashMap.newKeySet();
+		try (TaskExecutor executor = TaskExecutors.fixedThreadPool( 6 ))
+		{
+			BlockPipeline.forGrid( grid )
+					.map( interval -> {
+						seen.add( interval );
+						return Views.interval( image, interval );
+					} )
+					.map( 2, block -> {
+						Views.iterable( block ).forEach( pixel -> pixel.inc() );
+						return block;
+					} )
+					.forEach( executor, block -> Views.iterable( block ).forEach( pixel -> pixel.mul( 3 ) ) );
+		}
+		assertEquals( 100, seen.size() );
+		for ( final IntType pixel : image )
+			assertEquals( 3, pixel.get() );
+	}
+
+	@Test
+	public void testBackpressure()
+	{
+		final AtomicInteger inFlight = new AtomicInteger();
+		final AtomicInteger maxInFlight = new AtomicInteger();
+		final AtomicInteger count = new AtomicInteger();
+		try (TaskExecutor executor = TaskExecutors.fixedThreadPool( 4 ))
+		{
+			BlockPipeline.forGrid( grid )
+					.queueCapacity( 1 )
+					.map( interval -> {
+						maxInFlight.accumulateAndGet( inFlight.incrementAndGet(), Math::max );
+						return interval;
+					} )
+					.map( interval -> interval )
+					.forEach( executor, interval -> {
+						sleep( 1 );
+						inFlight.decrementAndGet();
+						count.incrementAndGet();
+					} );
+		}
+		assertEquals( 100, count.get() );
+		// three queues of capacity one, and one block per worker of the stages
+		assertTrue( maxInFlight.get() <= 3 + 3 );
+	}
+
+	@Test
+	public void testException()
+	{
+		try (TaskExecutor executor = TaskExecutors.fixedThreadPool( 4 ))
+		{
+			BlockPipeline.forGrid( grid )
+					.map( interval -> {
+						if ( interval.min( 0 ) == 50 )
+							throw new IllegalStateException( "failed" );
+						return interval;
+					} )
+					.forEach( executor, interval -> {} );
+			fail();
+		}
+		catch ( final IllegalStateException e )
+		{
+			assertEquals( "failed", e.getMessage() );
+		}
+	}
+
+	@Test
+	public void testSingleThreaded()
+	{
+		final AtomicInteger elements = new AtomicInteger();
+		BlockPipeline.forGrid( grid )
+				.map( Intervals::numElements )
+				.forEach( TaskExecutors.singleThreaded(), n -> elements.addAndGet( n.intValue() ) );
+		assertEquals( 100 * 95, elements.get() );
+	}
+
+	@Test( timeout = 20000 )
+	public void testNestedInParallelTask()
+	{
+		final AtomicInteger count = new AtomicInteger();
+		Parallelization.runWithNumThreads( 4, () -> Parallelization.getTaskExecutor().forEach( Arrays.asList( 1, 2, 3, 4 ), i -> {
+			BlockPipeline.forGrid( grid )
+					.map( interval -> interval )
+					.map( interval -> {
+						sleep( 1 );
+						return interval;
+					} )
+					.forEach( interval -> count.incrementAndGet() );
+		} ) );
+		assertEquals( 4 * 100, count.get() );
+	}
+
+	@Test( timeout = 20000 )
+	public void testConcurrentPipelinesOnSharedExecutor() throws Exception
+	{
+		final AtomicInteger count = new AtomicInteger();
+		try (TaskExecutor executor = TaskExecutors.fixedThreadPool( 4 ))
+		{
+			final Runnable pipeline = () -> BlockPipeline.forGrid( grid )
+					.map( interval -> {
+						sleep( 1 );
+						return interval;
+					} )
+					.map( interval -> interval )
+					.forEach( executor, interval -> count.incrementAndGet() );
+			final Thread a = new Thread( pipeline );
+			final Thread b = new Thread( pipeline );
+			a.start();
+			b.start();
+			a.join();
+			b.join();
+		}
+		assertEquals( 2 * 100, count.get() );
+	}
+
+	private static void sleep( final long millis )
+	{
+		try
+		{
+			Thread.sleep( millis );
+		}
+		catch ( final InterruptedException e )
+		{
+			throw new RuntimeException( e );
+		}
+	}
+}
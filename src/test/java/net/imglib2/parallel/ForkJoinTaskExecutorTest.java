@@ -0,0 +1,180 @@
+/*-
+ * #%L
+ * ImgLib2: a general-purpose, multidimensional image processing library.
+ * %%
+ * Copyright (C) 2009 - 2021 Tobias Pietzsch, Stephan Preibisch, Stephan Saalfeld,
+ * John Bogovic, Albert Cardona, Barry DeZonia, Christian Dietz, Jan Funke,
+ * Aivar Grislis, Jonathan Hale, Grant Harris, Stefan Helfrich, Mark Hiner,
+ * Martin Horn, Steffen Jaensch, Lee Kamentsky, Larry Lindsey, Melissa Linkert,
+ * Mark Longair, Brian Northan, Nick Perry, Curtis Rueden, Johannes Schindelin,
+ * Jean-Yves Tinevez and Michael Zinsmaier.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+package net.imglib2.parallel;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.After;
+import org.junit.Test;
+
+import net.imglib2.img.array.ArrayImg;
+import net.imglib2.img.array.ArrayImgs;
+import net.imglib2.img.basictypeaccess.array.IntArray;
+import net.imglib2.loops.LoopBuilder;
+import net.imglib2.type.numeric.integer.IntType;
+
+/**
+ * Tests {@link ForkJoinTaskExecutor}.
+ */
+public class ForkJoinTaskExecutorTest
+{
+	private final ForkJoinTaskExecutor twoThreads = new ForkJoinTaskExecutor( 2 );
+
+	@After
+	public void close()
+	{
+		twoThreads.close();
+	}
+
+	@Test
+	public void testSuggestNumberOfTasks()
+	{
+		assertEquals( 8, twoThreads.suggestNumberOfTasks() );
+		final List< Integer > nested = twoThreads.forEachApply( Collections.singletonList( 0 ), i -> twoThreads.suggestNumberOfTasks() );
+		assertTrue( nested.get( 0 ) <= 2 );
+	}
+
+	@Test
+	public void testForEachApply()
+	{
+		final List< Integer > squared = twoThreads.forEachApply( Arrays.asList( 1, 2, 3, 4, 5 ), i -> i * i );
+		assertEquals( Arrays.asList( 1, 4, 9, 16, 25 ), squared );
+	}
+
+	@Test
+	public void testRunAll()
+	{
+		final AtomicLong sum = new AtomicLong();
+		twoThreads.runAll( Arrays.asList( () -> sum.addAndGet( 1 ), () -> sum.addAndGet( 2 ), () -> sum.addAndGet( 3 ) ) );
+		assertEquals( 6, sum.get() );
+	}
+
+	@Test
+	public void testForEachRangeCoversRangeOnce()
+	{
+		final AtomicIntegerArray counts = new AtomicIntegerArray( 100_000 );
+		twoThreads.forEachRange( 0, counts.length(), ( from, to ) -> {
+			for ( long i = from; i < to; i++ )
+				counts.incrementAndGet( ( int ) i );
+		} );
+		for ( int i = 0; i < counts.length(); i++ )
+			assertEquals( 1, counts.get( i ) );
+	}
+
+	@Test
+	public void testNestedParallelismDoesNotDeadlock()
+	{
+		final AtomicLong sum = new AtomicLong();
+		final List< Integer > outer = Arrays.asList( 0, 1, 2, 3, 4, 5, 6, 7 );
+		twoThreads.forEach( outer, i -> twoThreads.forEach( outer, j -> twoThreads.forEachRange( 0, 1000, ( from, to ) -> sum.addAndGet( to - from ) ) ) );
+		assertEquals( 64 * 1000, sum.get() );
+	}
+
+	@Test
+	public void testNestedLoopBuilder()
+	{
+		final List< ArrayImg< IntType, IntArray > > images = Arrays.asList( ArrayImgs.ints( 100, 100 ), ArrayImgs.ints( 100, 100 ), ArrayImgs.ints( 100, 100 ) );
+		final List< TaskExecutor > innerExecutors = new CopyOnWriteArrayList<>();
+		final List< Integer > innerNumTasks = new CopyOnWriteArrayList<>();
+		Parallelization.runWithExecutor( twoThreads, () -> {
+			Parallelization.getTaskExecutor().forEach( images, image -> {
+				innerExecutors.add( Parallelization.getTaskExecutor() );
+				innerNumTasks.add( Parallelization.getTaskExecutor().suggestNumberOfTasks() );
+				LoopBuilder.setImages( image ).multiThreaded().forEachPixel( IntType::inc );
+			} );
+		} );
+		for ( final TaskExecutor executor : innerExecutors )
+			assertSame( twoThreads, executor );
+		for ( final int numTasks : innerNumTasks )
+			assertTrue( numTasks <= twoThreads.getParallelism() );
+		for ( final ArrayImg< IntType, IntArray > image : images )
+			for ( final IntType pixel : image )
+				assertEquals( 1, pixel.get() );
+	}
+
+	@Test
+	public void testTasksUseThisExecutor()
+	{
+		final List< TaskExecutor > executors = twoThreads.forEachApply( Arrays.asList( 1, 2, 3 ), i -> Parallelization.getTaskExecutor() );
+		for ( final TaskExecutor executor : executors )
+			assertSame( twoThreads, executor );
+		assertSame( twoThreads, Parallelization.runSingleThreaded( () -> twoThreads.forEachApply( Arrays.asList( 1 ), i -> Parallelization.getTaskExecutor() ).get( 0 ) ) );
+	}
+
+	@Test
+	public void testLoopBuilderChunkResultsInOrder()
+	{
+		final ArrayImg< IntType, IntArray > image = ArrayImgs.ints( 1000, 100 );
+		long i = 0;
+		for ( final IntType pixel : image )
+			pixel.set( ( int ) i++ );
+		final List< Long > firstValues = LoopBuilder.setImages( image ).multiThreaded( twoThreads ).forEachChunk( chunk -> {
+			final long[] first = { -1 };
+			chunk.forEachPixel( pixel -> {
+				if ( first[ 0 ] < 0 )
+					first[ 0 ] = pixel.get();
+			} );
+			return first[ 0 ];
+		} );
+		assertEquals( 0, ( long ) firstValues.get( 0 ) );
+		for ( int k = 1; k < firstValues.size(); k++ )
+			assertTrue( firstValues.get( k - 1 ) < firstValues.get( k ) );
+	}
+
+	@Test
+	public void testExceptionHandling()
+	{
+		try
+		{
+			twoThreads.forEach( Arrays.asList( 1, 2 ), i -> {
+				throw new IllegalStateException( "dummy" );
+			} );
+			fail( "ForkJoinTaskExecutor.forEach() failed to rethrow the exception." );
+		}
+		catch ( final IllegalStateException e )
+		{
+			// expected
+		}
+	}
+}
@@ -0,0 +1,123 @@
+/*-
+ * #%L
+ * ImgLib2: a general-purpose, multidimensional image processing library.
+ * %%
+ * Copyright (C) 2009 - 2021 Tobias Pietzsch, Stephan Preibisch, Stephan Saalfeld,
+ * John Bogovic, Albert Cardona, Barry DeZonia, Christian Dietz, Jan Funke,
+ * Aivar Grislis, Jonathan Hale, Grant Harris, Stefan Helfrich, Mark Hiner,
+ * Martin Horn, Steffen Jaensch, Lee Kamentsky, Larry Lindsey, Melissa Linkert,
+ * Mark Longair, Brian Northan, Nick Perry, Curtis Rueden, Johannes Schindelin,
+ * Jean-Yves Tinevez and Michael Zinsmaier.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+package net.imglib2.parallel;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assume.assumeTrue;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinWorkerThread;
+
+import org.junit.Test;
+
+import net.imglib2.img.basictypeaccess.array.IntArray;
+import net.imglib2.img.cell.Cell;
+import net.imglib2.img.cell.CellGrid;
+import net.imglib2.img.cell.LazyCellImg;
+import net.imglib2.type.numeric.integer.IntType;
+
+/**
+ * Tests {@link HybridTaskExecutor} and the virtual thread
+ * {@link TaskExecutor}s.
+ */
+public class HybridTaskExecutorTest
+{
+	@Test
+	public void testGetIoTaskExecutor()
+	{
+		try (HybridTaskExecutor hybrid = TaskExecutors.hybrid())
+		{
+			assertSame( TaskExecutors.multiThreaded(), hybrid.getComputeTaskExecutor() );
+			Parallelization.runWithExecutor( hybrid, () -> assertSame( hybrid.getIoTaskExecutor(), Parallelization.getIoTaskExecutor() ) );
+		}
+		Parallelization.runSingleThreaded( () -> assertSame( TaskExecutors.singleThreaded(), Parallelization.getIoTaskExecutor() ) );
+	}
+
+	@Test
+	public void testCallIoRunsOnIoPool()
+	{
+		try (HybridTaskExecutor hybrid = TaskExecutors.hybrid())
+		{
+			final List< Boolean > onComputePool = hybrid.forEachApply( Arrays.asList( 1, 2, 3, 4 ),
+					i -> hybrid.callIo( () -> Thread.currentThread() instanceof ForkJoinWorkerThread ) );
+			assertFalse( onComputePool.contains( true ) );
+		}
+	}
+
+	@Test
+	public void testLazyCellImgLoadsOnIoPool()
+	{
+		try (HybridTaskExecutor hybrid = TaskExecutors.hybrid())
+		{
+			final CellGrid grid = new CellGrid( new long[] { 10, 10 }, new int[] { 5, 5 } );
+			final LazyCellImg< IntType, IntArray > img = new LazyCellImg<>( grid, new IntType(), index -> hybrid.callIo( () -> {
+				final long[] min = new long[ 2 ];
+				final int[] size = new int[ 2 ];
+				grid.getCellDimensions( index, min, size );
+				final int[] data = new int[ size[ 0 ] * size[ 1 ] ];
+				Arrays.fill( data, ( int ) index );
+				return new Cell<>( size, min, new IntArray( data ) );
+			} ) );
+			final long sum = hybrid.forEachApply( Arrays.asList( 0, 1 ), i -> {
+				long s = 0;
+				for ( final IntType t : img )
+					s += t.get();
+				return s;
+			} ).stream().mapToLong( Long::longValue ).sum();
+			assertEquals( 2 * 25 * ( 0 + 1 + 2 + 3 ), sum );
+		}
+	}
+
+	@Test
+	public void testVirtualThreads()
+	{
+		assumeTrue( TaskExecutors.supportsVirtualThreads() );
+		try (TaskExecutor executor = TaskExecutors.virtualThreads( 100 ))
+		{
+			assertEquals( Runtime.getRuntime().availableProcessors(), executor.getParallelism() );
+			assertEquals( 100, executor.suggestNumberOfTasks() );
+			assertEquals( Arrays.asList( 2, 4, 6 ), executor.forEachApply( Arrays.asList( 1, 2, 3 ), i -> 2 * i ) );
+		}
+	}
+
+	@Test( expected = UnsupportedOperationException.class )
+	public void testVirtualThreadsUnsupported()
+	{
+		assumeTrue( !TaskExecutors.supportsVirtualThreads() );
+		TaskExecutors.virtualThreads();
+	}
+}
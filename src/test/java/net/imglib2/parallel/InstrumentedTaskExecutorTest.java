@@ -0,0 +1,125 @@
+/*-
+ * #%L
+ * ImgLib2: a general-purpose, multidimensional image processing library.
+ * %%
+ * Copyright (C) 2009 - 2021 Tobias Pietzsch, Stephan Preibisch, Stephan Saalfeld,
+ * John Bogovic, Albert Cardona, Barry DeZonia, Christian Dietz, Jan Funke,
+ * Aivar Grislis, Jonathan Hale, Grant Harris, Stefan Helfrich, Mark Hiner,
+ * Martin Horn, Steffen Jaensch, Lee Kamentsky, Larry Lindsey, Melissa Linkert,
+ * Mark Longair, Brian Northan, Nick Perry, Curtis Rueden, Johannes Schindelin,
+ * Jean-Yves Tinevez and Michael Zinsmaier.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+package net.imglib2.parallel;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.management.ObjectName;
+
+import org.junit.Test;
+
+import net.imglib2.img.array.ArrayImg;
+import net.imglib2.img.array.ArrayImgs;
+import net.imglib2.img.basictypeaccess.array.IntArray;
+import net.imglib2.loops.LoopBuilder;
+import net.imglib2.type.numeric.integer.IntType;
+
+/**
+ * Tests {@link InstrumentedTaskExecutor} and {@link TaskMetrics}.
+ */
+public class InstrumentedTaskExecutorTest
+{
+	@Test
+	public void testCounts()
+	{
+		final TaskMetrics metrics = new TaskMetrics();
+		final TaskExecutor executor = TaskExecutors.instrumented( TaskExecutors.singleThreaded(), metrics );
+		final List< Integer > result = executor.forEachApply( Arrays.asList( 1, 2, 3 ), i -> i * 2 );
+		assertEquals( Arrays.asList( 2, 4, 6 ), result );
+		executor.runAll( Arrays.asList( () -> {}, () -> {} ) );
+		assertEquals( 2, metrics.getCalls() );
+		assertEquals( 5, metrics.getTasks() );
+		assertEquals( 0, metrics.getActiveTasks() );
+		final long[] tasksPerCall = metrics.getTasksPerCallHistogram();
+		assertEquals( 2, tasksPerCall[ 2 ] ); // 2 tasks and 3 tasks share bucket [2, 4)
+		assertEquals( 5, sum( metrics.getTaskNanosHistogram() ) );
+		assertEquals( 5, sum( metrics.getQueueWaitNanosHistogram() ) );
+		metrics.reset();
+		assertEquals( 0, metrics.getCalls() );
+		assertEquals( 0, sum( metrics.getTaskNanosHistogram() ) );
+	}
+
+	@Test
+	public void testChunkSizes()
+	{
+		final TaskMetrics metrics = new TaskMetrics();
+		final ArrayImg< IntType, IntArray > image = ArrayImgs.ints( 100, 100 );
+		Parallelization.runWithExecutor( TaskExecutors.instrumented( TaskExecutors.fixedThreadPool( 4 ), metrics ), () -> {
+			LoopBuilder.setImages( image ).multiThreaded().forEachPixel( pixel -> pixel.set( 1 ) );
+		} );
+		for ( final IntType pixel : image )
+			assertEquals( 1, pixel.get() );
+		assertEquals( 1, metrics.getCalls() );
+		assertTrue( metrics.getTasks() > 1 );
+		assertEquals( 100 * 100, metrics.getMeanChunkSize() * metrics.getTasks(), 0 );
+		assertTrue( metrics.getIdleWorkerNanos() >= 0 );
+	}
+
+	@Test
+	public void testDisabled()
+	{
+		final TaskMetrics metrics = new TaskMetrics();
+		final InstrumentedTaskExecutor executor = TaskExecutors.instrumented( TaskExecutors.singleThreaded(), metrics );
+		executor.setEnabled( false );
+		executor.runAll( Arrays.asList( () -> {}, () -> {} ) );
+		assertEquals( 0, metrics.getCalls() );
+		assertEquals( 0, metrics.getTasks() );
+	}
+
+	@Test
+	public void testRegister() throws Exception
+	{
+		final TaskMetrics metrics = new TaskMetrics();
+		final ObjectName name = metrics.register( "net.imglib2.parallel:type=TaskMetrics,name=test" + System.nanoTime() );
+		try
+		{
+			TaskExecutors.instrumented( TaskExecutors.singleThreaded(), metrics ).runAll( Arrays.asList( () -> {} ) );
+			assertEquals( 1L, ManagementFactory.getPlatformMBeanServer().getAttribute( name, "Calls" ) );
+		}
+		finally
+		{
+			ManagementFactory.getPlatformMBeanServer().unregisterMBean( name );
+		}
+	}
+
+	private static long sum( final long[] counts )
+	{
+		return Arrays.stream( counts ).sum();
+	}
+}
@@ -0,0 +1,131 @@
+/*-
+ * #%L
+ * ImgLib2: a general-purpose, multidimensional image processing library.
+ * %%
+ * Copyright (C) 2009 - 2021 Tobias Pietzsch, Stephan Preibisch, Stephan Saalfeld,
+ * John Bogovic, Albert Cardona, Barry DeZonia, Christian Dietz, Jan Funke,
+ * Aivar Grislis, Jonathan Hale, Grant Harris, Stefan Helfrich, Mark Hiner,
+ * Martin Horn, Steffen Jaensch, Lee Kamentsky, Larry Lindsey, Melissa Linkert,
+ * Mark Longair, Brian Northan, Nick Perry, Curtis Rueden, Johannes Schindelin,
+ * Jean-Yves Tinevez and Michael Zinsmaier.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+package net.imglib2.parallel;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Test;
+
+import net.imglib2.img.array.ArrayImg;
+import net.imglib2.img.array.ArrayImgs;
+import net.imglib2.img.basictypeaccess.array.IntArray;
+import net.imglib2.loops.LoopBuilder;
+import net.imglib2.type.numeric.integer.IntType;
+
+/**
+ * Tests {@link MonitoredTaskExecutor} and {@link CancellationToken}.
+ */
+public class MonitoredTaskExecutorTest
+{
+	@Test
+	public void testProgress()
+	{
+		final AtomicLong calls = new AtomicLong();
+		final AtomicLong lastTotal = new AtomicLong();
+		final TaskExecutor executor = TaskExecutors.monitored( TaskExecutors.singleThreaded(), null, ( done, total ) -> {
+			assertEquals( calls.incrementAndGet(), done );
+			lastTotal.set( total );
+		} );
+		final List< Integer > result = executor.forEachApply( Arrays.asList( 1, 2, 3 ), i -> i + 1 );
+		assertEquals( Arrays.asList( 2, 3, 4 ), result );
+		assertEquals( 3, calls.get() );
+		assertEquals( 3, lastTotal.get() );
+	}
+
+	@Test
+	public void testSuggestNumberOfTasks()
+	{
+		final TaskExecutor executor = TaskExecutors.monitored( TaskExecutors.forExecutorServiceAndNumTasks( new SequentialExecutorService(), 5 ), null, null );
+		assertEquals( 5 * MonitoredTaskExecutor.TASKS_FACTOR, executor.suggestNumberOfTasks() );
+	}
+
+	@Test
+	public void testCancelLoopBuilder()
+	{
+		final ArrayImg< IntType, IntArray > image = ArrayImgs.ints( 100, 100 );
+		final CancellationToken token = new CancellationToken();
+		final AtomicLong visited = new AtomicLong();
+		try (TaskExecutor executor = TaskExecutors.monitored( TaskExecutors.numThreads( 2 ), token, null ))
+		{
+			Parallelization.runWithExecutor( executor, () -> LoopBuilder.setImages( image ).multiThreaded().forEachPixel( pixel -> {
+				if ( visited.incrementAndGet() == 10 )
+					token.cancel();
+				pixel.set( 1 );
+			} ) );
+			fail( "LoopBuilder was not cancelled." );
+		}
+		catch ( final CancellationException e )
+		{
+			// expected
+		}
+		assertTrue( visited.get() < 100 * 100 );
+		assertTrue( token.isCancelled() );
+	}
+
+	@Test
+	public void testDeadline() throws InterruptedException
+	{
+		final CancellationToken token = new CancellationToken( 10, TimeUnit.MILLISECONDS );
+		final TaskExecutor executor = TaskExecutors.monitored( TaskExecutors.singleThreaded(), token, null );
+		final AtomicLong completed = new AtomicLong();
+		try
+		{
+			executor.forEach( Arrays.asList( 1, 2, 3, 4, 5, 6, 7, 8, 9, 10 ), i -> {
+				try
+				{
+					Thread.sleep( 5 );
+				}
+				catch ( final InterruptedException e )
+				{
+					throw new RuntimeException( e );
+				}
+				completed.incrementAndGet();
+			} );
+			fail( "The deadline was ignored." );
+		}
+		catch ( final CancellationException e )
+		{
+			// expected
+		}
+		assertTrue( completed.get() < 10 );
+	}
+}
@@ -37,6 +37,7 @@ import org.junit.Test;
 
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
@@ -63,6 +64,16 @@ public class TaskExecutorsTest
 		assertTrue( executor.getExecutorService() instanceof ForkJoinExecutorService );
 	}
 
+	@Test
+	public void testWorkStealing()
+	{
+		assertTrue( TaskExecutors.workStealing().getExecutorService() instanceof ForkJoinPool );
+		try (TaskExecutor executor = TaskExecutors.workStealing( 3 ))
+		{
+			assertEquals( 3, executor.getParallelism() );
+		}
+	}
+
 	@Test
 	public void testNumThreads()
 	{
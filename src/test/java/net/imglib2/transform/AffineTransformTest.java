@@ -0,0 +1,78 @@
+/*-
+ * #%L
+ * ImgLib2: a general-purpose, multidimensional image processing library.
+ * %%
+ * Copyright (C) 2009 - 2021 Tobias Pietzsch, Stephan Preibisch, Stephan Saalfeld,
+ * John Bogovic, Albert Cardona, Barry DeZonia, Christian Dietz, Jan Funke,
+ * Aivar Grislis, Jonathan Hale, Grant Harris, Stefan Helfrich, Mark Hiner,
+ * Martin Horn, Steffen Jaensch, Lee Kamentsky, Larry Lindsey, Melissa Linkert,
+ * Mark Longair, Brian Northan, Nick Perry, Curtis Rueden, Johannes Schindelin,
+ * Jean-Yves Tinevez and Michael Zinsmaier.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+package net.imglib2.transform;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+/**
+ * Tests {@link AffineTransform}.
+ */
+public class AffineTransformTest
+{
+	@Test
+	public void testIdentity()
+	{
+		final AffineTransform affine = new AffineTransform( 3, 2 );
+		assertEquals( 3, affine.numSourceDimensions() );
+		assertEquals( 2, affine.numTargetDimensions() );
+		for ( int r = 0; r < 2; ++r )
+			for ( int c = 0; c <= 3; ++c )
+				assertEquals( r == c ? 1 : 0, affine.get( r, c ), 0 );
+	}
+
+	@Test
+	public void testMatrixIsCopied()
+	{
+		final double[][] matrix = { { 1, 2, 3 }, { 4, 5, 6 } };
+		final AffineTransform affine = new AffineTransform( matrix );
+		matrix[ 1 ][ 2 ] = 0;
+		assertEquals( 2, affine.numSourceDimensions() );
+		assertEquals( 2, affine.numTargetDimensions() );
+		assertEquals( 6, affine.get( 1, 2 ), 0 );
+
+		final AffineTransform copy = new AffineTransform( 2, 2 );
+		copy.set( affine );
+		affine.set( 0, 1, 2 );
+		assertEquals( 6, copy.get( 1, 2 ), 0 );
+	}
+
+	@Test( expected = IllegalArgumentException.class )
+	public void testMismatchingMatrix()
+	{
+		new AffineTransform( 2, 2 ).set( new double[][] { { 1, 0 }, { 0, 1 } } );
+	}
+}
@@ -0,0 +1,196 @@
+/*-
+ * #%L
+ * ImgLib2: a general-purpose, multidimensional image processing library.
+ * %%
+ * Copyright (C) 2009 - 2021 Tobias Pietzsch, Stephan Preibisch, Stephan Saalfeld,
+ * John Bogovic, Albert Cardona, Barry DeZonia, Christian Dietz, Jan Funke,
+ * Aivar Grislis, Jonathan Hale, Grant Harris, Stefan Helfrich, Mark Hiner,
+ * Martin Horn, Steffen Jaensch, Lee Kamentsky, Larry Lindsey, Melissa Linkert,
+ * Mark Longair, Brian Northan, Nick Perry, Curtis Rueden, Johannes Schindelin,
+ * Jean-Yves Tinevez and Michael Zinsmaier.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+package net.imglib2.type.logic;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import net.imglib2.RandomAccessibleInterval;
+import net.imglib2.img.Img;
+import net.imglib2.img.array.ArrayImgs;
+import net.imglib2.img.basictypeaccess.array.DirtyLongArray;
+import net.imglib2.img.cell.CellImgFactory;
+import net.imglib2.loops.LoopBuilder;
+import net.imglib2.view.Views;
+
+import org.junit.Test;
+
+/**
+ * Tests {@link BitOperations}.
+ */
+public class BitOperationsTest
+{
+	private static final long[] DIMS = { 301, 257 };
+
+	@Test
+	public void testCountOnes()
+	{
+		for ( final Img< BitType > image : images( 42 ) )
+			assertEquals( naiveCount( image ), BitOperations.countOnes( image ) );
+	}
+
+	@Test
+	public void testCountOnesView()
+	{
+		final Img< BitType > image = randomArrayImg( 42 );
+		final RandomAccessibleInterval< BitType > view = Views.interval( image, new long[] { 3, 5 }, new long[] { 200, 100 } );
+		assertEquals( naiveCount( view ), BitOperations.countOnes( view ) );
+	}
+
+	@Test
+	public void testAnyAndAll()
+	{
+		for ( final Img< BitType > image : new Img[] { ArrayImgs.bits( DIMS ), new CellImgFactory<>( new BitType(), 10 ).create( DIMS ) } )
+		{
+			assertFalse( BitOperations.any( image ) );
+			assertFalse( BitOperations.all( image ) );
+			image.forEach( BitType::setOne );
+			assertTrue( BitOperations.any( image ) );
+			assertTrue( BitOperations.all( image ) );
+			image.firstElement().setZero();
+			assertTrue( BitOperations.any( image ) );
+			assertFalse( BitOperations.all( image ) );
+		}
+	}
+
+	@Test
+	public void testNotKeepsPaddingZero()
+	{
+		final Img< BitType > a = ArrayImgs.bits( DIMS );
+		final Img< BitType > target = ArrayImgs.bits( DIMS );
+		BitOperations.not( a, target );
+		assertTrue( BitOperations.all( target ) );
+		assertEquals( DIMS[ 0 ] * DIMS[ 1 ], BitOperations.countOnes( target ) );
+	}
+
+	@Test
+	public void testNotSetsDirty()
+	{
+		final DirtyLongArray access = new DirtyLongArray( ( int ) ( ( DIMS[ 0 ] * DIMS[ 1 ] + 63 ) / 64 ) );
+		final Img< BitType > target = ArrayImgs.bits( access, DIMS );
+		BitOperations.not( ArrayImgs.bits( DIMS ), target );
+		assertTrue( access.isDirty() );
+		assertTrue( BitOperations.all( target ) );
+	}
+
+	@Test
+	public void testBinaryOperations()
+	{
+		final Img< BitType >[] as = images( 1 );
+		final Img< BitType >[] bs = images( 2 );
+		final Img< BitType >[] targets = images( 3 );
+		for ( int i = 0; i < as.length; ++i )
+		{
+			final Img< BitType > a = as[ i ];
+			final Img< BitType > b = bs[ i ];
+			final Img< BitType > target = targets[ i ];
+			BitOperations.and( a, b, target );
+			assertResult( a, b, target, ( x, y ) -> x && y );
+			BitOperations.or( a, b, target );
+			assertResult( a, b, target, ( x, y ) -> x || y );
+			BitOperations.xor( a, b, target );
+			assertResult( a, b, target, ( x, y ) -> x ^ y );
+			BitOperations.andNot( a, b, target );
+			assertResult( a, b, target, ( x, y ) -> x && !y );
+			BitOperations.not( a, target );
+			assertResult( a, b, target, ( x, y ) -> !x );
+		}
+	}
+
+	@Test
+	public void testMixedLayouts()
+	{
+		final Img< BitType > a = randomArrayImg( 1 );
+		final Img< BitType > b = randomCellImg( 2 );
+		final Img< BitType > target = ArrayImgs.bits( DIMS );
+		BitOperations.xor( a, b, target );
+		assertResult( a, b, target, ( x, y ) -> x ^ y );
+	}
+
+	@Test
+	public void testDifferentCellGrids()
+	{
+		// equal number of cells with equal sizes, but different cell grids
+		final Img< BitType > a = fill( new CellImgFactory<>( new BitType(), 64, 128 ).create( 128, 128 ), 1 );
+		final Img< BitType > b = fill( new CellImgFactory<>( new BitType(), 128, 64 ).create( 128, 128 ), 2 );
+		final Img< BitType > target = new CellImgFactory<>( new BitType(), 64, 128 ).create( 128, 128 );
+		BitOperations.and( a, b, target );
+		assertResult( a, b, target, ( x, y ) -> x && y );
+	}
+
+	private interface BooleanOperator
+	{
+		boolean apply( boolean a, boolean b );
+	}
+
+	private static void assertResult( final RandomAccessibleInterval< BitType > a, final RandomAccessibleInterval< BitType > b, final RandomAccessibleInterval< BitType > target, final BooleanOperator operator )
+	{
+		LoopBuilder.setImages( a, b, target ).forEachPixel( ( x, y, t ) -> assertEquals( operator.apply( x.get(), y.get() ), t.get() ) );
+	}
+
+	private static long naiveCount( final RandomAccessibleInterval< BitType > image )
+	{
+		long count = 0;
+		for ( final BitType pixel : Views.iterable( image ) )
+			if ( pixel.get() )
+				++count;
+		return count;
+	}
+
+	@SuppressWarnings( "unchecked" )
+	private static Img< BitType >[] images( final long seed )
+	{
+		return new Img[] { randomArrayImg( seed ), randomCellImg( seed ) };
+	}
+
+	private static Img< BitType > randomArrayImg( final long seed )
+	{
+		return fill( ArrayImgs.bits( DIMS ), seed );
+	}
+
+	private static Img< BitType > randomCellImg( final long seed )
+	{
+		return fill( new CellImgFactory<>( new BitType(), 37, 19 ).create( DIMS ), seed );
+	}
+
+	private static Img< BitType > fill( final Img< BitType > image, final long seed )
+	{
+		final Random random = new Random( seed );
+		image.forEach( pixel -> pixel.set( random.nextBoolean() ) );
+		return image;
+	}
+}
@@ -47,6 +47,10 @@ import net.imglib2.img.array.ArrayImgs;
 import net.imglib2.img.basictypeaccess.array.LongArray;
 import net.imglib2.type.logic.BitType;
 
+import java.util.Arrays;
+import net.imglib2.Cursor;
+import net.imglib2.parallel.TaskExecutor;
+import net.imglib2.parallel.TaskExecutors;
 import org.junit.BeforeClass;
 import org.junit.Test;
 
@@ -441,4 +445,29 @@ public class BitTypeTest {
 //		fail("Not yet implemented");
 //	}
 
+	/**
+	 * Concurrent writes of neighboring pixels, that share the same
+	 * {@code long} word, must not get lost.
+	 */
+	@Test
+	public void testConcurrentSet()
+	{
+		final int numThreads = 8;
+		final ArrayImg< BitType, LongArray > bits = ArrayImgs.bits( 1000, 100 );
+		try (TaskExecutor executor = TaskExecutors.fixedThreadPool( numThreads ))
+		{
+			executor.forEach( Arrays.asList( 0, 1, 2, 3, 4, 5, 6, 7 ), offset -> {
+				final Cursor< BitType > cursor = bits.cursor();
+				cursor.jumpFwd( offset );
+				while ( cursor.hasNext() )
+				{
+					cursor.fwd();
+					cursor.get().set( true );
+					cursor.jumpFwd( numThreads - 1 );
+				}
+			} );
+		}
+		for ( final BitType t : bits )
+			assertTrue( t.get() );
+	}
 }
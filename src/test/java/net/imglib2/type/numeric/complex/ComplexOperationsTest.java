@@ -0,0 +1,181 @@
+/*-
+ * #%L
+ * ImgLib2: a general-purpose, multidimensional image processing library.
+ * %%
+ * Copyright (C) 2009 - 2021 Tobias Pietzsch, Stephan Preibisch, Stephan Saalfeld,
+ * John Bogovic, Albert Cardona, Barry DeZonia, Christian Dietz, Jan Funke,
+ * Aivar Grislis, Jonathan Hale, Grant Harris, Stefan Helfrich, Mark Hiner,
+ * Martin Horn, Steffen Jaensch, Lee Kamentsky, Larry Lindsey, Melissa Linkert,
+ * Mark Longair, Brian Northan, Nick Perry, Curtis Rueden, Johannes Schindelin,
+ * Jean-Yves Tinevez and Michael Zinsmaier.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+package net.imglib2.type.numeric.complex;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import net.imglib2.Cursor;
+import net.imglib2.RandomAccessibleInterval;
+import net.imglib2.img.Img;
+import net.imglib2.img.array.ArrayImgFactory;
+import net.imglib2.img.array.ArrayImgs;
+import net.imglib2.img.basictypeaccess.array.DirtyFloatArray;
+import net.imglib2.img.cell.CellImgFactory;
+import net.imglib2.img.list.ListImgFactory;
+import net.imglib2.loops.LoopBuilder;
+import net.imglib2.test.ImgLib2Assert;
+import net.imglib2.type.numeric.RealType;
+import net.imglib2.type.numeric.real.DoubleType;
+import net.imglib2.type.numeric.real.FloatType;
+import net.imglib2.view.Views;
+
+public class ComplexOperationsTest
+{
+	private static final long[] DIMENSIONS = { 130, 70 };
+
+	@Test
+	public void testMultiplyArrayImg()
+	{
+		testMultiply( new ArrayImgFactory<>( new ComplexFloatType() ).create( DIMENSIONS ) );
+		testMultiply( new ArrayImgFactory<>( new ComplexDoubleType() ).create( DIMENSIONS ) );
+	}
+
+	@Test
+	public void testMultiplyCellImg()
+	{
+		testMultiply( new CellImgFactory<>( new ComplexFloatType(), 16 ).create( DIMENSIONS ) );
+		testMultiply( new CellImgFactory<>( new ComplexDoubleType(), 16 ).create( DIMENSIONS ) );
+	}
+
+	@Test
+	public void testMultiplyListImg()
+	{
+		testMultiply( new ListImgFactory<>( new ComplexFloatType() ).create( DIMENSIONS ) );
+	}
+
+	private static < T extends AbstractComplexType< T > > void testMultiply( final Img< T > a )
+	{
+		fillRandom( a, 1 );
+		final Img< T > b = a.factory().create( a );
+		fillRandom( b, 2 );
+		final Img< T > target = a.factory().create( a );
+
+		ComplexOperations.multiply( a, b, target );
+		LoopBuilder.setImages( a, b, target ).forEachPixel( ( x, y, t ) -> {
+			final T expected = x.copy();
+			expected.mul( y );
+			assertComplexEquals( expected, t );
+		} );
+
+		ComplexOperations.multiplyConjugate( a, b, target );
+		LoopBuilder.setImages( a, b, target ).forEachPixel( ( x, y, t ) -> {
+			final T expected = y.copy();
+			expected.complexConjugate();
+			expected.mul( x );
+			assertComplexEquals( expected, t );
+		} );
+
+		// in place
+		final Img< T > expected = a.copy();
+		ComplexOperations.multiply( expected, b, expected );
+		ComplexOperations.multiply( a, b, a );
+		ImgLib2Assert.assertImageEquals( expected, a );
+	}
+
+	@Test
+	public void testMagnitudeAndPhase()
+	{
+		testMagnitudeAndPhase( new ArrayImgFactory<>( new ComplexFloatType() ).create( DIMENSIONS ), ArrayImgs.floats( DIMENSIONS ) );
+		testMagnitudeAndPhase( new ArrayImgFactory<>( new ComplexDoubleType() ).create( DIMENSIONS ), ArrayImgs.doubles( DIMENSIONS ) );
+		testMagnitudeAndPhase( new CellImgFactory<>( new ComplexFloatType(), 16 ).create( DIMENSIONS ), new CellImgFactory<>( new FloatType(), 16 ).create( DIMENSIONS ) );
+		// mixed precision and layout
+		testMagnitudeAndPhase( new CellImgFactory<>( new ComplexFloatType(), 16 ).create( DIMENSIONS ), ArrayImgs.doubles( DIMENSIONS ) );
+	}
+
+	private static < T extends AbstractComplexType< T >, R extends RealType< R > > void testMagnitudeAndPhase( final Img< T > complex, final RandomAccessibleInterval< R > target )
+	{
+		fillRandom( complex, 3 );
+		ComplexOperations.magnitude( complex, target );
+		LoopBuilder.setImages( complex, target ).forEachPixel( ( c, t ) -> assertEquals( c.getPowerDouble(), t.getRealDouble(), 1e-5 ) );
+		ComplexOperations.phase( complex, target );
+		LoopBuilder.setImages( complex, target ).forEachPixel( ( c, t ) -> assertEquals( c.getPhaseDouble(), t.getRealDouble(), 1e-5 ) );
+	}
+
+	@Test
+	public void testMagnitudeSetsDirty()
+	{
+		final Img< ComplexFloatType > complex = new ArrayImgFactory<>( new ComplexFloatType() ).create( DIMENSIONS );
+		fillRandom( complex, 5 );
+		final DirtyFloatArray access = new DirtyFloatArray( ( int ) complex.size() );
+		final Img< FloatType > target = ArrayImgs.floats( access, DIMENSIONS );
+		ComplexOperations.magnitude( complex, target );
+		assertTrue( access.isDirty() );
+		LoopBuilder.setImages( complex, target ).forEachPixel( ( c, t ) -> assertEquals( c.getPowerDouble(), t.getRealDouble(), 1e-5 ) );
+	}
+
+	@Test
+	public void testSplitAndInterleave()
+	{
+		final Img< ComplexFloatType > complex = new CellImgFactory<>( new ComplexFloatType(), 16 ).create( DIMENSIONS );
+		fillRandom( complex, 4 );
+		final Img< FloatType > real = new CellImgFactory<>( new FloatType(), 16 ).create( DIMENSIONS );
+		final Img< FloatType > imaginary = new CellImgFactory<>( new FloatType(), 16 ).create( DIMENSIONS );
+		ComplexOperations.split( complex, real, imaginary );
+		LoopBuilder.setImages( complex, real, imaginary ).forEachPixel( ( c, r, i ) -> {
+			assertEquals( c.getRealFloat(), r.get(), 0 );
+			assertEquals( c.getImaginaryFloat(), i.get(), 0 );
+		} );
+
+		final Img< ComplexFloatType > result = complex.factory().create( complex );
+		ComplexOperations.interleave( real, imaginary, result );
+		ImgLib2Assert.assertImageEquals( complex, result );
+
+		// planar double images, interleaved float image, as views
+		final RandomAccessibleInterval< DoubleType > realDouble = ArrayImgs.doubles( DIMENSIONS );
+		final RandomAccessibleInterval< DoubleType > imaginaryDouble = ArrayImgs.doubles( DIMENSIONS );
+		ComplexOperations.split( Views.zeroMin( complex ), realDouble, imaginaryDouble );
+		final Img< ComplexFloatType > result2 = new ArrayImgFactory<>( new ComplexFloatType() ).create( DIMENSIONS );
+		ComplexOperations.interleave( realDouble, imaginaryDouble, result2 );
+		ImgLib2Assert.assertImageEquals( complex, result2 );
+	}
+
+	private static < T extends AbstractComplexType< T > > void fillRandom( final Img< T > image, final long seed )
+	{
+		final Random random = new Random( seed );
+		final Cursor< T > cursor = image.cursor();
+		while ( cursor.hasNext() )
+			cursor.next().setComplexNumber( random.nextGaussian(), random.nextGaussian() );
+	}
+
+	private static < T extends AbstractComplexType< T > > void assertComplexEquals( final T expected, final T actual )
+	{
+		assertEquals( expected.getRealDouble(), actual.getRealDouble(), 1e-5 );
+		assertEquals( expected.getImaginaryDouble(), actual.getImaginaryDouble(), 1e-5 );
+	}
+}
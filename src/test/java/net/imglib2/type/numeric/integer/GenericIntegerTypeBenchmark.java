@@ -0,0 +1,178 @@
+/*-
+ * #%L
+ * ImgLib2: a general-purpose, multidimensional image processing library.
+ * %%
+ * Copyright (C) 2009 - 2021 Tobias Pietzsch, Stephan Preibisch, Stephan Saalfeld,
+ * John Bogovic, Albert Cardona, Barry DeZonia, Christian Dietz, Jan Funke,
+ * Aivar Grislis, Jonathan Hale, Grant Harris, Stefan Helfrich, Mark Hiner,
+ * Martin Horn, Steffen Jaensch, Lee Kamentsky, Larry Lindsey, Melissa Linkert,
+ * Mark Longair, Brian Northan, Nick Perry, Curtis Rueden, Johannes Schindelin,
+ * Jean-Yves Tinevez and Michael Zinsmaier.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+package net.imglib2.type.numeric.integer;
+
+import java.util.concurrent.TimeUnit;
+
+import net.imglib2.Cursor;
+import net.imglib2.img.Img;
+import net.imglib2.img.array.ArrayImgFactory;
+import net.imglib2.img.cell.CellImgFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compares the fused read-modify-write operations of
+ * {@link GenericShortType}, like {@link GenericShortType#mulAdd} and
+ * {@link GenericShortType#addAndClamp}, with the same computation composed
+ * of separate get and set calls.
+ */
+@State( Scope.Benchmark )
+@Warmup( iterations = 5, time = 200, timeUnit = TimeUnit.MILLISECONDS )
+@Measurement( iterations = 10, time = 200, timeUnit = TimeUnit.MILLISECONDS )
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.MILLISECONDS )
+@Fork( 1 )
+public class GenericIntegerTypeBenchmark
+{
+	@Param( { "ArrayImg", "CellImg" } )
+	public String imgType;
+
+	private Img< UnsignedShortType > a;
+
+	private Img< UnsignedShortType > b;
+
+	private Img< UnsignedShortType > c;
+
+	@Setup
+	public void setup()
+	{
+		final long[] dimensions = { 1000, 1000 };
+		a = create( dimensions );
+		b = create( dimensions );
+		c = create( dimensions );
+		int i = 0;
+		for ( final UnsignedShortType pixel : b )
+			pixel.set( ( i++ * 31 ) % 65536 );
+		for ( final UnsignedShortType pixel : c )
+			pixel.set( ( i++ * 17 ) % 256 );
+	}
+
+	private Img< UnsignedShortType > create( final long[] dimensions )
+	{
+		return imgType.equals( "ArrayImg" )
+				? new ArrayImgFactory<>( new UnsignedShortType() ).create( dimensions )
+				: new CellImgFactory<>( new UnsignedShortType(), 64 ).create( dimensions );
+	}
+
+	@Benchmark
+	public void addAndClamp()
+	{
+		final Cursor< UnsignedShortType > ca = a.cursor();
+		final Cursor< UnsignedShortType > cb = b.cursor();
+		while ( ca.hasNext() )
+			ca.next().addAndClamp( cb.next() );
+	}
+
+	@Benchmark
+	public void addAndClampPerCall()
+	{
+		final Cursor< UnsignedShortType > ca = a.cursor();
+		final Cursor< UnsignedShortType > cb = b.cursor();
+		while ( ca.hasNext() )
+		{
+			final UnsignedShortType x = ca.next();
+			x.set( Math.min( 65535, x.get() + cb.next().get() ) );
+		}
+	}
+
+	@Benchmark
+	public void mulAdd()
+	{
+		final Cursor< UnsignedShortType > ca = a.cursor();
+		final Cursor< UnsignedShortType > cb = b.cursor();
+		final Cursor< UnsignedShortType > cc = c.cursor();
+		while ( ca.hasNext() )
+			ca.next().mulAdd( cb.next(), cc.next() );
+	}
+
+	@Benchmark
+	public void mulAddPerCall()
+	{
+		final Cursor< UnsignedShortType > ca = a.cursor();
+		final Cursor< UnsignedShortType > cb = b.cursor();
+		final Cursor< UnsignedShortType > cc = c.cursor();
+		final UnsignedShortType tmp = new UnsignedShortType();
+		while ( ca.hasNext() )
+		{
+			tmp.set( cb.next() );
+			tmp.mul( cc.next() );
+			ca.next().add( tmp );
+		}
+	}
+
+	@Benchmark
+	public void mulAddAndClamp()
+	{
+		final Cursor< UnsignedShortType > ca = a.cursor();
+		final Cursor< UnsignedShortType > cb = b.cursor();
+		final Cursor< UnsignedShortType > cc = c.cursor();
+		while ( ca.hasNext() )
+			ca.next().mulAddAndClamp( cb.next(), cc.next() );
+	}
+
+	@Benchmark
+	public void mulAddAndClampPerCall()
+	{
+		final Cursor< UnsignedShortType > ca = a.cursor();
+		final Cursor< UnsignedShortType > cb = b.cursor();
+		final Cursor< UnsignedShortType > cc = c.cursor();
+		while ( ca.hasNext() )
+		{
+			final UnsignedShortType x = ca.next();
+			x.set( ( int ) Math.min( 65535, x.get() + ( long ) cb.next().get() * cc.next().get() ) );
+		}
+	}
+
+	public static void main( final String... args ) throws RunnerException
+	{
+		final Options opt = new OptionsBuilder()
+				.include( GenericIntegerTypeBenchmark.class.getSimpleName() )
+				.build();
+		new Runner( opt ).run();
+	}
+}
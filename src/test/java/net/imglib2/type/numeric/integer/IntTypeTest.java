@@ -73,4 +73,27 @@ public class IntTypeTest {
 		assertEquals( l.get(), 7987431 );
 	}
 
+	/**
+	 * Tests the fused and saturating operations of {@link GenericIntType}
+	 * with signed values.
+	 */
+	@Test
+	public void testFusedOperations()
+	{
+		final IntType a = new IntType( Integer.MAX_VALUE - 1 );
+		a.addAndClamp( new IntType( 2 ) );
+		assertEquals( Integer.MAX_VALUE, a.get() );
+		a.set( Integer.MIN_VALUE );
+		a.mulAndClamp( new IntType( Integer.MIN_VALUE ) );
+		assertEquals( Integer.MAX_VALUE, a.get() );
+		a.set( -100000 );
+		a.mulAndClamp( new IntType( 100000 ) );
+		assertEquals( Integer.MIN_VALUE, a.get() );
+		a.set( -10 );
+		a.mulAddAndClamp( new IntType( Integer.MIN_VALUE ), new IntType( -1 ) );
+		assertEquals( Integer.MAX_VALUE - 9, a.get() );
+		a.set( 1 );
+		a.mulAdd( new IntType( 3 ), new IntType( -4 ) );
+		assertEquals( -11, a.get() );
+	}
 }
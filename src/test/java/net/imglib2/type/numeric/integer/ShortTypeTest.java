@@ -169,4 +169,32 @@ public class ShortTypeTest
 		assertEquals( n.get(), ( short ) 8 );
 	}
 
+	/**
+	 * Tests the fused and saturating operations of {@link GenericShortType}
+	 * with signed values.
+	 */
+	@Test
+	public void testFusedOperations()
+	{
+		final ShortType a = new ShortType( ( short ) 32000 );
+		a.addAndClamp( new ShortType( ( short ) 1000 ) );
+		assertEquals( Short.MAX_VALUE, a.get() );
+		a.set( ( short ) -32000 );
+		a.subAndClamp( new ShortType( ( short ) 1000 ) );
+		assertEquals( Short.MIN_VALUE, a.get() );
+		a.set( ( short ) -300 );
+		a.mulAndClamp( new ShortType( ( short ) 300 ) );
+		assertEquals( Short.MIN_VALUE, a.get() );
+		a.set( ( short ) -5 );
+		a.mulAndClamp( new ShortType( ( short ) -7 ) );
+		assertEquals( 35, a.get() );
+		a.mulAdd( new ShortType( ( short ) 300 ), new ShortType( ( short ) 300 ) );
+		assertEquals( ( short ) ( 35 + 90000 ), a.get() );
+		a.set( ( short ) 35 );
+		a.mulAddAndClamp( new ShortType( ( short ) 300 ), new ShortType( ( short ) 300 ) );
+		assertEquals( Short.MAX_VALUE, a.get() );
+		a.set( ( short ) -1000 );
+		a.mulAddAndClamp( new ShortType( ( short ) 30 ), new ShortType( ( short ) 30 ) );
+		assertEquals( -100, a.get() );
+	}
 }
@@ -35,11 +35,18 @@ package net.imglib2.type.numeric.integer;
 
 import static org.junit.Assert.*;
 
+import java.math.BigDecimal;
 import java.math.BigInteger;
 import java.util.Random;
+import java.util.function.BinaryOperator;
 
+import net.imglib2.RandomAccessibleInterval;
+import net.imglib2.img.Img;
 import net.imglib2.img.array.ArrayImg;
 import net.imglib2.img.array.ArrayImgFactory;
+import net.imglib2.img.cell.CellImgFactory;
+import net.imglib2.loops.LoopBuilder;
+import net.imglib2.view.Views;
 
 import org.junit.BeforeClass;
 import org.junit.Test;
@@ -175,4 +182,134 @@ public class Unsigned128BitTypeTest
 		assertEquals( Math.pow( 2, 127 ), (float) Math.pow( 2, 127 ), 0.0 );
 		assertEquals( Math.pow( 2, 127 ), new Unsigned128BitType(0, 1l << 63 ).getRealFloat(), 0.0 );
 	}
+
+	private static final BigInteger MOD = BigInteger.ONE.shiftLeft( 128 );
+
+	/**
+	 * Random 128-bit values, with a varying number of significant bits.
+	 */
+	private static Unsigned128BitType randomValue( final Random rnd )
+	{
+		final int bits = rnd.nextInt( 129 );
+		final BigInteger b = new BigInteger( bits, rnd );
+		return new Unsigned128BitType( b );
+	}
+
+	@Test
+	public void testArithmeticAgainstBigInteger()
+	{
+		final Random rnd = new Random( 128 );
+		for ( int i = 0; i < 10000; ++i )
+		{
+			final Unsigned128BitType a = randomValue( rnd );
+			final Unsigned128BitType b = randomValue( rnd );
+			final BigInteger x = a.get();
+			final BigInteger y = b.get();
+
+			final Unsigned128BitType t = a.copy();
+			t.add( b );
+			assertEquals( x.add( y ).mod( MOD ), t.get() );
+
+			t.set( a );
+			t.sub( b );
+			assertEquals( x.subtract( y ).mod( MOD ), t.get() );
+
+			t.set( a );
+			t.mul( b );
+			assertEquals( x.multiply( y ).mod( MOD ), t.get() );
+
+			if ( y.signum() != 0 )
+			{
+				t.set( a );
+				t.div( b );
+				assertEquals( x.divide( y ), t.get() );
+			}
+
+			assertEquals( Integer.signum( x.compareTo( y ) ), Integer.signum( a.compareTo( b ) ) );
+		}
+	}
+
+	@Test
+	public void testMulDoubleAgainstBigDecimal()
+	{
+		final Random rnd = new Random( 64 );
+		final double[] factors = { 0, -0.0, 1, -1, 0.5, 3.75, -2.25, 1e-300, Double.MIN_VALUE, 1e20, Math.pow( 2, 100 ), Math.pow( 2, 200 ), -1e30 };
+		for ( int i = 0; i < 1000; ++i )
+		{
+			final Unsigned128BitType a = randomValue( rnd );
+			final double c = i < factors.length ? factors[ i ] : rnd.nextGaussian() * Math.pow( 2, rnd.nextInt( 200 ) - 100 );
+			final BigInteger expected = new BigDecimal( a.get() ).multiply( new BigDecimal( c ) ).toBigInteger().mod( MOD );
+			a.mul( c );
+			assertEquals( "factor " + c, expected, a.get() );
+		}
+	}
+
+	@Test( expected = ArithmeticException.class )
+	public void testDivideByZero()
+	{
+		new Unsigned128BitType( 5, 1 ).div( new Unsigned128BitType() );
+	}
+
+	@Test
+	public void testMultiplyHighUnsigned()
+	{
+		final Random rnd = new Random( 32 );
+		final BigInteger mask = BigInteger.ONE.shiftLeft( 64 ).subtract( BigInteger.ONE );
+		for ( int i = 0; i < 1000; ++i )
+		{
+			final long x = rnd.nextLong();
+			final long y = i == 0 ? -1 : rnd.nextLong();
+			final BigInteger expected = new BigInteger( Long.toUnsignedString( x ) ).multiply( new BigInteger( Long.toUnsignedString( y ) ) ).shiftRight( 64 ).and( mask );
+			assertEquals( expected.longValue(), Unsigned128BitOperations.multiplyHighUnsigned( x, y ) );
+		}
+	}
+
+	@Test
+	public void testBulkOperations()
+	{
+		final ArrayImgFactory< Unsigned128BitType > factory = new ArrayImgFactory<>( new Unsigned128BitType() );
+		testBulkOperations( factory.create( 100, 70 ), factory.create( 100, 70 ), factory.create( 100, 70 ) );
+	}
+
+	@Test
+	public void testBulkOperationsCellImg()
+	{
+		final CellImgFactory< Unsigned128BitType > factory = new CellImgFactory<>( new Unsigned128BitType(), 32 );
+		testBulkOperations( factory.create( 100, 70 ), factory.create( 100, 70 ), factory.create( 100, 70 ) );
+	}
+
+	@Test
+	public void testBulkOperationsMixedLayouts()
+	{
+		// pixel-wise fallback, large enough to be split into several chunks
+		final Img< Unsigned128BitType > a = new ArrayImgFactory<>( new Unsigned128BitType() ).create( 300, 200 );
+		final Img< Unsigned128BitType > b = new CellImgFactory<>( new Unsigned128BitType(), 32 ).create( 300, 200 );
+		final Img< Unsigned128BitType > target = new ArrayImgFactory<>( new Unsigned128BitType() ).create( 300, 200 );
+		testBulkOperations( a, b, target );
+	}
+
+	private static void testBulkOperations( final Img< Unsigned128BitType > a, final Img< Unsigned128BitType > b, final Img< Unsigned128BitType > target )
+	{
+		final Random rnd = new Random( 16 );
+		a.forEach( t -> t.set( randomValue( rnd ) ) );
+		b.forEach( t -> t.set( randomValue( rnd ).get().add( BigInteger.ONE ).mod( MOD ).max( BigInteger.ONE ) ) );
+
+		Unsigned128BitOperations.add( a, b, target );
+		assertBulkResult( a, b, target, ( x, y ) -> x.add( y ).mod( MOD ) );
+		Unsigned128BitOperations.subtract( a, b, target );
+		assertBulkResult( a, b, target, ( x, y ) -> x.subtract( y ).mod( MOD ) );
+		Unsigned128BitOperations.multiply( a, b, target );
+		assertBulkResult( a, b, target, ( x, y ) -> x.multiply( y ).mod( MOD ) );
+		Unsigned128BitOperations.divide( a, b, target );
+		assertBulkResult( a, b, target, BigInteger::divide );
+
+		// pixel-wise fallback for views
+		Unsigned128BitOperations.add( Views.zeroMin( a ), b, target );
+		assertBulkResult( a, b, target, ( x, y ) -> x.add( y ).mod( MOD ) );
+	}
+
+	private static void assertBulkResult( final RandomAccessibleInterval< Unsigned128BitType > a, final RandomAccessibleInterval< Unsigned128BitType > b, final RandomAccessibleInterval< Unsigned128BitType > target, final BinaryOperator< BigInteger > expected )
+	{
+		LoopBuilder.setImages( a, b, target ).forEachPixel( ( x, y, t ) -> assertEquals( expected.apply( x.get(), y.get() ), t.get() ) );
+	}
 }
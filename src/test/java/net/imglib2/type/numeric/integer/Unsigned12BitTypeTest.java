@@ -43,6 +43,10 @@ import java.util.Random;
 import net.imglib2.img.array.ArrayImg;
 import net.imglib2.img.array.ArrayImgFactory;
 
+import java.util.Arrays;
+import net.imglib2.Cursor;
+import net.imglib2.parallel.TaskExecutor;
+import net.imglib2.parallel.TaskExecutors;
 import org.junit.BeforeClass;
 import org.junit.Test;
 
@@ -145,4 +149,30 @@ public class Unsigned12BitTypeTest
 		assertEquals( 3526, b.hashCode() );
 	}
 
+	/**
+	 * Concurrent writes of neighboring pixels, that share the same
+	 * {@code long} words, must not get lost.
+	 */
+	@Test
+	public void testConcurrentSet()
+	{
+		final int numThreads = 8;
+		final ArrayImg< Unsigned12BitType, ? > values = new ArrayImgFactory<>( new Unsigned12BitType() ).create( 1000, 100 );
+		try (TaskExecutor executor = TaskExecutors.fixedThreadPool( numThreads ))
+		{
+			executor.forEach( Arrays.asList( 0, 1, 2, 3, 4, 5, 6, 7 ), offset -> {
+				final Cursor< Unsigned12BitType > cursor = values.cursor();
+				cursor.jumpFwd( offset );
+				while ( cursor.hasNext() )
+				{
+					cursor.fwd();
+					cursor.get().set( 4095 - offset );
+					cursor.jumpFwd( numThreads - 1 );
+				}
+			} );
+		}
+		int i = 0;
+		for ( final Unsigned12BitType t : values )
+			assertEquals( 4095 - i++ % numThreads, t.get() );
+	}
 }
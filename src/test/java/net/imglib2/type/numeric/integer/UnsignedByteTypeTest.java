@@ -116,4 +116,42 @@ public class UnsignedByteTypeTest
 		l.setBigInteger( bi );
 		assertEquals( l.get(), 144 );
 	}
+
+	/**
+	 * Tests the fused and saturating operations of {@link GenericByteType}
+	 * with unsigned values.
+	 */
+	@Test
+	public void testFusedOperations()
+	{
+		final UnsignedByteType a = new UnsignedByteType( 200 );
+		a.addAndClamp( new UnsignedByteType( 100 ) );
+		assertEquals( 255, a.get() );
+		a.subAndClamp( new UnsignedByteType( 250 ) );
+		assertEquals( 5, a.get() );
+		a.subAndClamp( new UnsignedByteType( 10 ) );
+		assertEquals( 0, a.get() );
+		a.set( 20 );
+		a.mulAndClamp( new UnsignedByteType( 13 ) );
+		assertEquals( 255, a.get() );
+		a.set( 10 );
+		a.mulAdd( new UnsignedByteType( 150 ), new UnsignedByteType( 2 ) );
+		assertEquals( ( 10 + 300 ) & 0xff, a.get() );
+		a.set( 10 );
+		a.mulAddAndClamp( new UnsignedByteType( 150 ), new UnsignedByteType( 2 ) );
+		assertEquals( 255, a.get() );
+
+		// the wrapping operations are unchanged
+		a.set( 250 );
+		a.add( new UnsignedByteType( 10 ) );
+		assertEquals( 4, a.get() );
+		a.set( 200 );
+		a.div( new UnsignedByteType( 3 ) );
+		assertEquals( 66, a.get() );
+		a.set( 3 );
+		a.sub( new UnsignedByteType( 4 ) );
+		assertEquals( 255, a.get() );
+		a.inc();
+		assertEquals( 0, a.get() );
+	}
 }
@@ -117,4 +117,39 @@ public class UnsignedIntTypeTest
 		l.setBigInteger( bi );
 		assertEquals( l.get(), 1552356380l );
 	}
+
+	/**
+	 * Tests the fused and saturating operations of {@link GenericIntType}
+	 * with unsigned values, including products that overflow a long.
+	 */
+	@Test
+	public void testFusedOperations()
+	{
+		final long max = 0xffffffffL;
+		final UnsignedIntType a = new UnsignedIntType( max - 5 );
+		a.addAndClamp( new UnsignedIntType( 10 ) );
+		assertEquals( max, a.get() );
+		a.set( 5 );
+		a.subAndClamp( new UnsignedIntType( 10 ) );
+		assertEquals( 0, a.get() );
+		a.set( max );
+		a.mulAndClamp( new UnsignedIntType( max ) );
+		assertEquals( max, a.get() );
+		a.set( 65536 );
+		a.mulAndClamp( new UnsignedIntType( 65535 ) );
+		assertEquals( 65536L * 65535L, a.get() );
+		a.set( 7 );
+		a.mulAddAndClamp( new UnsignedIntType( max ), new UnsignedIntType( max ) );
+		assertEquals( max, a.get() );
+		a.set( 7 );
+		a.mulAdd( new UnsignedIntType( 65536 ), new UnsignedIntType( 65536 ) );
+		assertEquals( 7, a.get() );
+		a.set( max );
+		a.inc();
+		assertEquals( 0, a.get() );
+		a.dec();
+		assertEquals( max, a.get() );
+		a.div( new UnsignedIntType( 2 ) );
+		assertEquals( max / 2, a.get() );
+	}
 }
@@ -0,0 +1,100 @@
+/*-
+ * #%L
+ * ImgLib2: a general-purpose, multidimensional image processing library.
+ * %%
+ * Copyright (C) 2009 - 2021 Tobias Pietzsch, Stephan Preibisch, Stephan Saalfeld,
+ * John Bogovic, Albert Cardona, Barry DeZonia, Christian Dietz, Jan Funke,
+ * Aivar Grislis, Jonathan Hale, Grant Harris, Stefan Helfrich, Mark Hiner,
+ * Martin Horn, Steffen Jaensch, Lee Kamentsky, Larry Lindsey, Melissa Linkert,
+ * Mark Longair, Brian Northan, Nick Perry, Curtis Rueden, Johannes Schindelin,
+ * Jean-Yves Tinevez and Michael Zinsmaier.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+package net.imglib2.type.numeric.real;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import net.imglib2.converter.RealTypeConverters;
+import net.imglib2.img.Img;
+import net.imglib2.img.array.ArrayImgs;
+import net.imglib2.loops.LoopBuilder;
+
+import org.junit.Test;
+
+/**
+ * Tests {@link BFloat16Type}.
+ */
+public class BFloat16TypeTest
+{
+	@Test
+	public void testRoundTripAllValues()
+	{
+		for ( int h = 0; h < 1 << 16; ++h )
+		{
+			final float f = BFloat16Type.toFloat( ( short ) h );
+			if ( Float.isNaN( f ) )
+				assertTrue( Float.isNaN( BFloat16Type.toFloat( BFloat16Type.fromFloat( f ) ) ) );
+			else
+				assertEquals( h, BFloat16Type.fromFloat( f ) & 0xffff );
+		}
+	}
+
+	@Test
+	public void testRounding()
+	{
+		// ties round to even
+		assertEquals( 0x3f80, BFloat16Type.fromFloat( 1 + 0x1p-8f ) );
+		assertEquals( 0x3f82, BFloat16Type.fromFloat( 1 + 3 * 0x1p-8f ) );
+		assertEquals( 0x3f81, BFloat16Type.fromFloat( 1 + 0x1p-8f + 0x1p-20f ) );
+		assertEquals( 0x7f80, BFloat16Type.fromFloat( Float.MAX_VALUE ) );
+		assertEquals( BFloat16Type.MAX_VALUE, BFloat16Type.toFloat( ( short ) 0x7f7f ), 0 );
+		assertTrue( Float.isNaN( BFloat16Type.toFloat( BFloat16Type.fromFloat( Float.intBitsToFloat( 0x7f800001 ) ) ) ) );
+
+		final Random random = new Random( 8 );
+		for ( int i = 0; i < 100000; ++i )
+		{
+			final double value = random.nextGaussian() * Math.pow( 2, random.nextInt( 200 ) - 100 );
+			final BFloat16Type t = new BFloat16Type();
+			t.setReal( value );
+			final double error = Math.abs( t.getRealDouble() - value );
+			final short bits = t.getBits();
+			assertTrue( error <= Math.abs( BFloat16Type.toFloat( ( short ) ( bits + 1 ) ) - value ) );
+			assertTrue( error <= Math.abs( BFloat16Type.toFloat( ( short ) ( bits - 1 ) ) - value ) );
+		}
+	}
+
+	@Test
+	public void testConversion()
+	{
+		final Img< HalfFloatType > halfs = ArrayImgs.halfFloats( 10, 10 );
+		final Random random = new Random( 42 );
+		halfs.forEach( pixel -> pixel.set( random.nextFloat() * 1000 ) );
+		final Img< BFloat16Type > bfloats = ArrayImgs.bfloat16s( 10, 10 );
+		RealTypeConverters.copyFromTo( halfs, bfloats );
+		LoopBuilder.setImages( halfs, bfloats ).forEachPixel( ( h, b ) -> assertEquals( BFloat16Type.fromFloat( h.get() ), b.getBits() ) );
+	}
+}
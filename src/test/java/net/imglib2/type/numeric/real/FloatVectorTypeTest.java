@@ -0,0 +1,152 @@
+/*-
+ * #%L
+ * ImgLib2: a general-purpose, multidimensional image processing library.
+ * %%
+ * Copyright (C) 2009 - 2021 Tobias Pietzsch, Stephan Preibisch, Stephan Saalfeld,
+ * John Bogovic, Albert Cardona, Barry DeZonia, Christian Dietz, Jan Funke,
+ * Aivar Grislis, Jonathan Hale, Grant Harris, Stefan Helfrich, Mark Hiner,
+ * Martin Horn, Steffen Jaensch, Lee Kamentsky, Larry Lindsey, Melissa Linkert,
+ * Mark Longair, Brian Northan, Nick Perry, Curtis Rueden, Johannes Schindelin,
+ * Jean-Yves Tinevez and Michael Zinsmaier.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+package net.imglib2.type.numeric.real;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import net.imglib2.Cursor;
+import net.imglib2.RandomAccess;
+import net.imglib2.RandomAccessibleInterval;
+import net.imglib2.img.Img;
+import net.imglib2.img.array.ArrayImg;
+import net.imglib2.img.array.ArrayImgs;
+import net.imglib2.img.basictypeaccess.array.FloatArray;
+import net.imglib2.img.cell.CellImgFactory;
+import net.imglib2.test.ImgLib2Assert;
+import net.imglib2.util.Intervals;
+import net.imglib2.view.Views;
+
+public class FloatVectorTypeTest
+{
+	@Test
+	public void testVariable()
+	{
+		final FloatVectorType a = new FloatVectorType( 1, 2, 3 );
+		final FloatVectorType b = new FloatVectorType( 4, 5, 6 );
+		assertEquals( 3, a.numComponents() );
+		a.add( b );
+		assertEquals( new FloatVectorType( 5, 7, 9 ), a );
+		a.sub( b );
+		a.mul( b );
+		assertEquals( new FloatVectorType( 4, 10, 18 ), a );
+		a.div( b );
+		assertEquals( new FloatVectorType( 1, 2, 3 ), a );
+		a.mul( 2.0 );
+		assertEquals( new FloatVectorType( 2, 4, 6 ), a );
+		a.setOne();
+		assertEquals( new FloatVectorType( 1, 1, 1 ), a );
+		a.setZero();
+		assertEquals( new FloatVectorType( 0, 0, 0 ), a );
+		assertEquals( "[0.0, 0.0, 0.0]", a.toString() );
+		assertFalse( a.valueEquals( new FloatVectorType( 0, 0 ) ) );
+		assertEquals( a.hashCode(), a.copy().hashCode() );
+	}
+
+	@Test( expected = IllegalArgumentException.class )
+	public void testMismatchingComponents()
+	{
+		new FloatVectorType( 1, 2, 3 ).set( new FloatVectorType( 1, 2 ) );
+	}
+
+	@Test
+	public void testInterleavedStorage()
+	{
+		final ArrayImg< FloatVectorType, FloatArray > img = ArrayImgs.floatVectors( 3, 4, 2 );
+		final RandomAccess< FloatVectorType > ra = img.randomAccess();
+		ra.setPosition( new long[] { 1, 1 } );
+		ra.get().set( 7, 8, 9 );
+		ra.get().set( 0, 6 );
+		final float[] data = img.update( null ).getCurrentStorageArray();
+		assertEquals( 24, data.length );
+		assertArrayEquals( new float[] { 6, 8, 9 }, new float[] { data[ 15 ], data[ 16 ], data[ 17 ] }, 0 );
+		final float[] values = new float[ 3 ];
+		ra.get().get( values );
+		assertArrayEquals( new float[] { 6, 8, 9 }, values, 0 );
+	}
+
+	@Test
+	public void testCellImg()
+	{
+		final Img< FloatVectorType > img = new CellImgFactory<>( new FloatVectorType( 2 ), 3 ).create( 7, 5 );
+		long i = 0;
+		for ( final FloatVectorType v : img )
+		{
+			v.set( i, -i );
+			++i;
+		}
+		final Cursor< FloatVectorType > cursor = img.cursor();
+		final RandomAccess< FloatVectorType > ra = img.randomAccess();
+		while ( cursor.hasNext() )
+		{
+			cursor.fwd();
+			ra.setPosition( cursor );
+			assertEquals( cursor.get(), ra.get() );
+			assertEquals( -cursor.get().get( 0 ), cursor.get().get( 1 ), 0 );
+		}
+	}
+
+	@Test
+	public void testToChannelsArrayImg()
+	{
+		final float[] data = { 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12 };
+		final ArrayImg< FloatVectorType, FloatArray > img = ArrayImgs.floatVectors( data, 2, 3, 2 );
+		final RandomAccessibleInterval< FloatType > channels = FloatVectorType.toChannels( img );
+		assertArrayEquals( new long[] { 3, 2, 2 }, Intervals.dimensionsAsLongArray( channels ) );
+		final RandomAccess< FloatType > ra = channels.randomAccess();
+		ra.setPosition( new long[] { 2, 1, 1 } );
+		assertEquals( 12, ra.get().get(), 0 );
+		ra.get().set( 42 );
+		assertEquals( 42, data[ 11 ], 0 );
+		ImgLib2Assert.assertImageEquals( img, FloatVectorType.fromChannels( channels ) );
+	}
+
+	@Test
+	public void testToChannelsView()
+	{
+		final ArrayImg< FloatVectorType, FloatArray > img = ArrayImgs.floatVectors( new float[] { 1, 2, 3, 4, 5, 6 }, 3, 2 );
+		final RandomAccessibleInterval< FloatType > channels = FloatVectorType.toChannels( Views.translate( img, 5 ) );
+		assertArrayEquals( new long[] { 5, 0 }, Intervals.minAsLongArray( channels ) );
+		final RandomAccess< FloatType > ra = channels.randomAccess();
+		ra.setPosition( new long[] { 6, 2 } );
+		assertEquals( 6, ra.get().get(), 0 );
+		ra.get().set( -1 );
+		assertEquals( -1, img.getAt( 1 ).get( 2 ), 0 );
+		assertTrue( FloatVectorType.fromChannels( channels ).getAt( 1 ).valueEquals( new FloatVectorType( 4, 5, -1 ) ) );
+	}
+}
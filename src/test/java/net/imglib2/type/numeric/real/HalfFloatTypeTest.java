@@ -0,0 +1,164 @@
+/*-
+ * #%L
+ * ImgLib2: a general-purpose, multidimensional image processing library.
+ * %%
+ * Copyright (C) 2009 - 2021 Tobias Pietzsch, Stephan Preibisch, Stephan Saalfeld,
+ * John Bogovic, Albert Cardona, Barry DeZonia, Christian Dietz, Jan Funke,
+ * Aivar Grislis, Jonathan Hale, Grant Harris, Stefan Helfrich, Mark Hiner,
+ * Martin Horn, Steffen Jaensch, Lee Kamentsky, Larry Lindsey, Melissa Linkert,
+ * Mark Longair, Brian Northan, Nick Perry, Curtis Rueden, Johannes Schindelin,
+ * Jean-Yves Tinevez and Michael Zinsmaier.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+package net.imglib2.type.numeric.real;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import net.imglib2.converter.RealTypeConverters;
+import net.imglib2.img.Img;
+import net.imglib2.img.array.ArrayImgs;
+import net.imglib2.img.cell.CellImgFactory;
+import net.imglib2.loops.LoopBuilder;
+
+import org.junit.Test;
+
+/**
+ * Tests {@link HalfFloatType}.
+ */
+public class HalfFloatTypeTest
+{
+	@Test
+	public void testRoundTripAllValues()
+	{
+		for ( int h = 0; h < 1 << 16; ++h )
+		{
+			final float f = HalfFloatType.toFloat( ( short ) h );
+			if ( Float.isNaN( f ) )
+				assertTrue( Float.isNaN( HalfFloatType.toFloat( HalfFloatType.fromFloat( f ) ) ) );
+			else
+				assertEquals( h, HalfFloatType.fromFloat( f ) & 0xffff );
+		}
+	}
+
+	@Test
+	public void testSpecialValues()
+	{
+		assertEquals( 1f, HalfFloatType.toFloat( ( short ) 0x3c00 ), 0 );
+		assertEquals( -2f, HalfFloatType.toFloat( ( short ) 0xc000 ), 0 );
+		assertEquals( HalfFloatType.MAX_VALUE, HalfFloatType.toFloat( ( short ) 0x7bff ), 0 );
+		assertEquals( HalfFloatType.MIN_VALUE, HalfFloatType.toFloat( ( short ) 0x0001 ), 0 );
+		assertEquals( 0x7c00, HalfFloatType.fromFloat( 65520f ) );
+		assertEquals( 0x7bff, HalfFloatType.fromFloat( 65519f ) );
+		assertEquals( 0xfc00, HalfFloatType.fromFloat( Float.NEGATIVE_INFINITY ) & 0xffff );
+		assertEquals( 0x8000, HalfFloatType.fromFloat( -0f ) & 0xffff );
+		assertEquals( 0, HalfFloatType.fromFloat( 0x1p-25f ) );
+		assertEquals( 1, HalfFloatType.fromFloat( Math.nextUp( 0x1p-25f ) ) );
+		// ties round to even
+		assertEquals( 0x3c00, HalfFloatType.fromFloat( 1 + 0x1p-11f ) );
+		assertEquals( 0x3c02, HalfFloatType.fromFloat( 1 + 3 * 0x1p-11f ) );
+	}
+
+	@Test
+	public void testRoundsToNearest()
+	{
+		final Random random = new Random( 16 );
+		for ( int i = 0; i < 100000; ++i )
+		{
+			final float f = ( float ) ( random.nextGaussian() * Math.pow( 2, random.nextInt( 44 ) - 28 ) );
+			final short h = HalfFloatType.fromFloat( f );
+			assertNearest( f, h );
+			final HalfFloatType t = new HalfFloatType();
+			t.setReal( ( double ) f );
+			assertEquals( h, t.getBits() );
+		}
+	}
+
+	private static void assertNearest( final double value, final short h )
+	{
+		final double result = HalfFloatType.toFloat( h );
+		if ( Double.isInfinite( result ) )
+		{
+			assertTrue( Math.abs( value ) >= 65520 );
+			return;
+		}
+		final double error = Math.abs( result - value );
+		assertTrue( error <= Math.abs( HalfFloatType.toFloat( ( short ) ( h + 1 ) ) - value ) );
+		if ( ( h & 0x7fff ) != 0 )
+			assertTrue( error <= Math.abs( HalfFloatType.toFloat( ( short ) ( h - 1 ) ) - value ) );
+	}
+
+	@Test
+	public void testSetRealDoubleAvoidsDoubleRounding()
+	{
+		// rounds to 1 + 2^-11 as float, which would tie to 1 in half precision
+		final double value = 1 + 0x1p-11 + 0x1p-40;
+		final HalfFloatType t = new HalfFloatType();
+		t.setReal( value );
+		assertEquals( 1 + 0x1p-10f, t.get(), 0 );
+	}
+
+	@Test
+	public void testArithmetic()
+	{
+		final HalfFloatType a = new HalfFloatType( 1.5f );
+		final HalfFloatType b = new HalfFloatType( 0.25f );
+		a.add( b );
+		assertEquals( 1.75f, a.get(), 0 );
+		a.mul( b );
+		assertEquals( 0.4375f, a.get(), 0 );
+		a.sub( b );
+		assertEquals( 0.1875f, a.get(), 0 );
+		a.div( b );
+		assertEquals( 0.75f, a.get(), 0 );
+		a.inc();
+		assertEquals( 1.75f, a.get(), 0 );
+		assertEquals( a, a.copy() );
+		assertTrue( a.compareTo( b ) > 0 );
+	}
+
+	@Test
+	public void testImages()
+	{
+		final Img< FloatType > floats = ArrayImgs.floats( 20, 30 );
+		final Random random = new Random( 42 );
+		floats.forEach( pixel -> pixel.set( random.nextFloat() * 100 ) );
+
+		final Img< HalfFloatType > halfs = ArrayImgs.halfFloats( 20, 30 );
+		RealTypeConverters.copyFromTo( floats, halfs );
+		LoopBuilder.setImages( floats, halfs ).forEachPixel( ( f, h ) -> assertEquals( HalfFloatType.fromFloat( f.get() ), h.getBits() ) );
+
+		final Img< HalfFloatType > cells = new CellImgFactory<>( new HalfFloatType(), 7 ).create( 20, 30 );
+		RealTypeConverters.copyFromTo( halfs, cells );
+		LoopBuilder.setImages( halfs, cells ).forEachPixel( ( a, b ) -> assertEquals( a.getBits(), b.getBits() ) );
+
+		final float[] array = new float[ 600 ];
+		final short[] bits = new short[ 600 ];
+		HalfFloatType.fromFloat( ArrayImgs.floats( 600 ).update( null ).getCurrentStorageArray(), 0, bits, 0, 600 );
+		HalfFloatType.toFloat( bits, 0, array, 0, 600 );
+		assertEquals( 0, array[ 599 ], 0 );
+	}
+}
@@ -41,6 +41,8 @@ import org.junit.Assert;
 import org.junit.BeforeClass;
 import org.junit.Test;
 
+import net.imglib2.img.array.ArrayImgs;
+
 /**
  * 
  * 
@@ -137,4 +139,125 @@ public class RealSumTest
 			Assert.assertEquals( sum, stream.length, 0.0001 );
 		}
 	}
+
+	/**
+	 * Test method for {@link net.imglib2.util.RealSum#add(double[], int, int)}.
+	 */
+	@Test
+	public void testAddDoubleArray()
+	{
+		final RealSum sum = new RealSum();
+		sum.add( stream, 0, 1000 );
+		sum.add( stream, 1000, stream.length - 1000 );
+		Assert.assertEquals( referenceSum.doubleValue(), sum.getSum(), 0.0001 );
+	}
+
+	/**
+	 * Test method for {@link net.imglib2.util.RealSum#add(float[], int, int)}.
+	 */
+	@Test
+	public void testAddFloatArray()
+	{
+		final float[] values = new float[ stream.length ];
+		BigDecimal reference = new BigDecimal( 0.0 );
+		for ( int i = 0; i < values.length; ++i )
+		{
+			values[ i ] = ( float ) stream[ i ];
+			reference = reference.add( new BigDecimal( values[ i ] ) );
+		}
+		final RealSum sum = new RealSum();
+		sum.add( values, 3, values.length - 3 );
+		for ( int i = 0; i < 3; ++i )
+			sum.add( values[ i ] );
+		Assert.assertEquals( reference.doubleValue(), sum.getSum(), 0.0001 );
+	}
+
+	/**
+	 * Test method for {@link net.imglib2.util.RealSum#add(short[], int, int)}
+	 * and the other integer arrays.
+	 */
+	@Test
+	public void testAddIntegerArrays()
+	{
+		final int[] ints = new int[ 10007 ];
+		final short[] shorts = new short[ ints.length ];
+		final byte[] bytes = new byte[ ints.length ];
+		long expected = 0;
+		for ( int i = 0; i < ints.length; ++i )
+		{
+			ints[ i ] = shorts[ i ] = bytes[ i ] = ( byte ) rnd.nextInt();
+			expected += bytes[ i ];
+		}
+		final RealSum intSum = new RealSum();
+		intSum.add( ints, 0, ints.length );
+		final RealSum shortSum = new RealSum();
+		shortSum.add( shorts, 0, shorts.length );
+		final RealSum byteSum = new RealSum();
+		byteSum.add( bytes, 0, bytes.length );
+		Assert.assertEquals( expected, intSum.getSum(), 0 );
+		Assert.assertEquals( expected, shortSum.getSum(), 0 );
+		Assert.assertEquals( expected, byteSum.getSum(), 0 );
+	}
+
+	/**
+	 * Test method for {@link net.imglib2.util.RealSum#addUnsigned(short[], int, int)}
+	 * and the other integer arrays.
+	 */
+	@Test
+	public void testAddUnsignedIntegerArrays()
+	{
+		final int[] ints = new int[ 10007 ];
+		final short[] shorts = new short[ ints.length ];
+		final byte[] bytes = new byte[ ints.length ];
+		long expected = 0;
+		for ( int i = 0; i < ints.length; ++i )
+		{
+			ints[ i ] = shorts[ i ] = bytes[ i ] = ( byte ) rnd.nextInt();
+			expected += bytes[ i ] & 0xff;
+		}
+		final RealSum byteSum = new RealSum();
+		byteSum.addUnsigned( bytes, 0, bytes.length );
+		Assert.assertEquals( expected, byteSum.getSum(), 0 );
+		long expectedShorts = 0;
+		long expectedInts = 0;
+		for ( int i = 0; i < ints.length; ++i )
+		{
+			expectedShorts += shorts[ i ] & 0xffff;
+			expectedInts += ints[ i ] & 0xffffffffL;
+		}
+		final RealSum shortSum = new RealSum();
+		shortSum.addUnsigned( shorts, 0, shorts.length );
+		final RealSum intSum = new RealSum();
+		intSum.addUnsigned( ints, 0, ints.length );
+		Assert.assertEquals( expectedShorts, shortSum.getSum(), 0 );
+		Assert.assertEquals( expectedInts, intSum.getSum(), 0 );
+	}
+
+	/**
+	 * Test method for {@link net.imglib2.util.RealSum#addAll(net.imglib2.IterableInterval)}.
+	 */
+	@Test
+	public void testAddAll()
+	{
+		final RealSum sum = new RealSum();
+		sum.addAll( ArrayImgs.doubles( stream, stream.length ) );
+		Assert.assertEquals( referenceSum.doubleValue(), sum.getSum(), 0.0001 );
+	}
+
+	/**
+	 * Test method for {@link net.imglib2.util.RealSum#add(RealSum)}.
+	 */
+	@Test
+	public void testMerge()
+	{
+		final RealSum a = new RealSum();
+		final RealSum b = new RealSum();
+		for ( int i = 0; i < stream.length; ++i )
+			( i < 123457 ? a : b ).add( stream[ i ] );
+		a.add( b );
+		Assert.assertEquals( referenceSum.doubleValue(), a.getSum(), 0.0001 );
+		final RealSum empty = new RealSum();
+		empty.add( a );
+		Assert.assertEquals( a.getSum(), empty.getSum(), 0.0001 );
+	}
 }
@@ -0,0 +1,167 @@
+/*-
+ * #%L
+ * ImgLib2: a general-purpose, multidimensional image processing library.
+ * %%
+ * Copyright (C) 2009 - 2021 Tobias Pietzsch, Stephan Preibisch, Stephan Saalfeld,
+ * John Bogovic, Albert Cardona, Barry DeZonia, Christian Dietz, Jan Funke,
+ * Aivar Grislis, Jonathan Hale, Grant Harris, Stefan Helfrich, Mark Hiner,
+ * Martin Horn, Steffen Jaensch, Lee Kamentsky, Larry Lindsey, Melissa Linkert,
+ * Mark Longair, Brian Northan, Nick Perry, Curtis Rueden, Johannes Schindelin,
+ * Jean-Yves Tinevez and Michael Zinsmaier.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+package net.imglib2.view;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import net.imglib2.Cursor;
+import net.imglib2.RandomAccess;
+import net.imglib2.RandomAccessible;
+import net.imglib2.RandomAccessibleInterval;
+import net.imglib2.converter.Converters;
+import net.imglib2.converter.read.ConvertedRandomAccessible;
+import net.imglib2.img.array.ArrayImg;
+import net.imglib2.img.array.ArrayImgs;
+import net.imglib2.img.basictypeaccess.array.IntArray;
+import net.imglib2.transform.integer.SubsampleTransform;
+import net.imglib2.type.numeric.integer.IntType;
+import net.imglib2.type.numeric.real.DoubleType;
+
+public class TransformBuilderTest
+{
+	private final ArrayImg< IntType, IntArray > image = createImage();
+
+	private static ArrayImg< IntType, IntArray > createImage()
+	{
+		final ArrayImg< IntType, IntArray > image = ArrayImgs.ints( 20, 30, 40 );
+		int i = 0;
+		for ( final IntType pixel : image )
+			pixel.set( i++ );
+		return image;
+	}
+
+	private int expected( final long x, final long y, final long z )
+	{
+		return ( int ) ( x + 20 * ( y + 30 * z ) );
+	}
+
+	@Test
+	public void testSubsampleIsFoldedIntoMixedTransforms()
+	{
+		final RandomAccessibleInterval< IntType > view = Views.zeroMin( Views.hyperSlice(
+				Views.permute( Views.subsample( Views.translate( image, 5, 6, 7 ), 2, 3, 4 ), 0, 2 ),
+				1, 2 ) );
+		final RandomAccessible< IntType > efficient = TransformBuilder.getEfficientRandomAccessible( view, view );
+		assertTrue( efficient instanceof SubsampleView );
+		assertFalse( ( ( SubsampleView< IntType > ) efficient ).getSource() instanceof SubsampleView );
+
+		// view( a, b ) = permuted( a, 2, b ) = subsampled( b, 2, a ) = image( 2 * b, 3 * 2, 4 * a )
+		final RandomAccess< IntType > ra = efficient.randomAccess();
+		for ( long a = 0; a < view.dimension( 0 ); a++ )
+			for ( long b = 0; b < view.dimension( 1 ); b++ )
+			{
+				ra.setPosition( new long[] { a, b } );
+				assertEquals( expected( 2 * b, 6, 4 * a ), ra.get().get() );
+			}
+	}
+
+	@Test
+	public void testNestedSubsampling()
+	{
+		final RandomAccessibleInterval< IntType > view = Views.subsample( Views.invertAxis( Views.subsample( image, 2 ), 1 ), 1, 3, 2 );
+		final RandomAccessible< IntType > efficient = TransformBuilder.getEfficientRandomAccessible( view, Views.interval( view, view ) );
+		final RandomAccess< IntType > ra = efficient.randomAccess();
+		final RandomAccess< IntType > reference = image.randomAccess();
+		final long[] position = new long[ 3 ];
+		for ( long z = 0; z < view.dimension( 2 ); z++ )
+			for ( long y = 0; y < view.dimension( 1 ); y++ )
+				for ( long x = 0; x < view.dimension( 0 ); x++ )
+				{
+					ra.setPosition( new long[] { x, y, z } );
+					// invertAxis maps y to -y, which is then moved to zero by subsample
+					position[ 0 ] = 2 * x;
+					position[ 1 ] = 2 * ( 14 - 3 * y );
+					position[ 2 ] = 4 * z;
+					reference.setPosition( position );
+					assertEquals( reference.get().get(), ra.get().get() );
+				}
+	}
+
+	@Test
+	public void testConverterIsMovedOutwards()
+	{
+		final RandomAccessibleInterval< DoubleType > converted = Converters.convert(
+				( RandomAccessibleInterval< IntType > ) Views.translate( image, 1, 2, 3 ),
+				( a, b ) -> b.set( 0.5 * a.get() ),
+				new DoubleType() );
+		final RandomAccessibleInterval< DoubleType > view = Views.zeroMin( Views.permute( converted, 0, 2 ) );
+		// the translations and the permutation below and above the converter are joined
+		final TransformBuilder< DoubleType > builder = new TransformBuilder<>( view, view );
+		assertEquals( 1, builder.transforms.size() );
+		assertEquals( 1, builder.converters.size() );
+		assertSame( image, builder.source );
+
+		final RandomAccessible< DoubleType > efficient = builder.build();
+		assertTrue( efficient instanceof ConvertedRandomAccessible );
+
+		// view( x, y, z ) = converted( z + 1, y + 2, x + 3 ) = 0.5 * image( z, y, x )
+		final RandomAccess< DoubleType > ra = efficient.randomAccess();
+		for ( long z = 0; z < view.dimension( 2 ); z += 3 )
+			for ( long y = 0; y < view.dimension( 1 ); y += 5 )
+				for ( long x = 0; x < view.dimension( 0 ); x += 7 )
+				{
+					ra.setPosition( new long[] { x, y, z } );
+					assertEquals( 0.5 * expected( z, y, x ), ra.get().get(), 0 );
+				}
+	}
+
+	@Test
+	public void testIterateConvertedView()
+	{
+		final RandomAccessibleInterval< DoubleType > view = Views.hyperSlice(
+				Converters.convert( ( RandomAccessibleInterval< IntType > ) image, ( a, b ) -> b.set( a.get() ), new DoubleType() ),
+				2, 4 );
+		final Cursor< DoubleType > cursor = Views.flatIterable( view ).localizingCursor();
+		while ( cursor.hasNext() )
+		{
+			final DoubleType value = cursor.next();
+			assertEquals( expected( cursor.getLongPosition( 0 ), cursor.getLongPosition( 1 ), 4 ), value.get(), 0 );
+		}
+	}
+
+	@Test
+	public void testSubsampleTransform()
+	{
+		final SubsampleTransform t = new SubsampleTransform( 2, 3 ).concatenate( new SubsampleTransform( 5, 7 ) );
+		final long[] target = new long[ 2 ];
+		t.apply( new long[] { 1, 2 }, target );
+		assertEquals( 10, target[ 0 ] );
+		assertEquals( 42, target[ 1 ] );
+	}
+}
@@ -0,0 +1,203 @@
+/*-
+ * #%L
+ * ImgLib2: a general-purpose, multidimensional image processing library.
+ * %%
+ * Copyright (C) 2009 - 2021 Tobias Pietzsch, Stephan Preibisch, Stephan Saalfeld,
+ * John Bogovic, Albert Cardona, Barry DeZonia, Christian Dietz, Jan Funke,
+ * Aivar Grislis, Jonathan Hale, Grant Harris, Stefan Helfrich, Mark Hiner,
+ * Martin Horn, Steffen Jaensch, Lee Kamentsky, Larry Lindsey, Melissa Linkert,
+ * Mark Longair, Brian Northan, Nick Perry, Curtis Rueden, Johannes Schindelin,
+ * Jean-Yves Tinevez and Michael Zinsmaier.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+package net.imglib2.view;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import net.imglib2.Cursor;
+import net.imglib2.IterableInterval;
+import net.imglib2.RandomAccess;
+import net.imglib2.RandomAccessibleInterval;
+import net.imglib2.img.array.ArrayImg;
+import net.imglib2.img.array.ArrayImgs;
+import net.imglib2.img.array.StridedArrayCursor;
+import net.imglib2.img.basictypeaccess.array.IntArray;
+import net.imglib2.type.numeric.integer.IntType;
+import net.imglib2.util.Intervals;
+
+/**
+ * Tests the optimized cursors returned for views by {@link Views#iterable}
+ * and {@link Views#flatIterable}.
+ */
+public class ViewCursorsTest
+{
+	private final ArrayImg< IntType, IntArray > image = createImage();
+
+	private static ArrayImg< IntType, IntArray > createImage()
+	{
+		final ArrayImg< IntType, IntArray > image = ArrayImgs.ints( 12, 9, 7 );
+		int i = 0;
+		for ( final IntType pixel : image )
+			pixel.set( i++ );
+		return image;
+	}
+
+	@Test
+	public void testSubsample()
+	{
+		final RandomAccessibleInterval< IntType > view = Views.subsample( Views.translate( image, 3, 4, 5 ), 2, 3, 2 );
+		assertCursor( view, StridedArrayCursor.class );
+	}
+
+	@Test
+	public void testPermute()
+	{
+		final RandomAccessibleInterval< IntType > view = Views.permute( Views.translate( image, -1, 2, 0 ), 0, 2 );
+		assertCursor( view, StridedArrayCursor.class );
+	}
+
+	@Test
+	public void testInvertedSlice()
+	{
+		final RandomAccessibleInterval< IntType > view = Views.invertAxis( Views.hyperSlice( image, 1, 4 ), 0 );
+		assertCursor( view, StridedArrayCursor.class );
+		assertCursor( Views.interval( view, Intervals.createMinSize( -8, 2, 4, 3 ) ), StridedArrayCursor.class );
+	}
+
+	@Test
+	public void testStackView()
+	{
+		final RandomAccessibleInterval< IntType > view = Views.stack( Views.hyperSlice( image, 2, 1 ), Views.hyperSlice( image, 2, 5 ), Views.hyperSlice( image, 2, 3 ) );
+		assertCursor( view, StackViewCursor.class );
+		assertCursor( Views.interval( view, Intervals.createMinSize( 2, 1, 1, 5, 4, 2 ) ), StackViewCursor.class );
+	}
+
+	@Test
+	public void testStackViewJumpFwd()
+	{
+		final RandomAccessibleInterval< IntType > view = Views.stack( Views.hyperSlice( image, 2, 1 ), Views.hyperSlice( image, 2, 5 ), Views.hyperSlice( image, 2, 3 ) );
+		final long size = Intervals.numElements( view );
+		for ( final long first : new long[] { 1, 50, 107, 108, 109 } )
+			for ( final long second : new long[] { 1, 7, 108, 150 } )
+			{
+				if ( first + second > size )
+					continue;
+				final Cursor< IntType > jumping = Views.flatIterable( view ).cursor();
+				jumping.jumpFwd( first );
+				jumping.jumpFwd( second );
+				final Cursor< IntType > walking = Views.flatIterable( view ).cursor();
+				for ( long i = 0; i < first + second; ++i )
+					walking.fwd();
+				assertArrayEquals( positionOf( walking ), positionOf( jumping ) );
+				assertEquals( walking.get().get(), jumping.get().get() );
+				assertEquals( walking.hasNext(), jumping.hasNext() );
+			}
+	}
+
+	@Test
+	public void testCursorsOfOneIterableAreIndependent()
+	{
+		final IterableInterval< IntType > iterable = Views.iterable( Views.permute( image, 0, 1 ) );
+		final Cursor< IntType > a = iterable.cursor();
+		a.fwd();
+		a.fwd();
+		final Cursor< IntType > b = iterable.cursor();
+		b.fwd();
+		assertEquals( iterable.firstElement().get(), b.get().get() );
+		assertTrue( a.get().get() != b.get().get() );
+	}
+
+	@Test
+	public void testOutOfBoundsFallsBack()
+	{
+		final RandomAccessibleInterval< IntType > view = Views.interval( Views.extendZero( image ), Intervals.createMinSize( -1, 0, 0, 5, 5, 5 ) );
+		final Cursor< IntType > cursor = Views.iterable( view ).cursor();
+		assertFalse( cursor instanceof StridedArrayCursor );
+		long sum = 0;
+		while ( cursor.hasNext() )
+			sum += cursor.next().get();
+		long expected = 0;
+		for ( final IntType pixel : Views.interval( image, Intervals.createMinSize( 0, 0, 0, 4, 5, 5 ) ) )
+			expected += pixel.get();
+		assertEquals( expected, sum );
+	}
+
+	/**
+	 * Checks that the cursor has the expected class and visits all pixels in
+	 * flat iteration order, and that {@code jumpFwd} and {@code copy} work.
+	 */
+	private static void assertCursor( final RandomAccessibleInterval< IntType > view, final Class< ? > expectedClass )
+	{
+		final Cursor< IntType > cursor = Views.flatIterable( view ).cursor();
+		assertTrue( expectedClass.isInstance( cursor ) );
+		assertTrue( expectedClass.isInstance( Views.iterable( view ).cursor() ) );
+		final RandomAccess< IntType > ra = view.randomAccess();
+		final long[] expected = Intervals.minAsLongArray( view );
+		final long[] actual = new long[ view.numDimensions() ];
+		long count = 0;
+		while ( cursor.hasNext() )
+		{
+			cursor.fwd();
+			cursor.localize( actual );
+			assertArrayEquals( expected, actual );
+			ra.setPosition( expected );
+			assertEquals( ra.get().get(), cursor.get().get() );
+			++count;
+			for ( int d = 0; d < expected.length; ++d )
+			{
+				if ( ++expected[ d ] <= view.max( d ) )
+					break;
+				expected[ d ] = view.min( d );
+			}
+		}
+		assertEquals( Intervals.numElements( view ), count );
+
+		final long jump = count / 3;
+		final Cursor< IntType > jumping = Views.flatIterable( view ).cursor();
+		jumping.jumpFwd( jump );
+		final Cursor< IntType > walking = Views.flatIterable( view ).cursor();
+		for ( long i = 0; i < jump; ++i )
+			walking.fwd();
+		assertEquals( walking.get().get(), jumping.get().get() );
+		final Cursor< IntType > copy = jumping.copyCursor();
+		jumping.fwd();
+		copy.fwd();
+		assertEquals( jumping.get().get(), copy.get().get() );
+		assertTrue( Arrays.equals( positionOf( jumping ), positionOf( copy ) ) );
+	}
+
+	private static long[] positionOf( final Cursor< ? > cursor )
+	{
+		final long[] position = new long[ cursor.numDimensions() ];
+		cursor.localize( position );
+		return position;
+	}
+}